@@ -0,0 +1,52 @@
+package org.example.apigateway.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бюджет хеджирования маршрута по схеме token bucket.
+ * Каждый входящий запрос пополняет бюджет на долю {@code budgetPercent / 100} токена,
+ * каждый отправленный хедж забирает один целый токен. Таким образом дополнительная нагрузка
+ * на апстрим не превышает заданного процента от основного трафика.
+ * Токены хранятся в тысячных долях, чтобы обойтись без блокировок.
+ */
+public class HedgingBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens = new AtomicLong();
+
+    /**
+     * @param budgetPercent максимальная доля дополнительных запросов, в процентах
+     * @param burst         максимальное количество хеджей, которое можно накопить впрок
+     */
+    public HedgingBudget(int budgetPercent, int burst) {
+        this.depositPerRequest = SCALE * budgetPercent / 100;
+        this.maxTokens = SCALE * burst;
+    }
+
+    /**
+     * Пополняет бюджет при поступлении очередного запроса.
+     */
+    public void onRequest() {
+        tokens.accumulateAndGet(depositPerRequest, (current, delta) -> Math.min(maxTokens, current + delta));
+    }
+
+    /**
+     * Пытается списать токен на отправку хеджа.
+     *
+     * @return {@code true}, если бюджет позволяет отправить хедж
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.example.apigateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * Фильтр хеджирования запросов для маршрутов с балансировкой через Eureka ({@code lb://}).
+ *
+ * Включается на маршруте явно ({@code - name: Hedging}) и действует только на идемпотентные
+ * методы GET и HEAD. Фильтр выполняется сразу после {@link ReactiveLoadBalancerClientFilter},
+ * поэтому основной запрос уходит на уже выбранный балансировщиком экземпляр. Если ответ не пришёл
+ * за измеренный p95 задержки апстрима, копия запроса отправляется на другой экземпляр того же
+ * сервиса. Побеждает первый полученный ответ, проигравший запрос отменяется.
+ *
+ * Доля дополнительных запросов ограничена {@link HedgingBudget}. Метрики публикуются с префиксом
+ * {@code gateway.hedging} и тегом {@code route}.
+ *
+ * Ответ апстрима буферизуется целиком, поэтому фильтр предназначен для небольших ответов
+ * и должен стоять последним в списке фильтров маршрута. Потоковые запросы
+ * ({@code Accept: text/event-stream}, а также выгрузки в {@code text/csv} и {@code application/x-ndjson})
+ * проходят мимо фильтра.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    private static final Set<HttpMethod> HEDGEABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+    private static final List<MediaType> STREAMING_TYPES = List.of(
+            MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_NDJSON, new MediaType("text", "csv"));
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WebClient webClient;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteState> states = new ConcurrentHashMap<>();
+
+    public HedgingGatewayFilterFactory(WebClient.Builder webClientBuilder,
+                                       ReactiveDiscoveryClient discoveryClient,
+                                       ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                       MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.webClient = webClientBuilder.build();
+        this.discoveryClient = discoveryClient;
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config),
+                ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI primaryUri = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+
+        if (!HEDGEABLE_METHODS.contains(request.getMethod()) || route == null || primaryUri == null
+                || isAlreadyRouted(exchange) || acceptsStream(request)) {
+            return chain.filter(exchange);
+        }
+
+        RouteState state = states.computeIfAbsent(route.getId(), id -> new RouteState(id, config));
+        state.requests.increment();
+        state.budget.onRequest();
+
+        // без фильтров заголовков возвращаются заголовки самого запроса, которые нельзя менять
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange));
+        headers.remove(HttpHeaders.HOST);
+
+        Mono<UpstreamResponse> primary = send(request.getMethod(), primaryUri, headers, state, Attempt.PRIMARY);
+        Mono<UpstreamResponse> hedge = Mono.delay(state.hedgeDelay(config))
+                .flatMap(tick -> alternativeUri(route, primaryUri))
+                .filter(uri -> state.tryAcquireBudget())
+                .flatMap(uri -> send(request.getMethod(), uri, headers, state, Attempt.HEDGE));
+
+        setAlreadyRouted(exchange);
+
+        return Mono.firstWithValue(primary, hedge)
+                .onErrorMap(HedgingGatewayFilterFactory::unwrapError)
+                .flatMap(response -> {
+                    state.winsOf(response.attempt()).increment();
+                    return writeResponse(exchange, response.entity());
+                });
+    }
+
+    private static boolean acceptsStream(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(accept -> STREAMING_TYPES.stream().anyMatch(accept::equalsTypeAndSubtype));
+    }
+
+    /**
+     * Отправляет одну попытку запроса в апстрим и измеряет её задержку.
+     */
+    private Mono<UpstreamResponse> send(HttpMethod method, URI uri, HttpHeaders headers,
+                                        RouteState state, Attempt attempt) {
+        if (attempt == Attempt.HEDGE) {
+            state.hedges.increment();
+        }
+        long start = System.nanoTime();
+
+        return webClient.method(method)
+                .uri(uri)
+                .headers(target -> target.addAll(headers))
+                .exchangeToMono(response -> response.toEntity(byte[].class))
+                .doOnNext(entity -> state.upstream.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .map(entity -> new UpstreamResponse(attempt, entity));
+    }
+
+    /**
+     * Выбирает для хеджа экземпляр сервиса, отличный от того, куда ушёл основной запрос.
+     *
+     * @return URI на другом экземпляре или пустой {@link Mono}, если других экземпляров нет
+     */
+    private Mono<URI> alternativeUri(Route route, URI primaryUri) {
+        URI routeUri = route.getUri();
+        if (!"lb".equals(routeUri.getScheme())) {
+            return Mono.empty();
+        }
+
+        return discoveryClient.getInstances(routeUri.getHost())
+                .filter(instance -> !isSameInstance(instance, primaryUri))
+                .collectList()
+                .filter(instances -> !instances.isEmpty())
+                .map(instances -> instances.get(ThreadLocalRandom.current().nextInt(instances.size())))
+                .map(instance -> UriComponentsBuilder.fromUri(primaryUri)
+                        .scheme(instance.isSecure() ? "https" : "http")
+                        .host(instance.getHost())
+                        .port(instance.getPort())
+                        .build(true)
+                        .toUri());
+    }
+
+    private Mono<Void> writeResponse(ServerWebExchange exchange, ResponseEntity<byte[]> entity) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(entity.getStatusCode());
+        response.getHeaders().putAll(HttpHeadersFilter.filter(headersFilters.getIfAvailable(),
+                entity.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE));
+
+        byte[] body = entity.getBody();
+        if (body == null) {
+            return response.setComplete();
+        }
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static boolean isSameInstance(ServiceInstance instance, URI uri) {
+        return instance.getHost().equalsIgnoreCase(uri.getHost()) && instance.getPort() == uri.getPort();
+    }
+
+    /**
+     * Если обе попытки завершились неудачно (или хедж не отправлялся), возвращает исходную ошибку
+     * основного запроса вместо составного исключения {@link Mono#firstWithValue}.
+     */
+    private static Throwable unwrapError(Throwable error) {
+        if (error instanceof NoSuchElementException && error.getSuppressed().length > 0) {
+            return error.getSuppressed()[0];
+        }
+
+        return Exceptions.unwrapMultiple(error).get(0);
+    }
+
+    private enum Attempt {
+        PRIMARY, HEDGE
+    }
+
+    private record UpstreamResponse(Attempt attempt, ResponseEntity<byte[]> entity) {
+    }
+
+    /**
+     * Состояние хеджирования одного маршрута: бюджет, гистограмма задержек апстрима и счётчики.
+     * Хранится в фабрике по id маршрута, чтобы переживать обновление маршрутов.
+     */
+    private final class RouteState {
+
+        private final HedgingBudget budget;
+        private final Timer upstream;
+        private final Counter requests;
+        private final Counter hedges;
+        private final Counter budgetExhausted;
+        private final Counter primaryWins;
+        private final Counter hedgeWins;
+
+        private volatile long delayNanos;
+        private volatile long delayComputedAt;
+
+        private RouteState(String routeId, Config config) {
+            this.budget = new HedgingBudget(config.getBudgetPercent(), config.getBurst());
+            this.upstream = Timer.builder("gateway.hedging.upstream")
+                    .description("Задержка отдельных попыток запроса к апстриму")
+                    .tag("route", routeId)
+                    .publishPercentiles(0.95)
+                    .distributionStatisticExpiry(Duration.ofMinutes(1))
+                    .register(meterRegistry);
+            this.requests = counter("gateway.hedging.requests", routeId);
+            this.hedges = counter("gateway.hedging.hedges", routeId);
+            this.budgetExhausted = counter("gateway.hedging.budget.exhausted", routeId);
+            this.primaryWins = Counter.builder("gateway.hedging.wins")
+                    .tag("route", routeId).tag("attempt", "primary").register(meterRegistry);
+            this.hedgeWins = Counter.builder("gateway.hedging.wins")
+                    .tag("route", routeId).tag("attempt", "hedge").register(meterRegistry);
+            this.delayNanos = config.getInitialDelay().toNanos();
+        }
+
+        private Counter counter(String name, String routeId) {
+            return Counter.builder(name).tag("route", routeId).register(meterRegistry);
+        }
+
+        private boolean tryAcquireBudget() {
+            if (budget.tryAcquire()) {
+                return true;
+            }
+            budgetExhausted.increment();
+            return false;
+        }
+
+        private Counter winsOf(Attempt attempt) {
+            return attempt == Attempt.PRIMARY ? primaryWins : hedgeWins;
+        }
+
+        /**
+         * Задержка перед отправкой хеджа — p95 задержки апстрима, ограниченный снизу и сверху.
+         * Пока выборка мала, используется начальное значение из конфигурации.
+         * Снимок гистограммы пересчитывается не чаще раза в секунду.
+         */
+        private Duration hedgeDelay(Config config) {
+            long now = System.nanoTime();
+            if (now - delayComputedAt > DELAY_REFRESH_NANOS && upstream.count() >= config.getMinSamples()) {
+                delayComputedAt = now;
+                for (ValueAtPercentile percentile : upstream.takeSnapshot().percentileValues()) {
+                    long p95 = (long) percentile.value(TimeUnit.NANOSECONDS);
+                    delayNanos = Math.max(config.getMinDelay().toNanos(), Math.min(config.getMaxDelay().toNanos(), p95));
+                }
+            }
+
+            return Duration.ofNanos(delayNanos);
+        }
+    }
+
+    /**
+     * Настройки хеджирования маршрута.
+     */
+    public static class Config {
+
+        /** Максимальная доля дополнительных запросов, в процентах от основного трафика. */
+        private int budgetPercent = 10;
+
+        /** Сколько хеджей можно накопить впрок после периода тишины. */
+        private int burst = 10;
+
+        /** Задержка хеджа, пока не набрано {@link #minSamples} измерений. */
+        private Duration initialDelay = Duration.ofMillis(100);
+
+        /** Нижняя граница задержки хеджа. */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /** Верхняя граница задержки хеджа. */
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /** Минимальное количество измерений для расчёта p95. */
+        private long minSamples = 100;
+
+        public int getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(int budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public long getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(long minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+}
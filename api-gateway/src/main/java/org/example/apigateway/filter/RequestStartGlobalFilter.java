@@ -0,0 +1,36 @@
+package org.example.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Добавляет к каждому проксируемому запросу заголовок {@code request-start} со временем
+ * поступления запроса на шлюз (epoch millis). Значение, присланное клиентом, перезаписывается.
+ *
+ * В сервисах заголовок настроен как baggage-поле трассировки
+ * ({@code management.tracing.baggage.remote-fields}), поэтому он переносится дальше
+ * в заголовки Kafka и позволяет notification-service посчитать сквозную задержку
+ * от запроса клиента до отправки письма.
+ */
+@Component
+public class RequestStartGlobalFilter implements GlobalFilter, Ordered {
+
+    public static final String REQUEST_START_HEADER = "request-start";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String now = String.valueOf(System.currentTimeMillis());
+        return chain.filter(exchange.mutate()
+                .request(request -> request.headers(headers -> headers.set(REQUEST_START_HEADER, now)))
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
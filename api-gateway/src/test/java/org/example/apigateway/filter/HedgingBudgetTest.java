@@ -0,0 +1,49 @@
+package org.example.apigateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link HedgingBudget}: пополнение на долю токена за запрос и ограничение запаса.
+ */
+class HedgingBudgetTest {
+
+    /**
+     * Проверяет, что при бюджете 10% хедж разрешается только после десяти запросов.
+     */
+    @Test
+    void tryAcquire_shouldAllowOneHedgePerTenRequests() {
+        HedgingBudget budget = new HedgingBudget(10, 10);
+        assertFalse(budget.tryAcquire());
+
+        for (int i = 0; i < 9; i++) {
+            budget.onRequest();
+        }
+        assertFalse(budget.tryAcquire());
+
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    /**
+     * Проверяет, что после периода без хеджей запас не превышает {@code burst} токенов.
+     */
+    @Test
+    void tryAcquire_shouldNotAccumulateMoreThanBurst() {
+        HedgingBudget budget = new HedgingBudget(50, 3);
+        for (int i = 0; i < 1000; i++) {
+            budget.onRequest();
+        }
+
+        int acquired = 0;
+        while (budget.tryAcquire()) {
+            acquired++;
+        }
+
+        assertEquals(3, acquired);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Unit-тесты для {@link HedgingGatewayFilterFactory}: какие запросы фильтр отправляет сам,
+ * а какие передаёт дальше по цепочке без хеджирования. Апстрим заменён заглушкой {@link WebClient}.
+ */
+class HedgingGatewayFilterFactoryTest {
+
+    private static final URI PRIMARY_URI = URI.create("http://10.0.0.1:8081/api/users/1");
+
+    private final List<ClientRequest> upstreamRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger chainCalls = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayFilterChain chain = exchange -> {
+        chainCalls.incrementAndGet();
+        return Mono.empty();
+    };
+    private final GatewayFilter filter = factory().apply(new HedgingGatewayFilterFactory.Config());
+
+    /**
+     * Проверяет, что GET и HEAD отправляются фильтром в апстрим, а ответ апстрима передаётся клиенту.
+     *
+     * @param method идемпотентный метод
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"GET", "HEAD"})
+    void filter_shouldSendIdempotentRequestsItself(String method) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.method(HttpMethod.valueOf(method), PRIMARY_URI));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(0, chainCalls.get());
+        assertEquals(1, upstreamRequests.size());
+        assertEquals(PRIMARY_URI, upstreamRequests.get(0).url());
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(1, meterRegistry.get("gateway.hedging.wins").tags("route", "users", "attempt", "primary")
+                .counter().count());
+    }
+
+    /**
+     * Проверяет, что неидемпотентные методы проходят мимо фильтра.
+     *
+     * @param method неидемпотентный метод
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"POST", "PUT", "PATCH", "DELETE"})
+    void filter_shouldPassNonIdempotentRequestsToChain(String method) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.method(HttpMethod.valueOf(method), PRIMARY_URI));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(1, chainCalls.get());
+        assertTrue(upstreamRequests.isEmpty());
+    }
+
+    /**
+     * Проверяет, что потоковые запросы (SSE, CSV, NDJSON) не буферизуются фильтром.
+     *
+     * @param accept заголовок Accept запроса
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"text/event-stream", "text/csv", "application/x-ndjson",
+            "text/csv;charset=UTF-8, application/json;q=0.5"})
+    void filter_shouldPassStreamingRequestsToChain(String accept) {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get(PRIMARY_URI.toString())
+                .header(HttpHeaders.ACCEPT, accept));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(1, chainCalls.get());
+        assertTrue(upstreamRequests.isEmpty());
+    }
+
+    /**
+     * Проверяет, что запрос без маршрута, выбранного балансировщиком, проходит мимо фильтра.
+     */
+    @Test
+    void filter_shouldPassRequestsWithoutResolvedUrlToChain() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PRIMARY_URI.toString()));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(1, chainCalls.get());
+        assertTrue(upstreamRequests.isEmpty());
+    }
+
+    private HedgingGatewayFilterFactory factory() {
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> {
+            upstreamRequests.add(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK).body("{}").build());
+        });
+        ReactiveDiscoveryClient discoveryClient = mock(ReactiveDiscoveryClient.class);
+        when(discoveryClient.getInstances(anyString())).thenReturn(Flux.empty());
+        @SuppressWarnings("unchecked")
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable()).thenReturn(List.of());
+        return new HedgingGatewayFilterFactory(webClient, discoveryClient, headersFilters, meterRegistry);
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("users")
+                .uri(URI.create("lb://user-service"))
+                .predicate(ignored -> true)
+                .build());
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, PRIMARY_URI);
+        return exchange;
+    }
+}
@@ -2,18 +2,41 @@ package org.example.common.dto;
 
 /**
  * DTO для передачи информации о пользовательском уведомлении.
- * Содержит email пользователя и тип уведомления: created/deleted.
+ * Содержит email пользователя, тип уведомления: created/deleted и класс приоритета.
+ *
+ * Уведомления о действиях самого пользователя имеют приоритет {@link #PRIORITY_HIGH} и передаются
+ * через топик {@link #TOPIC}, массовые (импорт, очистка удалённых) — приоритет {@link #PRIORITY_BULK}
+ * и топик {@link #BULK_TOPIC}, чтобы их поток не задерживал срочные письма.
+ * Уведомление без приоритета считается срочным.
  */
 public class UserNotificationDto {
 
+    public static final String TOPIC = "user-notifications";
+    public static final String BULK_TOPIC = "user-notifications-bulk";
+    public static final String PRIORITY_HIGH = "high";
+    public static final String PRIORITY_BULK = "bulk";
+
     private String email;
     private String type;
+    private String priority;
 
     public UserNotificationDto() {}
 
     public UserNotificationDto(String email, String type) {
+        this(email, type, PRIORITY_HIGH);
+    }
+
+    public UserNotificationDto(String email, String type, String priority) {
         this.email = email;
         this.type = type;
+        this.priority = priority;
+    }
+
+    /**
+     * @return топик, в который отправляется уведомление с таким приоритетом
+     */
+    public String topic() {
+        return PRIORITY_BULK.equals(priority) ? BULK_TOPIC : TOPIC;
     }
 
     public String getEmail() {
@@ -31,4 +54,12 @@ public class UserNotificationDto {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getPriority() {
+        return priority == null ? PRIORITY_HIGH : priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
 }
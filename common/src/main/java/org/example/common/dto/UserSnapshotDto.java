@@ -0,0 +1,56 @@
+package org.example.common.dto;
+
+/**
+ * DTO с текущим состоянием пользователя в сжимаемом топике {@code user-snapshots}.
+ * Ключ записи — ID пользователя; удаление пользователя публикуется записью с пустым значением.
+ */
+public class UserSnapshotDto {
+
+    public static final String TOPIC = "user-snapshots";
+
+    private int id;
+    private String email;
+    private String name;
+    private int age;
+
+    public UserSnapshotDto() {}
+
+    public UserSnapshotDto(int id, String email, String name, int age) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.age = age;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.common.jfr;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Точка actuator {@code /actuator/jfr}:
+ * <ul>
+ *     <li>{@code GET} — задержки этапов за скользящее окно {@link JfrStageMonitor};</li>
+ *     <li>{@code POST} — сбрасывает хранимую запись JFR в файл и отдаёт его
+ *     ({@code curl -X POST -o recording.jfr .../actuator/jfr}). В каталоге сброса хранится только
+ *     последний файл.</li>
+ * </ul>
+ * Бин точки объявляется в сервисе вместе с {@link JfrStageMonitor}.
+ */
+@WebEndpoint(id = "jfr")
+public class JfrStageEndpoint {
+
+    private final JfrStageMonitor monitor;
+    private final Path dumpDirectory;
+    private final String dumpPrefix;
+    private Path lastDump;
+
+    /**
+     * @param monitor       монитор этапов
+     * @param dumpDirectory каталог для сброшенных записей
+     * @param dumpPrefix    начало имени файла записи, например имя сервиса
+     */
+    public JfrStageEndpoint(JfrStageMonitor monitor, Path dumpDirectory, String dumpPrefix) {
+        this.monitor = monitor;
+        this.dumpDirectory = dumpDirectory;
+        this.dumpPrefix = dumpPrefix;
+    }
+
+    /**
+     * Сводка задержек по этапам.
+     *
+     * @param windowSeconds длина окна, секунд
+     * @param stages        этапы, по которым за окно были события
+     */
+    public record StageReport(long windowSeconds, List<StageSummary> stages) {
+    }
+
+    @ReadOperation
+    public StageReport stages() {
+        return new StageReport(monitor.window().toSeconds(), monitor.summaries());
+    }
+
+    @WriteOperation(produces = "application/octet-stream")
+    public synchronized Resource dump() {
+        try {
+            Files.createDirectories(dumpDirectory);
+            Path file = Files.createTempFile(dumpDirectory, dumpPrefix + "-", ".jfr");
+            monitor.dump(file);
+            if (lastDump != null) {
+                Files.deleteIfExists(lastDump);
+            }
+            lastDump = file;
+            return new FileSystemResource(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить запись JFR в " + dumpDirectory, e);
+        }
+    }
+}
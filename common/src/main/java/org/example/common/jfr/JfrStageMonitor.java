@@ -0,0 +1,127 @@
+package org.example.common.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Постоянная запись JFR внутри процесса и скользящая сводка задержек по этапам.
+ *
+ * Запись включает переданные события {@link StageEvent} без порога длительности и, если задана
+ * конфигурация JFR ({@code default} — рассчитанная на постоянную работу с накладными расходами около 1%),
+ * события JVM этой конфигурации: сборки мусора, блокировки, выборки стеков и т. д. События этапов читаются
+ * потоком JFR в фоновом потоке и собираются в посекундные ячейки за {@code window}; сами события этапов
+ * при этом нигде не копятся. Последние {@code maxAge} записи хранятся в файлах JFR и сбрасываются
+ * в файл по запросу для разбора в JDK Mission Control.
+ *
+ * Поток JFR доставляет события пачками примерно раз в секунду, поэтому сводка отстаёт от событий
+ * на эту секунду.
+ */
+public class JfrStageMonitor implements AutoCloseable {
+
+    private final RecordingStream stream;
+    private final int windowSeconds;
+    private final Map<String, StageLatency> stages = new ConcurrentHashMap<>();
+
+    /**
+     * @param events        классы событий этапов
+     * @param configuration имя конфигурации JFR для событий JVM ({@code default}, {@code profile})
+     *                      или {@code none}, чтобы записывать только события этапов
+     * @param window        длина скользящего окна сводки, не меньше секунды
+     * @param maxAge        сколько последних событий хранить для сброса в файл
+     */
+    public JfrStageMonitor(List<Class<? extends StageEvent>> events,
+                           String configuration,
+                           Duration window,
+                           Duration maxAge) {
+        this.windowSeconds = (int) Math.max(1, window.toSeconds());
+        this.stream = "none".equals(configuration)
+                ? new RecordingStream()
+                : new RecordingStream(configuration(configuration));
+        stream.setMaxAge(maxAge);
+        stream.setReuse(true);
+        stream.setOrdered(false);
+        for (Class<? extends StageEvent> event : events) {
+            stream.enable(event).withoutStackTrace().withThreshold(Duration.ZERO);
+            String name = EventType.getEventType(event).getName();
+            String prefix = name.substring(name.lastIndexOf('.') + 1) + "/";
+            stream.onEvent(name, recorded -> record(prefix, recorded));
+        }
+    }
+
+    /**
+     * Запускает запись и чтение событий в фоновом потоке.
+     */
+    public void start() {
+        stream.startAsync();
+    }
+
+    /**
+     * @return сводки этапов, по которым за окно были события, в порядке имён этапов
+     */
+    public List<StageSummary> summaries() {
+        long now = Instant.now().getEpochSecond();
+        List<StageSummary> summaries = new ArrayList<>();
+        stages.forEach((stage, latency) -> {
+            StageSummary summary = latency.summary(stage, now);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        });
+        summaries.sort(Comparator.comparing(StageSummary::stage));
+        return summaries;
+    }
+
+    /**
+     * @return длина скользящего окна сводки
+     */
+    public Duration window() {
+        return Duration.ofSeconds(windowSeconds);
+    }
+
+    /**
+     * Сбрасывает хранимую запись в файл.
+     *
+     * @param file файл записи, существующий перезаписывается
+     */
+    public void dump(Path file) {
+        try {
+            stream.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить запись JFR в " + file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    private void record(String prefix, RecordedEvent event) {
+        String stage = prefix + event.getString("stage");
+        stages.computeIfAbsent(stage, key -> new StageLatency(windowSeconds))
+                .record(event.getEndTime().getEpochSecond(), event.getDuration().toNanos(),
+                        StageEvent.FAILURE.equals(event.getString("outcome")));
+    }
+
+    private static Configuration configuration(String name) {
+        try {
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Неизвестная конфигурация JFR: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Базовое JFR-событие этапа обработки запроса: длительность события — время этапа.
+ *
+ * События без стека вызовов, поэтому запись события — это несколько обращений к буферу потока,
+ * и их можно оставлять включёнными постоянно. Наследники задают имя события ({@link jdk.jfr.Name})
+ * и, при необходимости, дополнительные поля. Использование:
+ * <pre>
+ * UserOperationEvent event = new UserOperationEvent("createUser");
+ * event.begin();
+ * try {
+ *     ...
+ * } catch (RuntimeException e) {
+ *     event.failed();
+ *     throw e;
+ * } finally {
+ *     event.commit();
+ * }
+ * </pre>
+ * Сводку по этапам строит {@link JfrStageMonitor}.
+ */
+@Category("Java Service")
+@StackTrace(false)
+public abstract class StageEvent extends Event {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    @Label("Stage")
+    protected String stage;
+
+    @Label("Outcome")
+    protected String outcome = SUCCESS;
+
+    protected StageEvent(String stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * Отмечает этап как завершившийся ошибкой.
+     */
+    public void failed() {
+        outcome = FAILURE;
+    }
+}
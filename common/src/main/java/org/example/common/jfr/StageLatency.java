@@ -0,0 +1,127 @@
+package org.example.common.jfr;
+
+import java.util.Arrays;
+
+/**
+ * Длительности одного этапа за скользящее окно из посекундных ячеек.
+ * Каждая ячейка хранит число событий, сумму, максимум и гистограмму длительностей
+ * с четырьмя интервалами на каждое удвоение от 1 мкс до 18 минут; ячейка, вышедшая из окна,
+ * очищается при следующей записи в неё. Память постоянна и не зависит от частоты событий.
+ */
+class StageLatency {
+
+    private static final int MIN_OCTAVE = 10;
+    private static final int MAX_OCTAVE = 40;
+    private static final int SUB_BUCKETS = 4;
+    static final int BUCKETS = (MAX_OCTAVE - MIN_OCTAVE + 1) * SUB_BUCKETS;
+
+    private final long[] seconds;
+    private final long[] counts;
+    private final long[] failures;
+    private final long[] sums;
+    private final long[] maxima;
+    private final int[][] histograms;
+
+    StageLatency(int windowSeconds) {
+        seconds = new long[windowSeconds];
+        counts = new long[windowSeconds];
+        failures = new long[windowSeconds];
+        sums = new long[windowSeconds];
+        maxima = new long[windowSeconds];
+        histograms = new int[windowSeconds][BUCKETS];
+        Arrays.fill(seconds, Long.MIN_VALUE);
+    }
+
+    /**
+     * @param second  секунда окончания события, эпоха Unix
+     * @param nanos   длительность события
+     * @param failed  завершилось ли событие ошибкой
+     */
+    synchronized void record(long second, long nanos, boolean failed) {
+        int slot = (int) Math.floorMod(second, (long) seconds.length);
+        if (seconds[slot] != second) {
+            if (seconds[slot] > second) {
+                return;
+            }
+            seconds[slot] = second;
+            counts[slot] = 0;
+            failures[slot] = 0;
+            sums[slot] = 0;
+            maxima[slot] = 0;
+            Arrays.fill(histograms[slot], 0);
+        }
+        counts[slot]++;
+        if (failed) {
+            failures[slot]++;
+        }
+        sums[slot] += nanos;
+        maxima[slot] = Math.max(maxima[slot], nanos);
+        histograms[slot][bucket(nanos)]++;
+    }
+
+    /**
+     * @param stage имя этапа
+     * @param now   текущая секунда, эпоха Unix
+     * @return сводка за окно, заканчивающееся текущей секундой, или {@code null}, если событий за окно не было
+     */
+    synchronized StageSummary summary(String stage, long now) {
+        long count = 0;
+        long failed = 0;
+        long sum = 0;
+        long max = 0;
+        long[] histogram = new long[BUCKETS];
+        for (int slot = 0; slot < seconds.length; slot++) {
+            if (seconds[slot] <= now - seconds.length || seconds[slot] > now) {
+                continue;
+            }
+            count += counts[slot];
+            failed += failures[slot];
+            sum += sums[slot];
+            max = Math.max(max, maxima[slot]);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                histogram[bucket] += histograms[slot][bucket];
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        return new StageSummary(stage, count, failed, (double) count / seconds.length, millis(sum / count),
+                millis(Math.min(max, percentile(histogram, count, 0.50))),
+                millis(Math.min(max, percentile(histogram, count, 0.99))),
+                millis(max));
+    }
+
+    static long percentile(long[] histogram, long count, double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= rank) {
+                return upperBound(bucket);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucket(long nanos) {
+        int octave = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        if (octave < MIN_OCTAVE) {
+            return 0;
+        }
+        if (octave > MAX_OCTAVE) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (nanos >>> (octave - 2)) & (SUB_BUCKETS - 1);
+        return (octave - MIN_OCTAVE) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        int octave = MIN_OCTAVE + bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        return (1L << octave) + ((long) (subBucket + 1) << (octave - 2));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
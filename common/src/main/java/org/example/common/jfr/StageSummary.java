@@ -0,0 +1,25 @@
+package org.example.common.jfr;
+
+/**
+ * Задержка этапа за скользящее окно {@link JfrStageMonitor}.
+ * Перцентили оцениваются по гистограмме с четырьмя интервалами на каждое удвоение времени,
+ * поэтому могут быть завышены до 25%.
+ *
+ * @param stage         этап: имя события и значение его поля {@code stage}, например {@code UserOperation/createUser}
+ * @param count         событий за окно
+ * @param failures      из них завершившихся ошибкой
+ * @param ratePerSecond событий в секунду в среднем за окно
+ * @param meanMillis    средняя длительность, мс
+ * @param p50Millis     медиана, мс
+ * @param p99Millis     99-й перцентиль, мс
+ * @param maxMillis     наибольшая длительность, мс
+ */
+public record StageSummary(String stage,
+                           long count,
+                           long failures,
+                           double ratePerSecond,
+                           double meanMillis,
+                           double p50Millis,
+                           double p99Millis,
+                           double maxMillis) {
+}
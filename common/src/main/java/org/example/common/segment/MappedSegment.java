@@ -0,0 +1,159 @@
+package org.example.common.segment;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Файл фиксированного размера, отображённый в память, с записями в общем формате кадра.
+ *
+ * Формат записи (big-endian):
+ * <pre>
+ * 0  int  длина записи вместе с заголовком
+ * 4  int  CRC32 байтов записи начиная со смещения 8
+ * 8  ...  содержимое записи
+ * </pre>
+ * Записи идут подряд; нулевая длина или несовпадение CRC означает конец данных. Содержимое записи
+ * кодирует владелец сегмента, смещения в нём отсчитываются от начала записи.
+ *
+ * Класс не потокобезопасен: запись выполняется под блокировкой владельца. Записи до позиции записи
+ * не изменяются, поэтому их можно читать без блокировки.
+ */
+public final class MappedSegment {
+
+    public static final int FRAME_HEADER_SIZE = 8;
+
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private int writePosition;
+
+    private MappedSegment(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Создаёт новый пустой сегмент.
+     */
+    public static MappedSegment create(Path file, int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+            return new MappedSegment(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Открывает существующий сегмент и находит конец записанных данных. Если после последней целой
+     * записи остались обрывки, они затираются нулями, чтобы новые записи не склеились со старыми данными.
+     *
+     * @param minLength наименьшая длина записи вместе с заголовком кадра
+     * @param check     проверка содержимого записи до сверки CRC
+     */
+    public static MappedSegment open(Path file, int minLength, RecordCheck check) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            MappedSegment segment = new MappedSegment(
+                    raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+            segment.recover(Math.max(minLength, FRAME_HEADER_SIZE), check);
+            return segment;
+        }
+    }
+
+    /**
+     * @return буфер сегмента для чтения содержимого записей
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int writePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Дописывает запись.
+     *
+     * @param length  длина записи вместе с заголовком кадра
+     * @param payload пишет содержимое записи, получая позицию её начала
+     * @return позиция записи или -1, если запись не помещается в сегмент
+     */
+    public int append(int length, IntConsumer payload) {
+        int start = writePosition;
+        if (start + length > buffer.capacity()) {
+            return -1;
+        }
+        payload.accept(start);
+        buffer.putInt(start + 4, checksum(start, length));
+        // длина пишется последней: до этого момента запись не видна при восстановлении
+        buffer.putInt(start, length);
+        writePosition = start + length;
+        return start;
+    }
+
+    /**
+     * @return длина записи, начинающейся с позиции
+     */
+    public int lengthAt(int position) {
+        return buffer.getInt(position);
+    }
+
+    /**
+     * @return число записей от позиции до конца записанных данных
+     */
+    public long countFrom(int position) {
+        long count = 0;
+        while (position < writePosition) {
+            position += buffer.getInt(position);
+            count++;
+        }
+        return count;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    private void recover(int minLength, RecordCheck check) {
+        int position = 0;
+        while (position + minLength <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length < minLength || position + length > buffer.capacity()
+                    || !check.isIntact(buffer, position, length)
+                    || buffer.getInt(position + 4) != checksum(position, length)) {
+                break;
+            }
+            position += length;
+        }
+        writePosition = position;
+
+        if (position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private int checksum(int position, int length) {
+        crc.reset();
+        crc.update(buffer.slice(position + FRAME_HEADER_SIZE, length - FRAME_HEADER_SIZE));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Проверка содержимого записи при восстановлении: длины полей должны сходиться с длиной записи.
+     */
+    @FunctionalInterface
+    public interface RecordCheck {
+
+        /**
+         * @param buffer   буфер сегмента
+         * @param position позиция начала записи
+         * @param length   длина записи вместе с заголовком кадра
+         */
+        boolean isIntact(ByteBuffer buffer, int position, int length);
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.common.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Экспортёр спанов Brave в лог.
+ * Каждый завершённый спан записывается одной строкой в логгер {@code tracing.spans},
+ * поэтому трассировку можно собрать по логам сервисов без внешнего коллектора.
+ * Строки одной трассы объединяются по полю {@code traceId}.
+ */
+public class LoggingSpanHandler extends SpanHandler {
+
+    private static final Logger log = LoggerFactory.getLogger("tracing.spans");
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED || !log.isInfoEnabled()) {
+            return true;
+        }
+
+        long durationMicros = span.finishTimestamp() - span.startTimestamp();
+        StringBuilder tags = new StringBuilder();
+        span.forEachTag((builder, key, value) -> builder.append(' ').append(key).append('=').append(value), tags);
+
+        log.info("traceId={} spanId={} parentId={} service={} name=\"{}\" kind={} startMicros={} durationMicros={}{}{}",
+                span.traceId(), span.id(), span.parentId(), span.localServiceName(), span.name(), span.kind(),
+                span.startTimestamp(), durationMicros, span.error() != null ? " error=" + span.error() : "", tags);
+        return true;
+    }
+}
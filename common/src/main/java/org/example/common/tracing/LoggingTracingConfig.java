@@ -0,0 +1,19 @@
+package org.example.common.tracing;
+
+import brave.handler.SpanHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация трассировки, общая для сервисов.
+ * Завершённые спаны экспортируются в лог через {@link LoggingSpanHandler}.
+ * Подключается в сервисе через {@code @Import(LoggingTracingConfig.class)}.
+ */
+@Configuration
+public class LoggingTracingConfig {
+
+    @Bean
+    public SpanHandler loggingSpanHandler() {
+        return new LoggingSpanHandler();
+    }
+}
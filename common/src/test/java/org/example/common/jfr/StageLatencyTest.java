@@ -0,0 +1,102 @@
+package org.example.common.jfr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link StageLatency}: интервалы гистограммы, оценка перцентилей
+ * и выход событий из скользящего окна.
+ */
+class StageLatencyTest {
+
+    private static final long MILLI = 1_000_000;
+
+    /**
+     * Проверяет, что длительность попадает в интервал, верхняя граница которого больше неё
+     * не более чем на 25%, а граница предыдущего интервала не больше неё.
+     */
+    @Test
+    void bucket_shouldBoundDurationWithinQuarterOctave() {
+        for (long nanos = 1024; nanos < 1L << 41; nanos += Math.max(1, nanos / 7)) {
+            int bucket = StageLatency.bucket(nanos);
+
+            long upper = StageLatency.upperBound(bucket);
+            assertTrue(upper > nanos, nanos + " нс выше границы " + upper);
+            assertTrue(upper <= nanos + nanos / 4 + 1, nanos + " нс: граница " + upper + " завышена больше 25%");
+            if (bucket > 0) {
+                assertTrue(StageLatency.upperBound(bucket - 1) <= nanos, nanos + " нс попадает в предыдущий интервал");
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что длительности за пределами диапазона попадают в крайние интервалы.
+     */
+    @Test
+    void bucket_shouldClampOutOfRangeDurations() {
+        assertEquals(0, StageLatency.bucket(0));
+        assertEquals(0, StageLatency.bucket(1023));
+        assertEquals(1280, StageLatency.upperBound(0));
+        assertEquals(StageLatency.BUCKETS - 1, StageLatency.bucket(Long.MAX_VALUE));
+    }
+
+    /**
+     * Проверяет, что перцентиль — верхняя граница интервала, в котором набирается нужная доля событий.
+     */
+    @Test
+    void percentile_shouldReturnUpperBoundOfRankBucket() {
+        long[] histogram = new long[StageLatency.BUCKETS];
+        histogram[4] = 90;
+        histogram[40] = 10;
+
+        assertEquals(StageLatency.upperBound(4), StageLatency.percentile(histogram, 100, 0.50));
+        assertEquals(StageLatency.upperBound(4), StageLatency.percentile(histogram, 100, 0.90));
+        assertEquals(StageLatency.upperBound(40), StageLatency.percentile(histogram, 100, 0.91));
+    }
+
+    /**
+     * Проверяет сводку для известных длительностей: перцентили не превышают максимум,
+     * а среднее и максимум точные.
+     */
+    @Test
+    void summary_shouldReportKnownPercentiles() {
+        StageLatency latency = new StageLatency(10);
+        for (int i = 0; i < 98; i++) {
+            latency.record(1000, MILLI, false);
+        }
+        latency.record(1000, 100 * MILLI, true);
+        latency.record(1001, 100 * MILLI, false);
+
+        StageSummary summary = latency.summary("UserOperation/createUser", 1001);
+
+        assertEquals(100, summary.count());
+        assertEquals(1, summary.failures());
+        assertEquals(10.0, summary.ratePerSecond());
+        assertEquals(2.98, summary.meanMillis(), 1e-9);
+        assertEquals(1.048576, summary.p50Millis(), 1e-9);
+        assertEquals(100.0, summary.p99Millis(), 1e-9);
+        assertEquals(100.0, summary.maxMillis(), 1e-9);
+    }
+
+    /**
+     * Проверяет, что события выходят из окна через {@code windowSeconds} секунд, ячейка очищается
+     * при записи новой секунды, а запоздавшее событие вытесненной секунды не записывается.
+     */
+    @Test
+    void summary_shouldExpireEventsOutsideWindow() {
+        StageLatency latency = new StageLatency(10);
+        latency.record(1000, MILLI, false);
+
+        assertEquals(1, latency.summary("stage", 1009).count());
+        assertNull(latency.summary("stage", 1010));
+
+        latency.record(1010, 2 * MILLI, false);
+        latency.record(1000, 3 * MILLI, false);
+        StageSummary summary = latency.summary("stage", 1010);
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.maxMillis());
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.common.segment;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit-тесты для {@link MappedSegment}: запись кадров и восстановление после оборванной записи.
+ */
+class MappedSegmentTest {
+
+    private static final int RECORD_LENGTH = MappedSegment.FRAME_HEADER_SIZE + Long.BYTES;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Проверяет, что при открытии сегмента находятся все целые записи, а запись, оборванная после
+     * записи длины, отбрасывается и затирается нулями, чтобы следующая запись легла на её место.
+     */
+    @Test
+    void open_shouldDropTornTailAndReuseItsSpace() throws IOException {
+        Path file = directory.resolve("segment");
+        MappedSegment written = MappedSegment.create(file, 64);
+        append(written, 1);
+        append(written, 2);
+        int torn = append(written, 3);
+        // содержимое изменилось после подсчёта CRC, как при падении посреди перезаписи страницы
+        written.buffer().putLong(torn + MappedSegment.FRAME_HEADER_SIZE, 42);
+        written.force();
+
+        MappedSegment reopened = MappedSegment.open(file, RECORD_LENGTH, (buffer, position, length) -> true);
+
+        assertEquals(2 * RECORD_LENGTH, reopened.writePosition());
+        assertEquals(2, reopened.countFrom(0));
+        assertEquals(0, reopened.lengthAt(torn));
+        assertEquals(torn, append(reopened, 4));
+        assertEquals(4, reopened.buffer().getLong(torn + MappedSegment.FRAME_HEADER_SIZE));
+    }
+
+    /**
+     * Проверяет, что запись, не помещающаяся в сегмент, не пишется, а запись, отклонённая
+     * проверкой содержимого, считается концом данных.
+     */
+    @Test
+    void append_shouldRejectOverflowAndOpenShouldStopAtInvalidRecord() throws IOException {
+        Path file = directory.resolve("segment");
+        MappedSegment written = MappedSegment.create(file, 3 * RECORD_LENGTH);
+        append(written, 1);
+        append(written, -1);
+        append(written, 3);
+        assertEquals(-1, append(written, 4));
+
+        MappedSegment reopened = MappedSegment.open(file, RECORD_LENGTH,
+                (buffer, position, length) -> buffer.getLong(position + MappedSegment.FRAME_HEADER_SIZE) >= 0);
+
+        assertEquals(RECORD_LENGTH, reopened.writePosition());
+        assertEquals(1, reopened.countFrom(0));
+    }
+
+    private static int append(MappedSegment segment, long value) {
+        return segment.append(RECORD_LENGTH,
+                start -> segment.buffer().putLong(start + MappedSegment.FRAME_HEADER_SIZE, value));
+    }
+}
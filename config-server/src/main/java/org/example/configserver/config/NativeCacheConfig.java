@@ -0,0 +1,27 @@
+package org.example.configserver.config;
+
+import org.example.configserver.environment.CachingEnvironmentRepository;
+import org.example.configserver.environment.NativeRepositoryCachePostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Включает кэширование native-репозитория через {@link CachingEnvironmentRepository}.
+ * Время жизни кэша задаётся свойством {@code config.cache.ttl} (по умолчанию 60 секунд).
+ * Сбросить кэш досрочно можно через {@code POST /actuator/refresh}.
+ */
+@Configuration
+@Profile("native")
+public class NativeCacheConfig {
+
+    @Bean
+    public static NativeRepositoryCachePostProcessor nativeRepositoryCachePostProcessor(Environment environment) {
+        Duration ttl = Binder.get(environment).bind("config.cache.ttl", Duration.class).orElse(Duration.ofSeconds(60));
+        return new NativeRepositoryCachePostProcessor(ttl);
+    }
+}
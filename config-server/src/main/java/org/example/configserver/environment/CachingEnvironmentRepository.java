@@ -0,0 +1,86 @@
+package org.example.configserver.environment;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэширующая обёртка над {@link EnvironmentRepository}.
+ *
+ * Native-бэкенд на каждый запрос заново поднимает {@code SpringApplication} и перечитывает файлы,
+ * что делает ответ config-server медленным при одновременном старте нескольких сервисов.
+ * Разрешённые источники свойств кэшируются по (application, profile, label, includeOrigin)
+ * на время {@code ttl}; клиенту отдаётся копия, чтобы изменения не попадали в кэш.
+ */
+public class CachingEnvironmentRepository implements EnvironmentRepository, SearchPathLocator, Ordered {
+
+    private final EnvironmentRepository delegate;
+    private final SearchPathLocator searchPathLocator;
+    private final long ttlNanos;
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    public <T extends EnvironmentRepository & SearchPathLocator> CachingEnvironmentRepository(T delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.searchPathLocator = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label) {
+        return findOne(application, profile, label, false);
+    }
+
+    @Override
+    public Environment findOne(String application, String profile, String label, boolean includeOrigin) {
+        Key key = new Key(application, profile, label, includeOrigin);
+        long now = System.nanoTime();
+
+        Entry entry = cache.get(key);
+        if (entry == null || now - entry.loadedAt() > ttlNanos) {
+            entry = new Entry(delegate.findOne(application, profile, label, includeOrigin), now);
+            cache.put(key, entry);
+        }
+
+        return copy(entry.environment());
+    }
+
+    @Override
+    public Locations getLocations(String application, String profile, String label) {
+        return searchPathLocator.getLocations(application, profile, label);
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate instanceof Ordered ordered ? ordered.getOrder() : Ordered.LOWEST_PRECEDENCE;
+    }
+
+    /**
+     * Сбрасывает кэш; вызывается по {@code POST /actuator/refresh}, см. {@link NativeRepositoryCachePostProcessor}.
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    private static Environment copy(Environment source) {
+        Environment copy = new Environment(source.getName(), source.getProfiles(), source.getLabel(),
+                source.getVersion(), source.getState());
+        for (PropertySource propertySource : source.getPropertySources()) {
+            copy.add(new PropertySource(propertySource.getName(), new LinkedHashMap<>(propertySource.getSource())));
+        }
+
+        return copy;
+    }
+
+    private record Key(String application, String profile, String label, boolean includeOrigin) {
+    }
+
+    private record Entry(Environment environment, long loadedAt) {
+    }
+}
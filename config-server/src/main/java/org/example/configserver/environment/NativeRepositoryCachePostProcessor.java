@@ -0,0 +1,45 @@
+package org.example.configserver.environment;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Оборачивает native-репозиторий, созданный Spring Cloud Config, в {@link CachingEnvironmentRepository}.
+ * Бин native-репозитория регистрируется безусловно, поэтому заменить его собственным бином нельзя,
+ * а второй репозиторий попал бы в композитный и удвоил бы источники свойств.
+ *
+ * Кэш обёрнутых репозиториев сбрасывается по {@link EnvironmentChangeEvent}, который публикует
+ * {@code POST /actuator/refresh}: после правки файлов конфигурации клиенты получают новые свойства
+ * сразу, не дожидаясь истечения {@code config.cache.ttl}.
+ */
+public class NativeRepositoryCachePostProcessor implements BeanPostProcessor, ApplicationListener<EnvironmentChangeEvent> {
+
+    private final Duration ttl;
+    private final List<CachingEnvironmentRepository> repositories = new CopyOnWriteArrayList<>();
+
+    public NativeRepositoryCachePostProcessor(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof NativeEnvironmentRepository repository) {
+            CachingEnvironmentRepository caching = new CachingEnvironmentRepository(repository, ttl);
+            repositories.add(caching);
+            return caching;
+        }
+
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        repositories.forEach(CachingEnvironmentRepository::evictAll);
+    }
+}
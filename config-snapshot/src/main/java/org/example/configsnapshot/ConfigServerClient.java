@@ -0,0 +1,92 @@
+package org.example.configsnapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный клиент config-server: запрашивает {@code /{application}/{profiles}[/{label}]}
+ * и сводит источники свойств в одну карту с учётом их приоритета.
+ * HTTP-клиент создаётся на каждый запрос: запросы редкие (старт и сверка),
+ * а при старте со снимка клиент не нужен вовсе.
+ */
+class ConfigServerClient {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConfigSnapshotResource resource;
+
+    ConfigServerClient(ConfigSnapshotResource resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * @return свойства приложения; источники с большим приоритетом перекрывают остальные
+     * @throws IOException если config-server недоступен или вернул ошибку
+     */
+    Map<String, Object> fetch() throws IOException {
+        StringBuilder path = new StringBuilder(resource.getServerUri().replaceAll("/+$", ""))
+                .append('/').append(encode(resource.getApplication()))
+                .append('/').append(encode(resource.getProfiles()));
+        if (resource.getLabel() != null) {
+            path.append('/').append(encode(resource.getLabel()));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(path.toString()))
+                .timeout(resource.getTimeout())
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(resource.getTimeout())
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Запрос к config-server прерван", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("config-server вернул статус " + response.statusCode() + " для " + path);
+        }
+
+        JsonNode sources = mapper.readTree(response.body()).path("propertySources");
+        List<JsonNode> ordered = new ArrayList<>();
+        sources.forEach(ordered::add);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            ordered.get(i).path("source").fields()
+                    .forEachRemaining(entry -> properties.put(entry.getKey(), toValue(entry.getValue())));
+        }
+
+        return properties;
+    }
+
+    private static Object toValue(JsonNode node) {
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+
+        return node.asText();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.configsnapshot;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.BootstrapRegistry.InstanceSupplier;
+import org.springframework.boot.ConfigurableBootstrapContext;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.boot.context.config.ConfigDataLoader;
+import org.springframework.boot.context.config.ConfigDataLoaderContext;
+import org.springframework.boot.context.config.ConfigDataResourceNotFoundException;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загружает конфигурацию для {@link ConfigSnapshotResource}.
+ *
+ * Если локальный снимок есть, приложение стартует с ним сразу, не обращаясь к config-server,
+ * а сверку с сервером выполняет {@link ConfigSnapshotReconciler} в фоне после старта.
+ * Если снимка нет, свойства запрашиваются у config-server синхронно (с повторами в течение
+ * {@code config.snapshot.initial-wait}) и сохраняются в снимок.
+ */
+public class ConfigSnapshotDataLoader implements ConfigDataLoader<ConfigSnapshotResource> {
+
+    private final Log log;
+
+    public ConfigSnapshotDataLoader(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(ConfigSnapshotDataLoader.class);
+    }
+
+    @Override
+    public ConfigData load(ConfigDataLoaderContext context, ConfigSnapshotResource resource)
+            throws ConfigDataResourceNotFoundException {
+        long start = System.nanoTime();
+        ConfigServerClient client = new ConfigServerClient(resource);
+        ConfigSnapshotStore store = new ConfigSnapshotStore(resource.getSnapshotFile());
+
+        Map<String, Object> properties = store.read();
+        boolean fromSnapshot = properties != null;
+        if (fromSnapshot) {
+            log.info("Конфигурация загружена из снимка " + resource.getSnapshotFile());
+        } else {
+            properties = fetchWithinInitialWait(client, resource);
+            try {
+                store.write(properties);
+            } catch (IOException e) {
+                log.warn("Не удалось сохранить снимок конфигурации " + resource.getSnapshotFile(), e);
+            }
+            log.info("Конфигурация загружена с " + resource.getServerUri());
+        }
+
+        registerReconciler(context.getBootstrapContext(), new ConfigSnapshotReconciler(
+                resource, client, store, properties, fromSnapshot, System.nanoTime() - start));
+
+        return new ConfigData(List.of(new MapPropertySource(resource.getPropertySourceName(), properties)));
+    }
+
+    private static Map<String, Object> fetchWithinInitialWait(ConfigServerClient client,
+                                                              ConfigSnapshotResource resource) {
+        long deadline = System.nanoTime() + resource.getInitialWait().toNanos();
+        while (true) {
+            try {
+                return client.fetch();
+            } catch (IOException e) {
+                if (System.nanoTime() >= deadline) {
+                    throw new ConfigDataResourceNotFoundException(resource, e);
+                }
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigDataResourceNotFoundException(resource, e);
+            }
+        }
+    }
+
+    private static void registerReconciler(ConfigurableBootstrapContext bootstrapContext,
+                                           ConfigSnapshotReconciler reconciler) {
+        if (bootstrapContext.isRegistered(ConfigSnapshotReconciler.class)) {
+            return;
+        }
+        bootstrapContext.register(ConfigSnapshotReconciler.class, InstanceSupplier.of(reconciler));
+        bootstrapContext.addCloseListener(event -> event.getApplicationContext().addApplicationListener(reconciler));
+    }
+}
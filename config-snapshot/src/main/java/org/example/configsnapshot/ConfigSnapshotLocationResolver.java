@@ -0,0 +1,63 @@
+package org.example.configsnapshot;
+
+import org.springframework.boot.context.config.ConfigDataLocation;
+import org.springframework.boot.context.config.ConfigDataLocationResolver;
+import org.springframework.boot.context.config.ConfigDataLocationResolverContext;
+import org.springframework.boot.context.config.Profiles;
+import org.springframework.boot.context.properties.bind.Binder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Разрешает адреса вида {@code configsnapshot:http://config-server:8888}.
+ *
+ * Настройки:
+ * {@code config.snapshot.enabled} — при {@code false} адрес игнорируется (например, в тестах);
+ * {@code config.snapshot.dir} — каталог снимков (по умолчанию {@code .config-snapshot});
+ * {@code config.snapshot.timeout} — таймаут запроса к config-server (по умолчанию 5 секунд);
+ * {@code config.snapshot.initial-wait} — сколько ждать config-server при первом старте без снимка
+ * (по умолчанию не ждать).
+ */
+public class ConfigSnapshotLocationResolver implements ConfigDataLocationResolver<ConfigSnapshotResource> {
+
+    public static final String PREFIX = "configsnapshot:";
+
+    @Override
+    public boolean isResolvable(ConfigDataLocationResolverContext context, ConfigDataLocation location) {
+        return location.hasPrefix(PREFIX);
+    }
+
+    @Override
+    public List<ConfigSnapshotResource> resolve(ConfigDataLocationResolverContext context,
+                                                ConfigDataLocation location) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<ConfigSnapshotResource> resolveProfileSpecific(ConfigDataLocationResolverContext context,
+                                                               ConfigDataLocation location,
+                                                               Profiles profiles) {
+        Binder binder = context.getBinder();
+        if (!binder.bind("config.snapshot.enabled", Boolean.class).orElse(true)) {
+            return Collections.emptyList();
+        }
+
+        String application = binder.bind("spring.application.name", String.class).orElse("application");
+        String activeProfiles = profiles.getAccepted().isEmpty()
+                ? "default"
+                : String.join(",", profiles.getAccepted());
+        String label = binder.bind("spring.cloud.config.label", String.class).orElse(null);
+        String dir = binder.bind("config.snapshot.dir", String.class).orElse(".config-snapshot");
+        Duration timeout = binder.bind("config.snapshot.timeout", Duration.class).orElse(Duration.ofSeconds(5));
+        Duration initialWait = binder.bind("config.snapshot.initial-wait", Duration.class).orElse(Duration.ZERO);
+
+        Path snapshotFile = Path.of(dir, application + "-" + activeProfiles.replace(',', '_') + ".json");
+        String serverUri = location.getNonPrefixedValue(PREFIX);
+
+        return List.of(new ConfigSnapshotResource(serverUri, application, activeProfiles, label,
+                snapshotFile, timeout, initialWait, location.isOptional()));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.configsnapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сверяет снимок конфигурации с config-server после старта приложения.
+ *
+ * Публикует время загрузки конфигурации в метрику {@code config.client.load} с тегом
+ * {@code source} (snapshot или server), чтобы можно было сравнить время старта.
+ * Если приложение стартовало со снимка, в фоновом потоке запрашивает актуальные свойства,
+ * повторяя попытки с экспоненциальной задержкой, пока config-server не ответит.
+ * Изменившиеся свойства подменяются в окружении и публикуются через {@link EnvironmentChangeEvent},
+ * что перепривязывает {@code @ConfigurationProperties}. Свойства, прочитанные бинами только
+ * при создании (например, адрес БД), применятся при следующем старте.
+ */
+class ConfigSnapshotReconciler implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Log log = LogFactory.getLog(ConfigSnapshotReconciler.class);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final ConfigSnapshotResource resource;
+    private final ConfigServerClient client;
+    private final ConfigSnapshotStore store;
+    private final Map<String, Object> loaded;
+    private final boolean fromSnapshot;
+    private final long loadNanos;
+
+    ConfigSnapshotReconciler(ConfigSnapshotResource resource, ConfigServerClient client, ConfigSnapshotStore store,
+                             Map<String, Object> loaded, boolean fromSnapshot, long loadNanos) {
+        this.resource = resource;
+        this.client = client;
+        this.store = store;
+        this.loaded = loaded;
+        this.fromSnapshot = fromSnapshot;
+        this.loadNanos = loadNanos;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        log.info("Конфигурация (" + source() + ") загружена за " + TimeUnit.NANOSECONDS.toMillis(loadNanos)
+                + " мс, приложение готово через " + event.getTimeTaken().toMillis() + " мс");
+        registerMetrics(context);
+
+        if (fromSnapshot) {
+            Thread.ofVirtual()
+                    .name("config-snapshot-reconciler")
+                    .start(() -> reconcile(context));
+        }
+    }
+
+    private void reconcile(ConfigurableApplicationContext context) {
+        Duration backoff = Duration.ofSeconds(1);
+        while (context.isActive()) {
+            try {
+                Map<String, Object> fresh = client.fetch();
+                store.write(fresh);
+                apply(context, fresh);
+                return;
+            } catch (IOException e) {
+                log.debug("config-server недоступен, повтор через " + backoff.toSeconds() + " с", e);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+    }
+
+    private void apply(ConfigurableApplicationContext context, Map<String, Object> fresh) {
+        Set<String> changed = new HashSet<>();
+        fresh.forEach((key, value) -> {
+            if (!Objects.equals(String.valueOf(value), String.valueOf(loaded.get(key)))) {
+                changed.add(key);
+            }
+        });
+        loaded.keySet().stream().filter(key -> !fresh.containsKey(key)).forEach(changed::add);
+
+        if (changed.isEmpty()) {
+            log.info("Снимок конфигурации совпадает с config-server");
+            return;
+        }
+
+        String name = resource.getPropertySourceName();
+        if (context.getEnvironment().getPropertySources().contains(name)) {
+            context.getEnvironment().getPropertySources().replace(name, new MapPropertySource(name, fresh));
+        }
+        context.publishEvent(new EnvironmentChangeEvent(context, changed));
+        log.info("Конфигурация обновлена с config-server, изменены ключи: " + changed);
+    }
+
+    private void registerMetrics(ConfigurableApplicationContext context) {
+        if (!ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry", getClass().getClassLoader())) {
+            return;
+        }
+        context.getBeanProvider(MeterRegistry.class).ifAvailable(registry ->
+                TimeGauge.builder("config.client.load", () -> loadNanos, TimeUnit.NANOSECONDS)
+                        .description("Время загрузки конфигурации при старте")
+                        .tag("source", source())
+                        .register(registry));
+    }
+
+    private String source() {
+        return fromSnapshot ? "snapshot" : "server";
+    }
+}
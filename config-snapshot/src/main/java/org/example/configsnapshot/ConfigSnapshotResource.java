@@ -0,0 +1,99 @@
+package org.example.configsnapshot;
+
+import org.springframework.boot.context.config.ConfigDataResource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Ресурс конфигурации {@code configsnapshot:}: адрес config-server, имя приложения,
+ * активные профили и путь к локальному снимку свойств.
+ */
+public class ConfigSnapshotResource extends ConfigDataResource {
+
+    private final String serverUri;
+    private final String application;
+    private final String profiles;
+    private final String label;
+    private final Path snapshotFile;
+    private final Duration timeout;
+    private final Duration initialWait;
+
+    public ConfigSnapshotResource(String serverUri, String application, String profiles, String label,
+                                  Path snapshotFile, Duration timeout, Duration initialWait, boolean optional) {
+        super(optional);
+        this.serverUri = serverUri;
+        this.application = application;
+        this.profiles = profiles;
+        this.label = label;
+        this.snapshotFile = snapshotFile;
+        this.timeout = timeout;
+        this.initialWait = initialWait;
+    }
+
+    public String getServerUri() {
+        return serverUri;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    public String getProfiles() {
+        return profiles;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public Duration getInitialWait() {
+        return initialWait;
+    }
+
+    /**
+     * @return имя источника свойств, под которым снимок добавляется в окружение
+     */
+    public String getPropertySourceName() {
+        return "configsnapshot:" + application + "-" + profiles;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConfigSnapshotResource that = (ConfigSnapshotResource) o;
+        return serverUri.equals(that.serverUri)
+                && application.equals(that.application)
+                && profiles.equals(that.profiles)
+                && Objects.equals(label, that.label);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serverUri, application, profiles, label);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshotResource{" +
+                "serverUri=" + serverUri +
+                ", application=" + application +
+                ", profiles=" + profiles +
+                ", snapshotFile=" + snapshotFile +
+                '}';
+    }
+}
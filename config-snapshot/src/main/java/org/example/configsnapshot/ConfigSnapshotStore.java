@@ -0,0 +1,51 @@
+package org.example.configsnapshot;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Хранение снимка свойств в JSON-файле.
+ * Запись выполняется через временный файл и атомарное переименование,
+ * чтобы при сбое не остался повреждённый снимок.
+ */
+class ConfigSnapshotStore {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path file;
+
+    ConfigSnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return свойства из снимка или {@code null}, если снимка нет или он не читается
+     */
+    Map<String, Object> read() {
+        if (!Files.isReadable(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), MAP_TYPE);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void write(Map<String, Object> properties) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), properties);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.configsnapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit-тесты для {@link ConfigServerClient} с заглушкой config-server.
+ */
+class ConfigServerClientTest {
+
+    /**
+     * Проверяет адрес запроса и то, что первый источник свойств перекрывает следующие.
+     *
+     * @throws IOException если запрос не удался
+     */
+    @Test
+    void fetch_shouldLetEarlierSourcesOverrideLaterOnes() throws IOException {
+        try (FakeConfigServer server = new FakeConfigServer().respondWith(200, """
+                {"propertySources": [
+                    {"name": "user-service-docker.yml", "source": {"server.port": 9090, "tracing": true}},
+                    {"name": "user-service.yml", "source": {"server.port": 8081, "user.name": "svc"}}
+                ]}""")) {
+            ConfigServerClient client = new ConfigServerClient(resource(server.uri() + "/", "docker,aot", "main"));
+
+            Map<String, Object> properties = client.fetch();
+
+            assertEquals(Map.of("server.port", 9090, "tracing", true, "user.name", "svc"), properties);
+            assertEquals(List.of("/user-service/docker,aot/main"), server.paths());
+        }
+    }
+
+    /**
+     * Проверяет, что ответ с ошибкой не принимается за пустую конфигурацию.
+     *
+     * @throws IOException если не удалось запустить заглушку
+     */
+    @Test
+    void fetch_shouldFailOnErrorStatus() throws IOException {
+        try (FakeConfigServer server = new FakeConfigServer().respondWith(500, "{}")) {
+            ConfigServerClient client = new ConfigServerClient(resource(server.uri(), "default", null));
+
+            assertThrows(IOException.class, client::fetch);
+        }
+    }
+
+    static ConfigSnapshotResource resource(String serverUri, String profiles, String label) {
+        return new ConfigSnapshotResource(serverUri, "user-service", profiles, label,
+                Path.of("unused.json"), Duration.ofSeconds(5), Duration.ZERO, false);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.configsnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultBootstrapContext;
+import org.springframework.boot.context.config.ConfigData;
+import org.springframework.boot.context.config.ConfigDataLoaderContext;
+import org.springframework.boot.context.config.ConfigDataResourceNotFoundException;
+import org.springframework.boot.logging.DeferredLogFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link ConfigSnapshotDataLoader}: старт со снимка, первый старт с config-server
+ * и отказ без снимка и сервера.
+ */
+class ConfigSnapshotDataLoaderTest {
+
+    private final DeferredLogFactory logFactory = supplier -> supplier.get();
+    private final ConfigSnapshotDataLoader loader = new ConfigSnapshotDataLoader(logFactory);
+    private final DefaultBootstrapContext bootstrapContext = new DefaultBootstrapContext();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Проверяет, что при наличии снимка config-server не запрашивается, а сверка регистрируется на потом.
+     *
+     * @throws IOException если не удалось подготовить снимок
+     */
+    @Test
+    void load_shouldStartFromSnapshotWithoutServer() throws IOException {
+        try (FakeConfigServer server = new FakeConfigServer().respondWith("{\"server.port\": 9090}")) {
+            ConfigSnapshotResource resource = resource(server.uri(), Duration.ZERO);
+            new ConfigSnapshotStore(resource.getSnapshotFile()).write(Map.of("server.port", 8081));
+
+            ConfigData data = loader.load(context(), resource);
+
+            assertEquals(8081, data.getPropertySources().get(0).getProperty("server.port"));
+            assertEquals(resource.getPropertySourceName(), data.getPropertySources().get(0).getName());
+            assertTrue(server.paths().isEmpty());
+            assertTrue(bootstrapContext.isRegistered(ConfigSnapshotReconciler.class));
+        }
+    }
+
+    /**
+     * Проверяет, что без снимка свойства берутся с config-server и сохраняются в снимок.
+     *
+     * @throws IOException если не удалось запустить заглушку
+     */
+    @Test
+    void load_shouldFetchAndSaveSnapshotWhenMissing() throws IOException {
+        try (FakeConfigServer server = new FakeConfigServer().respondWith("{\"server.port\": 9090}")) {
+            ConfigSnapshotResource resource = resource(server.uri(), Duration.ZERO);
+
+            ConfigData data = loader.load(context(), resource);
+
+            assertEquals(9090, data.getPropertySources().get(0).getProperty("server.port"));
+            assertEquals(Map.of("server.port", 9090), new ConfigSnapshotStore(resource.getSnapshotFile()).read());
+        }
+    }
+
+    /**
+     * Проверяет, что без снимка и без config-server загрузка завершается ошибкой, а снимок не создаётся.
+     *
+     * @throws IOException если не удалось запустить заглушку
+     */
+    @Test
+    void load_shouldFailWithoutSnapshotAndServer() throws IOException {
+        String uri;
+        try (FakeConfigServer server = new FakeConfigServer()) {
+            uri = server.uri();
+        }
+        ConfigSnapshotResource resource = resource(uri, Duration.ZERO);
+
+        assertThrows(ConfigDataResourceNotFoundException.class, () -> loader.load(context(), resource));
+        assertFalse(resource.getSnapshotFile().toFile().exists());
+    }
+
+    private ConfigDataLoaderContext context() {
+        ConfigDataLoaderContext context = mock(ConfigDataLoaderContext.class);
+        when(context.getBootstrapContext()).thenReturn(bootstrapContext);
+        return context;
+    }
+
+    private ConfigSnapshotResource resource(String serverUri, Duration initialWait) {
+        return new ConfigSnapshotResource(serverUri, "user-service", "default", null,
+                directory.resolve("user-service-default.json"), Duration.ofSeconds(2), initialWait, false);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.configsnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.config.ConfigDataLocation;
+import org.springframework.boot.context.config.ConfigDataLocationResolverContext;
+import org.springframework.boot.context.config.Profiles;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link ConfigSnapshotLocationResolver}: построение ресурса из адреса и настроек.
+ */
+class ConfigSnapshotLocationResolverTest {
+
+    private final ConfigSnapshotLocationResolver resolver = new ConfigSnapshotLocationResolver();
+    private final ConfigDataLocation location = ConfigDataLocation.of("configsnapshot:http://config-server:8888");
+
+    /**
+     * Проверяет, что путь снимка строится из имени приложения и профилей, а настройки читаются из окружения.
+     */
+    @Test
+    void resolveProfileSpecific_shouldBuildResourceFromSettings() {
+        ConfigDataLocationResolverContext context = context(Map.of(
+                "spring.application.name", "user-service",
+                "spring.cloud.config.label", "main",
+                "config.snapshot.dir", "/var/snapshots",
+                "config.snapshot.timeout", "2s",
+                "config.snapshot.initial-wait", "30s"));
+
+        List<ConfigSnapshotResource> resources = resolver.resolveProfileSpecific(context, location,
+                profiles(List.of("docker", "aot")));
+
+        assertEquals(1, resources.size());
+        ConfigSnapshotResource resource = resources.get(0);
+        assertEquals("http://config-server:8888", resource.getServerUri());
+        assertEquals("docker,aot", resource.getProfiles());
+        assertEquals("main", resource.getLabel());
+        assertEquals(Path.of("/var/snapshots", "user-service-docker_aot.json"), resource.getSnapshotFile());
+        assertEquals(Duration.ofSeconds(2), resource.getTimeout());
+        assertEquals(Duration.ofSeconds(30), resource.getInitialWait());
+        assertEquals("configsnapshot:user-service-docker,aot", resource.getPropertySourceName());
+    }
+
+    /**
+     * Проверяет значения по умолчанию: профиль {@code default}, каталог {@code .config-snapshot}, без метки.
+     */
+    @Test
+    void resolveProfileSpecific_shouldUseDefaults() {
+        ConfigSnapshotResource resource = resolver.resolveProfileSpecific(context(Map.of()), location,
+                profiles(List.of())).get(0);
+
+        assertEquals("default", resource.getProfiles());
+        assertNull(resource.getLabel());
+        assertEquals(Path.of(".config-snapshot", "application-default.json"), resource.getSnapshotFile());
+        assertEquals(Duration.ZERO, resource.getInitialWait());
+    }
+
+    /**
+     * Проверяет, что при {@code config.snapshot.enabled=false} адрес игнорируется.
+     */
+    @Test
+    void resolveProfileSpecific_shouldSkipWhenDisabled() {
+        ConfigDataLocationResolverContext context = context(Map.of("config.snapshot.enabled", "false"));
+
+        assertTrue(resolver.resolveProfileSpecific(context, location, profiles(List.of("docker"))).isEmpty());
+        assertTrue(resolver.isResolvable(context, location));
+    }
+
+    private static ConfigDataLocationResolverContext context(Map<String, String> properties) {
+        ConfigDataLocationResolverContext context = mock(ConfigDataLocationResolverContext.class);
+        when(context.getBinder()).thenReturn(new Binder(new MapConfigurationPropertySource(properties)));
+        return context;
+    }
+
+    private static Profiles profiles(List<String> accepted) {
+        Profiles profiles = mock(Profiles.class);
+        when(profiles.getAccepted()).thenReturn(accepted);
+        return profiles;
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.configsnapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit-тесты для {@link ConfigSnapshotReconciler}: сверка снимка с config-server после старта.
+ */
+class ConfigSnapshotReconcilerTest {
+
+    private final GenericApplicationContext context = new GenericApplicationContext();
+    private final CompletableFuture<Set<String>> changedKeys = new CompletableFuture<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Проверяет, что после старта со снимка изменившиеся и удалённые ключи подменяются в окружении,
+     * публикуются в {@link EnvironmentChangeEvent} и сохраняются в снимок.
+     *
+     * @throws Exception если сверка не завершилась
+     */
+    @Test
+    void onApplicationEvent_shouldApplyServerChangesAfterSnapshotStart() throws Exception {
+        try (FakeConfigServer server = new FakeConfigServer()
+                .respondWith("{\"server.port\": 9090, \"feature\": \"on\"}")) {
+            ConfigSnapshotResource resource = resource(server.uri());
+            ConfigSnapshotStore store = new ConfigSnapshotStore(resource.getSnapshotFile());
+            Map<String, Object> loaded = new HashMap<>(Map.of("server.port", 8081, "feature", "on", "stale", "x"));
+            start(resource, loaded);
+
+            reconciler(resource, store, loaded, true).onApplicationEvent(readyEvent());
+
+            assertEquals(Set.of("server.port", "stale"), changedKeys.get(10, TimeUnit.SECONDS));
+            assertEquals("9090", context.getEnvironment().getProperty("server.port"));
+            assertNull(context.getEnvironment().getProperty("stale"));
+            assertEquals(Map.of("server.port", 9090, "feature", "on"), store.read());
+            meterRegistry.get("config.client.load").tag("source", "snapshot").timeGauge();
+        }
+    }
+
+    /**
+     * Проверяет, что после старта с config-server сверка не запускается.
+     *
+     * @throws IOException          если не удалось запустить заглушку
+     * @throws InterruptedException если ожидание прервано
+     */
+    @Test
+    void onApplicationEvent_shouldNotReconcileAfterServerStart() throws IOException, InterruptedException {
+        try (FakeConfigServer server = new FakeConfigServer().respondWith("{\"server.port\": 9090}")) {
+            ConfigSnapshotResource resource = resource(server.uri());
+            Map<String, Object> loaded = new HashMap<>(Map.of("server.port", 8081));
+            start(resource, loaded);
+
+            reconciler(resource, new ConfigSnapshotStore(resource.getSnapshotFile()), loaded, false)
+                    .onApplicationEvent(readyEvent());
+
+            Thread.sleep(200);
+            assertFalse(changedKeys.isDone());
+            assertEquals(0, server.paths().size());
+            meterRegistry.get("config.client.load").tag("source", "server").timeGauge();
+        }
+    }
+
+    private void start(ConfigSnapshotResource resource, Map<String, Object> loaded) {
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource(resource.getPropertySourceName(), new HashMap<>(loaded)));
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.addApplicationListener((ApplicationListener<EnvironmentChangeEvent>) event ->
+                changedKeys.complete(event.getKeys()));
+        context.refresh();
+    }
+
+    private ApplicationReadyEvent readyEvent() {
+        return new ApplicationReadyEvent(new SpringApplication(), new String[0], context, Duration.ofMillis(100));
+    }
+
+    private ConfigSnapshotReconciler reconciler(ConfigSnapshotResource resource, ConfigSnapshotStore store,
+                                                Map<String, Object> loaded, boolean fromSnapshot) {
+        return new ConfigSnapshotReconciler(resource, new ConfigServerClient(resource), store, loaded,
+                fromSnapshot, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private ConfigSnapshotResource resource(String serverUri) {
+        return new ConfigSnapshotResource(serverUri, "user-service", "default", null,
+                directory.resolve("user-service-default.json"), Duration.ofSeconds(2), Duration.ZERO, false);
+    }
+}
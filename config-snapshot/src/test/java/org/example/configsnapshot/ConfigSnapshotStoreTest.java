@@ -0,0 +1,55 @@
+package org.example.configsnapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit-тесты для {@link ConfigSnapshotStore}.
+ */
+class ConfigSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Проверяет, что записанный снимок читается обратно, каталог создаётся, а временных файлов не остаётся.
+     *
+     * @throws IOException если не удалось записать снимок
+     */
+    @Test
+    void write_shouldBeReadBack() throws IOException {
+        Path file = directory.resolve("nested/user-service-default.json");
+        ConfigSnapshotStore store = new ConfigSnapshotStore(file);
+
+        store.write(Map.of("server.port", 8081, "spring.application.name", "user-service"));
+
+        assertEquals(Map.of("server.port", 8081, "spring.application.name", "user-service"), store.read());
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Проверяет, что отсутствующий или повреждённый снимок читается как {@code null}.
+     *
+     * @throws IOException если не удалось подготовить файл
+     */
+    @Test
+    void read_shouldReturnNullForMissingOrCorruptSnapshot() throws IOException {
+        Path file = directory.resolve("user-service-default.json");
+        ConfigSnapshotStore store = new ConfigSnapshotStore(file);
+        assertNull(store.read());
+
+        Files.writeString(file, "{\"server.port\": 80");
+        assertNull(store.read());
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.configsnapshot;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Заглушка config-server для тестов: на любой запрос отвечает заданными статусом и телом
+ * и запоминает пути запросов.
+ */
+class FakeConfigServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String body = "{\"propertySources\":[]}";
+
+    FakeConfigServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            paths.add(exchange.getRequestURI().getPath());
+            byte[] response = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Отвечает одним источником свойств.
+     *
+     * @param sourceJson JSON-объект свойств источника
+     */
+    FakeConfigServer respondWith(String sourceJson) {
+        return respondWith(200, "{\"propertySources\":[{\"name\":\"test\",\"source\":" + sourceJson + "}]}");
+    }
+
+    FakeConfigServer respondWith(int status, String body) {
+        this.status = status;
+        this.body = body;
+        return this;
+    }
+
+    String uri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    List<String> paths() {
+        return paths;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.loadharness;
+
+import org.example.loadharness.load.RequestMix;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Настройки прогона нагрузки.
+ * Передаются аргументами командной строки вида {@code --key=value}:
+ * <ul>
+ *     <li>{@code --concurrency} — число параллельных клиентов (по умолчанию 16);</li>
+ *     <li>{@code --warmup} — длительность прогрева, результаты которого не учитываются (10s);</li>
+ *     <li>{@code --duration} — длительность измерения (30s);</li>
+ *     <li>{@code --mix} — смесь запросов, см. {@link RequestMix} ({@value #DEFAULT_MIX});</li>
+ *     <li>{@code --seed-users} — сколько пользователей создать до начала прогрева (100);</li>
+ *     <li>{@code --user-service-port}, {@code --notification-service-port} — порты сервисов (18081, 18082);</li>
+ *     <li>{@code --drain-timeout} — сколько ждать доставки оставшихся писем после измерения (30s);</li>
+ *     <li>{@code --replicas} — число реплик чтения user-service (0); репликой служит та же база H2,
+ *     поэтому измеряется только накладной расход маршрутизации и отдельных пулов;</li>
+ *     <li>{@code --rpc-port} — порт gRPC-сервера user-service (19090);</li>
+ *     <li>{@code --lookup-batch} — число ID в одном запросе multi-get в {@link RpcBenchmark} (100).</li>
+ * </ul>
+ */
+public record HarnessSettings(int concurrency,
+                              Duration warmup,
+                              Duration duration,
+                              RequestMix mix,
+                              int seedUsers,
+                              int userServicePort,
+                              int notificationServicePort,
+                              Duration drainTimeout,
+                              int replicas,
+                              int rpcPort,
+                              int lookupBatch) {
+
+    static final String DEFAULT_MIX = "create=20,get=50,list=5,update=15,delete=10";
+
+    private static final Set<String> KEYS = Set.of("concurrency", "warmup", "duration", "mix", "seed-users",
+            "user-service-port", "notification-service-port", "drain-timeout", "replicas",
+            "rpc-port", "lookup-batch");
+
+    /**
+     * Разбирает аргументы командной строки.
+     *
+     * @param args аргументы вида {@code --key=value}
+     * @return настройки прогона
+     * @throws IllegalArgumentException если аргумент неизвестен или имеет неверный формат
+     */
+    public static HarnessSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !KEYS.contains(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Неизвестный аргумент: " + arg + ", допустимые: " + KEYS);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        return new HarnessSettings(
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "30s")),
+                RequestMix.parse(values.getOrDefault("mix", DEFAULT_MIX)),
+                Integer.parseInt(values.getOrDefault("seed-users", "100")),
+                Integer.parseInt(values.getOrDefault("user-service-port", "18081")),
+                Integer.parseInt(values.getOrDefault("notification-service-port", "18082")),
+                DurationStyle.detectAndParse(values.getOrDefault("drain-timeout", "30s")),
+                Integer.parseInt(values.getOrDefault("replicas", "0")),
+                Integer.parseInt(values.getOrDefault("rpc-port", "19090")),
+                Integer.parseInt(values.getOrDefault("lookup-batch", "100")));
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.loadharness;
+
+import org.example.loadharness.infra.EmbeddedServices;
+import org.example.loadharness.load.LoadDriver;
+import org.example.loadharness.load.UserApiClient;
+import org.example.loadharness.report.DeliveryTracker;
+import org.example.loadharness.report.HarnessReport;
+
+/**
+ * Стенд сквозной нагрузки конвейера «создание пользователя → Kafka → письмо» без docker-compose.
+ * Поднимает весь конвейер в одной JVM ({@link EmbeddedServices}), создаёт начальных пользователей,
+ * прогревает сервисы, затем измеряет нагрузку и печатает отчёт {@link HarnessReport}.
+ *
+ * Запуск:
+ * <pre>
+ * mvn -pl load-harness -am package -DskipTests
+ * java -jar load-harness/target/load-harness.jar --concurrency=32 --duration=60s --mix=create=10,get=80,update=10
+ * </pre>
+ * Параметры описаны в {@link HarnessSettings}.
+ */
+public class LoadHarnessApplication {
+
+    public static void main(String[] args) throws Exception {
+        HarnessSettings settings = HarnessSettings.parse(args);
+        DeliveryTracker tracker = new DeliveryTracker();
+
+        try (EmbeddedServices services = EmbeddedServices.start(settings, tracker)) {
+            LoadDriver driver = new LoadDriver(new UserApiClient(settings.userServicePort()), settings.mix(), tracker);
+
+            driver.seed(settings.seedUsers(), settings.concurrency());
+            driver.run(settings.warmup(), settings.concurrency(), false);
+            LoadDriver.PhaseResult result = driver.run(settings.duration(), settings.concurrency(), true);
+            boolean drained = tracker.awaitDrained(settings.drainTimeout());
+
+            HarnessReport.print(System.out, settings, result, tracker, drained);
+            System.out.printf("GreenMail received %d emails in total%n", services.receivedEmails());
+        }
+    }
+}
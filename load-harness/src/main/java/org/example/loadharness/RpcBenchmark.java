@@ -0,0 +1,173 @@
+package org.example.loadharness;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.example.loadharness.infra.EmbeddedServices;
+import org.example.loadharness.load.UserApiClient;
+import org.example.loadharness.load.UserRpcClient;
+import org.example.loadharness.report.DeliveryTracker;
+import org.example.loadharness.report.LatencySeries;
+import org.example.loadharness.report.OperationStats;
+import org.example.userservice.dto.UserDto;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Сравнение REST ({@link org.example.userservice.api.UserApi}, HAL+JSON) и gRPC ({@code UserRpc})
+ * user-service на одних и тех же операциях чтения: get, multi-get по {@code --lookup-batch} ID и list.
+ *
+ * Поднимает стенд {@link EmbeddedServices}, создаёт {@code --seed-users} пользователей и для каждой
+ * операции и каждого транспорта по очереди выполняет прогрев и измерение с {@code --concurrency}
+ * клиентами. Для каждой пары печатает задержку и процессорное время на вызов. Клиенты и сервисы работают
+ * в одной JVM, поэтому процессорное время включает и клиентскую, и серверную часть вызова
+ * (сериализацию с обеих сторон), а также фоновую работу стенда, одинаковую для обоих транспортов.
+ *
+ * Запуск:
+ * <pre>
+ * mvn -pl load-harness -am package -DskipTests
+ * java -Dloader.main=org.example.loadharness.RpcBenchmark -cp load-harness/target/load-harness.jar \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher --concurrency=8 --duration=20s --seed-users=1000
+ * </pre>
+ * Параметры описаны в {@link HarnessSettings}, {@code --mix} не используется.
+ */
+public class RpcBenchmark {
+
+    private static final String ROW = "%-10s %-5s %9s %10s %7s %9s %9s %9s %12s%n";
+
+    private interface Call {
+        int execute(RandomGenerator random) throws IOException, InterruptedException;
+    }
+
+    private interface Worker {
+        void run(RandomGenerator random) throws IOException, InterruptedException;
+    }
+
+    private record Measurement(OperationStats stats, Duration elapsed, long cpuNanos) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessSettings settings = HarnessSettings.parse(args);
+
+        try (EmbeddedServices services = EmbeddedServices.start(settings, new DeliveryTracker());
+             UserRpcClient rpc = new UserRpcClient(settings.rpcPort())) {
+            UserApiClient rest = new UserApiClient(settings.userServicePort());
+            List<Integer> ids = seed(rest, settings.seedUsers(), settings.concurrency());
+
+            System.out.printf(Locale.ROOT, "%nconcurrency=%d warmup=%s duration=%s users=%d lookup-batch=%d%n",
+                    settings.concurrency(), DurationStyle.SIMPLE.print(settings.warmup()),
+                    DurationStyle.SIMPLE.print(settings.duration()), ids.size(), settings.lookupBatch());
+            System.out.printf(Locale.ROOT, ROW, "op", "via", "ok", "ok/s", "errors", "p50 ms", "p99 ms", "p99.9 ms",
+                    "cpu us/call");
+
+            report("get", "rest", settings, random -> rest.get(pick(ids, random)).status());
+            report("get", "grpc", settings, random -> rpc.get(pick(ids, random)));
+            int lookupBatch = settings.lookupBatch();
+            report("multi-get", "rest", settings, random -> rest.getByIds(batch(ids, lookupBatch, random)).status());
+            report("multi-get", "grpc", settings, random -> rpc.getByIds(batch(ids, lookupBatch, random)));
+            report("list", "rest", settings, random -> rest.list().status());
+            report("list", "grpc", settings, random -> rpc.list());
+        }
+    }
+
+    private static void report(String operation, String transport, HarnessSettings settings, Call call)
+            throws InterruptedException {
+        measure(call, settings.warmup(), settings.concurrency());
+        Measurement measurement = measure(call, settings.duration(), settings.concurrency());
+
+        OperationStats stats = measurement.stats();
+        long[] sorted = stats.latency().sortedSnapshot();
+        long calls = stats.succeeded() + stats.notFound() + stats.failed();
+        System.out.printf(Locale.ROOT, ROW, operation, transport, stats.succeeded(),
+                String.format(Locale.ROOT, "%.1f", stats.succeeded() / (measurement.elapsed().toNanos() / 1e9)),
+                stats.notFound() + stats.failed(),
+                millis(LatencySeries.percentile(sorted, 50)), millis(LatencySeries.percentile(sorted, 99)),
+                millis(LatencySeries.percentile(sorted, 99.9)),
+                String.format(Locale.ROOT, "%.1f", calls == 0 ? 0 : measurement.cpuNanos() / 1e3 / calls));
+    }
+
+    private static Measurement measure(Call call, Duration duration, int concurrency) throws InterruptedException {
+        OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        OperationStats stats = new OperationStats();
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        runWorkers(concurrency, random -> {
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                long callStart = System.nanoTime();
+                int status;
+                try {
+                    status = call.execute(random);
+                } catch (IOException e) {
+                    status = -1;
+                }
+                stats.record(status, System.nanoTime() - callStart);
+            }
+        });
+        return new Measurement(stats, Duration.ofNanos(System.nanoTime() - start), os.getProcessCpuTime() - cpuStart);
+    }
+
+    private static List<Integer> seed(UserApiClient rest, int count, int concurrency) throws InterruptedException {
+        List<Integer> ids = Collections.synchronizedList(new ArrayList<>(count));
+        AtomicInteger sequence = new AtomicInteger();
+        runWorkers(concurrency, random -> {
+            int number;
+            while ((number = sequence.incrementAndGet()) <= count) {
+                UserApiClient.Result result = rest.create(
+                        new UserDto(0, "Bench " + number, "rpc-bench-" + number + "@harness.local", 30, null));
+                if (result.status() == 201) {
+                    ids.add(result.id());
+                }
+            }
+        });
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("Не удалось создать ни одного пользователя");
+        }
+        return List.copyOf(ids);
+    }
+
+    private static int pick(List<Integer> ids, RandomGenerator random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static List<Integer> batch(List<Integer> ids, int size, RandomGenerator random) {
+        List<Integer> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(pick(ids, random));
+        }
+        return batch;
+    }
+
+    private static void runWorkers(int concurrency, Worker worker) throws InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> {
+                    worker.run(ThreadLocalRandom.current());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Клиент нагрузки завершился с ошибкой", e.getCause());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.loadharness.infra;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.example.loadharness.HarnessSettings;
+import org.example.loadharness.report.DeliveryTracker;
+import org.example.notificationservice.NotificationServiceApplication;
+import org.example.userservice.UserServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Поднимает в одной JVM весь конвейер создания пользователя:
+ * встроенный брокер Kafka, H2 в режиме совместимости с PostgreSQL вместо базы user-service,
+ * SMTP-сервер GreenMail, а также user-service и notification-service в отдельных контекстах Spring.
+ *
+ * Сервисы запускаются без config-server и Eureka: {@code application.yml} сервисов не читается
+ * ({@code spring.config.name} подменён), все нужные свойства передаются явно.
+ */
+public class EmbeddedServices implements AutoCloseable {
+
+    static final String NOTIFICATIONS_TOPIC = "user-notifications";
+
+    private static final String USER_DATABASE_URL =
+            "jdbc:h2:mem:user_service_db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final GreenMail greenMail;
+    private final EmbeddedKafkaBroker kafka;
+    private final ConfigurableApplicationContext notificationService;
+    private final ConfigurableApplicationContext userService;
+
+    private EmbeddedServices(GreenMail greenMail,
+                             EmbeddedKafkaBroker kafka,
+                             ConfigurableApplicationContext notificationService,
+                             ConfigurableApplicationContext userService) {
+        this.greenMail = greenMail;
+        this.kafka = kafka;
+        this.notificationService = notificationService;
+        this.userService = userService;
+    }
+
+    /**
+     * Запускает инфраструктуру и оба сервиса.
+     * Возвращает управление, когда листенер notification-service получил партицию топика уведомлений,
+     * иначе первые уведомления могли бы быть пропущены потребителем.
+     *
+     * @param settings настройки прогона
+     * @param tracker  получатель событий о доставке писем
+     * @return запущенный стенд
+     */
+    public static EmbeddedServices start(HarnessSettings settings, DeliveryTracker tracker) {
+        GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+
+        // одна партиция сохраняет порядок писем для каждого адреса, см. DeliveryTracker
+        EmbeddedKafkaBroker kafka = new EmbeddedKafkaKraftBroker(1, 1, NOTIFICATIONS_TOPIC);
+        kafka.afterPropertiesSet();
+
+        RecordingMailSender mailSender = new RecordingMailSender(ServerSetupTest.SMTP.getPort(), tracker);
+        ConfigurableApplicationContext notificationService = new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .properties(notificationServiceProperties(settings, kafka.getBrokersAsString()))
+                .initializers(context -> context.getBeanFactory().registerSingleton("javaMailSender", mailSender))
+                .run();
+
+        KafkaListenerEndpointRegistry registry = notificationService.getBean(KafkaListenerEndpointRegistry.class);
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, 1);
+        }
+
+        ConfigurableApplicationContext userService = new SpringApplicationBuilder(UserServiceApplication.class)
+                .properties(userServiceProperties(settings, kafka.getBrokersAsString()))
+                .run();
+
+        return new EmbeddedServices(greenMail, kafka, notificationService, userService);
+    }
+
+    /**
+     * @return число писем, принятых GreenMail за время работы стенда
+     */
+    public int receivedEmails() {
+        return greenMail.getReceivedMessages().length;
+    }
+
+    @Override
+    public void close() {
+        userService.close();
+        notificationService.close();
+        kafka.destroy();
+        greenMail.stop();
+    }
+
+    private static Map<String, Object> commonProperties(String serviceName, int port, String bootstrapServers) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.application.name", serviceName);
+        properties.put("spring.config.name", "load-harness-" + serviceName);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("server.port", port);
+        properties.put("spring.cloud.config.enabled", false);
+        properties.put("spring.cloud.config.import-check.enabled", false);
+        properties.put("config.snapshot.enabled", false);
+        properties.put("eureka.client.enabled", false);
+        properties.put("spring.kafka.bootstrap-servers", bootstrapServers);
+        properties.put("management.tracing.sampling.probability", 1.0);
+        properties.put("management.tracing.baggage.remote-fields", "request-start");
+        // спаны и каждое принятое письмо пишутся в лог построчно, под нагрузкой это искажает результат
+        properties.put("logging.level.tracing.spans", "WARN");
+        properties.put("logging.level.com.icegreen.greenmail", "WARN");
+        return properties;
+    }
+
+    private static Map<String, Object> userServiceProperties(HarnessSettings settings, String bootstrapServers) {
+        Map<String, Object> properties = commonProperties("user-service", settings.userServicePort(), bootstrapServers);
+        properties.put("spring.datasource.url", USER_DATABASE_URL);
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.kafka.template.observation-enabled", true);
+        properties.put("user.rpc.port", settings.rpcPort());
+        properties.put("user.notification.spool.directory", temporaryDirectory("load-harness-notification-spool"));
+        for (int i = 0; i < settings.replicas(); i++) {
+            properties.put("user.datasource.replicas[" + i + "].url", USER_DATABASE_URL);
+        }
+        return properties;
+    }
+
+    private static Map<String, Object> notificationServiceProperties(HarnessSettings settings, String bootstrapServers) {
+        Map<String, Object> properties =
+                commonProperties("notification-service", settings.notificationServicePort(), bootstrapServers);
+        properties.put("notification.journal.directory", temporaryDirectory("load-harness-delivery-journal"));
+        return properties;
+    }
+
+    private static String temporaryDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(prefix).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
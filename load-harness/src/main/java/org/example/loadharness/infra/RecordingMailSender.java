@@ -0,0 +1,51 @@
+package org.example.loadharness.infra;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.example.loadharness.report.DeliveryTracker;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Properties;
+
+/**
+ * {@link JavaMailSenderImpl}, настроенный на локальный GreenMail так же, как {@code TestMailConfig}
+ * в тестах notification-service, и сообщающий {@link DeliveryTracker} о каждом принятом сервером письме.
+ * Письмо считается доставленным, когда SMTP-сервер подтвердил его приём.
+ */
+public class RecordingMailSender extends JavaMailSenderImpl {
+
+    private final DeliveryTracker tracker;
+
+    public RecordingMailSender(int smtpPort, DeliveryTracker tracker) {
+        this.tracker = tracker;
+        setHost("localhost");
+        setPort(smtpPort);
+
+        Properties props = getJavaMailProperties();
+        props.put("mail.transport.protocol", "smtp");
+        props.put("mail.smtp.auth", "false");
+        props.put("mail.smtp.starttls.enable", "false");
+        props.put("mail.debug", "false");
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        super.doSend(mimeMessages, originalMessages);
+        for (MimeMessage message : mimeMessages) {
+            try {
+                Address[] recipients = message.getAllRecipients();
+                if (recipients == null) {
+                    continue;
+                }
+                for (Address recipient : recipients) {
+                    tracker.delivered(((InternetAddress) recipient).getAddress());
+                }
+            } catch (MessagingException e) {
+                throw new IllegalStateException("Не удалось прочитать получателей письма", e);
+            }
+        }
+    }
+}
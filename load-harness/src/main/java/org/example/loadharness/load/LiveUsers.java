@@ -0,0 +1,43 @@
+package org.example.loadharness.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Пул существующих пользователей, к которым обращаются операции чтения, обновления и удаления.
+ * Удаление забирает пользователя из пула, поэтому один пользователь не удаляется дважды;
+ * чтение и обновление могут столкнуться с параллельным удалением и получить 404.
+ */
+class LiveUsers {
+
+    record User(int id, String email) {
+    }
+
+    private final List<User> users = new ArrayList<>();
+
+    synchronized void add(User user) {
+        users.add(user);
+    }
+
+    /**
+     * @return случайный пользователь или {@code null}, если пул пуст
+     */
+    synchronized User pick(RandomGenerator random) {
+        return users.isEmpty() ? null : users.get(random.nextInt(users.size()));
+    }
+
+    /**
+     * Забирает случайного пользователя из пула; порядок элементов не сохраняется.
+     *
+     * @return пользователь или {@code null}, если пул пуст
+     */
+    synchronized User take(RandomGenerator random) {
+        if (users.isEmpty()) {
+            return null;
+        }
+        int index = random.nextInt(users.size());
+        User last = users.remove(users.size() - 1);
+        return index == users.size() ? last : users.set(index, last);
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.loadharness.load;
+
+import org.example.loadharness.report.DeliveryTracker;
+import org.example.loadharness.report.OperationStats;
+import org.example.userservice.dto.UserDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Генератор нагрузки с замкнутым циклом: каждый из {@code concurrency} клиентов
+ * на отдельном виртуальном потоке отправляет следующий запрос сразу после ответа на предыдущий.
+ * Операция выбирается по {@link RequestMix}; если для чтения, обновления или удаления
+ * нет ни одного пользователя, вместо неё выполняется создание.
+ */
+public class LoadDriver {
+
+    private final UserApiClient client;
+    private final RequestMix mix;
+    private final DeliveryTracker tracker;
+    private final LiveUsers users = new LiveUsers();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public LoadDriver(UserApiClient client, RequestMix mix, DeliveryTracker tracker) {
+        this.client = client;
+        this.mix = mix;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Результат фазы: статистика по операциям и фактическая длительность фазы.
+     */
+    public record PhaseResult(Map<Operation, OperationStats> stats, Duration elapsed) {
+    }
+
+    /**
+     * Создаёт начальный набор пользователей, чтобы операции чтения не упирались в пустую базу.
+     *
+     * @param count       количество пользователей
+     * @param concurrency число параллельных клиентов
+     */
+    public void seed(int count, int concurrency) throws InterruptedException {
+        Map<Operation, OperationStats> stats = newStats();
+        AtomicInteger remaining = new AtomicInteger(count);
+        runWorkers(concurrency, random -> {
+            while (remaining.getAndDecrement() > 0) {
+                execute(Operation.CREATE, random, stats, false);
+            }
+        });
+    }
+
+    /**
+     * Выполняет фазу нагрузки заданной длительности.
+     *
+     * @param duration    длительность фазы
+     * @param concurrency число параллельных клиентов
+     * @param measured    учитывать ли задержку доставки писем этой фазы в отчёте
+     * @return результат фазы
+     */
+    public PhaseResult run(Duration duration, int concurrency, boolean measured) throws InterruptedException {
+        Map<Operation, OperationStats> stats = newStats();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        runWorkers(concurrency, random -> {
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                execute(mix.next(random), random, stats, measured);
+            }
+        });
+        return new PhaseResult(stats, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void execute(Operation requested, RandomGenerator random, Map<Operation, OperationStats> stats,
+                         boolean measured) {
+        LiveUsers.User user = switch (requested) {
+            case GET, UPDATE -> users.pick(random);
+            case DELETE -> users.take(random);
+            default -> null;
+        };
+        Operation operation = user == null && requested != Operation.LIST ? Operation.CREATE : requested;
+
+        String email = user != null ? user.email() : "load-" + sequence.incrementAndGet() + "@harness.local";
+        long start = System.nanoTime();
+        DeliveryTracker.Expectation expectation = operation == Operation.CREATE || operation == Operation.DELETE
+                ? tracker.expect(email, start, measured)
+                : null;
+
+        int status;
+        try {
+            status = switch (operation) {
+                case LIST -> client.list().status();
+                case GET -> client.get(user.id()).status();
+                case UPDATE -> client.update(user.id(), newUser(user.email(), random)).status();
+                case DELETE -> client.delete(user.id()).status();
+                case CREATE -> {
+                    UserApiClient.Result result = client.create(newUser(email, random));
+                    if (result.status() == 201) {
+                        users.add(new LiveUsers.User(result.id(), email));
+                    }
+                    yield result.status();
+                }
+            };
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (expectation != null && (status < 200 || status >= 300)) {
+            tracker.cancel(email, expectation);
+        }
+        stats.get(operation).record(status, elapsed);
+    }
+
+    private static UserDto newUser(String email, RandomGenerator random) {
+        return new UserDto(0, "Load " + random.nextInt(1_000_000), email, 18 + random.nextInt(60), null);
+    }
+
+    private static Map<Operation, OperationStats> newStats() {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        return stats;
+    }
+
+    private static void runWorkers(int concurrency, Consumer<RandomGenerator> worker) throws InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> worker.accept(ThreadLocalRandom.current())));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Клиент нагрузки завершился с ошибкой", e.getCause());
+        }
+    }
+}
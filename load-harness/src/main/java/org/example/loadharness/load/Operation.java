@@ -0,0 +1,43 @@
+package org.example.loadharness.load;
+
+/**
+ * Операции {@link org.example.userservice.api.UserApi}, из которых составляется нагрузка.
+ * Создание и удаление пользователя дополнительно порождают письмо через notification-service.
+ */
+public enum Operation {
+
+    LIST("list"),
+    GET("get"),
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return имя операции в настройке {@code --mix}
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Находит операцию по имени из настройки {@code --mix}.
+     *
+     * @param key имя операции
+     * @return операция
+     * @throws IllegalArgumentException если операция неизвестна
+     */
+    public static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная операция: " + key);
+    }
+}
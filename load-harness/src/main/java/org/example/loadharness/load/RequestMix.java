@@ -0,0 +1,82 @@
+package org.example.loadharness.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.random.RandomGenerator;
+
+/**
+ * Смесь запросов: вес каждой операции в общем потоке.
+ * Задаётся строкой вида {@code create=20,get=50,list=5,update=15,delete=10};
+ * веса не обязаны давать в сумме 100, операция выбирается пропорционально весу.
+ */
+public class RequestMix {
+
+    private final Map<Operation, Integer> weights;
+    private final Operation[] operations;
+    private final int[] cumulative;
+    private final int total;
+
+    private RequestMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulative = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulative[i] = sum;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * Разбирает смесь из строки настройки.
+     *
+     * @param spec строка вида {@code create=20,get=50}
+     * @return смесь запросов
+     * @throws IllegalArgumentException если строка некорректна или все веса нулевые
+     */
+    public static RequestMix parse(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент смеси: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес не может быть отрицательным: " + part);
+            }
+            if (weight > 0) {
+                weights.put(Operation.fromKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Смесь запросов пуста: " + spec);
+        }
+        return new RequestMix(weights);
+    }
+
+    /**
+     * Выбирает следующую операцию пропорционально весам.
+     *
+     * @param random генератор случайных чисел потока нагрузки
+     * @return операция
+     */
+    public Operation next(RandomGenerator random) {
+        int point = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (point < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        weights.forEach((operation, weight) -> joiner.add(operation.key() + "=" + weight));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.loadharness.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.userservice.dto.UserDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP-клиент эндпоинтов {@link org.example.userservice.api.UserApi}.
+ * Каждый запрос несёт заголовок {@code request-start}, как если бы прошёл через api-gateway,
+ * поэтому notification-service считает метрику {@code notification.end.to.end} и под стендом.
+ */
+public class UserApiClient {
+
+    private static final String REQUEST_START_HEADER = "request-start";
+
+    private final HttpClient http;
+    private final URI users;
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    public UserApiClient(int port) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.users = URI.create("http://localhost:" + port + "/api/users");
+    }
+
+    /**
+     * Результат вызова: HTTP-статус и идентификатор созданного пользователя, если он есть.
+     */
+    public record Result(int status, int id) {
+
+        public boolean isSuccess() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    public Result list() throws IOException, InterruptedException {
+        return send(request(users).GET(), false);
+    }
+
+    public Result get(int id) throws IOException, InterruptedException {
+        return send(request(users.resolve("users/" + id)).GET(), false);
+    }
+
+    public Result getByIds(List<Integer> ids) throws IOException, InterruptedException {
+        String query = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return send(request(users.resolve("users?ids=" + query)).GET(), false);
+    }
+
+    public Result create(UserDto user) throws IOException, InterruptedException {
+        return send(request(users).POST(json(user)), true);
+    }
+
+    public Result update(int id, UserDto user) throws IOException, InterruptedException {
+        return send(request(users.resolve("users/" + id)).PUT(json(user)), false);
+    }
+
+    public Result delete(int id) throws IOException, InterruptedException {
+        return send(request(users.resolve("users/" + id)).DELETE(), false);
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header(REQUEST_START_HEADER, Long.toString(System.currentTimeMillis()));
+    }
+
+    private HttpRequest.BodyPublisher json(UserDto user) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(user));
+    }
+
+    private Result send(HttpRequest.Builder request, boolean readId) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        int id = readId && response.statusCode() == 201
+                ? mapper.readTree(response.body()).path("id").asInt()
+                : 0;
+        return new Result(response.statusCode(), id);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.loadharness.load;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.example.userservice.rpc.proto.GetUserRequest;
+import org.example.userservice.rpc.proto.GetUsersRequest;
+import org.example.userservice.rpc.proto.ListUsersRequest;
+import org.example.userservice.rpc.proto.UserRpcGrpc;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC-клиент {@code UserRpc} user-service с теми же операциями чтения, что и у {@link UserApiClient}.
+ * Все вызовы идут по одному HTTP/2-соединению. Результат — эквивалентный HTTP-статус,
+ * чтобы учитывать вызовы в {@link org.example.loadharness.report.OperationStats} наравне с REST.
+ */
+public class UserRpcClient implements AutoCloseable {
+
+    private final ManagedChannel channel;
+    private final UserRpcGrpc.UserRpcBlockingStub stub;
+
+    public UserRpcClient(int port) {
+        this.channel = NettyChannelBuilder.forAddress("localhost", port)
+                .usePlaintext()
+                .build();
+        this.stub = UserRpcGrpc.newBlockingStub(channel);
+    }
+
+    public int get(int id) {
+        return call(() -> stub.withDeadlineAfter(30, TimeUnit.SECONDS)
+                .getUser(GetUserRequest.newBuilder().setId(id).build()));
+    }
+
+    public int getByIds(List<Integer> ids) {
+        return call(() -> stub.withDeadlineAfter(30, TimeUnit.SECONDS)
+                .getUsers(GetUsersRequest.newBuilder().addAllIds(ids).build()));
+    }
+
+    public int list() {
+        return call(() -> {
+            Iterator<?> users = stub.withDeadlineAfter(30, TimeUnit.SECONDS)
+                    .listUsers(ListUsersRequest.getDefaultInstance());
+            while (users.hasNext()) {
+                users.next();
+            }
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static int call(Runnable call) {
+        try {
+            call.run();
+            return 200;
+        } catch (StatusRuntimeException e) {
+            return e.getStatus().getCode() == Status.Code.NOT_FOUND ? 404 : -1;
+        }
+    }
+}
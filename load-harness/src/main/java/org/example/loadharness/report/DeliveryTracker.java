@@ -0,0 +1,124 @@
+package org.example.loadharness.report;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сопоставляет письма, принятые SMTP-сервером, с запросами, которые их породили.
+ * Перед запросом создания или удаления пользователя регистрируется ожидание письма на его адрес,
+ * при доставке письма снимается самое раннее ожидание для этого адреса.
+ * Для одного адреса письма приходят в порядке запросов: топик уведомлений в стенде имеет одну партицию,
+ * а удаление отправляется только после успешного создания.
+ *
+ * Задержка доставки считается от начала HTTP-запроса до приёма письма и учитывается
+ * только для запросов фазы измерения.
+ */
+public class DeliveryTracker {
+
+    private final ConcurrentHashMap<String, Queue<Expectation>> expectations = new ConcurrentHashMap<>();
+    private final LatencySeries lag = new LatencySeries();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger measuredExpected = new AtomicInteger();
+    private final AtomicInteger measuredDelivered = new AtomicInteger();
+
+    /**
+     * Регистрирует ожидание письма до отправки запроса.
+     *
+     * @param email       адрес получателя
+     * @param startedAt   {@link System#nanoTime()} начала запроса
+     * @param measured    относится ли запрос к фазе измерения
+     * @return ожидание, которое нужно отменить, если запрос не удался
+     */
+    public Expectation expect(String email, long startedAt, boolean measured) {
+        Expectation expectation = new Expectation(startedAt, measured);
+        pending.incrementAndGet();
+        if (measured) {
+            measuredExpected.incrementAndGet();
+        }
+        expectations.computeIfAbsent(email, key -> new ConcurrentLinkedQueue<>()).add(expectation);
+        return expectation;
+    }
+
+    /**
+     * Отменяет ожидание письма для неуспешного запроса.
+     *
+     * @param email       адрес получателя
+     * @param expectation ожидание, полученное из {@link #expect}
+     */
+    public void cancel(String email, Expectation expectation) {
+        Queue<Expectation> queue = expectations.get(email);
+        if (queue != null && queue.remove(expectation)) {
+            pending.decrementAndGet();
+            if (expectation.measured) {
+                measuredExpected.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Отмечает доставку письма на адрес.
+     * Письма без зарегистрированного ожидания игнорируются.
+     *
+     * @param email адрес получателя
+     */
+    public void delivered(String email) {
+        long now = System.nanoTime();
+        Queue<Expectation> queue = expectations.get(email);
+        Expectation expectation = queue != null ? queue.poll() : null;
+        if (expectation == null) {
+            return;
+        }
+        pending.decrementAndGet();
+        if (expectation.measured) {
+            measuredDelivered.incrementAndGet();
+            lag.record(now - expectation.startedAt);
+        }
+    }
+
+    /**
+     * Ждёт, пока все ожидаемые письма будут доставлены.
+     *
+     * @param timeout максимальное время ожидания
+     * @return {@code true}, если все письма доставлены
+     * @throws InterruptedException если ожидание прервано
+     */
+    public boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+
+    public LatencySeries lag() {
+        return lag;
+    }
+
+    public int measuredExpected() {
+        return measuredExpected.get();
+    }
+
+    public int measuredDelivered() {
+        return measuredDelivered.get();
+    }
+
+    /**
+     * Ожидание одного письма.
+     */
+    public static final class Expectation {
+
+        private final long startedAt;
+        private final boolean measured;
+
+        private Expectation(long startedAt, boolean measured) {
+            this.startedAt = startedAt;
+            this.measured = measured;
+        }
+    }
+}
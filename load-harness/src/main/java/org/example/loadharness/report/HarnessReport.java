@@ -0,0 +1,65 @@
+package org.example.loadharness.report;
+
+import org.example.loadharness.HarnessSettings;
+import org.example.loadharness.load.LoadDriver;
+import org.example.loadharness.load.Operation;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Текстовый отчёт о прогоне: пропускная способность и перцентили задержки по операциям,
+ * а также сквозная задержка от HTTP-запроса до приёма письма SMTP-сервером.
+ */
+public class HarnessReport {
+
+    private static final String ROW = "%-8s %9s %10s %7s %7s %9s %9s %9s %9s %9s%n";
+
+    private HarnessReport() {
+    }
+
+    public static void print(PrintStream out,
+                             HarnessSettings settings,
+                             LoadDriver.PhaseResult result,
+                             DeliveryTracker tracker,
+                             boolean drained) {
+        double seconds = result.elapsed().toNanos() / 1e9;
+
+        out.printf(Locale.ROOT, "%nconcurrency=%d warmup=%s duration=%s mix=%s replicas=%d%n",
+                settings.concurrency(), DurationStyle.SIMPLE.print(settings.warmup()),
+                DurationStyle.SIMPLE.print(settings.duration()), settings.mix(), settings.replicas());
+        out.printf(Locale.ROOT, ROW, "op", "ok", "ok/s", "404", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            OperationStats stats = result.stats().get(operation);
+            long[] sorted = stats.latency().sortedSnapshot();
+            if (sorted.length == 0 && stats.notFound() == 0 && stats.failed() == 0) {
+                continue;
+            }
+            total += stats.succeeded();
+            out.printf(Locale.ROOT, ROW, operation.key(), stats.succeeded(), rate(stats.succeeded(), seconds),
+                    stats.notFound(), stats.failed(),
+                    millis(LatencySeries.percentile(sorted, 50)), millis(LatencySeries.percentile(sorted, 90)),
+                    millis(LatencySeries.percentile(sorted, 99)), millis(LatencySeries.percentile(sorted, 99.9)),
+                    millis(LatencySeries.percentile(sorted, 100)));
+        }
+        out.printf(Locale.ROOT, "total: %d ok in %.1f s, %s req/s%n", total, seconds, rate(total, seconds));
+
+        long[] lag = tracker.lag().sortedSnapshot();
+        out.printf(Locale.ROOT, "email delivery: %d of %d delivered%s, lag p50=%s p90=%s p99=%s max=%s ms%n",
+                tracker.measuredDelivered(), tracker.measuredExpected(),
+                drained ? "" : " (drain timeout " + DurationStyle.SIMPLE.print(settings.drainTimeout()) + " exceeded)",
+                millis(LatencySeries.percentile(lag, 50)), millis(LatencySeries.percentile(lag, 90)),
+                millis(LatencySeries.percentile(lag, 99)), millis(LatencySeries.percentile(lag, 100)));
+    }
+
+    private static String rate(long count, double seconds) {
+        return String.format(Locale.ROOT, "%.1f", count / seconds);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.loadharness.report;
+
+import java.util.Arrays;
+
+/**
+ * Накопитель замеров задержки в наносекундах.
+ * Хранит все значения, поэтому перцентили в отчёте точные, а не оценка по гистограмме.
+ * Запись синхронизирована: при десятках клиентов конкуренция за монитор пренебрежимо мала
+ * по сравнению с временем HTTP-запроса.
+ */
+public class LatencySeries {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    /**
+     * Добавляет замер.
+     *
+     * @param nanos задержка в наносекундах
+     */
+    public synchronized void record(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+    }
+
+    /**
+     * @return отсортированная копия накопленных значений
+     */
+    public synchronized long[] sortedSnapshot() {
+        long[] snapshot = Arrays.copyOf(values, size);
+        Arrays.sort(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Возвращает перцентиль по отсортированному массиву методом ближайшего ранга.
+     *
+     * @param sorted     отсортированные значения
+     * @param percentile перцентиль от 0 до 100
+     * @return значение перцентиля или 0, если замеров нет
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
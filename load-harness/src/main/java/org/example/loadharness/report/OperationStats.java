@@ -0,0 +1,49 @@
+package org.example.loadharness.report;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты одной операции за фазу измерения: задержки успешных ответов и счётчики исходов.
+ * Ответ 404 учитывается отдельно от ошибок: при смешанной нагрузке чтение или обновление
+ * может обратиться к пользователю, которого параллельно удалили.
+ */
+public class OperationStats {
+
+    private final LatencySeries latency = new LatencySeries();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Учитывает завершённый вызов.
+     *
+     * @param status HTTP-статус ответа или {@code -1}, если ответа не было
+     * @param nanos  длительность вызова
+     */
+    public void record(int status, long nanos) {
+        if (status >= 200 && status < 300) {
+            succeeded.increment();
+            latency.record(nanos);
+        } else if (status == 404) {
+            notFound.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    public LatencySeries latency() {
+        return latency;
+    }
+
+    public long succeeded() {
+        return succeeded.sum();
+    }
+
+    public long notFound() {
+        return notFound.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.notificationservice.channel;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Уведомление не доставлено по одному или нескольким каналам.
+ * По остальным каналам, назначенным событию, оно доставлено или ещё доставляется:
+ * итог по каждому каналу сообщается {@link DeliveryOutcomes}.
+ */
+public class ChannelDeliveryException extends RuntimeException {
+
+    private final Map<String, String> failures;
+
+    /**
+     * @param failures причина неудачи по имени канала
+     */
+    public ChannelDeliveryException(Map<String, String> failures) {
+        super(failures.entrySet().stream()
+                .map(failure -> failure.getKey() + ": " + failure.getValue())
+                .collect(Collectors.joining("; ", "Не доставлено по каналам: ", "")));
+        this.failures = Map.copyOf(failures);
+    }
+
+    /**
+     * @return причина неудачи по имени канала
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.notificationservice.channel;
+
+/**
+ * Получатель итога доставки уведомления по каждому каналу.
+ *
+ * Итог сообщается ровно один раз на канал. Отправка, начатая до тайм-аута канала, не прерывается
+ * и может завершиться уже после возврата из {@link NotificationChannels#deliver}: тогда её итог
+ * сообщается позже из потока канала.
+ */
+public interface DeliveryOutcomes {
+
+    /**
+     * Уведомление доставлено по каналу.
+     *
+     * @param channel имя канала
+     */
+    void sent(String channel);
+
+    /**
+     * Уведомление не доставлено по каналу.
+     *
+     * @param channel имя канала
+     * @param reason  причина неудачи
+     */
+    void failed(String channel, String reason);
+}
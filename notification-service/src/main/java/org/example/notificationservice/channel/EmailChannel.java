@@ -0,0 +1,29 @@
+package org.example.notificationservice.channel;
+
+import org.example.notificationservice.email.EmailService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Канал {@code email}: письмо на адрес пользователя через {@link EmailService}.
+ */
+@Component
+public class EmailChannel implements NotificationChannel {
+
+    public static final String NAME = "email";
+
+    private final EmailService emailService;
+
+    public EmailChannel(EmailService emailService) {
+        this.emailService = emailService;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void send(NotificationMessage message) {
+        emailService.send(message.email(), message.subject(), message.body());
+    }
+}
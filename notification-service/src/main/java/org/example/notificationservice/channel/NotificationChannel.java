@@ -0,0 +1,26 @@
+package org.example.notificationservice.channel;
+
+/**
+ * Канал доставки уведомлений.
+ *
+ * Каждый бин, реализующий этот интерфейс, регистрируется в {@link NotificationChannels} под своим именем;
+ * по каким каналам отправляются события каждого типа, задаёт {@code notification.routing}.
+ * Канал вызывается из собственного пула потоков и может блокироваться: отправитель ждёт доставку
+ * не дольше {@code notification.channels.<имя>.timeout}, но начатая отправка не прерывается,
+ * поэтому её длительность должны ограничивать тайм-ауты самого канала.
+ */
+public interface NotificationChannel {
+
+    /**
+     * @return имя канала в {@code notification.channels} и {@code notification.routing}
+     */
+    String name();
+
+    /**
+     * Доставляет уведомление получателю.
+     *
+     * @param message уведомление
+     * @throws RuntimeException если доставить не удалось
+     */
+    void send(NotificationMessage message);
+}
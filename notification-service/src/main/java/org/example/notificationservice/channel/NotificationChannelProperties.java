@@ -0,0 +1,222 @@
+package org.example.notificationservice.channel;
+
+import org.example.common.dto.UserNotificationDto;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки каналов доставки ({@code notification.channels.*}), маршрутизации событий
+ * по каналам ({@code notification.routing.*}) и классов приоритета ({@code notification.priorities.*}).
+ *
+ * Для типа события, не указанного в {@code routing}, используются {@code default-channels}.
+ * Для канала без настроек в {@code channels} используются значения по умолчанию {@link Channel}.
+ * Уведомление с приоритетом, не указанным в {@code priorities}, обслуживается как {@code high}.
+ */
+@ConfigurationProperties("notification")
+public class NotificationChannelProperties {
+
+    private Map<String, Channel> channels = new HashMap<>();
+
+    /**
+     * Каналы по типу события.
+     */
+    private Map<String, List<String>> routing = new HashMap<>();
+
+    /**
+     * Каналы для типов событий, не указанных в {@code routing}.
+     */
+    private List<String> defaultChannels = List.of(EmailChannel.NAME);
+
+    /**
+     * Классы приоритета уведомлений, между которыми делятся потоки каждого канала.
+     */
+    private Map<String, Priority> priorities = new LinkedHashMap<>(Map.of(
+            UserNotificationDto.PRIORITY_HIGH, new Priority(4, 1.0, null),
+            UserNotificationDto.PRIORITY_BULK, new Priority(1, 0.75, Duration.ofSeconds(10))));
+
+    /**
+     * @param name имя канала
+     * @return настройки канала или значения по умолчанию
+     */
+    public Channel channel(String name) {
+        return channels.getOrDefault(name, new Channel());
+    }
+
+    /**
+     * @param type тип события
+     * @return имена каналов, по которым отправляются события этого типа
+     */
+    public List<String> channelsFor(String type) {
+        return routing.getOrDefault(type, defaultChannels);
+    }
+
+    /**
+     * @return классы приоритета, первым — {@code high}
+     */
+    public Map<String, Priority> priorities() {
+        Map<String, Priority> ordered = new LinkedHashMap<>();
+        ordered.put(UserNotificationDto.PRIORITY_HIGH, priorities.getOrDefault(UserNotificationDto.PRIORITY_HIGH,
+                new Priority(1, 1.0, null)));
+        ordered.putAll(priorities);
+        return ordered;
+    }
+
+    public Map<String, Channel> getChannels() {
+        return channels;
+    }
+
+    public void setChannels(Map<String, Channel> channels) {
+        this.channels = channels;
+    }
+
+    public Map<String, List<String>> getRouting() {
+        return routing;
+    }
+
+    public void setRouting(Map<String, List<String>> routing) {
+        this.routing = routing;
+    }
+
+    public List<String> getDefaultChannels() {
+        return defaultChannels;
+    }
+
+    public void setDefaultChannels(List<String> defaultChannels) {
+        this.defaultChannels = defaultChannels;
+    }
+
+    public Map<String, Priority> getPriorities() {
+        return priorities;
+    }
+
+    public void setPriorities(Map<String, Priority> priorities) {
+        this.priorities = priorities;
+    }
+
+    public static class Channel {
+
+        /**
+         * Адрес, на который канал отправляет уведомления: для {@code webhook} — URL вебхука,
+         * для {@code sms} — URL SMS-шлюза; без него эти каналы не регистрируются.
+         */
+        private String url;
+
+        /**
+         * Наибольшее число одновременных отправок по каналу.
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * Наибольшее число уведомлений, ожидающих свободного потока канала; сверх него отправка отклоняется.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Наибольшее время доставки по каналу вместе с ожиданием в очереди.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class Priority {
+
+        /**
+         * Доля выборок из очереди канала, пока в ней ждут уведомления нескольких приоритетов.
+         */
+        private int weight = 1;
+
+        /**
+         * Наибольшая доля потоков канала, одновременно занятых уведомлениями этого приоритета;
+         * остальные потоки остаются за другими приоритетами.
+         */
+        private double maxShare = 1.0;
+
+        /**
+         * Ожидание в очереди, после которого уведомление выбирается раньше очереди по весам;
+         * не задано — без ограничения.
+         */
+        private Duration maxWait;
+
+        /**
+         * Целевое время доставки: публикуется границей SLO в {@code notification.channel.send}.
+         */
+        private Duration latencyTarget;
+
+        public Priority() {
+        }
+
+        public Priority(int weight, double maxShare, Duration maxWait) {
+            this.weight = weight;
+            this.maxShare = maxShare;
+            this.maxWait = maxWait;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public double getMaxShare() {
+            return maxShare;
+        }
+
+        public void setMaxShare(double maxShare) {
+            this.maxShare = maxShare;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getLatencyTarget() {
+            return latencyTarget;
+        }
+
+        public void setLatencyTarget(Duration latencyTarget) {
+            this.latencyTarget = latencyTarget;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package org.example.notificationservice.channel;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.common.dto.UserNotificationDto;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Реестр каналов доставки и параллельная отправка уведомления по каналам его типа события.
+ *
+ * Каждый бин {@link NotificationChannel} получает собственный пул из {@code max-concurrency} потоков
+ * с очередью на {@code queue-capacity} уведомлений (настройки {@code notification.channels.<имя>}).
+ * Уведомление передаётся во все каналы, назначенные его типу в {@code notification.routing}, одновременно,
+ * и ожидается не дольше {@code timeout} каждого канала. Поэтому медленный или недоступный канал
+ * занимает только свои потоки: остальные каналы доставляют уведомление без задержки, а отправки сверх
+ * очереди медленного канала сразу отклоняются, не дожидаясь тайм-аута.
+ *
+ * Итог доставки сообщается по каждому каналу отдельно через {@link DeliveryOutcomes}. Уведомление,
+ * не дождавшееся потока канала до тайм-аута, по этому каналу не отправляется и считается неудачным.
+ * Уже начатая отправка не прерывается и неудачной не считается: её длительность ограничивают тайм-ауты
+ * самого канала, а итог сообщается, когда она завершится, даже если это случится после возврата из
+ * {@link #deliver}.
+ *
+ * Потоки канала делятся между классами приоритета {@code notification.priorities.*} через
+ * {@link PriorityTaskQueue}: у каждого приоритета своя очередь на {@code queue-capacity} уведомлений,
+ * выборка из очередей идёт по весам, приоритет занимает не больше {@code max-share} потоков, а уведомление,
+ * прождавшее {@code max-wait}, выбирается вне очереди. Поэтому поток массовых уведомлений не вытесняет
+ * срочные, а сам не останавливается совсем.
+ *
+ * По каждому каналу и приоритету (тег {@code priority}) публикуются метрики:
+ * <ul>
+ *     <li>{@code notification.channel.send} — время доставки с ожиданием в очереди, с тегом {@code outcome}:
+ *     {@code success}, {@code failure}, {@code timeout} (не дождалось потока) или {@code rejected};
+ *     если у приоритета задан
+ *     {@code latency-target}, он публикуется границей SLO;</li>
+ *     <li>{@code notification.channel.in.flight} — отправки, выполняемые в данный момент;</li>
+ *     <li>{@code notification.channel.queued} — уведомления, ожидающие свободного потока.</li>
+ * </ul>
+ * Трассировка и baggage вызывающего потока переносятся в потоки каналов.
+ */
+@Component
+@EnableConfigurationProperties(NotificationChannelProperties.class)
+public class NotificationChannels {
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private final NotificationChannelProperties properties;
+    private final Map<String, NotificationChannelProperties.Priority> priorities;
+    private final MeterRegistry meterRegistry;
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+
+    public NotificationChannels(List<NotificationChannel> channels,
+                                NotificationChannelProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.priorities = properties.priorities();
+        this.meterRegistry = meterRegistry;
+        for (NotificationChannel channel : channels) {
+            Lane lane = new Lane(channel, properties.channel(channel.name()));
+            if (lanes.putIfAbsent(channel.name(), lane) != null) {
+                throw new IllegalArgumentException("Канал уведомлений " + channel.name() + " зарегистрирован дважды");
+            }
+            for (String priority : priorities.keySet()) {
+                Gauge.builder("notification.channel.in.flight", lane.queue, queue -> queue.running(priority))
+                        .description("Количество уведомлений, отправляемых по каналу в данный момент")
+                        .tag("channel", channel.name())
+                        .tag("priority", priority)
+                        .register(meterRegistry);
+                Gauge.builder("notification.channel.queued", lane.queue, queue -> queue.queued(priority))
+                        .description("Количество уведомлений, ожидающих свободного потока канала")
+                        .tag("channel", channel.name())
+                        .tag("priority", priority)
+                        .register(meterRegistry);
+            }
+        }
+
+        List<String> routed = new ArrayList<>(properties.getDefaultChannels());
+        properties.getRouting().values().forEach(routed::addAll);
+        for (String name : routed) {
+            if (!lanes.containsKey(name)) {
+                throw new IllegalArgumentException("Канал уведомлений " + name + " указан в notification.routing,"
+                        + " но не зарегистрирован, доступные: " + String.join(", ", lanes.keySet()));
+            }
+        }
+    }
+
+    /**
+     * @return имена зарегистрированных каналов
+     */
+    public Set<String> names() {
+        return lanes.keySet();
+    }
+
+    /**
+     * Отправляет уведомление по всем каналам его типа события и дожидается результата каждого канала,
+     * но не дольше его тайм-аута. Отправка, начатая до тайм-аута, продолжается и после возврата.
+     *
+     * @param message  уведомление
+     * @param outcomes получатель итога по каждому каналу
+     * @throws ChannelDeliveryException если по какому-то каналу уведомление не доставлено, отклонено
+     *                                  или не дождалось потока канала
+     */
+    public void deliver(NotificationMessage message, DeliveryOutcomes outcomes) {
+        long startedAt = System.nanoTime();
+        String priority = priorities.containsKey(message.priority())
+                ? message.priority() : UserNotificationDto.PRIORITY_HIGH;
+        Map<String, String> failures = new LinkedHashMap<>();
+        Map<Lane, Delivery> deliveries = new LinkedHashMap<>();
+        for (String name : properties.channelsFor(message.type())) {
+            Lane lane = lanes.get(name);
+            try {
+                deliveries.put(lane, lane.submit(message, priority, startedAt, outcomes));
+            } catch (RejectedExecutionException e) {
+                lane.record(priority, "rejected", startedAt);
+                failures.put(name, "очередь канала заполнена");
+                outcomes.failed(name, "очередь канала заполнена");
+            }
+        }
+
+        boolean interrupted = false;
+        for (Map.Entry<Lane, Delivery> entry : deliveries.entrySet()) {
+            Lane lane = entry.getKey();
+            Delivery delivery = entry.getValue();
+            try {
+                if (interrupted) {
+                    throw new InterruptedException();
+                }
+                delivery.result.get(Math.max(0, lane.timeout.toNanos() - (System.nanoTime() - startedAt)),
+                        TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // начатую отправку не ждём дальше, её итог сообщит поток канала
+                String reason = "не дождалось потока канала за " + lane.timeout.toMillis() + " мс";
+                if (delivery.skip(reason)) {
+                    failures.put(lane.channel.name(), reason);
+                }
+            } catch (ExecutionException e) {
+                failures.put(lane.channel.name(), String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (delivery.skip("ожидание прервано")) {
+                    failures.put(lane.channel.name(), "ожидание прервано");
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!failures.isEmpty()) {
+            throw new ChannelDeliveryException(failures);
+        }
+    }
+
+    /**
+     * Завершает пулы каналов, не дожидаясь отправки уведомлений из очередей.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes.values()) {
+            lane.executor.shutdownNow();
+        }
+    }
+
+    private final class Lane {
+
+        private final NotificationChannel channel;
+        private final Duration timeout;
+        private final PriorityTaskQueue queue;
+        private final ThreadPoolExecutor executor;
+
+        private Lane(NotificationChannel channel, NotificationChannelProperties.Channel settings) {
+            this.channel = channel;
+            this.timeout = settings.getTimeout();
+            this.queue = new PriorityTaskQueue(priorities, settings.getMaxConcurrency(),
+                    settings.getQueueCapacity());
+            this.executor = new ThreadPoolExecutor(settings.getMaxConcurrency(), settings.getMaxConcurrency(),
+                    0, TimeUnit.MILLISECONDS, queue,
+                    Thread.ofPlatform().name("notification-channel-" + channel.name() + "-", 0).daemon().factory());
+            // все задачи должны проходить через очередь приоритетов
+            executor.prestartAllCoreThreads();
+        }
+
+        private Delivery submit(NotificationMessage message, String priority, long startedAt,
+                                DeliveryOutcomes outcomes) {
+            Delivery delivery = new Delivery();
+            Runnable send = snapshots.captureAll().wrap(() -> channel.send(message));
+            executor.execute(queue.task(priority, () -> {
+                if (!delivery.start()) {
+                    // тайм-аут истёк, пока уведомление ждало в очереди
+                    return;
+                }
+                try {
+                    send.run();
+                    delivery.result.complete(null);
+                } catch (Throwable e) {
+                    delivery.result.completeExceptionally(e);
+                }
+            }));
+            delivery.result.whenComplete((result, error) -> {
+                if (error == null) {
+                    record(priority, "success", startedAt);
+                    outcomes.sent(channel.name());
+                } else {
+                    record(priority, error instanceof SkippedException ? "timeout" : "failure", startedAt);
+                    outcomes.failed(channel.name(), String.valueOf(error.getMessage()));
+                }
+            });
+            return delivery;
+        }
+
+        private void record(String priority, String outcome, long startedAt) {
+            Duration latencyTarget = priorities.get(priority).getLatencyTarget();
+            Timer.builder("notification.channel.send")
+                    .description("Время доставки уведомления по каналу с ожиданием в очереди")
+                    .tag("channel", channel.name())
+                    .tag("priority", priority)
+                    .tag("outcome", outcome)
+                    .serviceLevelObjectives(latencyTarget == null ? new Duration[0] : new Duration[]{latencyTarget})
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Отправка по каналу: либо поток канала начинает её, либо ожидающий её отменяет, пока она в очереди.
+     */
+    private static final class Delivery {
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * @return {@code false}, если отправка уже отменена
+         */
+        private boolean start() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Отменяет отправку, ещё ждущую потока канала.
+         *
+         * @return {@code false}, если отправка уже начата или завершена
+         */
+        private boolean skip(String reason) {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            result.completeExceptionally(new SkippedException(reason));
+            return true;
+        }
+    }
+
+    private static final class SkippedException extends RuntimeException {
+
+        private SkippedException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+}
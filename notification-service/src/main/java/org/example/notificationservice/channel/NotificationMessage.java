@@ -0,0 +1,13 @@
+package org.example.notificationservice.channel;
+
+/**
+ * Уведомление, подготовленное для отправки по каналам.
+ *
+ * @param email    адрес пользователя, которому адресовано уведомление
+ * @param type     тип события: {@code created}, {@code deleted}
+ * @param priority класс приоритета: {@code high}, {@code bulk}
+ * @param subject  заголовок уведомления
+ * @param body     текст уведомления
+ */
+public record NotificationMessage(String email, String type, String priority, String subject, String body) {
+}
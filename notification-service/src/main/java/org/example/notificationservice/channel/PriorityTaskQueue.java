@@ -0,0 +1,360 @@
+package org.example.notificationservice.channel;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Очередь пула канала с отдельной очередью на каждый класс приоритета.
+ *
+ * Поток пула берёт задачу по взвешенному циклическому выбору (smooth weighted round-robin):
+ * пока ждут задачи нескольких приоритетов, каждый получает долю выборок по своему весу.
+ * Приоритет не берёт больше {@code max-share} потоков пула одновременно, поэтому остаток потоков
+ * всегда свободен для других приоритетов; если все его потоки заняты, задачи ждут, даже когда
+ * пул простаивает. Задача, прождавшая дольше {@code max-wait} своего приоритета, берётся раньше
+ * выбора по весам — так массовые уведомления не голодают под постоянным потоком срочных.
+ *
+ * В очередь принимаются только задачи {@link #task}; пул должен заранее запустить все потоки
+ * ({@code prestartAllCoreThreads}), иначе задача уйдёт новому потоку мимо очереди и не будет учтена.
+ */
+final class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final Map<String, PriorityClass> classes = new LinkedHashMap<>();
+    private final PriorityClass defaultClass;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int count;
+
+    /**
+     * @param priorities    классы приоритета; первый используется для неизвестных приоритетов
+     * @param threads       число потоков пула
+     * @param queueCapacity наибольшее число ожидающих задач каждого приоритета
+     */
+    PriorityTaskQueue(Map<String, NotificationChannelProperties.Priority> priorities, int threads, int queueCapacity) {
+        priorities.forEach((name, settings) -> classes.put(name, new PriorityClass(name, settings, threads,
+                queueCapacity)));
+        this.defaultClass = classes.values().iterator().next();
+    }
+
+    /**
+     * Оборачивает задачу для постановки в очередь.
+     *
+     * @param priority класс приоритета задачи
+     * @param task     задача
+     */
+    Runnable task(String priority, Runnable task) {
+        return new Task(classes.getOrDefault(priority, defaultClass), task);
+    }
+
+    /**
+     * @return число ожидающих задач приоритета
+     */
+    int queued(String priority) {
+        lock.lock();
+        try {
+            PriorityClass cls = classes.get(priority);
+            return cls == null ? 0 : cls.tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return число выполняемых задач приоритета
+     */
+    int running(String priority) {
+        lock.lock();
+        try {
+            PriorityClass cls = classes.get(priority);
+            return cls == null ? 0 : cls.running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable) {
+        Task task = (Task) runnable;
+        lock.lock();
+        try {
+            if (task.owner.tasks.size() >= task.owner.capacity) {
+                return false;
+            }
+            task.enqueuedAt = System.nanoTime();
+            task.owner.tasks.addLast(task);
+            count++;
+            ready.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException {
+        Task task = (Task) runnable;
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (task.owner.tasks.size() >= task.owner.capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return offer(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable runnable) throws InterruptedException {
+        offer(runnable, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            Task task;
+            while ((task = next()) == null) {
+                ready.await();
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            Task task;
+            while ((task = next()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = ready.awaitNanos(nanos);
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (PriorityClass cls : classes.values()) {
+                if (!cls.tasks.isEmpty()) {
+                    return cls.tasks.peekFirst();
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Task task)) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (!task.owner.tasks.remove(task)) {
+                return false;
+            }
+            dequeued(task.owner);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            int remaining = 0;
+            for (PriorityClass cls : classes.values()) {
+                remaining += cls.capacity - cls.tasks.size();
+            }
+            return remaining;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target) {
+        return drainTo(target, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> target, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            for (PriorityClass cls : classes.values()) {
+                while (drained < maxElements && !cls.tasks.isEmpty()) {
+                    target.add(cls.tasks.pollFirst());
+                    dequeued(cls);
+                    drained++;
+                }
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Итератор по снимку очереди, без удаления.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        lock.lock();
+        try {
+            List<Runnable> snapshot = new ArrayList<>(count);
+            classes.values().forEach(cls -> snapshot.addAll(cls.tasks));
+            return snapshot.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Выбирает следующую задачу среди приоритетов, у которых есть ожидающие задачи и свободные потоки.
+     * Вызывается под блокировкой.
+     */
+    private Task next() {
+        long now = System.nanoTime();
+        PriorityClass chosen = null;
+        PriorityClass overdue = null;
+        long overdueWaited = 0;
+        int totalWeight = 0;
+        for (PriorityClass cls : classes.values()) {
+            if (cls.tasks.isEmpty() || cls.running >= cls.maxRunning) {
+                continue;
+            }
+            long waited = now - cls.tasks.peekFirst().enqueuedAt;
+            if (cls.maxWaitNanos > 0 && waited >= cls.maxWaitNanos && waited > overdueWaited) {
+                overdue = cls;
+                overdueWaited = waited;
+            }
+            cls.credit += cls.weight;
+            totalWeight += cls.weight;
+            if (chosen == null || cls.credit > chosen.credit) {
+                chosen = cls;
+            }
+        }
+        if (chosen == null) {
+            return null;
+        }
+        if (overdue != null) {
+            chosen = overdue;
+        }
+        chosen.credit -= totalWeight;
+        Task task = chosen.tasks.pollFirst();
+        chosen.running++;
+        dequeued(chosen);
+        return task;
+    }
+
+    private void dequeued(PriorityClass cls) {
+        count--;
+        if (cls.tasks.isEmpty()) {
+            // накопленный кредит не переносится на следующую волну задач приоритета
+            cls.credit = 0;
+        }
+        notFull.signal();
+    }
+
+    private void finished(PriorityClass cls) {
+        lock.lock();
+        try {
+            cls.running--;
+            ready.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class PriorityClass {
+
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private final int weight;
+        private final int maxRunning;
+        private final long maxWaitNanos;
+        private final int capacity;
+        private int running;
+        private long credit;
+
+        private PriorityClass(String name, NotificationChannelProperties.Priority settings, int threads, int capacity) {
+            if (settings.getWeight() < 1) {
+                throw new IllegalArgumentException("Вес приоритета " + name + " должен быть положительным");
+            }
+            this.weight = settings.getWeight();
+            this.maxRunning = Math.max(1, (int) Math.floor(threads * Math.min(1.0, settings.getMaxShare())));
+            this.maxWaitNanos = settings.getMaxWait() == null ? 0 : settings.getMaxWait().toNanos();
+            this.capacity = capacity;
+        }
+    }
+
+    private final class Task implements Runnable {
+
+        private final PriorityClass owner;
+        private final Runnable delegate;
+        private long enqueuedAt;
+
+        private Task(PriorityClass owner, Runnable delegate) {
+            this.owner = owner;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            try {
+                delegate.run();
+            } finally {
+                finished(owner);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.notificationservice.channel;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+/**
+ * Канал {@code sms}: текст уведомления отправляется POST-запросом на SMS-шлюз
+ * {@code notification.channels.sms.url} в виде {@code {"recipient": email, "text": текст}}.
+ * Номеров телефонов сервис не хранит, поэтому получатель передаётся шлюзу по email.
+ *
+ * Канал регистрируется, только если адрес шлюза задан.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.channels.sms.url")
+public class SmsGatewayChannel implements NotificationChannel {
+
+    public static final String NAME = "sms";
+
+    private final RestClient restClient;
+
+    public SmsGatewayChannel(RestClient.Builder builder, NotificationChannelProperties properties) {
+        NotificationChannelProperties.Channel channel = properties.channel(NAME);
+        this.restClient = builder
+                .baseUrl(channel.getUrl())
+                .requestFactory(WebhookChannel.requestFactory(channel.getTimeout()))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void send(NotificationMessage message) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("recipient", message.email(), "text", message.subject() + ". " + message.body()))
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.notificationservice.channel;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Канал {@code webhook}: уведомление в виде JSON {@link NotificationMessage} отправляется
+ * POST-запросом на {@code notification.channels.webhook.url}. Ответ с кодом не 2xx считается неудачей.
+ *
+ * Канал регистрируется, только если адрес задан.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.channels.webhook.url")
+public class WebhookChannel implements NotificationChannel {
+
+    public static final String NAME = "webhook";
+
+    private final RestClient restClient;
+
+    public WebhookChannel(RestClient.Builder builder, NotificationChannelProperties properties) {
+        NotificationChannelProperties.Channel channel = properties.channel(NAME);
+        this.restClient = builder
+                .baseUrl(channel.getUrl())
+                .requestFactory(requestFactory(channel.getTimeout()))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void send(NotificationMessage message) {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(message)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    static SimpleClientHttpRequestFactory requestFactory(Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        return requestFactory;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.notificationservice.config;
+
+import org.example.common.jfr.JfrStageEndpoint;
+import org.example.common.jfr.JfrStageMonitor;
+import org.example.notificationservice.jfr.NotificationRecordEvent;
+import org.example.notificationservice.jfr.SmtpSendEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Постоянная запись JFR с событиями этапов notification-service: обработка записи Kafka
+ * ({@link NotificationRecordEvent}) и отправка письма ({@link SmtpSendEvent}).
+ * Сводка задержек и сброс записи — через {@code /actuator/jfr}, см. {@link JfrStageEndpoint}.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public JfrStageMonitor jfrStageMonitor(@Value("${jfr.settings:default}") String settings,
+                                           @Value("${jfr.window:1m}") Duration window,
+                                           @Value("${jfr.max-age:10m}") Duration maxAge) {
+        return new JfrStageMonitor(List.of(NotificationRecordEvent.class, SmtpSendEvent.class),
+                settings, window, maxAge);
+    }
+
+    @Bean
+    public JfrStageEndpoint jfrStageEndpoint(JfrStageMonitor monitor,
+                                             @Value("${jfr.dump-directory:${java.io.tmpdir}}") String dumpDirectory) {
+        return new JfrStageEndpoint(monitor, Path.of(dumpDirectory), "notification-service");
+    }
+}
@@ -1,29 +1,62 @@
 package org.example.notificationservice.controller;
 
 import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.ChannelDeliveryException;
+import org.example.notificationservice.journal.DeliveryJournal;
+import org.example.notificationservice.journal.DeliveryRecord;
 import org.example.notificationservice.service.NotificationProcessorService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * REST-контроллер для отправки уведомлений пользователям.
  * Принимает DTO с информацией о пользователе и типе уведомления
  * и отдаёт обработку {@link NotificationProcessorService}.
+ * Историю доставки по адресу получателя отдаёт из {@link DeliveryJournal}.
  */
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
+    private static final int MAX_DELIVERIES = 1000;
+
     private final NotificationProcessorService processorService;
+    private final DeliveryJournal journal;
 
-    public NotificationController(NotificationProcessorService processorService) {
+    public NotificationController(NotificationProcessorService processorService, DeliveryJournal journal) {
         this.processorService = processorService;
+        this.journal = journal;
     }
 
     @PostMapping("/send")
     public ResponseEntity<String> sendEmail(@RequestBody UserNotificationDto request) {
-        processorService.process(request);
+        long notificationId = journal.received(request, -1, -1);
+        journal.attempt(notificationId, request, 1);
+        try {
+            processorService.process(request, journal.outcomes(notificationId, request));
+        } catch (ChannelDeliveryException e) {
+            // итог по каждому каналу уже записан в журнал
+            throw e;
+        } catch (RuntimeException e) {
+            journal.failed(notificationId, request, e);
+            throw e;
+        }
 
         return ResponseEntity.ok("Email отправлен");
     }
+
+    /**
+     * Возвращает последние события доставки уведомлений на адрес.
+     *
+     * @param email адрес получателя
+     * @param limit наибольшее число событий, не больше 1000
+     * @return события в порядке записи, самые новые в конце
+     */
+    @GetMapping("/deliveries")
+    public List<DeliveryRecord> getDeliveries(@RequestParam("email") String email,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return journal.find(email, Math.max(1, Math.min(limit, MAX_DELIVERIES)));
+    }
 }
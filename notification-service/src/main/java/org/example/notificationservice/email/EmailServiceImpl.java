@@ -1,26 +1,47 @@
 package org.example.notificationservice.email;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.notificationservice.jfr.SmtpSendEvent;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Реализация {@link EmailService} для отправки email сообщений через {@link JavaMailSender}.
  *
  * Создаёт текстовое письмо и отправляет его на указанный адрес.
+ * Отправка через SMTP оформляется как observation {@code notification.email.send}:
+ * это и таймер с тем же именем, и спан в трассировке обработки уведомления; кроме того,
+ * она записывается JFR-событием {@link SmtpSendEvent}.
+ * Число писем, отправляемых в данный момент, публикуется в метрику {@code notification.email.in.flight}.
  */
 @Service
 public class EmailServiceImpl implements EmailService {
 
     private final JavaMailSender mailSender;
+    private final ObservationRegistry observationRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     /**
      * Создаёт EmailServiceImpl с указанным {@link JavaMailSender}.
      *
      * @param mailSender компонент Spring для отправки писем
+     * @param observationRegistry реестр наблюдений для метрик и трассировки
+     * @param meterRegistry       реестр метрик
      */
-    public EmailServiceImpl(JavaMailSender mailSender) {
+    public EmailServiceImpl(JavaMailSender mailSender,
+                            ObservationRegistry observationRegistry,
+                            MeterRegistry meterRegistry) {
         this.mailSender = mailSender;
+        this.observationRegistry = observationRegistry;
+        Gauge.builder("notification.email.in.flight", inFlight, AtomicInteger::get)
+                .description("Количество писем, отправляемых по SMTP в данный момент")
+                .register(meterRegistry);
     }
 
     /**
@@ -36,6 +57,25 @@ public class EmailServiceImpl implements EmailService {
         message.setTo(to);
         message.setSubject(subject);
         message.setText(body);
-        mailSender.send(message);
+
+        Observation observation = Observation.createNotStarted("notification.email.send", observationRegistry)
+                .contextualName("smtp send")
+                .start();
+        SmtpSendEvent event = new SmtpSendEvent();
+        event.begin();
+        String outcome = "success";
+        inFlight.incrementAndGet();
+        try (Observation.Scope scope = observation.openScope()) {
+            mailSender.send(message);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            event.failed();
+            observation.error(e);
+            throw e;
+        } finally {
+            event.commit();
+            inFlight.decrementAndGet();
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
     }
 }
@@ -0,0 +1,28 @@
+package org.example.notificationservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.example.common.jfr.StageEvent;
+
+/**
+ * JFR-событие обработки записи Kafka: отправка по каналам и запись итога в журнал;
+ * этап — тип уведомления ({@code created}, {@code deleted}, ...).
+ */
+@Name("org.example.notificationservice.NotificationRecord")
+@Label("Notification Record")
+@Description("Обработка записи из топика user-notifications")
+public class NotificationRecordEvent extends StageEvent {
+
+    @Label("Partition")
+    private int partition;
+
+    @Label("Offset")
+    private long offset;
+
+    public NotificationRecordEvent(String type, int partition, long offset) {
+        super(type);
+        this.partition = partition;
+        this.offset = offset;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.notificationservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.example.common.jfr.StageEvent;
+
+/**
+ * JFR-событие отправки письма через SMTP; этап всегда {@code smtp}.
+ */
+@Name("org.example.notificationservice.SmtpSend")
+@Label("SMTP Send")
+@Description("Отправка письма через JavaMailSender")
+public class SmtpSendEvent extends StageEvent {
+
+    public SmtpSendEvent() {
+        super("smtp");
+    }
+}
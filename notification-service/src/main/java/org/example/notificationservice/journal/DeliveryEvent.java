@@ -0,0 +1,37 @@
+package org.example.notificationservice.journal;
+
+/**
+ * Событие в жизни уведомления, записываемое в журнал доставки.
+ */
+public enum DeliveryEvent {
+
+    /**
+     * Уведомление получено сервисом.
+     */
+    RECEIVED,
+
+    /**
+     * Начата попытка отправки письма.
+     */
+    ATTEMPT,
+
+    /**
+     * Уведомление доставлено по каналу, для письма — принято SMTP-сервером.
+     */
+    SENT,
+
+    /**
+     * Отправка по каналу или обработка уведомления не удалась.
+     */
+    FAILED;
+
+    private static final DeliveryEvent[] BY_CODE = values();
+
+    byte code() {
+        return (byte) ordinal();
+    }
+
+    static DeliveryEvent of(byte code) {
+        return BY_CODE[code];
+    }
+}
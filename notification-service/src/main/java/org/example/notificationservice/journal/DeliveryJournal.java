@@ -0,0 +1,317 @@
+package org.example.notificationservice.journal;
+
+import jakarta.annotation.PreDestroy;
+import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.DeliveryOutcomes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Журнал доставки уведомлений: получение, попытки отправки и итог по каждому уведомлению.
+ *
+ * Журнал только дописывается и хранится в каталоге {@code notification.journal.directory}
+ * сегментами по {@code notification.journal.segment-size}, отображёнными в память. Запись — это
+ * копирование нескольких десятков байт в память под короткой блокировкой, без системных вызовов;
+ * на диск страницы сбрасываются раз в {@code notification.journal.flush-interval} и при остановке,
+ * вне блокировки записи.
+ * При аварийном завершении процесса записанное сохраняется операционной системой, теряется только
+ * то, что не успело попасть на диск при отказе самой машины.
+ *
+ * Когда сегмент заполнен, начинается следующий; сегменты, все записи которых старше
+ * {@code notification.journal.retention}, удаляются. Каждый сегмент держит в памяти индекс позиций
+ * записей по email, поэтому история получателя читается без просмотра журнала.
+ *
+ * Ошибки журнала не прерывают доставку: они выводятся в консоль, а письмо отправляется как обычно.
+ */
+@Component
+public class DeliveryJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int MAX_TYPE_BYTES = 255;
+    private static final int MAX_DETAIL_CHARS = 512;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<JournalSegment> segments = new ArrayDeque<>();
+    private final AtomicLong notificationIds = new AtomicLong();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("delivery-journal-flush").daemon().factory());
+    private JournalSegment active;
+
+    @Autowired
+    public DeliveryJournal(@Value("${notification.journal.directory:.delivery-journal}") String directory,
+                           @Value("${notification.journal.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${notification.journal.retention:7d}") Duration retention,
+                           @Value("${notification.journal.flush-interval:1s}") Duration flushInterval) {
+        this(Path.of(directory), segmentSize, retention, flushInterval, Clock.systemUTC());
+    }
+
+    DeliveryJournal(Path directory, DataSize segmentSize, Duration retention, Duration flushInterval, Clock clock) {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал доставки в " + directory, e);
+        }
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Записывает получение уведомления и присваивает ему идентификатор.
+     *
+     * @param notification уведомление
+     * @param partition    партиция Kafka или -1, если уведомление пришло не из Kafka
+     * @param offset       смещение записи Kafka или -1
+     * @return идентификатор уведомления для последующих записей
+     */
+    public long received(UserNotificationDto notification, int partition, long offset) {
+        long notificationId = notificationIds.incrementAndGet();
+        append(notificationId, DeliveryEvent.RECEIVED, notification, 0, partition, offset, null);
+        return notificationId;
+    }
+
+    /**
+     * Записывает начало попытки отправки.
+     */
+    public void attempt(long notificationId, UserNotificationDto notification, int attempt) {
+        append(notificationId, DeliveryEvent.ATTEMPT, notification, attempt, -1, -1, null);
+    }
+
+    /**
+     * Возвращает получателя итогов доставки по каналам, который записывает итог каждого канала:
+     * {@link DeliveryEvent#SENT} с именем канала в описании или {@link DeliveryEvent#FAILED}
+     * с описанием {@code <канал>: <причина>}. Итог начатой отправки может прийти после тайм-аута канала
+     * и записывается, когда она завершится.
+     */
+    public DeliveryOutcomes outcomes(long notificationId, UserNotificationDto notification) {
+        return new DeliveryOutcomes() {
+            @Override
+            public void sent(String channel) {
+                append(notificationId, DeliveryEvent.SENT, notification, 0, -1, -1, channel);
+            }
+
+            @Override
+            public void failed(String channel, String reason) {
+                append(notificationId, DeliveryEvent.FAILED, notification, 0, -1, -1, channel + ": " + reason);
+            }
+        };
+    }
+
+    /**
+     * Записывает неудачную обработку уведомления до отправки по каналам.
+     *
+     * @param error причина неудачи
+     */
+    public void failed(long notificationId, UserNotificationDto notification, Throwable error) {
+        String detail = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        append(notificationId, DeliveryEvent.FAILED, notification, 0, -1, -1, detail);
+    }
+
+    /**
+     * Возвращает последние записи журнала по адресу получателя в порядке записи.
+     *
+     * @param email адрес получателя, регистр не учитывается
+     * @param limit наибольшее число записей
+     * @return записи, самые новые в конце
+     */
+    public List<DeliveryRecord> find(String email, int limit) {
+        String key = normalize(email);
+        List<JournalSegment> matched = new ArrayList<>();
+        List<int[]> positions = new ArrayList<>();
+        int found = 0;
+        lock.lock();
+        try {
+            // от новых сегментов к старым, пока не набрано limit записей
+            Iterator<JournalSegment> iterator = segments.descendingIterator();
+            while (iterator.hasNext() && found < limit) {
+                JournalSegment segment = iterator.next();
+                int[] segmentPositions = segment.lastPositionsOf(key, limit - found);
+                if (segmentPositions.length > 0) {
+                    matched.add(segment);
+                    positions.add(segmentPositions);
+                    found += segmentPositions.length;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // записи читаются вне блокировки: уже записанные байты не изменяются
+        List<DeliveryRecord> records = new ArrayList<>(found);
+        for (int i = matched.size() - 1; i >= 0; i--) {
+            for (int position : positions.get(i)) {
+                records.add(matched.get(i).read(position));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Сбрасывает активный сегмент на диск и удаляет сегменты старше срока хранения.
+     */
+    void flush() {
+        JournalSegment segment;
+        lock.lock();
+        try {
+            segment = active;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            // сброс на диск может занять миллисекунды, записи в это время продолжаются:
+            // force() не меняет позицию записи в сегменте
+            segment.force();
+            lock.lock();
+            try {
+                expire();
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException | IOException e) {
+            System.out.println("Не удалось сбросить журнал доставки: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private void append(long notificationId, DeliveryEvent event, UserNotificationDto notification,
+                        int attempt, int partition, long offset, String detail) {
+        String email = normalize(notification.getEmail());
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        byte[] type = bytes(notification.getType(), MAX_TYPE_BYTES);
+        byte[] detailBytes = detail != null
+                ? bytes(detail.length() > MAX_DETAIL_CHARS ? detail.substring(0, MAX_DETAIL_CHARS) : detail, Short.MAX_VALUE)
+                : EMPTY;
+        if (emailBytes.length > Short.MAX_VALUE) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            long timestamp = clock.millis();
+            if (!active.append(email, notificationId, event, emailBytes, type, timestamp,
+                    Math.min(attempt, Short.MAX_VALUE), partition, offset, detailBytes)) {
+                roll();
+                active.append(email, notificationId, event, emailBytes, type, timestamp,
+                        Math.min(attempt, Short.MAX_VALUE), partition, offset, detailBytes);
+            }
+        } catch (RuntimeException | IOException e) {
+            System.out.println("Не удалось записать событие " + event + " в журнал доставки: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        // уведомления, получение которых записано, а итог — нет: процесс остановился до их отправки
+        Set<Long> unfinished = new HashSet<>();
+        long maxNotificationId = 0;
+        for (Path file : files) {
+            JournalSegment segment = JournalSegment.open(file, segmentNumber(file), record -> {
+                switch (record.event()) {
+                    case RECEIVED -> unfinished.add(record.notificationId());
+                    case SENT, FAILED -> unfinished.remove(record.notificationId());
+                    default -> { }
+                }
+            });
+            segments.addLast(segment);
+            maxNotificationId = Math.max(maxNotificationId, segment.maxNotificationId());
+        }
+        notificationIds.set(maxNotificationId);
+
+        if (segments.isEmpty()) {
+            segments.addLast(JournalSegment.create(segmentPath(1), 1, segmentSize));
+        }
+        active = segments.peekLast();
+        expire();
+
+        if (!unfinished.isEmpty()) {
+            System.out.println("Журнал доставки: " + unfinished.size()
+                    + " уведомлений получены, но не отправлены до остановки сервиса");
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force();
+        long number = active.number() + 1;
+        active = JournalSegment.create(segmentPath(number), number, segmentSize);
+        segments.addLast(active);
+        expire();
+    }
+
+    private void expire() throws IOException {
+        long cutoff = clock.millis() - retentionMillis;
+        while (segments.size() > 1 && segments.peekFirst().lastTimestamp() < cutoff) {
+            Files.deleteIfExists(segments.pollFirst().file());
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.strip().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static byte[] bytes(String value, int maxBytes) {
+        if (value == null) {
+            return EMPTY;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > maxBytes ? Arrays.copyOf(bytes, maxBytes) : bytes;
+    }
+}
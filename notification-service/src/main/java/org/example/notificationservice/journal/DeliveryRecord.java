@@ -0,0 +1,29 @@
+package org.example.notificationservice.journal;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала доставки.
+ *
+ * @param notificationId идентификатор уведомления, общий для всех его записей
+ * @param event          событие
+ * @param email          адрес получателя
+ * @param type           тип уведомления ({@code created}, {@code deleted})
+ * @param at             время события
+ * @param attempt        номер попытки для {@link DeliveryEvent#ATTEMPT}, иначе 0
+ * @param partition      партиция Kafka, из которой получено уведомление, или -1
+ * @param offset         смещение записи Kafka или -1
+ * @param detail         для итога по каналу — имя канала ({@link DeliveryEvent#SENT})
+ *                       или {@code <канал>: <причина>} ({@link DeliveryEvent#FAILED}),
+ *                       для неудачи до отправки по каналам — описание ошибки
+ */
+public record DeliveryRecord(long notificationId,
+                             DeliveryEvent event,
+                             String email,
+                             String type,
+                             Instant at,
+                             int attempt,
+                             int partition,
+                             long offset,
+                             String detail) {
+}
@@ -0,0 +1,197 @@
+package org.example.notificationservice.journal;
+
+import org.example.common.segment.MappedSegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Сегмент журнала доставки — {@link MappedSegment} с записями о доставке.
+ *
+ * Содержимое записи после заголовка кадра (big-endian):
+ * <pre>
+ *  8  long   идентификатор уведомления
+ * 16  long   время события, мс от эпохи
+ * 24  int    партиция Kafka или -1
+ * 28  long   смещение Kafka или -1
+ * 36  byte   событие ({@link DeliveryEvent})
+ * 37  short  номер попытки
+ * 39  short  длина email в байтах
+ * 41  byte   длина типа уведомления в байтах
+ * 42  short  длина описания ошибки в байтах
+ * 44  ...    email, тип и описание в UTF-8
+ * </pre>
+ * Сегмент хранит индекс позиций записей по email. Класс не потокобезопасен:
+ * запись и чтение индекса выполняются под блокировкой {@link DeliveryJournal}.
+ */
+final class JournalSegment {
+
+    static final int HEADER_SIZE = 44;
+
+    private final long number;
+    private final Path file;
+    private final MappedSegment frames;
+    private final Map<String, Positions> index = new HashMap<>();
+    private long maxNotificationId;
+    private long lastTimestamp;
+
+    private JournalSegment(long number, Path file, MappedSegment frames) {
+        this.number = number;
+        this.file = file;
+        this.frames = frames;
+    }
+
+    /**
+     * Создаёт новый пустой сегмент.
+     */
+    static JournalSegment create(Path file, long number, int size) throws IOException {
+        return new JournalSegment(number, file, MappedSegment.create(file, size));
+    }
+
+    /**
+     * Открывает существующий сегмент, восстанавливает индекс и позицию записи.
+     * Если после последней целой записи остались обрывки, они затираются нулями,
+     * чтобы новые записи не склеились со старыми данными.
+     *
+     * @param recovered получатель всех целых записей сегмента по порядку
+     */
+    static JournalSegment open(Path file, long number, Consumer<DeliveryRecord> recovered) throws IOException {
+        JournalSegment segment = new JournalSegment(number, file,
+                MappedSegment.open(file, HEADER_SIZE, JournalSegment::isIntact));
+        segment.reindex(recovered);
+        return segment;
+    }
+
+    long number() {
+        return number;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long maxNotificationId() {
+        return maxNotificationId;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Дописывает запись.
+     *
+     * @return {@code false}, если запись не помещается в сегмент
+     */
+    boolean append(String email, long notificationId, DeliveryEvent event, byte[] emailBytes, byte[] type,
+                   long timestamp, int attempt, int partition, long offset, byte[] detail) {
+        ByteBuffer buffer = frames.buffer();
+        int start = frames.append(HEADER_SIZE + emailBytes.length + type.length + detail.length, position -> {
+            buffer.putLong(position + 8, notificationId);
+            buffer.putLong(position + 16, timestamp);
+            buffer.putInt(position + 24, partition);
+            buffer.putLong(position + 28, offset);
+            buffer.put(position + 36, event.code());
+            buffer.putShort(position + 37, (short) attempt);
+            buffer.putShort(position + 39, (short) emailBytes.length);
+            buffer.put(position + 41, (byte) type.length);
+            buffer.putShort(position + 42, (short) detail.length);
+            buffer.put(position + HEADER_SIZE, emailBytes);
+            buffer.put(position + HEADER_SIZE + emailBytes.length, type);
+            buffer.put(position + HEADER_SIZE + emailBytes.length + type.length, detail);
+        });
+        if (start < 0) {
+            return false;
+        }
+
+        index.computeIfAbsent(email, key -> new Positions()).add(start);
+        maxNotificationId = Math.max(maxNotificationId, notificationId);
+        lastTimestamp = timestamp;
+        return true;
+    }
+
+    /**
+     * @return позиции последних {@code limit} записей с указанным email в порядке записи
+     */
+    int[] lastPositionsOf(String email, int limit) {
+        Positions positions = index.get(email);
+        return positions != null ? positions.last(limit) : new int[0];
+    }
+
+    /**
+     * Читает запись. Записи до позиции записи не изменяются, поэтому чтение не требует блокировки.
+     */
+    DeliveryRecord read(int position) {
+        ByteBuffer view = frames.buffer().duplicate();
+        int emailLength = view.getShort(position + 39);
+        int typeLength = Byte.toUnsignedInt(view.get(position + 41));
+        int detailLength = view.getShort(position + 42);
+        int payload = position + HEADER_SIZE;
+        return new DeliveryRecord(
+                view.getLong(position + 8),
+                DeliveryEvent.of(view.get(position + 36)),
+                string(view, payload, emailLength),
+                string(view, payload + emailLength, typeLength),
+                Instant.ofEpochMilli(view.getLong(position + 16)),
+                view.getShort(position + 37),
+                view.getInt(position + 24),
+                view.getLong(position + 28),
+                detailLength > 0 ? string(view, payload + emailLength + typeLength, detailLength) : null);
+    }
+
+    void force() {
+        frames.force();
+    }
+
+    private void reindex(Consumer<DeliveryRecord> recovered) {
+        for (int position = 0; position < frames.writePosition(); position += frames.lengthAt(position)) {
+            DeliveryRecord record = read(position);
+            index.computeIfAbsent(record.email(), key -> new Positions()).add(position);
+            maxNotificationId = Math.max(maxNotificationId, record.notificationId());
+            lastTimestamp = record.at().toEpochMilli();
+            recovered.accept(record);
+        }
+    }
+
+    private static boolean isIntact(ByteBuffer buffer, int position, int length) {
+        int emailLength = buffer.getShort(position + 39);
+        int typeLength = Byte.toUnsignedInt(buffer.get(position + 41));
+        int detailLength = buffer.getShort(position + 42);
+        return emailLength >= 0 && detailLength >= 0
+                && HEADER_SIZE + emailLength + typeLength + detailLength == length
+                && buffer.get(position + 36) >= 0 && buffer.get(position + 36) < DeliveryEvent.values().length;
+    }
+
+    private static String string(ByteBuffer view, int position, int length) {
+        byte[] bytes = new byte[length];
+        view.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Растущий массив позиций без упаковки в {@link Integer}.
+     */
+    private static final class Positions {
+
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+
+        int[] last(int limit) {
+            return Arrays.copyOfRange(values, Math.max(0, size - limit), size);
+        }
+    }
+}
@@ -2,12 +2,14 @@ package org.example.notificationservice.kafka;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,15 +18,29 @@ import java.util.Map;
  * Конфигурация Kafka-потребителя для NotificationService.
  * Настраивает фабрику консюмеров и контейнеров для обработки сообщений
  * из Kafka-топиков. Используется для получения уведомлений о событиях пользователей.
+ * Наблюдение (observation) контейнера включено, чтобы обработка записи продолжала
+ * трассировку, начатую в user-service.
+ * Адрес брокера берётся из {@code spring.kafka.bootstrap-servers}, по умолчанию {@code localhost:9092}.
+ *
+ * Листенер подтверждает записи вручную. Если {@link NotificationDispatcher} обрабатывает записи
+ * параллельно, подтверждения приходят не по порядку, и контейнер откладывает фиксацию смещения
+ * до подтверждения всех предыдущих записей партиции; следующий poll выполняется после подтверждения
+ * всех записей предыдущего.
+ *
+ * Массовые уведомления читаются контейнерами {@code bulkKafkaListenerContainerFactory}: записи всегда
+ * обрабатываются в потоке листенера, поэтому подтверждения идут по порядку.
  */
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
 
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
         Map<String, Object> config = new HashMap<>();
-        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-group");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
@@ -32,9 +48,22 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+            NotificationDispatcher dispatcher) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setObservationEnabled(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(dispatcher.isAsynchronous());
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> bulkKafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setObservationEnabled(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
 }
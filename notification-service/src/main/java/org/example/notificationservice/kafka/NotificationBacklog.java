@@ -0,0 +1,388 @@
+package org.example.notificationservice.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.example.common.dto.UserNotificationDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntSupplier;
+
+/**
+ * Отставание обработки уведомлений от топиков {@code user-notifications} и {@code user-notifications-bulk}.
+ *
+ * Каждый топик — отдельная полоса со своим приоритетом ({@code high} и {@code bulk}): срочные записи
+ * обрабатываются потоками {@link NotificationDispatcher}, массовые — потоками листенера
+ * ({@code notification.listener.bulk-concurrency}), и отставание одной полосы не разбирается потоками другой.
+ *
+ * Раз в {@code notification.backlog.refresh-interval} из Kafka читаются концы партиций топика полосы и смещения,
+ * зафиксированные её группой ({@code notification-group} или {@code notification-bulk-group}); по ним считаются
+ * отставание по партициям и скорость поступления записей. Листенер сообщает о каждой полученной и обработанной
+ * записи, по ним считаются возраст самой старой необработанной записи и скорость обработки за последнюю минуту.
+ *
+ * Рекомендуемое число потоков полосы — по закону Литтла: поступление вместе с разбором отставания
+ * за {@code notification.backlog.drain-target}, умноженное на среднее время обработки записи и делённое
+ * на целевую загрузку потоков {@code notification.backlog.target-utilization}. Пока записи
+ * не обрабатывались и время обработки неизвестно, рекомендуется текущее число потоков полосы.
+ *
+ * Всё это публикуется в метрики {@code notification.consumer.lag} (по партициям),
+ * {@code notification.backlog.oldest.age}, {@code notification.listener.rate}
+ * и {@code notification.backlog.required.workers} с тегом {@code lane} и отдаётся точкой {@code /actuator/backlog}.
+ */
+@Component
+public class NotificationBacklog {
+
+    private static final int WINDOW_SECONDS = 60;
+    private static final String SMTP_IN_FLIGHT_GAUGE = "notification.email.in.flight";
+
+    private final Admin admin;
+    private final Duration timeout;
+    private final Duration drainTarget;
+    private final double targetUtilization;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Lane high;
+    private final Lane bulk;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("notification-backlog-refresh").daemon().factory());
+
+    @Autowired
+    public NotificationBacklog(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                               @Value("${notification.backlog.refresh-interval:10s}") Duration refreshInterval,
+                               @Value("${notification.backlog.drain-target:1m}") Duration drainTarget,
+                               @Value("${notification.backlog.target-utilization:0.8}") double targetUtilization,
+                               @Value("${notification.listener.bulk-concurrency:2}") int bulkConcurrency,
+                               NotificationDispatcher dispatcher,
+                               MeterRegistry meterRegistry) {
+        this(Admin.create(Map.of(
+                        AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                        AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) refreshInterval.toMillis(),
+                        AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) refreshInterval.toMillis())),
+                refreshInterval, drainTarget, targetUtilization, dispatcher::workerCount, () -> bulkConcurrency,
+                meterRegistry, Clock.systemUTC());
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    NotificationBacklog(Admin admin,
+                        Duration timeout,
+                        Duration drainTarget,
+                        double targetUtilization,
+                        IntSupplier workers,
+                        IntSupplier bulkWorkers,
+                        MeterRegistry meterRegistry,
+                        Clock clock) {
+        this.admin = admin;
+        this.timeout = timeout;
+        this.drainTarget = drainTarget;
+        this.targetUtilization = targetUtilization;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.high = new Lane(UserNotificationDto.PRIORITY_HIGH, NotificationKafkaListener.TOPIC,
+                NotificationKafkaListener.GROUP, workers);
+        this.bulk = new Lane(UserNotificationDto.PRIORITY_BULK, UserNotificationDto.BULK_TOPIC,
+                NotificationKafkaListener.BULK_GROUP, bulkWorkers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        admin.close(Duration.ofSeconds(1));
+    }
+
+    /**
+     * Отмечает получение записи листенером.
+     *
+     * @param priority  приоритет уведомления, по нему выбирается полоса
+     * @param timestamp временная метка записи Kafka, мс
+     */
+    public void received(String priority, int partition, long offset, long timestamp) {
+        lane(priority).received(partition, offset, timestamp);
+    }
+
+    /**
+     * Отмечает завершение обработки записи, успешной или нет.
+     *
+     * @param priority        приоритет уведомления, по нему выбирается полоса
+     * @param processingNanos время обработки записи
+     */
+    public void processed(String priority, int partition, long offset, long processingNanos) {
+        lane(priority).processed(partition, offset, processingNanos);
+    }
+
+    /**
+     * @return текущее состояние очереди
+     */
+    public NotificationBacklogSnapshot snapshot() {
+        return new NotificationBacklogSnapshot(smtpInFlight(), List.of(high.snapshot(), bulk.snapshot()));
+    }
+
+    /**
+     * Перечитывает смещения полос из Kafka; при недоступности Kafka остаётся прежнее отставание.
+     */
+    void refresh() {
+        high.refresh();
+        bulk.refresh();
+    }
+
+    /**
+     * Обновляет отставание полосы по концам партиций и зафиксированным смещениям. Для партиций,
+     * в которых группа ещё не фиксировала смещений, отставание не считается: потребитель
+     * начинает их с конца.
+     *
+     * @param priority         приоритет полосы
+     * @param endOffsets       концы партиций по номерам партиций
+     * @param committedOffsets зафиксированные смещения по номерам партиций
+     */
+    void update(String priority, Map<Integer, Long> endOffsets, Map<Integer, Long> committedOffsets) {
+        lane(priority).update(endOffsets, committedOffsets);
+    }
+
+    private Lane lane(String priority) {
+        return UserNotificationDto.PRIORITY_BULK.equals(priority) ? bulk : high;
+    }
+
+    private int smtpInFlight() {
+        Gauge gauge = meterRegistry.find(SMTP_IN_FLIGHT_GAUGE).gauge();
+        return gauge != null ? (int) gauge.value() : 0;
+    }
+
+    /**
+     * Топик с группой потребителей и потоками, которые его обрабатывают.
+     */
+    private final class Lane {
+
+        private final String priority;
+        private final String topic;
+        private final String group;
+        private final IntSupplier workers;
+        private final Map<Integer, ConcurrentSkipListMap<Long, Long>> pending = new ConcurrentHashMap<>();
+        private final long[] windowSeconds = new long[WINDOW_SECONDS];
+        private final long[] windowCounts = new long[WINDOW_SECONDS];
+        private final long[] windowNanos = new long[WINDOW_SECONDS];
+        private final MultiGauge lagGauge;
+        private volatile Lag lag = new Lag(null, List.of(), Map.of(), Double.NaN);
+        private volatile boolean refreshFailing;
+
+        private Lane(String priority, String topic, String group, IntSupplier workers) {
+            this.priority = priority;
+            this.topic = topic;
+            this.group = group;
+            this.workers = workers;
+
+            this.lagGauge = MultiGauge.builder("notification.consumer.lag")
+                    .description("Отставание группы потребителей от конца партиции топика уведомлений")
+                    .baseUnit("records")
+                    .tag("lane", priority)
+                    .register(meterRegistry);
+            Gauge.builder("notification.backlog.oldest.age", this, Lane::oldestUnprocessedAge)
+                    .description("Возраст самой старой полученной и ещё не обработанной записи")
+                    .baseUnit("seconds")
+                    .tag("lane", priority)
+                    .register(meterRegistry);
+            Gauge.builder("notification.listener.rate", this, Lane::processingRate)
+                    .description("Обработка записей за последнюю минуту, записей в секунду")
+                    .tag("lane", priority)
+                    .register(meterRegistry);
+            Gauge.builder("notification.backlog.required.workers", this, Lane::requiredWorkers)
+                    .description("Потоков обработки, нужных, чтобы успевать за поступлением и разобрать отставание")
+                    .tag("lane", priority)
+                    .register(meterRegistry);
+        }
+
+        void received(int partition, long offset, long timestamp) {
+            pending.computeIfAbsent(partition, key -> new ConcurrentSkipListMap<>()).put(offset, timestamp);
+        }
+
+        void processed(int partition, long offset, long processingNanos) {
+            ConcurrentSkipListMap<Long, Long> offsets = pending.get(partition);
+            if (offsets != null) {
+                offsets.remove(offset);
+            }
+            long second = clock.millis() / 1000;
+            int slot = (int) (second % WINDOW_SECONDS);
+            synchronized (windowSeconds) {
+                if (windowSeconds[slot] != second) {
+                    windowSeconds[slot] = second;
+                    windowCounts[slot] = 0;
+                    windowNanos[slot] = 0;
+                }
+                windowCounts[slot]++;
+                windowNanos[slot] += processingNanos;
+            }
+        }
+
+        NotificationBacklogSnapshot.Lane snapshot() {
+            Lag current = lag;
+            long[] window = window();
+            return new NotificationBacklogSnapshot.Lane(
+                    priority,
+                    topic,
+                    group,
+                    current.updatedAt(),
+                    current.partitions(),
+                    current.total(),
+                    pending.values().stream().mapToInt(Map::size).sum(),
+                    oldestUnprocessedAge(),
+                    Double.isNaN(current.arrivalRate()) ? 0 : current.arrivalRate(),
+                    (double) window[0] / WINDOW_SECONDS,
+                    window[0] > 0 ? window[1] / 1e6 / window[0] : 0,
+                    workers.getAsInt(),
+                    requiredWorkers(current, window));
+        }
+
+        void refresh() {
+            try {
+                TopicDescription description = admin.describeTopics(List.of(topic))
+                        .allTopicNames().get(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .get(topic);
+                Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+                description.partitions().forEach(partition ->
+                        latest.put(new TopicPartition(topic, partition.partition()), OffsetSpec.latest()));
+                Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = admin.listOffsets(latest)
+                        .all().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                Map<TopicPartition, OffsetAndMetadata> committed = admin
+                        .listConsumerGroupOffsets(group)
+                        .partitionsToOffsetAndMetadata().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+                Map<Integer, Long> endOffsets = new HashMap<>();
+                Map<Integer, Long> committedOffsets = new HashMap<>();
+                ends.forEach((partition, end) -> endOffsets.put(partition.partition(), end.offset()));
+                committed.forEach((partition, offset) -> {
+                    if (partition.topic().equals(topic) && offset != null) {
+                        committedOffsets.put(partition.partition(), offset.offset());
+                    }
+                });
+                update(endOffsets, committedOffsets);
+                if (refreshFailing) {
+                    refreshFailing = false;
+                    System.out.println("Смещения топика " + topic + " снова читаются из Kafka");
+                }
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                if (!refreshFailing) {
+                    refreshFailing = true;
+                    System.out.println("Не удалось прочитать смещения топика " + topic + " из Kafka: "
+                            + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void update(Map<Integer, Long> endOffsets, Map<Integer, Long> committedOffsets) {
+            Instant now = clock.instant();
+            Lag previous = lag;
+            List<NotificationBacklogSnapshot.PartitionLag> partitions = new ArrayList<>();
+            List<MultiGauge.Row<?>> rows = new ArrayList<>();
+            endOffsets.keySet().stream().sorted().forEach(partition -> {
+                long end = endOffsets.get(partition);
+                Long committedOffset = committedOffsets.get(partition);
+                long partitionLag = committedOffset != null ? Math.max(0, end - committedOffset) : 0;
+                partitions.add(new NotificationBacklogSnapshot.PartitionLag(partition, end,
+                        committedOffset != null ? committedOffset : -1, partitionLag));
+                rows.add(MultiGauge.Row.of(Tags.of("partition", Integer.toString(partition)), partitionLag));
+            });
+
+            double arrivalRate = Double.NaN;
+            if (previous.updatedAt() != null && now.isAfter(previous.updatedAt())) {
+                long arrived = 0;
+                for (Map.Entry<Integer, Long> end : endOffsets.entrySet()) {
+                    Long previousEnd = previous.endOffsets().get(end.getKey());
+                    if (previousEnd != null) {
+                        arrived += Math.max(0, end.getValue() - previousEnd);
+                    }
+                }
+                arrivalRate = arrived * 1000.0 / Duration.between(previous.updatedAt(), now).toMillis();
+            }
+
+            lag = new Lag(now, List.copyOf(partitions), Map.copyOf(endOffsets), arrivalRate);
+            lagGauge.register(rows, true);
+        }
+
+        private double oldestUnprocessedAge() {
+            long oldest = Long.MAX_VALUE;
+            for (ConcurrentSkipListMap<Long, Long> offsets : pending.values()) {
+                Map.Entry<Long, Long> first = offsets.firstEntry();
+                if (first != null) {
+                    oldest = Math.min(oldest, first.getValue());
+                }
+            }
+            return oldest == Long.MAX_VALUE ? 0 : Math.max(0, clock.millis() - oldest) / 1000.0;
+        }
+
+        private double processingRate() {
+            return (double) window()[0] / WINDOW_SECONDS;
+        }
+
+        private double requiredWorkers() {
+            return requiredWorkers(lag, window());
+        }
+
+        private int requiredWorkers(Lag current, long[] window) {
+            if (window[0] == 0) {
+                return current.total() > 0 || !pending.values().stream().allMatch(Map::isEmpty)
+                        ? workers.getAsInt()
+                        : 0;
+            }
+            // пока поступление неизвестно, считаем, что оно равно обработке
+            double arrivalRate = Double.isNaN(current.arrivalRate())
+                    ? (double) window[0] / WINDOW_SECONDS
+                    : current.arrivalRate();
+            double demand = arrivalRate + current.total() * 1000.0 / drainTarget.toMillis();
+            double meanProcessingSeconds = window[1] / 1e9 / window[0];
+            return (int) Math.ceil(demand * meanProcessingSeconds / targetUtilization);
+        }
+
+        /**
+         * @return число обработанных записей и суммарное время их обработки в наносекундах за последнюю минуту
+         */
+        private long[] window() {
+            long oldestSecond = clock.millis() / 1000 - WINDOW_SECONDS;
+            long count = 0;
+            long nanos = 0;
+            synchronized (windowSeconds) {
+                for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+                    if (windowSeconds[slot] > oldestSecond) {
+                        count += windowCounts[slot];
+                        nanos += windowNanos[slot];
+                    }
+                }
+            }
+            return new long[]{count, nanos};
+        }
+    }
+
+    private record Lag(Instant updatedAt,
+                       List<NotificationBacklogSnapshot.PartitionLag> partitions,
+                       Map<Integer, Long> endOffsets,
+                       double arrivalRate) {
+
+        long total() {
+            return partitions.stream().mapToLong(NotificationBacklogSnapshot.PartitionLag::lag).sum();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.notificationservice.kafka;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Точка actuator {@code GET /actuator/backlog}: отставание обработки срочных и массовых уведомлений
+ * и рекомендуемое число потоков каждой полосы, по которому можно масштабировать сервис вместо загрузки процессора.
+ */
+@Component
+@Endpoint(id = "backlog")
+public class NotificationBacklogEndpoint {
+
+    private final NotificationBacklog backlog;
+
+    public NotificationBacklogEndpoint(NotificationBacklog backlog) {
+        this.backlog = backlog;
+    }
+
+    @ReadOperation
+    public NotificationBacklogSnapshot backlog() {
+        return backlog.snapshot();
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.notificationservice.kafka;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Состояние очереди уведомлений, которое отдаёт {@code GET /actuator/backlog}.
+ *
+ * @param smtpInFlight писем, отправляемых по SMTP прямо сейчас
+ * @param lanes        полосы обработки: срочные уведомления ({@code high}) и массовые ({@code bulk})
+ */
+public record NotificationBacklogSnapshot(int smtpInFlight, List<Lane> lanes) {
+
+    /**
+     * @param priority приоритет полосы
+     * @return полоса с этим приоритетом
+     * @throws IllegalArgumentException если такой полосы нет
+     */
+    public Lane lane(String priority) {
+        return lanes.stream()
+                .filter(lane -> lane.priority().equals(priority))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Нет полосы " + priority));
+    }
+
+    /**
+     * Отставание и рекомендуемое число потоков полосы — топика, читаемого своей группой потребителей.
+     *
+     * @param priority              приоритет уведомлений полосы
+     * @param topic                 топик полосы
+     * @param group                 группа потребителей топика
+     * @param lagUpdatedAt          время последнего чтения смещений из Kafka или {@code null},
+     *                              если их ещё не удалось прочитать
+     * @param partitions            отставание по партициям топика
+     * @param totalLag              суммарное отставание группы потребителей, записей
+     * @param inFlight              записей получено экземпляром и ещё не обработано
+     * @param oldestUnprocessedAge  возраст самой старой полученной и ещё не обработанной записи, секунд
+     * @param arrivalRate           поступление записей в топик, записей в секунду
+     * @param processingRate        обработка записей экземпляром за последнюю минуту, записей в секунду
+     * @param meanProcessingMillis  среднее время обработки записи за последнюю минуту, мс
+     * @param workers               потоков обработки полосы в экземпляре
+     * @param requiredWorkers       потоков обработки, нужных, чтобы успевать за поступлением и разобрать отставание
+     */
+    public record Lane(String priority,
+                       String topic,
+                       String group,
+                       Instant lagUpdatedAt,
+                       List<PartitionLag> partitions,
+                       long totalLag,
+                       int inFlight,
+                       double oldestUnprocessedAge,
+                       double arrivalRate,
+                       double processingRate,
+                       double meanProcessingMillis,
+                       int workers,
+                       int requiredWorkers) {
+    }
+
+    /**
+     * Отставание группы потребителей в партиции.
+     *
+     * @param partition       номер партиции
+     * @param endOffset       смещение следующей записи, которая будет записана в партицию
+     * @param committedOffset зафиксированное смещение группы или -1, если группа ещё не фиксировала смещений
+     * @param lag             записей между зафиксированным смещением и концом партиции
+     */
+    public record PartitionLag(int partition, long endOffset, long committedOffset, long lag) {
+    }
+}
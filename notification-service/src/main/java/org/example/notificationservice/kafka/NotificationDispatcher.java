@@ -0,0 +1,113 @@
+package org.example.notificationservice.kafka;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределяет обработку уведомлений по потокам.
+ *
+ * Режим задаётся свойством {@code notification.listener.mode}:
+ * <ul>
+ *     <li>{@code sequential} (по умолчанию) — запись обрабатывается в потоке листенера,
+ *     параллелизм ограничен числом партиций топика;</li>
+ *     <li>{@code keyed} — запись передаётся одному из {@code notification.listener.workers} потоков,
+ *     выбранному по ключу (email). Уведомления одного пользователя обрабатываются по порядку,
+ *     разных пользователей — параллельно, и медленная отправка письма задерживает только
+ *     пользователей того же потока.</li>
+ * </ul>
+ * Режим читается при запуске, а не условием на бины, поэтому одинаково работает и в AOT-сборке.
+ *
+ * Трассировка и baggage потока листенера переносятся в поток обработки.
+ * Длина очередей потоков публикуется в метрику {@code notification.dispatcher.queued}.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private final ThreadPoolExecutor[] workers;
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+
+    public NotificationDispatcher(@Value("${notification.listener.mode:sequential}") String mode,
+                                  @Value("${notification.listener.workers:16}") int workerCount,
+                                  MeterRegistry meterRegistry) {
+        this.workers = switch (mode.toLowerCase(Locale.ROOT)) {
+            case "sequential" -> new ThreadPoolExecutor[0];
+            case "keyed" -> createWorkers(workerCount);
+            default -> throw new IllegalArgumentException("Неизвестный режим обработки уведомлений: " + mode
+                    + ", допустимые: sequential, keyed");
+        };
+        if (isAsynchronous()) {
+            Gauge.builder("notification.dispatcher.queued", this, NotificationDispatcher::queued)
+                    .description("Количество уведомлений, ожидающих обработки в потоках")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return завершается ли обработка позже возврата из {@link #dispatch}
+     */
+    public boolean isAsynchronous() {
+        return workers.length > 0;
+    }
+
+    /**
+     * @return число потоков обработки; в режиме {@code sequential} — один поток листенера
+     */
+    public int workerCount() {
+        return Math.max(1, workers.length);
+    }
+
+    /**
+     * Выполняет обработку записи: в режиме {@code keyed} — в потоке, закреплённом за ключом,
+     * иначе — сразу в вызывающем потоке.
+     *
+     * @param key  ключ упорядочивания, {@code null} — любой поток
+     * @param task обработка записи
+     */
+    public void dispatch(String key, Runnable task) {
+        if (!isAsynchronous()) {
+            task.run();
+            return;
+        }
+        int worker = key != null ? Math.floorMod(key.hashCode(), workers.length) : 0;
+        workers[worker].execute(snapshots.captureAll().wrap(task));
+    }
+
+    /**
+     * Дожидается обработки уже переданных записей, чтобы их смещения успели зафиксироваться.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+        for (ThreadPoolExecutor worker : workers) {
+            worker.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private double queued() {
+        long queued = 0;
+        for (ThreadPoolExecutor worker : workers) {
+            queued += worker.getQueue().size();
+        }
+        return queued;
+    }
+
+    private static ThreadPoolExecutor[] createWorkers(int count) {
+        ThreadPoolExecutor[] workers = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            workers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    Thread.ofPlatform().name("notification-worker-" + i).daemon().factory());
+        }
+        return workers;
+    }
+}
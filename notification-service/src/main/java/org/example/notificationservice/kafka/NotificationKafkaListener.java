@@ -1,26 +1,76 @@
 package org.example.notificationservice.kafka;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.ChannelDeliveryException;
+import org.example.notificationservice.channel.NotificationChannels;
+import org.example.notificationservice.jfr.NotificationRecordEvent;
+import org.example.notificationservice.journal.DeliveryJournal;
 import org.example.notificationservice.service.NotificationProcessorService;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Kafka-листенер для NotificationService.
  * Слушает сообщения из топика user-notifications, переводит
  * в {@link UserNotificationDto} и передаёт в {@link NotificationProcessorService}.
+ * Время обработки сообщения публикуется в метрику {@code notification.listener.processing}
+ * и записывается JFR-событием {@link NotificationRecordEvent}.
+ *
+ * Сквозная задержка от поступления запроса на api-gateway до отправки письма публикуется
+ * в метрику {@code notification.end.to.end}. Начало отсчёта берётся из заголовка
+ * {@code request-start}, а если его нет — из временной метки записи Kafka.
+ *
+ * Записи обрабатываются через {@link NotificationDispatcher}, ключом служит email получателя.
+ * Смещение записи подтверждается после её обработки; при параллельной обработке контейнер
+ * фиксирует смещения партиции только до первой ещё не обработанной записи.
+ *
+ * Массовые уведомления читаются отдельно из топика {@link UserNotificationDto#BULK_TOPIC} группой
+ * {@value #BULK_GROUP} в {@code notification.listener.bulk-concurrency} потоков. Запись обрабатывается
+ * в потоке листенера, и следующая читается только после отправки предыдущей: массовые уведомления
+ * ждут в Kafka, а не в очередях потоков перед срочными. Потоки каналов делятся между приоритетами
+ * по настройкам {@code notification.priorities.*}, см. {@link NotificationChannels}.
+ *
+ * Получение записи, попытка отправки и её итог по каждому каналу записываются в {@link DeliveryJournal}.
+ * О получении и завершении обработки записей обоих топиков сообщается {@link NotificationBacklog},
+ * каждый топик учитывается в своей полосе по приоритету уведомлений.
  */
 @Service
 public class NotificationKafkaListener {
 
+    public static final String TOPIC = UserNotificationDto.TOPIC;
+    public static final String GROUP = "notification-group";
+    public static final String BULK_GROUP = "notification-bulk-group";
+
+    private static final String REQUEST_START_HEADER = "request-start";
+
     private final NotificationProcessorService processorService;
+    private final NotificationDispatcher dispatcher;
+    private final DeliveryJournal journal;
+    private final NotificationBacklog backlog;
     private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
 
     public NotificationKafkaListener(NotificationProcessorService processorService,
-                                     ObjectMapper mapper) {
+                                     NotificationDispatcher dispatcher,
+                                     DeliveryJournal journal,
+                                     NotificationBacklog backlog,
+                                     ObjectMapper mapper,
+                                     MeterRegistry meterRegistry) {
         this.processorService = processorService;
+        this.dispatcher = dispatcher;
+        this.journal = journal;
+        this.backlog = backlog;
         this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -28,15 +78,106 @@ public class NotificationKafkaListener {
      * Сообщение ожидается в формате JSON, соответствующем {@link UserNotificationDto}.
      * В случае ошибки она выводится в консоль.
      *
-     * @param message JSON-строка с уведомлением пользователя
+     * @param record запись Kafka с JSON-строкой уведомления пользователя
+     * @param ack    подтверждение обработки записи
      */
-    @KafkaListener(topics = "user-notifications", groupId = "notification-group")
-    public void listen(String message) {
+    @KafkaListener(topics = TOPIC, groupId = GROUP)
+    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
+        UserNotificationDto dto = read(record);
+        if (dto == null) {
+            ack.acknowledge();
+            return;
+        }
+        long notificationId = journal.received(dto, record.partition(), record.offset());
+        backlog.received(UserNotificationDto.PRIORITY_HIGH, record.partition(), record.offset(), record.timestamp());
+        dispatcher.dispatch(dto.getEmail(), () -> {
+            long startedAt = System.nanoTime();
+            process(record, dto, notificationId);
+            ack.acknowledge();
+            backlog.processed(UserNotificationDto.PRIORITY_HIGH, record.partition(), record.offset(),
+                    System.nanoTime() - startedAt);
+        });
+    }
+
+    /**
+     * Обрабатывает запись топика массовых уведомлений в потоке листенера.
+     *
+     * @param record запись Kafka с JSON-строкой уведомления пользователя
+     * @param ack    подтверждение обработки записи
+     */
+    @KafkaListener(topics = UserNotificationDto.BULK_TOPIC, groupId = BULK_GROUP,
+            containerFactory = "bulkKafkaListenerContainerFactory",
+            concurrency = "${notification.listener.bulk-concurrency:2}")
+    public void listenBulk(ConsumerRecord<String, String> record, Acknowledgment ack) {
+        UserNotificationDto dto = read(record);
+        if (dto == null) {
+            ack.acknowledge();
+            return;
+        }
+        dto.setPriority(UserNotificationDto.PRIORITY_BULK);
+        long notificationId = journal.received(dto, record.partition(), record.offset());
+        backlog.received(UserNotificationDto.PRIORITY_BULK, record.partition(), record.offset(), record.timestamp());
+        long startedAt = System.nanoTime();
+        process(record, dto, notificationId);
+        ack.acknowledge();
+        backlog.processed(UserNotificationDto.PRIORITY_BULK, record.partition(), record.offset(),
+                System.nanoTime() - startedAt);
+    }
+
+    private UserNotificationDto read(ConsumerRecord<String, String> record) {
         try {
-            UserNotificationDto dto = mapper.readValue(message, UserNotificationDto.class);
-            processorService.process(dto);
+            return mapper.readValue(record.value(), UserNotificationDto.class);
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
+
+    private void process(ConsumerRecord<String, String> record, UserNotificationDto dto, long notificationId) {
+        NotificationRecordEvent event = new NotificationRecordEvent(dto.getType(), record.partition(), record.offset());
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            journal.attempt(notificationId, dto, 1);
+            processorService.process(dto, journal.outcomes(notificationId, dto));
+            recordEndToEndLatency(record, dto);
+        } catch (ChannelDeliveryException e) {
+            // итог по каждому каналу уже записан в журнал
+            outcome = "failure";
+            event.failed();
+            System.out.println(e.getMessage());
+        } catch (Exception e) {
+            outcome = "failure";
+            event.failed();
+            journal.failed(notificationId, dto, e);
+            e.printStackTrace();
+        } finally {
+            event.commit();
+            sample.stop(Timer.builder("notification.listener.processing")
+                    .description("Время обработки сообщения из Kafka")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordEndToEndLatency(ConsumerRecord<String, String> record, UserNotificationDto dto) {
+        long startedAt = record.timestamp();
+        Header header = record.headers().lastHeader(REQUEST_START_HEADER);
+        if (header != null) {
+            try {
+                startedAt = Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+            } catch (NumberFormatException ignored) {
+                // некорректный заголовок — используем временную метку записи
+            }
+        }
+
+        Timer.builder("notification.end.to.end")
+                .description("Время от запроса к api-gateway до отправки письма")
+                .tag("type", dto.getType())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.currentTimeMillis() - startedAt, TimeUnit.MILLISECONDS);
+    }
 }
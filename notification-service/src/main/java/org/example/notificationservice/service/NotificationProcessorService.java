@@ -1,6 +1,7 @@
 package org.example.notificationservice.service;
 
 import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.DeliveryOutcomes;
 
 /**
  * Интерфейс для обработки уведомлений пользователей.
@@ -10,9 +11,12 @@ public interface NotificationProcessorService {
     /**
      * Обрабатывает уведомление пользователя.
      *
-     * @param message объект {@link UserNotificationDto}, содержащий email пользователя и тип события
+     * @param message  объект {@link UserNotificationDto}, содержащий email пользователя и тип события
+     * @param outcomes получатель итога доставки по каждому каналу
      * @throws IllegalArgumentException если тип события неизвестен
+     * @throws org.example.notificationservice.channel.ChannelDeliveryException если уведомление
+     *         не доставлено хотя бы по одному каналу
      */
-    void process( UserNotificationDto message);
+    void process(UserNotificationDto message, DeliveryOutcomes outcomes);
 
 }
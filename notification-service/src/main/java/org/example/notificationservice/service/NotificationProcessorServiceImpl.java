@@ -1,38 +1,52 @@
 package org.example.notificationservice.service;
 
 import org.example.common.dto.UserNotificationDto;
-import org.example.notificationservice.email.EmailService;
+import org.example.notificationservice.channel.DeliveryOutcomes;
+import org.example.notificationservice.channel.NotificationChannels;
+import org.example.notificationservice.channel.NotificationMessage;
+import org.example.notificationservice.snapshot.UserSnapshots;
 import org.springframework.stereotype.Service;
 
 /**
- * Сервис, отвечающий за обработку пользовательских уведомлений и отправку email-сообщений пользователям.
- * В зависимости от типа события создаёт соответствующее письмо
- * и отправляет его через {@link EmailService}.
+ * Сервис, отвечающий за обработку пользовательских уведомлений.
+ * В зависимости от типа события формирует текст уведомления
+ * и отправляет его по каналам этого типа через {@link NotificationChannels}.
+ * Обращение к пользователю берётся из локальной копии {@link UserSnapshots}; если пользователь
+ * в ней не найден, письмо отправляется без имени.
  */
 @Service
 public class NotificationProcessorServiceImpl implements NotificationProcessorService {
 
-    private final EmailService emailService;
+    private final NotificationChannels channels;
+    private final UserSnapshots users;
 
-    public NotificationProcessorServiceImpl(EmailService emailService) {
-        this.emailService = emailService;
+    public NotificationProcessorServiceImpl(NotificationChannels channels, UserSnapshots users) {
+        this.channels = channels;
+        this.users = users;
     }
 
     @Override
-    public void process(UserNotificationDto message) {
-
-        switch (message.getType()) {
-            case "created" -> emailService.send(
+    public void process(UserNotificationDto message, DeliveryOutcomes outcomes) {
+        String greeting = users.findByEmail(message.getEmail())
+                .map(user -> "Здравствуйте, " + user.getName() + "!")
+                .orElse("Здравствуйте!");
+        NotificationMessage notification = switch (message.getType()) {
+            case "created" -> new NotificationMessage(
                     message.getEmail(),
+                    message.getType(),
+                    message.getPriority(),
                     "Ваш аккаунт создан",
-                    "Здравствуйте! Ваш аккаунт на сайте был успешно создан."
+                    greeting + " Ваш аккаунт на сайте был успешно создан."
             );
-            case "deleted" -> emailService.send(
+            case "deleted" -> new NotificationMessage(
                     message.getEmail(),
+                    message.getType(),
+                    message.getPriority(),
                     "Ваш аккаунт удалён",
-                    "Здравствуйте! Ваш аккаунт был удалён."
+                    greeting + " Ваш аккаунт был удалён."
             );
             default -> throw new IllegalArgumentException("Неизвестный тип события: "  + message.getType());
-        }
+        };
+        channels.deliver(notification, outcomes);
     }
 }
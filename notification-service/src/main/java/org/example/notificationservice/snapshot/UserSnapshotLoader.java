@@ -0,0 +1,149 @@
+package org.example.notificationservice.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.example.common.dto.UserSnapshotDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загрузка {@link UserSnapshots} из сжимаемого топика {@link UserSnapshotDto#TOPIC}.
+ *
+ * Каждый экземпляр сервиса держит полную копию, поэтому топик читается без группы потребителей:
+ * при старте назначаются все партиции, чтение начинается с начала топика и затем продолжается
+ * без остановки. Копия считается загруженной, когда прочитаны все записи, бывшие в топике на момент
+ * старта. Топик создаёт user-service со сжатием, поэтому здесь он не создаётся автоматически,
+ * а ожидается. Партиции, добавленные в топик после старта, читаются после перезапуска сервиса.
+ *
+ * Чтение идёт в отдельном потоке и не задерживает старт; пока топик недоступен или после ошибки чтения
+ * попытки повторяются раз в {@code notification.user-snapshots.retry-interval}, после ошибки — снова
+ * с начала топика.
+ */
+@Component
+public class UserSnapshotLoader {
+
+    private final UserSnapshots snapshots;
+    private final KafkaConsumer<String, String> consumer;
+    private final Duration retryInterval;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public UserSnapshotLoader(UserSnapshots snapshots,
+                              @Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                              @Value("${notification.user-snapshots.retry-interval:10s}") Duration retryInterval) {
+        this.snapshots = snapshots;
+        this.retryInterval = retryInterval;
+        this.consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.CLIENT_ID_CONFIG, "notification-user-snapshots",
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false,
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+        this.thread = Thread.ofPlatform().name("user-snapshot-loader").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        consumer.wakeup();
+        thread.join(retryInterval.toMillis());
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                try {
+                    load();
+                } catch (WakeupException e) {
+                    // остановка сервиса
+                    return;
+                } catch (RuntimeException e) {
+                    // снимки применяются повторно без вреда, поэтому чтение начинается с начала топика
+                    System.out.println("Чтение снимков пользователей прервано, повтор через " + retryInterval
+                            + ": " + e.getMessage());
+                    Thread.sleep(retryInterval.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            consumer.close();
+        }
+    }
+
+    /**
+     * Читает топик с начала до остановки сервиса.
+     */
+    private void load() {
+        List<TopicPartition> partitions = assign();
+        if (partitions == null) {
+            return;
+        }
+        Map<TopicPartition, Long> loadedUpTo = consumer.endOffsets(partitions);
+        while (running) {
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofSeconds(1))) {
+                apply(record);
+            }
+            if (!snapshots.isLoaded() && caughtUp(loadedUpTo)) {
+                snapshots.markLoaded();
+                System.out.println("Копия пользователей загружена: " + snapshots.size() + " пользователей");
+            }
+        }
+    }
+
+    /**
+     * Назначает все партиции топика и переходит к его началу, повторяя попытки, пока топик недоступен.
+     *
+     * @return партиции топика или {@code null}, если сервис останавливается
+     */
+    private List<TopicPartition> assign() {
+        while (running) {
+            try {
+                List<PartitionInfo> infos = consumer.partitionsFor(UserSnapshotDto.TOPIC, retryInterval);
+                if (infos != null && !infos.isEmpty()) {
+                    List<TopicPartition> partitions = infos.stream()
+                            .map(info -> new TopicPartition(info.topic(), info.partition()))
+                            .toList();
+                    consumer.assign(partitions);
+                    consumer.seekToBeginning(partitions);
+                    return partitions;
+                }
+                Thread.sleep(retryInterval.toMillis());
+            } catch (TimeoutException e) {
+                System.out.println("Топик " + UserSnapshotDto.TOPIC + " недоступен, повтор через " + retryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void apply(ConsumerRecord<String, String> record) {
+        try {
+            snapshots.apply(record.key(), record.value());
+        } catch (RuntimeException e) {
+            // одна некорректная запись не должна останавливать загрузку копии
+            System.out.println("Пропущен снимок пользователя " + record.key() + ": " + e.getMessage());
+        }
+    }
+
+    private boolean caughtUp(Map<TopicPartition, Long> loadedUpTo) {
+        return loadedUpTo.entrySet().stream()
+                .allMatch(entry -> consumer.position(entry.getKey()) >= entry.getValue());
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.notificationservice.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.dto.UserSnapshotDto;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальная копия пользователей из топика {@link UserSnapshotDto#TOPIC} с поиском по email.
+ *
+ * Записи топика применяются по порядку {@link UserSnapshotLoader}: снимок заменяет прежнее состояние
+ * пользователя с тем же ID (при смене email прежний email забывается), пустое значение удаляет
+ * пользователя. Записи разных пользователей лежат в разных партициях и могут применяться не по порядку,
+ * поэтому email освобождается, только если он всё ещё принадлежит этому пользователю. Поиск идёт без обращения к user-service; пока копия не загружена до конца топика,
+ * часть пользователей может не найтись.
+ *
+ * Размер копии публикуется в метрику {@code notification.user.snapshots}, результаты поиска —
+ * в {@code notification.user.snapshot.lookups} с тегом {@code result}: {@code hit} или {@code miss}.
+ */
+@Component
+public class UserSnapshots {
+
+    private final ObjectMapper mapper;
+    private final Map<String, UserSnapshotDto> byEmail = new ConcurrentHashMap<>();
+    private final Map<Integer, String> emailById = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private volatile boolean loaded;
+
+    public UserSnapshots(ObjectMapper mapper, MeterRegistry meterRegistry) {
+        this.mapper = mapper;
+        this.hits = Counter.builder("notification.user.snapshot.lookups")
+                .description("Поиск пользователя в локальной копии")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("notification.user.snapshot.lookups")
+                .description("Поиск пользователя в локальной копии")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("notification.user.snapshots", byEmail, Map::size)
+                .description("Количество пользователей в локальной копии")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param email email пользователя
+     * @return текущее состояние пользователя, если оно известно
+     */
+    public Optional<UserSnapshotDto> findByEmail(String email) {
+        UserSnapshotDto snapshot = byEmail.get(email);
+        (snapshot != null ? hits : misses).increment();
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * @return {@code true}, если копия загружена до конца топика на момент старта
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return byEmail.size();
+    }
+
+    /**
+     * Применяет запись топика. Записи одного пользователя должны применяться по порядку.
+     *
+     * @param key   ID пользователя
+     * @param value JSON {@link UserSnapshotDto} или {@code null} при удалении пользователя
+     */
+    void apply(String key, String value) {
+        int id = Integer.parseInt(key);
+        if (value == null) {
+            String email = emailById.remove(id);
+            if (email != null) {
+                release(email, id);
+            }
+            return;
+        }
+        UserSnapshotDto snapshot;
+        try {
+            snapshot = mapper.readValue(value, UserSnapshotDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Некорректный снимок пользователя " + key, e);
+        }
+        String previous = emailById.put(id, snapshot.getEmail());
+        if (previous != null && !previous.equals(snapshot.getEmail())) {
+            release(previous, id);
+        }
+        byEmail.put(snapshot.getEmail(), snapshot);
+    }
+
+    private void release(String email, int id) {
+        byEmail.computeIfPresent(email, (key, snapshot) -> snapshot.getId() == id ? null : snapshot);
+    }
+
+    void markLoaded() {
+        loaded = true;
+    }
+}
@@ -2,6 +2,7 @@ package org.example.notificationservice;
 
 import com.icegreen.greenmail.util.GreenMail;
 import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.DeliveryOutcomes;
 import org.example.notificationservice.config.TestMailConfig;
 import org.example.notificationservice.service.NotificationProcessorService;
 import org.junit.jupiter.api.AfterAll;
@@ -13,6 +14,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import javax.mail.internet.MimeMessage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * Интеграционные тесты для проверки отправки уведомлений по email.
@@ -28,6 +31,8 @@ class EmailIntegrationTest {
     @Autowired
     private NotificationProcessorService processorService;
 
+    private final DeliveryOutcomes outcomes = mock(DeliveryOutcomes.class);
+
     /**
      * Очищает все письма перед каждым тестом.
      *
@@ -51,11 +56,12 @@ class EmailIntegrationTest {
     @Test
     void testUserCreatedEmail() throws Exception {
         UserNotificationDto dto = new UserNotificationDto("test@example.com", "created");
-        processorService.process(dto);
+        processorService.process(dto, outcomes);
 
         MimeMessage[] received = greenMail.getReceivedMessages();
         assertEquals(1, received.length);
         assertEquals("Ваш аккаунт создан", received[0].getSubject());
+        verify(outcomes).sent("email");
         assertEquals("test@example.com", received[0].getAllRecipients()[0].toString());
     }
 
@@ -67,7 +73,7 @@ class EmailIntegrationTest {
     @Test
     void testUserDeletedEmail() throws Exception {
         UserNotificationDto dto = new UserNotificationDto("test@example.com", "deleted");
-        processorService.process(dto);
+        processorService.process(dto, outcomes);
 
         MimeMessage[] received = greenMail.getReceivedMessages();
         assertEquals(1, received.length);
@@ -0,0 +1,178 @@
+package org.example.notificationservice.channel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link NotificationChannels} с каналами-заглушками.
+ */
+class NotificationChannelsTest {
+
+    private static final NotificationMessage MESSAGE =
+            new NotificationMessage("test@example.com", "created", "high", "Тема", "Текст");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final RecordingOutcomes outcomes = new RecordingOutcomes();
+    private NotificationChannels channels;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        channels.shutdown();
+    }
+
+    /**
+     * Проверяет, что зависший канал не задерживает доставку по остальным каналам дольше своего тайм-аута,
+     * а начатая по нему отправка не считается неудачной: её итог сообщается, когда она завершится.
+     */
+    @Test
+    void deliver_shouldReportStartedSendWhenItFinishes() {
+        channels = channels(1, 10, Duration.ofMillis(200), "fast", "slow");
+
+        long startedAt = System.nanoTime();
+        channels.deliver(MESSAGE, outcomes);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertEquals(List.of("fast"), delivered);
+        assertEquals(List.of("fast: sent"), outcomes.reported);
+        assertTrue(elapsedMillis < 2_000, "ожидание " + elapsedMillis + " мс");
+
+        release.countDown();
+        await(() -> outcomes.reported.size() == 2);
+        assertEquals(List.of("fast: sent", "slow: sent"), outcomes.reported);
+        assertEquals(1, meterRegistry.get("notification.channel.send")
+                .tags("channel", "slow", "outcome", "success").timer().count());
+    }
+
+    /**
+     * Проверяет, что уведомление, не дождавшееся потока канала до тайм-аута, по этому каналу не отправляется
+     * и считается неудачным только по нему.
+     */
+    @Test
+    void deliver_shouldSkipQueuedSendAfterTimeout() {
+        channels = channels(1, 10, Duration.ofMillis(200), "fast", "slow");
+        // первое уведомление занимает единственный поток медленного канала
+        channels.deliver(MESSAGE, new RecordingOutcomes());
+
+        ChannelDeliveryException error = assertThrows(ChannelDeliveryException.class,
+                () -> channels.deliver(MESSAGE, outcomes));
+
+        assertEquals(Map.of("slow", "не дождалось потока канала за 200 мс"), error.getFailures());
+        assertEquals(List.of("fast: sent", "slow: не дождалось потока канала за 200 мс"), outcomes.reported);
+        assertEquals(1, meterRegistry.get("notification.channel.send")
+                .tags("channel", "slow", "outcome", "timeout").timer().count());
+
+        release.countDown();
+        await(() -> meterRegistry.get("notification.channel.in.flight")
+                .tags("channel", "slow", "priority", "high").gauge().value() == 0
+                && meterRegistry.get("notification.channel.queued")
+                .tags("channel", "slow", "priority", "high").gauge().value() == 0);
+        assertEquals(1, delivered.stream().filter("slow"::equals).count());
+        assertEquals(2, outcomes.reported.size());
+    }
+
+    /**
+     * Проверяет, что при заполненной очереди канала отправка по нему сразу отклоняется,
+     * а остальные каналы продолжают доставлять уведомления.
+     */
+    @Test
+    void deliver_shouldRejectWhenChannelQueueIsFull() {
+        // тайм-аут длиннее ожидания в тесте: иначе ждущее в очереди уведомление отменяется по тайм-ауту
+        // раньше, чем поток канала возьмёт первое, и очередь так и не заполняется
+        channels = channels(1, 1, Duration.ofSeconds(30), "fast", "slow");
+        // первое уведомление занимает поток медленного канала, второе — его очередь
+        Thread.ofPlatform().daemon().start(() -> deliverQuietly(channels));
+        // второе ставится только после того, как поток взял первое: иначе оба попадут в очередь на одно место
+        await(() -> meterRegistry.get("notification.channel.in.flight")
+                .tags("channel", "slow", "priority", "high").gauge().value() == 1);
+        Thread.ofPlatform().daemon().start(() -> deliverQuietly(channels));
+        await(() -> meterRegistry.get("notification.channel.queued")
+                .tags("channel", "slow", "priority", "high").gauge().value() == 1);
+
+        ChannelDeliveryException error = assertThrows(ChannelDeliveryException.class,
+                () -> channels.deliver(MESSAGE, outcomes));
+
+        assertEquals(Map.of("slow", "очередь канала заполнена"), error.getFailures());
+        assertTrue(outcomes.reported.contains("slow: очередь канала заполнена"));
+        assertTrue(delivered.contains("fast"));
+    }
+
+    private NotificationChannels channels(int maxConcurrency, int queueCapacity, Duration timeout, String... names) {
+        NotificationChannelProperties properties = new NotificationChannelProperties();
+        properties.setDefaultChannels(List.of(names));
+        NotificationChannelProperties.Channel slow = new NotificationChannelProperties.Channel();
+        slow.setMaxConcurrency(maxConcurrency);
+        slow.setQueueCapacity(queueCapacity);
+        slow.setTimeout(timeout);
+        properties.setChannels(Map.of("slow", slow));
+        return new NotificationChannels(List.of(channel("fast", false), channel("slow", true)),
+                properties, meterRegistry);
+    }
+
+    private NotificationChannel channel(String name, boolean hangs) {
+        return new NotificationChannel() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void send(NotificationMessage message) {
+                if (hangs) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                delivered.add(name);
+            }
+        };
+    }
+
+    private static void deliverQuietly(NotificationChannels channels) {
+        try {
+            channels.deliver(MESSAGE, new RecordingOutcomes());
+        } catch (ChannelDeliveryException ignored) {
+            // медленный канал не успевает — ожидаемо
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "условие не выполнено за 5 секунд");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static final class RecordingOutcomes implements DeliveryOutcomes {
+
+        private final List<String> reported = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void sent(String channel) {
+            reported.add(channel + ": sent");
+        }
+
+        @Override
+        public void failed(String channel, String reason) {
+            reported.add(channel + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.notificationservice.channel;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link PriorityTaskQueue}: выбор по весам, ограничение доли потоков,
+ * выбор вне очереди после {@code max-wait} и очереди отдельных приоритетов.
+ */
+class PriorityTaskQueueTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    /**
+     * Проверяет, что при ожидающих задачах обоих приоритетов выборки делятся по весам 4:1.
+     */
+    @Test
+    void poll_shouldShareTakesByWeight() {
+        PriorityTaskQueue queue = queue(10, 100, new NotificationChannelProperties.Priority(1, 1.0, null));
+        offer(queue, "bulk", 10);
+        offer(queue, "high", 10);
+
+        for (int i = 0; i < 10; i++) {
+            queue.poll().run();
+        }
+
+        assertEquals(8, ran.stream().filter("high"::equals).count());
+        assertEquals(2, ran.stream().filter("bulk"::equals).count());
+    }
+
+    /**
+     * Проверяет, что приоритет не занимает больше {@code max-share} потоков, даже когда других задач нет,
+     * и получает следующий поток после завершения своей задачи.
+     */
+    @Test
+    void poll_shouldKeepThreadsForOtherPriorities() {
+        PriorityTaskQueue queue = queue(4, 100, new NotificationChannelProperties.Priority(1, 0.5, null));
+        offer(queue, "bulk", 5);
+
+        Runnable first = queue.poll();
+        assertNotNull(queue.poll());
+        assertNull(queue.poll());
+        assertEquals(2, queue.running("bulk"));
+
+        offer(queue, "high", 1);
+        queue.poll().run();
+        assertEquals(List.of("high"), ran);
+
+        first.run();
+        assertNotNull(queue.poll());
+        assertEquals(2, queue.queued("bulk"));
+    }
+
+    /**
+     * Проверяет, что задача, прождавшая дольше {@code max-wait}, выбирается раньше задач с большим весом.
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    @Test
+    void poll_shouldTakeOverdueTaskFirst() throws InterruptedException {
+        PriorityTaskQueue queue = queue(10, 100,
+                new NotificationChannelProperties.Priority(1, 1.0, Duration.ofMillis(1)));
+        offer(queue, "bulk", 1);
+        Thread.sleep(5);
+        offer(queue, "high", 5);
+
+        queue.poll().run();
+
+        assertEquals(List.of("bulk"), ran);
+    }
+
+    /**
+     * Проверяет, что заполненная очередь одного приоритета не мешает принимать задачи другого,
+     * а неизвестный приоритет обслуживается как первый.
+     */
+    @Test
+    void offer_shouldLimitEachPriorityQueue() {
+        PriorityTaskQueue queue = queue(1, 2, new NotificationChannelProperties.Priority(1, 1.0, null));
+        offer(queue, "bulk", 2);
+
+        assertFalse(queue.offer(queue.task("bulk", () -> ran.add("bulk"))));
+        assertTrue(queue.offer(queue.task("urgent", () -> ran.add("urgent"))));
+        assertEquals(1, queue.queued("high"));
+        assertEquals(3, queue.size());
+    }
+
+    private PriorityTaskQueue queue(int threads, int capacity, NotificationChannelProperties.Priority bulk) {
+        Map<String, NotificationChannelProperties.Priority> priorities = new LinkedHashMap<>();
+        priorities.put("high", new NotificationChannelProperties.Priority(4, 1.0, null));
+        priorities.put("bulk", bulk);
+        return new PriorityTaskQueue(priorities, threads, capacity);
+    }
+
+    private void offer(PriorityTaskQueue queue, String priority, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer(queue.task(priority, () -> ran.add(priority))));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.notificationservice.journal;
+
+import org.example.common.dto.UserNotificationDto;
+import org.example.notificationservice.channel.DeliveryOutcomes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link DeliveryJournal}: запись, поиск по email,
+ * восстановление после перезапуска, смена сегментов и срок хранения.
+ */
+class DeliveryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Проверяет, что события уведомления находятся по email без учёта регистра
+     * и сохраняются после повторного открытия журнала.
+     */
+    @Test
+    void find_shouldReturnEventsAfterReopen() {
+        UserNotificationDto notification = new UserNotificationDto("User@Mail.ru", "created");
+        DeliveryJournal journal = open(DataSize.ofMegabytes(1), Clock.systemUTC());
+        long id = journal.received(notification, 3, 42);
+        journal.attempt(id, notification, 1);
+        journal.failed(id, notification, new IllegalStateException("SMTP недоступен"));
+        journal.received(new UserNotificationDto("other@mail.ru", "created"), 3, 43);
+        journal.close();
+
+        DeliveryJournal reopened = open(DataSize.ofMegabytes(1), Clock.systemUTC());
+        List<DeliveryRecord> records = reopened.find("user@mail.ru", 10);
+        long nextId = reopened.received(notification, -1, -1);
+        reopened.close();
+
+        assertEquals(3, records.size());
+        assertEquals(DeliveryEvent.RECEIVED, records.get(0).event());
+        assertEquals(42, records.get(0).offset());
+        assertEquals(3, records.get(0).partition());
+        assertNull(records.get(0).detail());
+        assertEquals(DeliveryEvent.ATTEMPT, records.get(1).event());
+        assertEquals(1, records.get(1).attempt());
+        assertEquals(DeliveryEvent.FAILED, records.get(2).event());
+        assertEquals("SMTP недоступен", records.get(2).detail());
+        assertEquals("created", records.get(2).type());
+        assertTrue(records.stream().allMatch(record -> record.notificationId() == id));
+        assertEquals(id + 2, nextId);
+    }
+
+    /**
+     * Проверяет, что итог доставки записывается по каждому каналу, в том числе пришедший после
+     * итога по другому каналу.
+     */
+    @Test
+    void outcomes_shouldRecordEachChannel() {
+        UserNotificationDto notification = new UserNotificationDto("user@mail.ru", "created");
+        DeliveryJournal journal = open(DataSize.ofMegabytes(1), Clock.systemUTC());
+        long id = journal.received(notification, 0, 1);
+        DeliveryOutcomes outcomes = journal.outcomes(id, notification);
+        outcomes.failed("sms", "шлюз недоступен");
+        outcomes.sent("email");
+        List<DeliveryRecord> records = journal.find("user@mail.ru", 10);
+        journal.close();
+
+        assertEquals(3, records.size());
+        assertEquals(DeliveryEvent.FAILED, records.get(1).event());
+        assertEquals("sms: шлюз недоступен", records.get(1).detail());
+        assertEquals(DeliveryEvent.SENT, records.get(2).event());
+        assertEquals("email", records.get(2).detail());
+    }
+
+    /**
+     * Проверяет, что повреждённый хвост сегмента отбрасывается, а запись продолжается после целых записей.
+     *
+     * @throws IOException если не удалось испортить файл сегмента
+     */
+    @Test
+    void open_shouldDiscardTornRecord() throws IOException {
+        UserNotificationDto notification = new UserNotificationDto("user@mail.ru", "created");
+        DeliveryJournal journal = open(DataSize.ofMegabytes(1), Clock.systemUTC());
+        long id = journal.received(notification, 0, 1);
+        journal.outcomes(id, notification).sent("email");
+        journal.close();
+
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // вторая запись: длина на месте, а содержимое повреждено
+            int second = file.readInt();
+            file.seek(second + 10);
+            file.writeByte(0x7f);
+        }
+
+        DeliveryJournal reopened = open(DataSize.ofMegabytes(1), Clock.systemUTC());
+        reopened.attempt(id, notification, 2);
+        List<DeliveryRecord> records = reopened.find("user@mail.ru", 10);
+        reopened.close();
+
+        assertEquals(2, records.size());
+        assertEquals(DeliveryEvent.RECEIVED, records.get(0).event());
+        assertEquals(DeliveryEvent.ATTEMPT, records.get(1).event());
+        assertEquals(2, records.get(1).attempt());
+    }
+
+    /**
+     * Проверяет, что заполненный сегмент сменяется новым, поиск охватывает все сегменты
+     * и ограничивается последними записями, а сегменты старше срока хранения удаляются.
+     *
+     * @throws IOException если не удалось прочитать каталог журнала
+     */
+    @Test
+    void append_shouldRollSegmentsAndExpireOldOnes() throws IOException {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        DeliveryJournal journal = open(DataSize.ofKilobytes(4), clock);
+        UserNotificationDto notification = new UserNotificationDto("user@mail.ru", "created");
+        for (int i = 0; i < 200; i++) {
+            journal.received(notification, 0, i);
+        }
+
+        assertTrue(segments().size() > 1);
+        List<DeliveryRecord> last = journal.find("user@mail.ru", 5);
+        assertEquals(5, last.size());
+        assertEquals(195, last.get(0).offset());
+        assertEquals(199, last.get(4).offset());
+        assertEquals(200, journal.find("user@mail.ru", 1000).size());
+
+        clock.advance(Duration.ofDays(8));
+        journal.received(notification, 0, 200);
+        journal.flush();
+        journal.close();
+
+        // срок хранения соблюдается с точностью до сегмента: остаётся только активный
+        assertEquals(1, segments().size());
+        List<DeliveryRecord> kept = open(DataSize.ofKilobytes(4), clock).find("user@mail.ru", 1000);
+        assertTrue(kept.size() < 100);
+        assertEquals(200, kept.get(kept.size() - 1).offset());
+    }
+
+    private DeliveryJournal open(DataSize segmentSize, Clock clock) {
+        return new DeliveryJournal(directory, segmentSize, Duration.ofDays(7), Duration.ofMinutes(1), clock);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
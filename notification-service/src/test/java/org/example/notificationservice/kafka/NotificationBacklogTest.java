@@ -0,0 +1,146 @@
+package org.example.notificationservice.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.dto.UserNotificationDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit-тесты для {@link NotificationBacklog} без обращения к Kafka.
+ */
+class NotificationBacklogTest {
+
+    private static final String HIGH = UserNotificationDto.PRIORITY_HIGH;
+    private static final String BULK = UserNotificationDto.PRIORITY_BULK;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-10-19T10:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final NotificationBacklog backlog = new NotificationBacklog(null, Duration.ofSeconds(10),
+            Duration.ofSeconds(60), 1.0, () -> 4, () -> 2, meterRegistry, clock);
+
+    /**
+     * Проверяет отставание по партициям, скорость поступления и метрику отставания.
+     */
+    @Test
+    void update_shouldComputeLagAndArrivalRate() {
+        backlog.update(HIGH, Map.of(0, 100L, 1, 50L), Map.of(0, 40L));
+        clock.advance(Duration.ofSeconds(10));
+        backlog.update(HIGH, Map.of(0, 300L, 1, 50L), Map.of(0, 100L, 1, 20L));
+
+        NotificationBacklogSnapshot.Lane snapshot = backlog.snapshot().lane(HIGH);
+        assertEquals(2, snapshot.partitions().size());
+        assertEquals(200, snapshot.partitions().get(0).lag());
+        assertEquals(30, snapshot.partitions().get(1).lag());
+        assertEquals(230, snapshot.totalLag());
+        assertEquals(20.0, snapshot.arrivalRate(), 1e-9);
+        assertEquals(200.0, meterRegistry.get("notification.consumer.lag")
+                .tag("lane", HIGH).tag("partition", "0").gauge().value());
+    }
+
+    /**
+     * Проверяет возраст самой старой необработанной записи, скорость обработки
+     * и рекомендуемое число потоков по закону Литтла.
+     */
+    @Test
+    void snapshot_shouldReportOldestRecordRateAndRequiredWorkers() {
+        backlog.update(HIGH, Map.of(0, 600L), Map.of(0, 0L));
+        clock.advance(Duration.ofSeconds(10));
+        // за 10 секунд поступило 300 записей, 600 ещё не разобраны
+        backlog.update(HIGH, Map.of(0, 900L), Map.of(0, 300L));
+
+        long now = clock.millis();
+        backlog.received(HIGH, 0, 301, now - 5_000);
+        backlog.received(HIGH, 0, 302, now - 2_000);
+        for (long offset = 0; offset < 120; offset++) {
+            backlog.received(HIGH, 0, offset, now);
+            backlog.processed(HIGH, 0, offset, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        NotificationBacklogSnapshot.Lane snapshot = backlog.snapshot().lane(HIGH);
+        assertEquals(2, snapshot.inFlight());
+        assertEquals(5.0, snapshot.oldestUnprocessedAge(), 1e-9);
+        assertEquals(2.0, snapshot.processingRate(), 1e-9);
+        assertEquals(100.0, snapshot.meanProcessingMillis(), 1e-9);
+        // (30 записей/с поступления + 600 записей / 60 с) * 0.1 с = 4 потока
+        assertEquals(4, snapshot.requiredWorkers());
+
+        backlog.processed(HIGH, 0, 301, 0);
+        assertEquals(2.0, backlog.snapshot().lane(HIGH).oldestUnprocessedAge(), 1e-9);
+    }
+
+    /**
+     * Проверяет, что массовые уведомления учитываются в отдельной полосе со своими метриками
+     * и рекомендуемым числом потоков, не влияя на полосу срочных уведомлений.
+     */
+    @Test
+    void snapshot_shouldReportBulkLaneSeparately() {
+        backlog.update(BULK, Map.of(0, 1_000L), Map.of(0, 0L));
+        clock.advance(Duration.ofSeconds(10));
+        // за 10 секунд поступило 100 записей, 600 ещё не разобраны
+        backlog.update(BULK, Map.of(0, 1_100L), Map.of(0, 500L));
+
+        long now = clock.millis();
+        backlog.received(BULK, 0, 500, now - 30_000);
+        for (long offset = 0; offset < 60; offset++) {
+            backlog.received(BULK, 0, offset, now);
+            backlog.processed(BULK, 0, offset, TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        NotificationBacklogSnapshot snapshot = backlog.snapshot();
+        NotificationBacklogSnapshot.Lane bulk = snapshot.lane(BULK);
+        assertEquals(UserNotificationDto.BULK_TOPIC, bulk.topic());
+        assertEquals(NotificationKafkaListener.BULK_GROUP, bulk.group());
+        assertEquals(600, bulk.totalLag());
+        assertEquals(1, bulk.inFlight());
+        assertEquals(30.0, bulk.oldestUnprocessedAge(), 1e-9);
+        assertEquals(1.0, bulk.processingRate(), 1e-9);
+        assertEquals(2, bulk.workers());
+        // (10 записей/с поступления + 600 записей / 60 с) * 0.2 с = 4 потока
+        assertEquals(4, bulk.requiredWorkers());
+        assertEquals(4.0, meterRegistry.get("notification.backlog.required.workers").tag("lane", BULK).gauge().value());
+        assertEquals(30.0, meterRegistry.get("notification.backlog.oldest.age").tag("lane", BULK).gauge().value());
+
+        NotificationBacklogSnapshot.Lane high = snapshot.lane(HIGH);
+        assertEquals(0, high.totalLag());
+        assertEquals(0, high.inFlight());
+        assertEquals(0.0, high.processingRate(), 1e-9);
+        assertEquals(0, high.requiredWorkers());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.notificationservice.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link NotificationDispatcher} в режиме {@code keyed}.
+ */
+class NotificationDispatcherTest {
+
+    /**
+     * Проверяет, что записи одного ключа обрабатываются по порядку,
+     * а зависшая обработка одного ключа не задерживает другие ключи.
+     *
+     * @throws Exception если поток был прерван
+     */
+    @Test
+    void keyedDispatch_shouldKeepOrderPerKeyAndNotBlockOtherKeys() throws Exception {
+        NotificationDispatcher dispatcher = new NotificationDispatcher("keyed", 8, new SimpleMeterRegistry());
+        String slowKey = "slow@mail.ru";
+        String fastKey = findKeyOnOtherWorker(slowKey, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(100);
+        List<Integer> slowOrder = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(slowKey, () -> await(release));
+        for (int i = 0; i < 100; i++) {
+            int sequence = i;
+            dispatcher.dispatch(slowKey, () -> slowOrder.add(sequence));
+            dispatcher.dispatch(fastKey, fastDone::countDown);
+        }
+
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        assertTrue(slowOrder.isEmpty());
+
+        release.countDown();
+        dispatcher.shutdown();
+        assertEquals(100, slowOrder.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, slowOrder.get(i));
+        }
+    }
+
+    private static String findKeyOnOtherWorker(String key, int workers) {
+        for (int i = 0; ; i++) {
+            String candidate = "user" + i + "@mail.ru";
+            if (Math.floorMod(candidate.hashCode(), workers) != Math.floorMod(key.hashCode(), workers)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
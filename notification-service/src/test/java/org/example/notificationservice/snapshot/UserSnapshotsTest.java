@@ -0,0 +1,51 @@
+package org.example.notificationservice.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link UserSnapshots}: смена email, удаление пользователя
+ * и переход email к другому пользователю при записях не по порядку.
+ */
+class UserSnapshotsTest {
+
+    private final UserSnapshots snapshots = new UserSnapshots(new ObjectMapper(), new SimpleMeterRegistry());
+
+    /**
+     * Проверяет, что при смене email пользователь находится по новому email и не находится по старому,
+     * а после удаления не находится вовсе.
+     */
+    @Test
+    void apply_shouldFollowEmailChangeAndDeletion() {
+        snapshots.apply("1", snapshot(1, "old@mail.ru", "Анна"));
+        snapshots.apply("1", snapshot(1, "new@mail.ru", "Анна"));
+
+        assertTrue(snapshots.findByEmail("old@mail.ru").isEmpty());
+        assertEquals("Анна", snapshots.findByEmail("new@mail.ru").orElseThrow().getName());
+
+        snapshots.apply("1", null);
+        assertTrue(snapshots.findByEmail("new@mail.ru").isEmpty());
+        assertEquals(0, snapshots.size());
+    }
+
+    /**
+     * Проверяет, что удаление прежнего владельца email, применённое после создания нового владельца,
+     * не удаляет нового.
+     */
+    @Test
+    void apply_shouldKeepNewOwnerWhenOldOwnerDeletedLater() {
+        snapshots.apply("1", snapshot(1, "shared@mail.ru", "Анна"));
+        snapshots.apply("2", snapshot(2, "shared@mail.ru", "Борис"));
+        snapshots.apply("1", null);
+
+        assertEquals("Борис", snapshots.findByEmail("shared@mail.ru").orElseThrow().getName());
+    }
+
+    private static String snapshot(int id, String email, String name) {
+        return "{\"id\":" + id + ",\"email\":\"" + email + "\",\"name\":\"" + name + "\",\"age\":30}";
+    }
+}
@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Сравнение времени старта сервиса: обычный jar против AOT + CDS (профиль aot).
+# Метрика — время от запуска JVM до первого успешного ответа /actuator/health.
+#
+# Использование:
+#   mvn -Paot package -DskipTests -pl user-service
+#   scripts/startup-benchmark.sh user-service 8081 [runs]
+#
+# Окружение сервиса (config-server, БД, Kafka) должно быть поднято заранее,
+# например через docker compose; дополнительные параметры JVM передаются через JAVA_OPTS,
+# проверяемый путь можно заменить через PROBE_PATH (например, /actuator, если health зависит от недоступных компонентов).
+
+set -euo pipefail
+
+MODULE=${1:?module name required}
+PORT=${2:?port required}
+RUNS=${3:-5}
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+TARGET="$ROOT/$MODULE/target"
+URL="http://localhost:$PORT${PROBE_PATH:-/actuator/health}"
+
+if [[ ! -f "$TARGET/cds/application.jsa" ]]; then
+    echo "CDS archive not found, run: mvn -Paot package -DskipTests -pl $MODULE" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Запускает сервис, ждёт первого успешного ответа и печатает время в миллисекундах.
+measure() {
+    local dir=$1 jar=$2
+    shift 2
+    local start pid elapsed
+    start=$(now_ms)
+    (cd "$dir" && exec java $JAVA_OPTS "$@" -jar "$jar" >/dev/null 2>&1) &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$MODULE exited before becoming healthy" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+run_series() {
+    local label=$1
+    shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(measure "$@")")
+    done
+    printf '%-10s runs=%s median=%sms all=[%s]\n' "$label" "$RUNS" \
+        "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+JAVA_OPTS=${JAVA_OPTS:-}
+
+run_series "jit" "$TARGET" "$MODULE-exec.jar"
+run_series "aot+cds" "$TARGET/cds" "$MODULE.jar" \
+    -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.cloud.refresh.enabled=false
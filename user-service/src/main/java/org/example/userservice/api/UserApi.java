@@ -6,6 +6,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.example.userservice.dto.UserBatchDto;
 import org.example.userservice.dto.UserDto;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
@@ -16,7 +17,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * API-интерфейс для управления пользователями.
@@ -24,6 +29,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
  *
  * Предоставляет операции:
  * GET /api/users — получение всех пользователей
+ * GET /api/users?ids=1,2,3 и POST /api/users/lookup — получение пользователей по списку ID
  * GET /api/users/{id} — получение пользователя по ID
  * POST /api/users — создание нового пользователя
  * PUT /api/users/{id} — обновление пользователя по ID
@@ -43,6 +49,39 @@ public interface UserApi {
     @GetMapping
     ResponseEntity<CollectionModel<EntityModel<UserDto>>> getUsers();
 
+    /**
+     * Получение пользователей по списку ID одним запросом к базе.
+     *
+     * @param ids идентификаторы пользователей через запятую
+     * @return найденные пользователи в порядке запроса и ненайденные ID
+     */
+    @Operation(summary = "Получить пользователей по списку ID")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Пользователи получены, ненайденные ID перечислены в missing"),
+            @ApiResponse(responseCode = "400", description = "Слишком много ID в запросе")
+    })
+    @GetMapping(params = "ids")
+    ResponseEntity<UserBatchDto> getUsersByIds(
+            @Parameter(description = "ID пользователей через запятую", required = true, example = "1,2,3")
+            @RequestParam("ids") List<Integer> ids);
+
+    /**
+     * Получение пользователей по списку ID, переданному в теле запроса.
+     * Предназначено для длинных списков, которые не помещаются в URL.
+     *
+     * @param ids идентификаторы пользователей
+     * @return найденные пользователи в порядке запроса и ненайденные ID
+     */
+    @Operation(summary = "Получить пользователей по списку ID из тела запроса")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Пользователи получены, ненайденные ID перечислены в missing"),
+            @ApiResponse(responseCode = "400", description = "Слишком много ID в запросе")
+    })
+    @PostMapping("/lookup")
+    ResponseEntity<UserBatchDto> lookupUsers(
+            @Parameter(description = "ID пользователей", required = true)
+            @RequestBody List<Integer> ids);
+
     /**
      * Получение пользователя по ID.
      *
@@ -61,17 +100,24 @@ public interface UserApi {
 
     /**
      * Создание нового пользователя.
+     * Повтор запроса с тем же заголовком {@code Idempotency-Key} возвращает ответ первого запроса
+     * с заголовком {@code Idempotent-Replayed: true}, не создавая пользователя повторно.
      *
+     * @param idempotencyKey ключ идемпотентности, выбранный клиентом
      * @param user данные нового пользователя
      * @return созданный пользователь с HATEOAS-ссылками
      */
     @Operation(summary = "Создать пользователя")
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Пользователь успешно создан"),
-            @ApiResponse(responseCode = "400", description = "Некорректные данные пользователя")
+            @ApiResponse(responseCode = "400", description = "Некорректные данные пользователя"),
+            @ApiResponse(responseCode = "409", description = "Запрос с этим Idempotency-Key ещё выполняется"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован с другими данными")
     })
     @PostMapping
     ResponseEntity<EntityModel<UserDto>> createUser(
+            @Parameter(description = "Ключ идемпотентности: повторы с тем же ключом не создают пользователя заново")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Parameter(description = "Данные нового пользователя")
             @Valid @RequestBody UserDto user);
 
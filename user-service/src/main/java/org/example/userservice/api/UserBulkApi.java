@@ -0,0 +1,86 @@
+package org.example.userservice.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.userservice.service.UserBulkFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * API-интерфейс массовой загрузки и выгрузки пользователей.
+ * Данные передаются потоком в CSV или NDJSON и не накапливаются в памяти сервиса.
+ *
+ * Предоставляет операции:
+ * POST /api/users/import (Content-Type: text/csv или application/x-ndjson) — загрузка пользователей
+ * GET /api/users/export (Accept: text/csv или application/x-ndjson) — выгрузка всех пользователей
+ */
+@Tag(name = "Массовые операции", description = "Потоковая загрузка и выгрузка пользователей")
+@RequestMapping("/api/users")
+public interface UserBulkApi {
+
+    /**
+     * Загрузка пользователей.
+     * Ответ — NDJSON: по ходу импорта отправляются строки с этапом и количеством обработанных строк,
+     * последняя строка содержит итоги ({@code "phase":"done"}) или ошибку ({@code "phase":"failed"}).
+     * Ошибка до первой строки хода импорта возвращается обычным кодом ответа.
+     *
+     * @param contentType формат данных
+     * @param duplicates  что делать с занятыми email: skip, update или fail
+     * @param notify      отправлять ли уведомления о создании пользователей
+     * @param body        данные пользователей
+     * @param response    ответ, в который пишется ход импорта
+     * @throws IOException если не удалось записать ответ
+     */
+    @Operation(summary = "Загрузить пользователей из CSV или NDJSON")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Импорт выполнен, итоги в последней строке ответа"),
+            @ApiResponse(responseCode = "400", description = "Некорректные данные"),
+            @ApiResponse(responseCode = "409", description = "Email заняты, а политика дубликатов fail")
+    })
+    @PostMapping(value = "/import",
+            consumes = {UserBulkFormat.CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    void importUsers(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @Parameter(description = "Что делать с занятыми email: skip, update или fail")
+            @RequestParam(name = "duplicates", defaultValue = "skip") String duplicates,
+            @Parameter(description = "Отправлять ли уведомления о создании пользователей")
+            @RequestParam(name = "notify", defaultValue = "false") boolean notify,
+            @Parameter(hidden = true) InputStream body,
+            @Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    /**
+     * Выгрузка всех пользователей в CSV с заголовком.
+     *
+     * @param response ответ, в который пишутся данные
+     * @throws IOException если не удалось записать ответ
+     */
+    @Operation(summary = "Выгрузить всех пользователей в CSV")
+    @ApiResponse(responseCode = "200", description = "Пользователи выгружены")
+    @GetMapping(value = "/export", produces = UserBulkFormat.CSV_VALUE)
+    void exportCsv(@Parameter(hidden = true) HttpServletResponse response) throws IOException;
+
+    /**
+     * Выгрузка всех пользователей в NDJSON.
+     *
+     * @param response ответ, в который пишутся данные
+     * @throws IOException если не удалось записать ответ
+     */
+    @Operation(summary = "Выгрузить всех пользователей в NDJSON")
+    @ApiResponse(responseCode = "200", description = "Пользователи выгружены")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    void exportNdjson(@Parameter(hidden = true) HttpServletResponse response) throws IOException;
+}
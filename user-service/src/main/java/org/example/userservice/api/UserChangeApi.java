@@ -0,0 +1,62 @@
+package org.example.userservice.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.userservice.dto.UserChangePage;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * API-интерфейс журнала изменений пользователей.
+ * Позволяет поддерживать локальную копию пользователей, получая только изменения
+ * после известного курсора, вместо периодической загрузки всего списка.
+ *
+ * Предоставляет операции:
+ * GET /api/users/changes?since={cursor} (Accept: application/json) — страница изменений
+ * GET /api/users/changes?since={cursor} (Accept: text/event-stream) — поток изменений в формате SSE
+ */
+@Tag(name = "Изменения пользователей", description = "Журнал создания, обновления и удаления пользователей")
+@RequestMapping("/api/users/changes")
+public interface UserChangeApi {
+
+    /**
+     * Получение страницы изменений после курсора.
+     *
+     * @param since курсор последнего полученного изменения, 0 — с начала журнала
+     * @param limit размер страницы
+     * @return страница изменений с курсором следующей страницы
+     */
+    @Operation(summary = "Получить страницу изменений пользователей после курсора")
+    @ApiResponse(responseCode = "200", description = "Страница изменений получена")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<UserChangePage> getChanges(
+            @Parameter(description = "Курсор последнего полученного изменения")
+            @RequestParam(name = "since", defaultValue = "0") long since,
+            @Parameter(description = "Размер страницы")
+            @RequestParam(name = "limit", defaultValue = "100") int limit);
+
+    /**
+     * Подписка на поток изменений после курсора.
+     * Событие SSE имеет имя типа изменения ({@code created}, {@code updated}, {@code deleted})
+     * и {@code id}, равный курсору изменения.
+     *
+     * @param since       курсор последнего полученного изменения, 0 — с начала журнала
+     * @param lastEventId курсор из заголовка {@code Last-Event-ID} при переподключении, важнее {@code since}
+     * @return SSE-поток изменений
+     */
+    @Operation(summary = "Подписаться на поток изменений пользователей после курсора")
+    @ApiResponse(responseCode = "200", description = "Поток изменений открыт")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamChanges(
+            @Parameter(description = "Курсор последнего полученного изменения")
+            @RequestParam(name = "since", defaultValue = "0") long since,
+            @Parameter(description = "Курсор последнего полученного события при переподключении")
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId);
+}
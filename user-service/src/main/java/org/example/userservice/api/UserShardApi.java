@@ -0,0 +1,70 @@
+package org.example.userservice.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.userservice.dto.UserShardDto;
+import org.example.userservice.dto.UserShardMoveDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * API-интерфейс управления шардами пользователей.
+ * Доступен, только если заданы дополнительные шарды в {@code user.sharding.shards}.
+ *
+ * Предоставляет операции:
+ * GET /api/users/shards — число бакетов и пользователей на каждом шарде
+ * POST /api/users/shards/rebalance — выравнивание числа бакетов на шардах
+ * POST /api/users/shards/buckets/{bucket}/move?shard= — перенос бакета на шард
+ */
+@Tag(name = "Шарды пользователей", description = "Распределение пользователей по шардам и перенос бакетов")
+@RequestMapping("/api/users/shards")
+public interface UserShardApi {
+
+    /**
+     * Получение состояния шардов.
+     *
+     * @return шарды в порядке номеров
+     */
+    @Operation(summary = "Получить состояние шардов")
+    @ApiResponse(responseCode = "200", description = "Состояние шардов получено")
+    @GetMapping
+    ResponseEntity<List<UserShardDto>> getShards();
+
+    /**
+     * Выравнивание числа бакетов на шардах, например после добавления шарда.
+     *
+     * @return выполненные переносы
+     */
+    @Operation(summary = "Перебалансировать бакеты между шардами")
+    @ApiResponse(responseCode = "200", description = "Перебалансировка выполнена")
+    @PostMapping("/rebalance")
+    ResponseEntity<List<UserShardMoveDto>> rebalance();
+
+    /**
+     * Перенос бакета на шард.
+     *
+     * @param bucket номер бакета
+     * @param shard  номер шарда
+     * @return выполненный перенос
+     */
+    @Operation(summary = "Перенести бакет на шард")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Бакет перенесён"),
+            @ApiResponse(responseCode = "400", description = "Несуществующий бакет или шард")
+    })
+    @PostMapping("/buckets/{bucket}/move")
+    ResponseEntity<UserShardMoveDto> moveBucket(
+            @Parameter(description = "Номер бакета")
+            @PathVariable("bucket") int bucket,
+            @Parameter(description = "Номер шарда")
+            @RequestParam("shard") int shard);
+}
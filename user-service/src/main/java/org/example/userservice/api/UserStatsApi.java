@@ -0,0 +1,35 @@
+package org.example.userservice.api;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.userservice.dto.UserStatsDto;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * API-интерфейс статистики пользователей.
+ *
+ * Предоставляет операции:
+ * GET /api/users/stats — количество пользователей, распределение по возрасту и регистрации по дням
+ */
+@Tag(name = "Статистика пользователей", description = "Сводные показатели без выгрузки списка пользователей")
+@RequestMapping("/api/users/stats")
+public interface UserStatsApi {
+
+    /**
+     * Получение статистики пользователей.
+     *
+     * @param days за сколько последних дней вернуть регистрации
+     * @return статистика пользователей
+     */
+    @Operation(summary = "Получить статистику пользователей")
+    @ApiResponse(responseCode = "200", description = "Статистика получена")
+    @GetMapping
+    ResponseEntity<UserStatsDto> getStats(
+            @Parameter(description = "За сколько последних дней вернуть регистрации")
+            @RequestParam(name = "days", defaultValue = "30") int days);
+}
@@ -0,0 +1,153 @@
+package org.example.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.datasource.ReplicaRoutingDataSource;
+import org.example.userservice.datasource.ShardRoutingDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источник данных user-service. Режим выбирается при старте по настройкам, а не условиями бинов:
+ * AOT-профиль ({@code mvn -Paot package}) вычисляет условия при сборке, и образ, собранный без шардов
+ * и реплик, игнорировал бы их в настройках config-server.
+ *
+ * Если заданы шарды в {@code user.sharding.shards}, создаётся источник с маршрутизацией по шардам
+ * ({@link ShardRoutingDataSource}): шард 0 — база из {@code spring.datasource}, каждый шард получает
+ * собственный пул Hikari ({@code user-shard-0}, {@code user-shard-1}, ...). Для проверки на одном сервере
+ * PostgreSQL шардам можно указать разные базы этого сервера.
+ *
+ * Если заданы реплики в {@code user.datasource.replicas}, читающие транзакции уходят на реплики
+ * ({@link ReplicaRoutingDataSource}), пулы называются {@code user-primary}, {@code user-replica-1}, ....
+ * Для проверки без настоящей репликации реплике можно указать адрес основной базы.
+ * Шардирование с репликами не совмещается.
+ *
+ * Без шардов и реплик используется один пул {@code user-primary} на {@code spring.datasource}.
+ * Параметры всех пулов берутся из {@code spring.datasource.hikari}, метрики публикуются с префиксом
+ * {@code hikaricp} и тегом {@code pool}.
+ */
+@Configuration
+@EnableConfigurationProperties({ShardingProperties.class, ReadReplicaProperties.class})
+public class DataSourceConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties,
+                                 ShardingProperties shardingProperties,
+                                 ReadReplicaProperties replicaProperties,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry) {
+        boolean sharded = !shardingProperties.getShards().isEmpty();
+        boolean replicated = !replicaProperties.getReplicas().isEmpty();
+        if (sharded && replicated) {
+            throw new IllegalStateException("user.sharding.shards и user.datasource.replicas не совмещаются: "
+                    + "задайте что-то одно");
+        }
+        if (sharded) {
+            return shardedDataSource(primaryProperties, shardingProperties, environment, meterRegistry);
+        }
+        if (replicated) {
+            return replicatedDataSource(primaryProperties, replicaProperties, environment, meterRegistry);
+        }
+        return pool(environment, meterRegistry, "user-primary",
+                primaryProperties.determineUrl(),
+                primaryProperties.determineUsername(),
+                primaryProperties.determinePassword());
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private DataSource shardedDataSource(DataSourceProperties primaryProperties,
+                                         ShardingProperties shardingProperties,
+                                         Environment environment,
+                                         MeterRegistry meterRegistry) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(pool(environment, meterRegistry, "user-shard-0",
+                primaryProperties.determineUrl(),
+                primaryProperties.determineUsername(),
+                primaryProperties.determinePassword()));
+        List<ShardingProperties.Shard> configured = shardingProperties.getShards();
+        for (int i = 0; i < configured.size(); i++) {
+            ShardingProperties.Shard shard = configured.get(i);
+            shards.add(pool(environment, meterRegistry, "user-shard-" + (i + 1),
+                    shard.getUrl(),
+                    shard.getUsername() != null ? shard.getUsername() : primaryProperties.determineUsername(),
+                    shard.getPassword() != null ? shard.getPassword() : primaryProperties.determinePassword()));
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards, meterRegistry);
+        routing.afterPropertiesSet();
+        return lazy(routing);
+    }
+
+    private DataSource replicatedDataSource(DataSourceProperties primaryProperties,
+                                            ReadReplicaProperties replicaProperties,
+                                            Environment environment,
+                                            MeterRegistry meterRegistry) {
+        DataSource primary = pool(environment, meterRegistry, "user-primary",
+                primaryProperties.determineUrl(),
+                primaryProperties.determineUsername(),
+                primaryProperties.determinePassword());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReadReplicaProperties.Replica> configured = replicaProperties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReadReplicaProperties.Replica replica = configured.get(i);
+            String name = "replica-" + (i + 1);
+            replicas.put(name, pool(environment, meterRegistry, "user-" + name,
+                    replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : primaryProperties.determineUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : primaryProperties.determinePassword()));
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+        routing.afterPropertiesSet();
+        return lazy(routing);
+    }
+
+    /**
+     * Маршрут известен только после начала транзакции, поэтому физическое соединение
+     * берётся при первом запросе к базе.
+     */
+    private static DataSource lazy(DataSource routing) {
+        // значения по умолчанию заданы явно, чтобы прокси не брал соединение при старте
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    private HikariDataSource pool(Environment environment, MeterRegistry meterRegistry, String name,
+                                  String url, String username, String password) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        pools.add(pool);
+        return pool;
+    }
+}
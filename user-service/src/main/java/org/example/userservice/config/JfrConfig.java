@@ -0,0 +1,42 @@
+package org.example.userservice.config;
+
+import org.example.common.jfr.JfrStageEndpoint;
+import org.example.common.jfr.JfrStageMonitor;
+import org.example.userservice.jfr.NotificationPublishEvent;
+import org.example.userservice.jfr.UserOperationEvent;
+import org.example.userservice.jfr.UserOperationEventAspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Постоянная запись JFR с событиями этапов user-service: вызовы {@code UserService}
+ * ({@link UserOperationEvent}) и отправка уведомлений в Kafka ({@link NotificationPublishEvent}).
+ * Сводка задержек и сброс записи — через {@code /actuator/jfr}, см. {@link JfrStageEndpoint}.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public JfrStageMonitor jfrStageMonitor(@Value("${jfr.settings:default}") String settings,
+                                           @Value("${jfr.window:1m}") Duration window,
+                                           @Value("${jfr.max-age:10m}") Duration maxAge) {
+        return new JfrStageMonitor(List.of(UserOperationEvent.class, NotificationPublishEvent.class),
+                settings, window, maxAge);
+    }
+
+    @Bean
+    public JfrStageEndpoint jfrStageEndpoint(JfrStageMonitor monitor,
+                                             @Value("${jfr.dump-directory:${java.io.tmpdir}}") String dumpDirectory) {
+        return new JfrStageEndpoint(monitor, Path.of(dumpDirectory), "user-service");
+    }
+
+    @Bean
+    public UserOperationEventAspect userOperationEventAspect() {
+        return new UserOperationEventAspect();
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.userservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.example.common.dto.UserNotificationDto;
+import org.example.common.dto.UserSnapshotDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Топики, которыми владеет user-service.
+ * Топик снимков пользователей сжимаемый: в нём хранится последнее состояние каждого пользователя,
+ * и потребитель восстанавливает по нему всех пользователей, прочитав топик с начала.
+ * Топик массовых уведомлений создаётся с запасом партиций, чтобы notification-service мог читать его
+ * несколькими потребителями.
+ * Топик создаётся при старте, если его ещё нет; у существующего топика настройки не меняются.
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic userSnapshotsTopic(@Value("${user.snapshot.partitions:3}") int partitions) {
+        return TopicBuilder.name(UserSnapshotDto.TOPIC)
+                .partitions(partitions)
+                .compact()
+                .build();
+    }
+
+    @Bean
+    public NewTopic bulkNotificationsTopic(@Value("${user.notification.bulk-partitions:6}") int partitions) {
+        return TopicBuilder.name(UserNotificationDto.BULK_TOPIC)
+                .partitions(partitions)
+                .build();
+    }
+}
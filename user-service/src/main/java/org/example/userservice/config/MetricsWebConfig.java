@@ -0,0 +1,28 @@
+package org.example.userservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.userservice.metrics.HibernateStatementsInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Регистрирует {@link HibernateStatementsInterceptor} для всех эндпоинтов.
+ * Если {@link MeterRegistry} в контексте нет (например, в срезе {@code @WebMvcTest}),
+ * интерцептор не подключается.
+ */
+@Configuration
+public class MetricsWebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricsWebConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        meterRegistry.ifAvailable(meters -> registry.addInterceptor(new HibernateStatementsInterceptor(meters)));
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.userservice.config;
+
+import org.example.userservice.datasource.ReadYourWritesInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Чтение своих записей при маршрутизации чтения на реплики ({@link DataSourceConfig}).
+ * Интерцептор {@link ReadYourWritesInterceptor} регистрируется, только если в {@code user.datasource.replicas}
+ * задана хотя бы одна реплика; проверка выполняется при старте, а не условием бина,
+ * поэтому работает и в образе, собранном AOT-профилем.
+ */
+@Configuration
+public class ReadReplicaConfig {
+
+    @Bean
+    public WebMvcConfigurer readYourWritesWebConfig(ReadReplicaProperties replicaProperties) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                if (!replicaProperties.getReplicas().isEmpty()) {
+                    registry.addInterceptor(new ReadYourWritesInterceptor(
+                            replicaProperties.getReadYourWritesWindow()));
+                }
+            }
+        };
+    }
+}
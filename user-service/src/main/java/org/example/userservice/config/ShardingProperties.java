@@ -0,0 +1,93 @@
+package org.example.userservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки шардирования пользователей ({@code user.sharding.*}).
+ *
+ * Шард 0 — база из {@code spring.datasource}, на ней же хранится справочник шардирования;
+ * в {@code shards} перечисляются дополнительные шарды 1, 2, .... Параметры пулов берутся
+ * из {@code spring.datasource.hikari}; если у шарда не указаны имя пользователя и пароль,
+ * используются данные {@code spring.datasource}. Шардирование не совмещается с репликами чтения.
+ */
+@ConfigurationProperties("user.sharding")
+public class ShardingProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * Число бакетов, по которым распределяются пользователи; после первого запуска с шардами не меняется.
+     */
+    private int buckets = 256;
+
+    /**
+     * Как часто перечитывать распределение бакетов, изменённое другими экземплярами сервиса.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * Число шардов вместе с шардом 0.
+     */
+    public int count() {
+        return 1 + shards.size();
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(int buckets) {
+        this.buckets = buckets;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public static class Shard {
+
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
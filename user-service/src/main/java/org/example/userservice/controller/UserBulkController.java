@@ -0,0 +1,86 @@
+package org.example.userservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.userservice.api.UserBulkApi;
+import org.example.userservice.dto.UserImportStatus;
+import org.example.userservice.service.DuplicateEmailPolicy;
+import org.example.userservice.service.UserBulkFormat;
+import org.example.userservice.service.UserBulkTransfer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * REST-контроллер массовой загрузки и выгрузки пользователей.
+ * Запрос и ответ передаются в {@link UserBulkTransfer} потоками, без промежуточного буфера.
+ */
+@RestController
+public class UserBulkController implements UserBulkApi {
+
+    private final UserBulkTransfer bulkTransfer;
+    private final ObjectMapper mapper;
+
+    public UserBulkController(UserBulkTransfer bulkTransfer, ObjectMapper mapper) {
+        this.bulkTransfer = bulkTransfer;
+        this.mapper = mapper;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void importUsers(String contentType, String duplicates, boolean notify, InputStream body,
+                            HttpServletResponse response) throws IOException {
+        UserBulkFormat format = UserBulkFormat.of(contentType);
+        DuplicateEmailPolicy policy = DuplicateEmailPolicy.of(duplicates);
+        response.setContentType(UserBulkFormat.NDJSON.getMediaType().toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+
+        UserImportStatus result;
+        try {
+            result = bulkTransfer.importUsers(body, format, policy, notify, status -> writeLine(out, status));
+        } catch (RuntimeException e) {
+            if (!response.isCommitted()) {
+                // ход импорта ещё не отправлен — ошибка вернётся обычным кодом ответа
+                response.reset();
+                throw e;
+            }
+            result = UserImportStatus.failed(e instanceof ResponseStatusException status ? status.getReason() : e.getMessage());
+        }
+        writeLine(out, result);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void exportCsv(HttpServletResponse response) throws IOException {
+        export(UserBulkFormat.CSV, "users.csv", response);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void exportNdjson(HttpServletResponse response) throws IOException {
+        export(UserBulkFormat.NDJSON, "users.ndjson", response);
+    }
+
+    private void export(UserBulkFormat format, String fileName, HttpServletResponse response) throws IOException {
+        response.setContentType(format.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        bulkTransfer.exportUsers(format, response.getOutputStream());
+    }
+
+    private void writeLine(OutputStream out, UserImportStatus status) {
+        try {
+            out.write(mapper.writeValueAsBytes(status));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.api.UserChangeApi;
+import org.example.userservice.dto.UserChangePage;
+import org.example.userservice.service.UserChangeFeed;
+import org.example.userservice.service.UserChangeLog;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST-контроллер журнала изменений пользователей.
+ * Страничный режим обслуживает {@link UserChangeLog}, потоковый — {@link UserChangeFeed}.
+ */
+@RestController
+public class UserChangeController implements UserChangeApi {
+
+    private final UserChangeLog changeLog;
+    private final UserChangeFeed changeFeed;
+
+    public UserChangeController(UserChangeLog changeLog, UserChangeFeed changeFeed) {
+        this.changeLog = changeLog;
+        this.changeFeed = changeFeed;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<UserChangePage> getChanges(long since, int limit) {
+        return ResponseEntity.ok(changeLog.page(since, limit));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SseEmitter streamChanges(long since, Long lastEventId) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+}
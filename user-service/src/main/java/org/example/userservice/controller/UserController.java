@@ -1,7 +1,9 @@
 package org.example.userservice.controller;
 
 import org.example.userservice.api.UserApi;
+import org.example.userservice.dto.UserBatchDto;
 import org.example.userservice.dto.UserDto;
+import org.example.userservice.service.IdempotencyStore;
 import org.example.userservice.service.UserService;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
@@ -9,6 +11,7 @@ import org.springframework.hateoas.Link;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -19,15 +22,20 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
  * Контроллер:
  * взаимодействует с сервисным уровнем {@link UserService};
  * формирует HATEOAS-ссылки для ответов;
- * реализует CRUD-операции, определённые в {@code UserApi}.
+ * реализует CRUD-операции, определённые в {@code UserApi};
+ * повторы создания с тем же {@code Idempotency-Key} обслуживает через {@link IdempotencyStore}.
  */
 @RestController
 public class UserController implements UserApi {
 
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final UserService userService;
+    private final IdempotencyStore idempotencyStore;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, IdempotencyStore idempotencyStore) {
         this.userService = userService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /** {@inheritDoc} */
@@ -42,6 +50,18 @@ public class UserController implements UserApi {
         return ResponseEntity.ok(CollectionModel.of(users, selfLink));
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<UserBatchDto> getUsersByIds(List<Integer> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<UserBatchDto> lookupUsers(List<Integer> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+    }
+
     /** {@inheritDoc} */
     @Override
     public ResponseEntity<EntityModel<UserDto>> getUser(int id) {
@@ -55,12 +75,23 @@ public class UserController implements UserApi {
 
     /** {@inheritDoc} */
     @Override
-    public ResponseEntity<EntityModel<UserDto>> createUser(UserDto user) {
-        UserDto createdUser = userService.createUser(user);
+    public ResponseEntity<EntityModel<UserDto>> createUser(String idempotencyKey, UserDto user) {
+        UserDto createdUser;
+        boolean replayed = false;
+        if (idempotencyKey == null) {
+            createdUser = userService.createUser(user);
+        } else {
+            List<Object> fingerprint = Arrays.asList(user.getName(), user.getEmail(), user.getAge());
+            IdempotencyStore.Result<UserDto> result =
+                    idempotencyStore.execute(idempotencyKey, fingerprint, () -> userService.createUser(user));
+            createdUser = result.value();
+            replayed = result.replayed();
+        }
         EntityModel<UserDto> model = toHateoasEntityModel(createdUser);
 
         return ResponseEntity
                 .created(linkTo(methodOn(UserController.class).getUser(createdUser.getId())).toUri())
+                .header(REPLAYED_HEADER, Boolean.toString(replayed))
                 .body(model);
     }
 
@@ -0,0 +1,43 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.api.UserShardApi;
+import org.example.userservice.dto.UserShardDto;
+import org.example.userservice.dto.UserShardMoveDto;
+import org.example.userservice.shard.ShardRebalancer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST-контроллер управления шардами пользователей.
+ */
+@RestController
+@ConditionalOnProperty(name = "user.sharding.shards[0].url")
+public class UserShardController implements UserShardApi {
+
+    private final ShardRebalancer rebalancer;
+
+    public UserShardController(ShardRebalancer rebalancer) {
+        this.rebalancer = rebalancer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<List<UserShardDto>> getShards() {
+        return ResponseEntity.ok(rebalancer.status());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<List<UserShardMoveDto>> rebalance() {
+        return ResponseEntity.ok(rebalancer.rebalance());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<UserShardMoveDto> moveBucket(int bucket, int shard) {
+        return ResponseEntity.ok(rebalancer.moveBucket(bucket, shard));
+    }
+}
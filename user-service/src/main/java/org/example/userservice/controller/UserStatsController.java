@@ -0,0 +1,27 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.api.UserStatsApi;
+import org.example.userservice.dto.UserStatsDto;
+import org.example.userservice.service.UserStatistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST-контроллер статистики пользователей.
+ * Статистика отдаётся из памяти {@link UserStatistics}, запросов к базе не выполняется.
+ */
+@RestController
+public class UserStatsController implements UserStatsApi {
+
+    private final UserStatistics statistics;
+
+    public UserStatsController(UserStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ResponseEntity<UserStatsDto> getStats(int days) {
+        return ResponseEntity.ok(statistics.snapshot(days));
+    }
+}
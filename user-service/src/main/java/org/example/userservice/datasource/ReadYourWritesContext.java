@@ -0,0 +1,26 @@
+package org.example.userservice.datasource;
+
+/**
+ * Признак «читать свои записи» для текущего потока обработки запроса.
+ * Пока признак установлен, {@link ReplicaRoutingDataSource} направляет и читающие транзакции
+ * на основную базу, чтобы клиент сразу видел свои изменения, ещё не дошедшие до реплик.
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+}
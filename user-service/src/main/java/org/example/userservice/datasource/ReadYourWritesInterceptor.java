@@ -0,0 +1,90 @@
+package org.example.userservice.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Интерцептор, обеспечивающий чтение своих записей при работе с репликами.
+ *
+ * На изменяющий запрос (POST, PUT, PATCH, DELETE) клиенту выставляется cookie {@value #COOKIE_NAME}
+ * со временем окончания окна, в течение которого реплики могут отставать от основной базы.
+ * Пока окно не истекло, чтения этого клиента выполняются на основной базе.
+ * Окно хранится у клиента, поэтому работает при любом количестве экземпляров сервиса.
+ *
+ * Клиенты без cookie (другие сервисы) получают то же время в заголовке ответа {@value #HEADER_NAME}
+ * и передают его в одноимённом заголовке последующих запросов. Для вызовов gRPC то же делает
+ * {@code UserRpcServer} через метаданные вызова.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    static final String COOKIE_NAME = "user-service-primary-until";
+    public static final String HEADER_NAME = "User-Service-Primary-Until";
+
+    private final Duration window;
+
+    public ReadYourWritesInterceptor(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.currentTimeMillis();
+        if (isWrite(request)) {
+            String until = Long.toString(now + window.toMillis());
+            Cookie cookie = new Cookie(COOKIE_NAME, until);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+            response.setHeader(HEADER_NAME, until);
+        } else if (Math.max(pinnedUntil(request), parseUntil(request.getHeader(HEADER_NAME))) > now) {
+            ReadYourWritesContext.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        ReadYourWritesContext.clear();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        return method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return parseUntil(cookie.getValue());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param value время окончания окна в миллисекундах эпохи
+     * @return время окончания окна или 0, если значение не задано или некорректно
+     */
+    public static long parseUntil(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
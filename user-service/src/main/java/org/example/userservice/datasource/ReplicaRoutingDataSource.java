@@ -0,0 +1,65 @@
+package org.example.userservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Маршрутизирующий {@link DataSource}: читающие транзакции ({@code @Transactional(readOnly = true)})
+ * уходят на реплики по кругу, все остальные соединения — на основную базу.
+ * Читающая транзакция остаётся на основной базе, если для текущего запроса действует
+ * окно чтения своих записей ({@link ReadYourWritesContext}).
+ *
+ * Признак транзакции становится известен только после её начала, поэтому источник нужно
+ * оборачивать в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * который берёт физическое соединение при первом запросе к базе.
+ *
+ * Выбор цели публикуется в метрику {@code user.datasource.route} с тегом {@code target}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final String[] replicaKeys;
+    private final Map<String, Counter> routes = new HashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param primary       основная база
+     * @param replicas      реплики, ключ — имя реплики в метриках
+     * @param meterRegistry реестр метрик
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.replicaKeys = List.copyOf(replicas.keySet()).toArray(new String[0]);
+        for (Object key : targets.keySet()) {
+            routes.put((String) key, Counter.builder("user.datasource.route")
+                    .description("Количество соединений, выданных основной базой и репликами")
+                    .tag("target", (String) key)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = PRIMARY;
+        if (replicaKeys.length > 0
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadYourWritesContext.isPinnedToPrimary()) {
+            key = replicaKeys[Math.floorMod(next.getAndIncrement(), replicaKeys.length)];
+        }
+        routes.get(key).increment();
+        return key;
+    }
+}
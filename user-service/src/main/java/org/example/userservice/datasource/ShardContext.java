@@ -0,0 +1,39 @@
+package org.example.userservice.datasource;
+
+/**
+ * Шард, с которым работает текущий поток.
+ * {@link ShardRoutingDataSource} выдаёт соединения с базой этого шарда; если шард не выбран,
+ * используется шард 0, на котором хранится справочник шардирования.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Выбирает шард для текущего потока.
+     *
+     * @param shard номер шарда
+     * @return ранее выбранный шард, который нужно вернуть через {@link #restore(Integer)}
+     */
+    public static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.userservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Маршрутизирующий {@link DataSource}: соединение выдаётся базой шарда, выбранного
+ * для текущего потока через {@link ShardContext}.
+ *
+ * Шард выбирается до начала транзакции, но физическое соединение берётся при первом запросе к базе,
+ * поэтому источник, как и {@link ReplicaRoutingDataSource}, оборачивается
+ * в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ *
+ * Выбор шарда публикуется в метрику {@code user.datasource.route} с тегом {@code target}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Counter[] routes;
+
+    /**
+     * @param shards        базы шардов, индекс в списке — номер шарда
+     * @param meterRegistry реестр метрик
+     */
+    public ShardRoutingDataSource(List<DataSource> shards, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        this.routes = new Counter[shards.size()];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+            routes[shard] = Counter.builder("user.datasource.route")
+                    .description("Количество соединений, выданных базами шардов")
+                    .tag("target", "shard-" + shard)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ShardContext.current();
+        if (shard < 0 || shard >= routes.length) {
+            throw new IllegalStateException("Шард " + shard + " не настроен");
+        }
+        routes[shard].increment();
+        return shard;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Результат получения пользователей по списку идентификаторов.
+ * Найденные пользователи идут в порядке запроса, повторяющиеся идентификаторы учитываются один раз.
+ */
+@Schema(description = "Пользователи, найденные по списку идентификаторов")
+public class UserBatchDto {
+
+    @Schema(description = "Найденные пользователи в порядке запроса")
+    private List<UserDto> users;
+
+    @Schema(description = "Идентификаторы, для которых пользователь не найден", example = "[7, 12]")
+    private List<Integer> missing;
+
+    public UserBatchDto() {
+
+    }
+
+    public UserBatchDto(List<UserDto> users, List<Integer> missing) {
+        this.users = users;
+        this.missing = missing;
+    }
+
+    public List<UserDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserDto> users) {
+        this.users = users;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+}
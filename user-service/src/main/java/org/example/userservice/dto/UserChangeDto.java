@@ -0,0 +1,68 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO записи журнала изменений пользователей.
+ * Содержит курсор записи, тип изменения и снимок пользователя на момент изменения.
+ */
+@Schema(description = "Изменение пользователя: курсор, тип изменения и снимок пользователя")
+public class UserChangeDto {
+
+    @Schema(description = "Курсор записи журнала, строго возрастает", example = "42")
+    private long cursor;
+
+    @Schema(description = "Тип изменения", allowableValues = {"created", "updated", "deleted"})
+    private String type;
+
+    @Schema(description = "Пользователь после изменения, для удаления — последнее состояние")
+    private UserDto user;
+
+    @Schema(description = "Дата и время изменения")
+    private LocalDateTime changedAt;
+
+    public UserChangeDto() {
+
+    }
+
+    public UserChangeDto(long cursor, String type, UserDto user, LocalDateTime changedAt) {
+        this.cursor = cursor;
+        this.type = type;
+        this.user = user;
+        this.changedAt = changedAt;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public UserDto getUser() {
+        return user;
+    }
+
+    public void setUser(UserDto user) {
+        this.user = user;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
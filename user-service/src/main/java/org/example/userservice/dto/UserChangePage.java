@@ -0,0 +1,56 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Страница журнала изменений пользователей.
+ * Следующую страницу нужно запрашивать с {@code since} равным {@link #getNextCursor()}.
+ */
+@Schema(description = "Страница журнала изменений пользователей")
+public class UserChangePage {
+
+    @Schema(description = "Изменения в порядке возрастания курсора")
+    private List<UserChangeDto> changes;
+
+    @Schema(description = "Курсор для запроса следующей страницы", example = "42")
+    private long nextCursor;
+
+    @Schema(description = "Есть ли в журнале изменения после этой страницы")
+    private boolean hasMore;
+
+    public UserChangePage() {
+
+    }
+
+    public UserChangePage(List<UserChangeDto> changes, long nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<UserChangeDto> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<UserChangeDto> changes) {
+        this.changes = changes;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
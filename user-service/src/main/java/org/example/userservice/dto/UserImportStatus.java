@@ -0,0 +1,150 @@
+package org.example.userservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Строка отчёта об импорте пользователей.
+ * Во время импорта отправляются строки с этапом и количеством обработанных строк,
+ * последняя строка имеет этап {@code done} с итогами или {@code failed} с описанием ошибки.
+ */
+@Schema(description = "Ход или итог импорта пользователей")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportStatus {
+
+    public static final String COPY = "copy";
+    public static final String MERGE = "merge";
+    public static final String NOTIFY = "notify";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    @Schema(description = "Этап: copy, merge, notify, done или failed", example = "copy")
+    private String phase;
+
+    @Schema(description = "Количество строк, обработанных на этапе", example = "10000")
+    private Long rows;
+
+    @Schema(description = "Количество принятых строк")
+    private Long received;
+
+    @Schema(description = "Количество созданных пользователей")
+    private Long inserted;
+
+    @Schema(description = "Количество обновлённых пользователей")
+    private Long updated;
+
+    @Schema(description = "Количество строк, пропущенных из-за занятого или повторяющегося email")
+    private Long duplicates;
+
+    @Schema(description = "Количество строк с пустым именем, email или некорректным возрастом")
+    private Long rejected;
+
+    @Schema(description = "Количество отправленных уведомлений о создании")
+    private Long notified;
+
+    @Schema(description = "Описание ошибки")
+    private String error;
+
+    public UserImportStatus() {
+
+    }
+
+    public static UserImportStatus progress(String phase, long rows) {
+        UserImportStatus status = new UserImportStatus();
+        status.phase = phase;
+        status.rows = rows;
+        return status;
+    }
+
+    public static UserImportStatus done(long received, long inserted, long updated, long duplicates,
+                                        long rejected, long notified) {
+        UserImportStatus status = new UserImportStatus();
+        status.phase = DONE;
+        status.received = received;
+        status.inserted = inserted;
+        status.updated = updated;
+        status.duplicates = duplicates;
+        status.rejected = rejected;
+        status.notified = notified;
+        return status;
+    }
+
+    public static UserImportStatus failed(String error) {
+        UserImportStatus status = new UserImportStatus();
+        status.phase = FAILED;
+        status.error = error;
+        return status;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public Long getRows() {
+        return rows;
+    }
+
+    public void setRows(Long rows) {
+        this.rows = rows;
+    }
+
+    public Long getReceived() {
+        return received;
+    }
+
+    public void setReceived(Long received) {
+        this.received = received;
+    }
+
+    public Long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(Long inserted) {
+        this.inserted = inserted;
+    }
+
+    public Long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Long updated) {
+        this.updated = updated;
+    }
+
+    public Long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(Long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public Long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(Long rejected) {
+        this.rejected = rejected;
+    }
+
+    public Long getNotified() {
+        return notified;
+    }
+
+    public void setNotified(Long notified) {
+        this.notified = notified;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Состояние шарда пользователей.
+ */
+@Schema(description = "Шард пользователей")
+public class UserShardDto {
+
+    @Schema(description = "Номер шарда, 0 — шард со справочником", example = "1")
+    private int shard;
+
+    @Schema(description = "Число бакетов, закреплённых за шардом", example = "128")
+    private int buckets;
+
+    @Schema(description = "Число пользователей на шарде", example = "52311")
+    private long users;
+
+    public UserShardDto() {
+
+    }
+
+    public UserShardDto(int shard,
+                        int buckets,
+                        long users) {
+        this.shard = shard;
+        this.buckets = buckets;
+        this.users = users;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(int buckets) {
+        this.buckets = buckets;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public void setUsers(long users) {
+        this.users = users;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Перенос бакета пользователей с одного шарда на другой.
+ */
+@Schema(description = "Перенос бакета между шардами")
+public class UserShardMoveDto {
+
+    @Schema(description = "Номер бакета", example = "17")
+    private int bucket;
+
+    @Schema(description = "Шард, на котором бакет был до переноса", example = "0")
+    private int from;
+
+    @Schema(description = "Шард, на который перенесён бакет", example = "2")
+    private int to;
+
+    @Schema(description = "Число перенесённых пользователей", example = "204")
+    private long users;
+
+    public UserShardMoveDto() {
+
+    }
+
+    public UserShardMoveDto(int bucket,
+                            int from,
+                            int to,
+                            long users) {
+        this.bucket = bucket;
+        this.from = from;
+        this.to = to;
+        this.users = users;
+    }
+
+    public int getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(int bucket) {
+        this.bucket = bucket;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public void setFrom(int from) {
+        this.from = from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public void setTo(int to) {
+        this.to = to;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public void setUsers(long users) {
+        this.users = users;
+    }
+}
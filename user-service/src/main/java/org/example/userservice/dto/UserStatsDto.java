@@ -0,0 +1,85 @@
+package org.example.userservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Сводная статистика пользователей.
+ */
+@Schema(description = "Сводная статистика пользователей")
+public class UserStatsDto {
+
+    @Schema(description = "Количество пользователей", example = "1024")
+    private long totalUsers;
+
+    @Schema(description = "Средний возраст пользователей", example = "31.4")
+    private double averageAge;
+
+    @Schema(description = "Количество пользователей по возрастным группам")
+    private Map<String, Long> ageDistribution;
+
+    @Schema(description = "Количество пользователей по дню регистрации, включая дни без регистраций")
+    private Map<LocalDate, Long> signupsPerDay;
+
+    @Schema(description = "Время последнего пересчёта статистики по базе")
+    private Instant rebuiltAt;
+
+    public UserStatsDto() {
+
+    }
+
+    public UserStatsDto(long totalUsers,
+                        double averageAge,
+                        Map<String, Long> ageDistribution,
+                        Map<LocalDate, Long> signupsPerDay,
+                        Instant rebuiltAt) {
+        this.totalUsers = totalUsers;
+        this.averageAge = averageAge;
+        this.ageDistribution = ageDistribution;
+        this.signupsPerDay = signupsPerDay;
+        this.rebuiltAt = rebuiltAt;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(long totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public double getAverageAge() {
+        return averageAge;
+    }
+
+    public void setAverageAge(double averageAge) {
+        this.averageAge = averageAge;
+    }
+
+    public Map<String, Long> getAgeDistribution() {
+        return ageDistribution;
+    }
+
+    public void setAgeDistribution(Map<String, Long> ageDistribution) {
+        this.ageDistribution = ageDistribution;
+    }
+
+    public Map<LocalDate, Long> getSignupsPerDay() {
+        return signupsPerDay;
+    }
+
+    public void setSignupsPerDay(Map<LocalDate, Long> signupsPerDay) {
+        this.signupsPerDay = signupsPerDay;
+    }
+
+    public Instant getRebuiltAt() {
+        return rebuiltAt;
+    }
+
+    public void setRebuiltAt(Instant rebuiltAt) {
+        this.rebuiltAt = rebuiltAt;
+    }
+}
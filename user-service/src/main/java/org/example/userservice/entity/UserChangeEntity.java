@@ -0,0 +1,97 @@
+package org.example.userservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись журнала изменений пользователей.
+ * Хранит снимок пользователя на момент изменения, чтобы потребителю журнала
+ * не нужно было отдельно запрашивать пользователя.
+ * Идентификатор записи выдаётся {@link UserChangeSequenceEntity} и служит курсором журнала.
+ * Журнал только дописывается, поэтому запись всегда новая и сохраняется без предварительного SELECT.
+ */
+@Entity
+@Table(name = "user_changes")
+public class UserChangeEntity implements Persistable<Long> {
+
+    @Id
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UserChangeType type;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    private String name;
+
+    private String email;
+
+    private int age;
+
+    @Column(name = "user_created_at")
+    private LocalDateTime userCreatedAt;
+
+    @CreationTimestamp
+    @Column(name = "changed_at", updatable = false)
+    private LocalDateTime changedAt;
+
+    public UserChangeEntity() {}
+
+    public UserChangeEntity(long id, UserChangeType type, UserEntity user) {
+        this.id = id;
+        this.type = type;
+        this.userId = user.getId();
+        this.name = user.getName();
+        this.email = user.getEmail();
+        this.age = user.getAge();
+        this.userCreatedAt = user.getCreatedAt();
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public UserChangeType getType() {
+        return type;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public LocalDateTime getUserCreatedAt() {
+        return userCreatedAt;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
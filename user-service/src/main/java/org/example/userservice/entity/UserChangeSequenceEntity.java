@@ -0,0 +1,45 @@
+package org.example.userservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Счётчик журнала изменений пользователей — единственная строка с последним выданным курсором.
+ * Строка блокируется до конца транзакции, которая пишет в журнал, поэтому записи журнала
+ * фиксируются строго в порядке курсоров и читатель, продвигающийся по курсору, не пропускает
+ * записи, зафиксированные позже записей с большим курсором.
+ */
+@Entity
+@Table(name = "user_change_sequence")
+public class UserChangeSequenceEntity {
+
+    public static final int ID = 1;
+
+    @Id
+    private int id;
+
+    @Column(name = "last_value", nullable = false)
+    private long lastValue;
+
+    public UserChangeSequenceEntity() {}
+
+    public UserChangeSequenceEntity(int id, long lastValue) {
+        this.id = id;
+        this.lastValue = lastValue;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Выдаёт следующий курсор.
+     *
+     * @return новое значение счётчика
+     */
+    public long next() {
+        return ++lastValue;
+    }
+}
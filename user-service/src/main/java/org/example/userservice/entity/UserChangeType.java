@@ -0,0 +1,10 @@
+package org.example.userservice.entity;
+
+/**
+ * Тип изменения пользователя в журнале изменений.
+ */
+public enum UserChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
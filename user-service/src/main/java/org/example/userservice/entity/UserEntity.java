@@ -7,11 +7,17 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 
+/**
+ * Пользователь. Удалённые пользователи ({@code deleted_at} задан) остаются в таблице до очистки
+ * и не читаются через сущность: ни поиском по ID, ни запросами JPQL.
+ */
 @Entity
 @Table (name = "users")
+@SQLRestriction("deleted_at is null")
 public class UserEntity {
 
     @Id
@@ -29,6 +35,9 @@ public class UserEntity {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     public UserEntity() {}
 
     public UserEntity(String name, String email, int age) {
@@ -77,6 +86,14 @@ public class UserEntity {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @Override
     public String toString() {
         return "User{" +
@@ -0,0 +1,24 @@
+package org.example.userservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.example.common.jfr.StageEvent;
+
+/**
+ * JFR-событие отправки уведомлений в Kafka с ожиданием подтверждения брокера;
+ * этап — тип события ({@code created}, {@code deleted}, для пачек — {@code created-batch}, ...).
+ */
+@Name("org.example.userservice.NotificationPublish")
+@Label("Notification Publish")
+@Description("Отправка уведомлений в Kafka")
+public class NotificationPublishEvent extends StageEvent {
+
+    @Label("Notifications")
+    private int notifications;
+
+    public NotificationPublishEvent(String type, int notifications) {
+        super(type);
+        this.notifications = notifications;
+    }
+}
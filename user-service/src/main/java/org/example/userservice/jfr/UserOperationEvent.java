@@ -0,0 +1,20 @@
+package org.example.userservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.example.common.jfr.StageEvent;
+
+/**
+ * JFR-событие вызова метода {@link org.example.userservice.service.UserService}
+ * вместе с фиксацией его транзакции; этап — имя метода.
+ */
+@Name("org.example.userservice.UserOperation")
+@Label("User Operation")
+@Description("Вызов UserService")
+public class UserOperationEvent extends StageEvent {
+
+    public UserOperationEvent(String operation) {
+        super(operation);
+    }
+}
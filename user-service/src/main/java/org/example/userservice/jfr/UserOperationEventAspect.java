@@ -0,0 +1,31 @@
+package org.example.userservice.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Оборачивает вызовы {@link org.example.userservice.service.UserService} в {@link UserOperationEvent}.
+ * Аспект выполняется раньше транзакционного прокси, поэтому длительность события включает
+ * фиксацию транзакции и действия после неё.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UserOperationEventAspect {
+
+    @Around("execution(* org.example.userservice.service.UserService.*(..))")
+    public Object record(ProceedingJoinPoint call) throws Throwable {
+        UserOperationEvent event = new UserOperationEvent(call.getSignature().getName());
+        event.begin();
+        try {
+            return call.proceed();
+        } catch (Throwable e) {
+            event.failed();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+}
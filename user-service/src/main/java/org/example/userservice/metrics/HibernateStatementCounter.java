@@ -0,0 +1,33 @@
+package org.example.userservice.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * {@link StatementInspector}, который считает SQL-запросы, выполненные Hibernate в текущем потоке.
+ * Сам SQL не изменяет. Счётчик сбрасывается и считывается {@link HibernateStatementsInterceptor}
+ * на границах HTTP-запроса, поэтому подсчёт стоит одного инкремента на запрос к БД.
+ */
+public class HibernateStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Обнуляет счётчик текущего потока.
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * @return количество SQL-запросов, выполненных в текущем потоке с момента последнего сброса
+     */
+    public static int current() {
+        return COUNT.get()[0];
+    }
+}
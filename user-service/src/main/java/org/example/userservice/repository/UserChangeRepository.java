@@ -0,0 +1,15 @@
+package org.example.userservice.repository;
+
+import org.example.userservice.entity.UserChangeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserChangeRepository extends JpaRepository<UserChangeEntity, Long> {
+
+    List<UserChangeEntity> findByIdGreaterThanOrderByIdAsc(long cursor, Limit limit);
+
+    Optional<UserChangeEntity> findTopByOrderByIdDesc();
+}
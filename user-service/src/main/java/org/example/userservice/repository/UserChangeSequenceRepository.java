@@ -0,0 +1,17 @@
+package org.example.userservice.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.userservice.entity.UserChangeSequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface UserChangeSequenceRepository extends JpaRepository<UserChangeSequenceEntity, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserChangeSequenceEntity s where s.id = :id")
+    Optional<UserChangeSequenceEntity> lockById(@Param("id") int id);
+}
@@ -2,6 +2,67 @@ package org.example.userservice.repository;
 
 import org.example.userservice.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<UserEntity, Integer> {
+
+    List<UserEntity> findAllByIdIn(Collection<Integer> ids);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * Вставка пользователя с ID, выданным справочником шардирования, а не столбцом identity.
+     */
+    @Modifying
+    @Query(value = "insert into users (id, name, email, age, created_at) "
+            + "values (:id, :name, :email, :age, :createdAt)", nativeQuery = true)
+    void insertWithId(@Param("id") int id,
+                      @Param("name") String name,
+                      @Param("email") String email,
+                      @Param("age") int age,
+                      @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Помечает пользователя удалённым; строка удаляется позже {@code DeletedUserPurge}.
+     *
+     * @return 1, если пользователь был помечен, 0 — если его нет или он уже удалён
+     */
+    @Modifying
+    @Query("update UserEntity u set u.deletedAt = :deletedAt where u.id = :id and u.deletedAt is null")
+    int markDeleted(@Param("id") int id, @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Удаляет помеченного удалённым пользователя с этим email, чтобы email можно было занять снова.
+     *
+     * @return число удалённых строк, 0 или 1
+     */
+    @Modifying
+    @Query(value = "delete from users where email = :email and deleted_at is not null", nativeQuery = true)
+    int purgeDeletedByEmail(@Param("email") String email);
+
+    @Query("select u.age as age, count(u) as users from UserEntity u group by u.age")
+    List<AgeCount> countByAge();
+
+    @Query("select cast(u.createdAt as LocalDate) as day, count(u) as users from UserEntity u "
+            + "where u.createdAt is not null group by cast(u.createdAt as LocalDate)")
+    List<DayCount> countByCreationDay();
+
+    interface AgeCount {
+        int getAge();
+
+        long getUsers();
+    }
+
+    interface DayCount {
+        LocalDate getDay();
+
+        long getUsers();
+    }
 }
@@ -0,0 +1,182 @@
+package org.example.userservice.rpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.config.ReadReplicaProperties;
+import org.example.userservice.datasource.ReadYourWritesContext;
+import org.example.userservice.datasource.ReadYourWritesInterceptor;
+import org.example.userservice.rpc.proto.UserRpcGrpc;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * gRPC-сервер user-service на порту {@code user.rpc.port} (HTTP/2 без TLS, для внутренней сети).
+ * Запускается, когда приложение готово принимать запросы, и при остановке дожидается
+ * завершения начатых вызовов не дольше 10 секунд.
+ *
+ * Время каждого вызова публикуется в метрику {@code user.rpc.server.requests}
+ * с тегами {@code method} и {@code status} — аналог {@code http.server.requests} для REST.
+ *
+ * При настроенных репликах чтения вызовы gRPC читают свои записи так же, как REST-клиенты
+ * ({@link ReadYourWritesInterceptor}): изменяющий вызов возвращает в трейлерах время окончания окна
+ * {@code user-service-primary-until}, и чтения, передавшие его в метаданных, выполняются на основной базе.
+ */
+@Component
+public class UserRpcServer {
+
+    private final Server server;
+
+    public UserRpcServer(UserRpcService service,
+                         MeterRegistry meterRegistry,
+                         ReadReplicaProperties replicaProperties,
+                         @Value("${user.rpc.port:9090}") int port) {
+        // последний перехватчик в списке вызывается первым
+        List<ServerInterceptor> interceptors = new ArrayList<>();
+        if (!replicaProperties.getReplicas().isEmpty()) {
+            interceptors.add(new PrimaryReadsInterceptor(replicaProperties.getReadYourWritesWindow()));
+        }
+        interceptors.add(new MetricsInterceptor(meterRegistry));
+        this.server = NettyServerBuilder.forPort(port)
+                .addService(ServerInterceptors.intercept(service, interceptors))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось запустить gRPC-сервер", e);
+        }
+        System.out.println("gRPC-сервер user-service слушает порт " + server.getPort());
+    }
+
+    /**
+     * @return порт, на котором слушает сервер, или -1, если он не запущен
+     */
+    public int port() {
+        return server.getPort();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        server.shutdown();
+        if (!server.awaitTermination(10, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+    }
+
+    private static final class MetricsInterceptor implements ServerInterceptor {
+
+        private final MeterRegistry meterRegistry;
+
+        private MetricsInterceptor(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call,
+                                                           Metadata headers,
+                                                           ServerCallHandler<Q, R> next) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String method = call.getMethodDescriptor().getBareMethodName();
+            return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                @Override
+                public void close(Status status, Metadata trailers) {
+                    sample.stop(Timer.builder("user.rpc.server.requests")
+                            .description("Время обработки вызова gRPC")
+                            .tag("method", method)
+                            .tag("status", status.getCode().name())
+                            .register(meterRegistry));
+                    super.close(status, trailers);
+                }
+            }, headers);
+        }
+    }
+
+    /**
+     * Чтение своих записей для вызовов gRPC: метаданные вызова вместо cookie.
+     */
+    static final class PrimaryReadsInterceptor implements ServerInterceptor {
+
+        static final Metadata.Key<String> PRIMARY_UNTIL =
+                Metadata.Key.of(ReadYourWritesInterceptor.HEADER_NAME, Metadata.ASCII_STRING_MARSHALLER);
+        private static final Set<String> WRITES = Set.of(UserRpcGrpc.getCreateUsersMethod().getFullMethodName());
+
+        private final Duration window;
+
+        PrimaryReadsInterceptor(Duration window) {
+            this.window = window;
+        }
+
+        @Override
+        public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call,
+                                                           Metadata headers,
+                                                           ServerCallHandler<Q, R> next) {
+            if (WRITES.contains(call.getMethodDescriptor().getFullMethodName())) {
+                return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                    @Override
+                    public void close(Status status, Metadata trailers) {
+                        // окно отсчитывается от конца вызова: поток мог создавать пользователей долго
+                        trailers.put(PRIMARY_UNTIL, Long.toString(System.currentTimeMillis() + window.toMillis()));
+                        super.close(status, trailers);
+                    }
+                }, headers);
+            }
+            if (ReadYourWritesInterceptor.parseUntil(headers.get(PRIMARY_UNTIL)) <= System.currentTimeMillis()) {
+                return next.startCall(call, headers);
+            }
+
+            // обработчики вызова выполняются в потоках gRPC, поэтому признак ставится на каждый из них
+            ServerCall.Listener<Q> listener = pinned(() -> next.startCall(call, headers));
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+                @Override
+                public void onMessage(Q message) {
+                    pinned(() -> {
+                        super.onMessage(message);
+                        return null;
+                    });
+                }
+
+                @Override
+                public void onHalfClose() {
+                    pinned(() -> {
+                        super.onHalfClose();
+                        return null;
+                    });
+                }
+            };
+        }
+
+        private static <T> T pinned(Supplier<T> action) {
+            ReadYourWritesContext.pinToPrimary();
+            try {
+                return action.get();
+            } finally {
+                ReadYourWritesContext.clear();
+            }
+        }
+    }
+}
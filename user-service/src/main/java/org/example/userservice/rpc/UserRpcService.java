@@ -0,0 +1,190 @@
+package org.example.userservice.rpc;
+
+import com.google.protobuf.Timestamp;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.example.userservice.dto.UserBatchDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.rpc.proto.CreateUserRequest;
+import org.example.userservice.rpc.proto.CreateUserResult;
+import org.example.userservice.rpc.proto.Error;
+import org.example.userservice.rpc.proto.GetUserRequest;
+import org.example.userservice.rpc.proto.GetUsersRequest;
+import org.example.userservice.rpc.proto.GetUsersResponse;
+import org.example.userservice.rpc.proto.ListUsersRequest;
+import org.example.userservice.rpc.proto.User;
+import org.example.userservice.rpc.proto.UserRpcGrpc;
+import org.example.userservice.service.EmailConstraint;
+import org.example.userservice.service.IdempotencyStore;
+import org.example.userservice.service.UserService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * gRPC-реализация {@code UserRpc} (см. {@code src/main/proto/user_rpc.proto}) поверх {@link UserService}:
+ * те же операции, что и у {@link org.example.userservice.api.UserApi}, но в двоичном формате protobuf
+ * по HTTP/2 и без HATEOAS-ссылок. Предназначена для вызовов между сервисами в обход api-gateway.
+ *
+ * Данные создаваемых пользователей проверяются теми же ограничениями {@link UserDto}, что и в REST,
+ * а ключ {@code idempotency_key} обслуживается тем же {@link IdempotencyStore}, что и заголовок
+ * {@code Idempotency-Key}. Ошибки сервиса переводятся в статусы gRPC: 400 — {@code INVALID_ARGUMENT},
+ * 404 — {@code NOT_FOUND}, 409 и нарушение {@link EmailConstraint} — {@code ALREADY_EXISTS} и т. д.
+ */
+@Component
+public class UserRpcService extends UserRpcGrpc.UserRpcImplBase {
+
+    private final UserService userService;
+    private final IdempotencyStore idempotencyStore;
+    private final Validator validator;
+
+    public UserRpcService(UserService userService, IdempotencyStore idempotencyStore, Validator validator) {
+        this.userService = userService;
+        this.idempotencyStore = idempotencyStore;
+        this.validator = validator;
+    }
+
+    @Override
+    public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+        try {
+            responseObserver.onNext(toProto(userService.getUserById(request.getId())));
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getUsers(GetUsersRequest request, StreamObserver<GetUsersResponse> responseObserver) {
+        try {
+            UserBatchDto batch = userService.getUsersByIds(request.getIdsList());
+            GetUsersResponse.Builder response = GetUsersResponse.newBuilder().addAllMissing(batch.getMissing());
+            for (UserDto user : batch.getUsers()) {
+                response.addUsers(toProto(user));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Поток не постраничный: список читается через {@link UserService#getAllUsers()} целиком и держится
+     * в памяти до конца вызова, как и в {@code GET /api/users}. Для выгрузки больших таблиц предназначен
+     * потоковый экспорт {@code GET /api/users/export}.
+     */
+    @Override
+    public void listUsers(ListUsersRequest request, StreamObserver<User> responseObserver) {
+        try {
+            for (UserDto user : userService.getAllUsers()) {
+                responseObserver.onNext(toProto(user));
+            }
+            responseObserver.onCompleted();
+        } catch (StatusRuntimeException e) {
+            // клиент отменил вызов, отправлять ему больше нечего
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e).asRuntimeException());
+        }
+    }
+
+    /**
+     * Запросы потока выполняются по очереди в порядке поступления, результат каждого отправляется
+     * сразу после его выполнения.
+     */
+    @Override
+    public StreamObserver<CreateUserRequest> createUsers(StreamObserver<CreateUserResult> responseObserver) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(CreateUserRequest request) {
+                responseObserver.onNext(create(request));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // клиент оборвал поток; уже созданные пользователи остаются
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    private CreateUserResult create(CreateUserRequest request) {
+        CreateUserResult.Builder result = CreateUserResult.newBuilder().setRequestId(request.getRequestId());
+        UserDto user = new UserDto(0, request.getName(), request.getEmail(), request.getAge(), null);
+        Set<ConstraintViolation<UserDto>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            return result.setError(error(Status.INVALID_ARGUMENT.withDescription(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "))))).build();
+        }
+
+        try {
+            if (request.getIdempotencyKey().isEmpty()) {
+                return result.setUser(toProto(userService.createUser(user))).build();
+            }
+            List<Object> fingerprint = Arrays.asList(user.getName(), user.getEmail(), user.getAge());
+            IdempotencyStore.Result<UserDto> created = idempotencyStore.execute(request.getIdempotencyKey(),
+                    fingerprint, () -> userService.createUser(user));
+            return result.setUser(toProto(created.value())).setReplayed(created.replayed()).build();
+        } catch (RuntimeException e) {
+            return result.setError(error(toStatus(e))).build();
+        }
+    }
+
+    private static Error error(Status status) {
+        return Error.newBuilder()
+                .setCode(status.getCode().name())
+                .setMessage(String.valueOf(status.getDescription()))
+                .build();
+    }
+
+    static User toProto(UserDto user) {
+        User.Builder proto = User.newBuilder()
+                .setId(user.getId())
+                .setName(user.getName())
+                .setEmail(user.getEmail())
+                .setAge(user.getAge());
+        if (user.getCreatedAt() != null) {
+            Instant instant = user.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            proto.setCreatedAt(Timestamp.newBuilder()
+                    .setSeconds(instant.getEpochSecond())
+                    .setNanos(instant.getNano()));
+        }
+        return proto.build();
+    }
+
+    static Status toStatus(RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException) {
+            Status status = switch (statusException.getStatusCode().value()) {
+                case 400 -> Status.INVALID_ARGUMENT;
+                case 404 -> Status.NOT_FOUND;
+                case 409 -> Status.ALREADY_EXISTS;
+                case 422 -> Status.FAILED_PRECONDITION;
+                case 429 -> Status.RESOURCE_EXHAUSTED;
+                case 501 -> Status.UNIMPLEMENTED;
+                case 503 -> Status.UNAVAILABLE;
+                default -> Status.INTERNAL;
+            };
+            return status.withDescription(statusException.getReason());
+        }
+        if (e instanceof DataIntegrityViolationException && EmailConstraint.isViolatedBy(e)) {
+            return Status.ALREADY_EXISTS.withDescription("Email уже занят");
+        }
+        return Status.INTERNAL.withDescription(e.getMessage()).withCause(e);
+    }
+}
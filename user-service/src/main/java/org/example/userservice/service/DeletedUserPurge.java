@@ -0,0 +1,182 @@
+package org.example.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.shard.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая очистка пользователей, помеченных удалёнными ({@code user.delete.mode: soft}).
+ *
+ * Раз в {@code user.purge.interval} помеченные строки удаляются из {@code users} пачками
+ * по {@code user.purge.batch-size}, а уведомления об удалении отправляются одной пачкой на каждую пачку строк
+ * после фиксации её транзакции: откаченная пачка остаётся помеченной и не порождает писем, а транзакция
+ * не держит блокировки строк, пока отправка ждёт Kafka. Очистка идёт, только пока сервис не занят: если в пулах соединений
+ * активно больше {@code user.purge.max-active-connections} соединений, она откладывается до следующего запуска.
+ *
+ * ID удалённых этим экземпляром пользователей запоминаются после фиксации удаления, поэтому таблица
+ * не просматривается при каждом запуске, а пометка удаления не требует индекса. Пользователей, удалённых
+ * другими экземплярами или до перезапуска, находит полный просмотр раз в {@code user.purge.rescan-interval}.
+ *
+ * Число удалённых строк публикуется в метрику {@code user.purge.deleted}, число ожидающих очистки
+ * известных ID — в {@code user.purge.pending}. При шардировании удаление сразу окончательное, и очистка не запускается.
+ */
+@Component
+public class DeletedUserPurge {
+
+    private static final String PURGE =
+            "DELETE FROM users WHERE id = ANY (?) AND deleted_at IS NOT NULL RETURNING email";
+    private static final String SELECT_DELETED = "SELECT id FROM users WHERE deleted_at IS NOT NULL";
+    private static final String ACTIVE_CONNECTIONS = "hikaricp.connections.active";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final NotificationProducer notificationProducer;
+    private final UserShards shards;
+    private final MeterRegistry meterRegistry;
+    private final Duration interval;
+    private final Duration rescanInterval;
+    private final int batchSize;
+    private final int maxActiveConnections;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final Counter purged;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-purge").daemon().factory());
+    private long nextRescanAt;
+
+    public DeletedUserPurge(JdbcTemplate jdbc,
+                            PlatformTransactionManager transactionManager,
+                            NotificationProducer notificationProducer,
+                            UserShards shards,
+                            MeterRegistry meterRegistry,
+                            @Value("${user.purge.interval:1m}") Duration interval,
+                            @Value("${user.purge.rescan-interval:1h}") Duration rescanInterval,
+                            @Value("${user.purge.batch-size:500}") int batchSize,
+                            @Value("${user.purge.max-active-connections:2}") int maxActiveConnections) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.notificationProducer = notificationProducer;
+        this.shards = shards;
+        this.meterRegistry = meterRegistry;
+        this.interval = interval;
+        this.rescanInterval = rescanInterval;
+        this.batchSize = batchSize;
+        this.maxActiveConnections = maxActiveConnections;
+        this.purged = Counter.builder("user.purge.deleted")
+                .description("Количество окончательно удалённых пользователей")
+                .register(meterRegistry);
+        Gauge.builder("user.purge.pending", pending, Set::size)
+                .description("Количество известных пользователей, помеченных удалёнными и ожидающих очистки")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!shards.isSharded()) {
+            executor.scheduleWithFixedDelay(this::purgeQuietly, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Запоминает пользователя, помеченного удалённым, для очистки после фиксации транзакции.
+     *
+     * @param id ID пользователя
+     */
+    public void userDeleted(int id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.add(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.add(id);
+            }
+        });
+    }
+
+    /**
+     * Удаляет помеченных пользователей, пока сервис не занят.
+     *
+     * @return число удалённых пользователей
+     */
+    public long purge() {
+        if (System.currentTimeMillis() >= nextRescanAt) {
+            if (!isQuiet()) {
+                return 0;
+            }
+            pending.addAll(jdbc.queryForList(SELECT_DELETED, Integer.class));
+            nextRescanAt = System.currentTimeMillis() + rescanInterval.toMillis();
+        }
+
+        long deleted = 0;
+        while (!pending.isEmpty() && isQuiet()) {
+            Integer[] batch = nextBatch();
+            List<String> emails;
+            try {
+                emails = transaction.execute(status -> jdbc.queryForList(PURGE, String.class, (Object) batch));
+            } catch (RuntimeException e) {
+                pending.addAll(List.of(batch));
+                throw e;
+            }
+            purged.increment(emails.size());
+            deleted += emails.size();
+            if (!emails.isEmpty()) {
+                notificationProducer.sendUserDeletedNotifications(emails);
+            }
+        }
+        return deleted;
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            // пачка осталась в очереди и будет удалена при следующем запуске
+            System.out.println("Очистка удалённых пользователей не удалась: " + e.getMessage());
+        }
+    }
+
+    private Integer[] nextBatch() {
+        List<Integer> batch = new ArrayList<>(batchSize);
+        Iterator<Integer> ids = pending.iterator();
+        while (ids.hasNext() && batch.size() < batchSize) {
+            batch.add(ids.next());
+            ids.remove();
+        }
+        return batch.toArray(new Integer[0]);
+    }
+
+    private boolean isQuiet() {
+        double active = meterRegistry.find(ACTIVE_CONNECTIONS).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
+        return active <= maxActiveConnections;
+    }
+}
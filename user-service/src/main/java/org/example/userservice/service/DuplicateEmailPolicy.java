@@ -0,0 +1,42 @@
+package org.example.userservice.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Что делать при импорте с пользователями, email которых уже занят.
+ * Если email повторяется внутри импортируемых данных, учитывается последняя строка.
+ */
+public enum DuplicateEmailPolicy {
+
+    /**
+     * Оставить существующего пользователя без изменений.
+     */
+    SKIP,
+
+    /**
+     * Обновить имя и возраст существующего пользователя.
+     */
+    UPDATE,
+
+    /**
+     * Отменить весь импорт, если занят хотя бы один email или email повторяется в данных.
+     */
+    FAIL;
+
+    /**
+     * @param value название политики в любом регистре
+     * @return политика
+     * @throws ResponseStatusException 400, если политика неизвестна
+     */
+    public static DuplicateEmailPolicy of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Неизвестная политика дубликатов: " + value + ", допустимые: skip, update, fail");
+        }
+    }
+}
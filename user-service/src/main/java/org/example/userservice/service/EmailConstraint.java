@@ -0,0 +1,37 @@
+package org.example.userservice.service;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+/**
+ * Ограничение уникальности email в таблице {@code users}.
+ *
+ * Сущность объявляет его в столбце ({@code unique = true}), и PostgreSQL называет его {@code users_email_key};
+ * так же называется ограничение в таблицах шардов, которые создаёт {@code ShardDirectory}. Нарушение
+ * именно этого ограничения означает занятый email, остальные нарушения целостности — ошибки сервиса.
+ */
+public final class EmailConstraint {
+
+    public static final String NAME = "users_email_key";
+
+    /**
+     * SQLSTATE нарушения уникальности в PostgreSQL.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private EmailConstraint() {
+    }
+
+    /**
+     * @param e ошибка записи
+     * @return {@code true}, если запись отклонена из-за повтора email
+     */
+    public static boolean isViolatedBy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return UNIQUE_VIOLATION.equals(violation.getSQLState())
+                        && NAME.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+}
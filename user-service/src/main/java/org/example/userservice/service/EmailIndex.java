@@ -0,0 +1,197 @@
+package org.example.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.repository.UserRepository;
+import org.example.userservice.shard.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Индекс занятых email в памяти для быстрой проверки при создании пользователя.
+ *
+ * Email активных пользователей хранятся в фильтре Блума, который строится из базы после старта
+ * и затем перестраивается раз в {@code user.email-index.rebuild-interval}; созданные этим экземпляром
+ * email добавляются сразу. Если фильтр отвечает, что email нет, дополнительный запрос к базе не нужен
+ * и пользователь сразу вставляется. Иначе email проверяется запросом вне транзакции, и занятый email
+ * отклоняется с 409 до открытия транзакции. Пока фильтр не построен, проверяется каждый email.
+ *
+ * Из фильтра нельзя удалять, поэтому email удалённых пользователей остаются в нём до перестройки и
+ * стоят только лишнего запроса. Email, занятые другими экземплярами или импортом после перестройки,
+ * фильтр не знает — такие повторы находит ограничение уникальности при вставке.
+ *
+ * Результаты проверок публикуются в метрику {@code user.email.index.checks} с тегом {@code result}:
+ * {@code absent} — запрос к базе не понадобился, {@code duplicate} — повтор отклонён до транзакции,
+ * {@code false-positive} — email оказался свободен, {@code warming} — фильтр ещё не построен.
+ * Повторы, найденные только при вставке, — в {@code user.email.index.missed}.
+ * При шардировании email закрепляет справочник шардов, и индекс не строится.
+ */
+@Component
+public class EmailIndex {
+
+    private static final String SELECT_EMAILS = "SELECT email FROM users WHERE deleted_at IS NULL";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final UserShards shards;
+    private final MeterRegistry meterRegistry;
+    private final long expectedEmails;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final AtomicLong emails = new AtomicLong();
+    private final Counter missed;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("email-index").daemon().factory());
+    private volatile EmailBloomFilter filter;
+    private volatile EmailBloomFilter building;
+
+    public EmailIndex(UserRepository userRepository,
+                      JdbcTemplate jdbc,
+                      PlatformTransactionManager transactionManager,
+                      UserShards shards,
+                      MeterRegistry meterRegistry,
+                      @Value("${user.email-index.expected-emails:1000000}") long expectedEmails,
+                      @Value("${user.email-index.false-positive-rate:0.01}") double falsePositiveRate,
+                      @Value("${user.email-index.rebuild-interval:1h}") Duration rebuildInterval,
+                      @Value("${user.email-index.fetch-size:10000}") int fetchSize) {
+        this.userRepository = userRepository;
+        this.jdbc = new JdbcTemplate(jdbc.getDataSource());
+        this.jdbc.setFetchSize(fetchSize);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.shards = shards;
+        this.meterRegistry = meterRegistry;
+        this.expectedEmails = expectedEmails;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.missed = Counter.builder("user.email.index.missed")
+                .description("Повторы email, найденные ограничением уникальности, а не индексом")
+                .register(meterRegistry);
+        Gauge.builder("user.email.index.emails", emails, AtomicLong::get)
+                .description("Количество email, добавленных в индекс")
+                .register(meterRegistry);
+        Gauge.builder("user.email.index.bytes", this, index -> {
+                    EmailBloomFilter current = index.filter;
+                    return current == null ? 0 : current.sizeInBytes();
+                })
+                .description("Размер фильтра Блума индекса email")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!shards.isSharded()) {
+            executor.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Отклоняет email, который уже занят активным пользователем.
+     *
+     * @param email email нового пользователя
+     * @throws ResponseStatusException 409, если email занят
+     */
+    public void checkAvailable(String email) {
+        EmailBloomFilter current = filter;
+        if (current != null && !current.mightContain(email)) {
+            check("absent");
+            return;
+        }
+        if (userRepository.existsByEmail(email)) {
+            check("duplicate");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email " + email + " уже занят");
+        }
+        check(current == null ? "warming" : "false-positive");
+    }
+
+    /**
+     * Добавляет занятый email в индекс.
+     *
+     * @param email email созданного или изменённого пользователя
+     */
+    public void add(String email) {
+        EmailBloomFilter next = building;
+        if (next != null) {
+            next.add(email);
+        }
+        EmailBloomFilter current = filter;
+        if (current != null) {
+            current.add(email);
+            emails.incrementAndGet();
+        }
+    }
+
+    /**
+     * Учитывает повтор email, который индекс пропустил, и добавляет email в индекс.
+     *
+     * @param email занятый email
+     */
+    public void missed(String email) {
+        missed.increment();
+        add(email);
+    }
+
+    /**
+     * Строит фильтр заново по активным пользователям и заменяет им текущий.
+     * Размер фильтра берётся с запасом вдвое от числа email, но не меньше {@code expected-emails}.
+     *
+     * @return число email в новом фильтре
+     */
+    public long rebuild() {
+        long count = userRepository.count();
+        EmailBloomFilter next = new EmailBloomFilter(Math.max(expectedEmails, count * 2), falsePositiveRate);
+        building = next;
+        try {
+            long added = transaction.execute(status -> {
+                try (Stream<String> stream = jdbc.queryForStream(SELECT_EMAILS, (rs, row) -> rs.getString(1))) {
+                    return stream.mapToLong(email -> {
+                        next.add(email);
+                        return 1;
+                    }).sum();
+                }
+            });
+            filter = next;
+            emails.set(added);
+            return added;
+        } finally {
+            building = null;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            long added = rebuild();
+            System.out.println("Индекс email построен: " + added + " email");
+        } catch (RuntimeException e) {
+            // до следующей попытки действует прежний фильтр, а без него проверяется каждый email
+            System.out.println("Не удалось построить индекс email: " + e.getMessage());
+        }
+    }
+
+    private void check(String result) {
+        meterRegistry.counter("user.email.index.checks", "result", result).increment();
+    }
+}
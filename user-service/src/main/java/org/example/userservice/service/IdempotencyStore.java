@@ -0,0 +1,215 @@
+package org.example.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище результатов запросов с заголовком {@code Idempotency-Key}.
+ *
+ * Первый запрос с ключом выполняется, его результат запоминается. Повторы, пришедшие во время
+ * выполнения, ждут результата первого запроса не дольше {@code user.idempotency.wait-timeout};
+ * повторы после выполнения получают сохранённый результат, не обращаясь к базе и Kafka.
+ * Неудачный запрос не запоминается и не занимает место в хранилище: ожидавшие повторы получают ту же ошибку,
+ * следующий повтор выполняется заново.
+ * Повтор с тем же ключом, но другим содержимым запроса отклоняется с кодом 422.
+ *
+ * Результаты хранятся в памяти экземпляра не дольше {@code user.idempotency.ttl}, число ключей ограничено
+ * {@code user.idempotency.max-entries}: при переполнении вытесняются самые старые завершённые запросы.
+ * Ключи выполняющихся запросов не вытесняются, поэтому на время их выполнения число ключей может
+ * превысить ограничение.
+ *
+ * Число запросов публикуется в метрику {@code user.idempotency.requests} с тегом {@code outcome}
+ * ({@code executed}, {@code replayed}, {@code mismatch}), число ключей — в {@code user.idempotency.entries}.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long waitTimeoutMillis;
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter mismatched;
+
+    public IdempotencyStore(@Value("${user.idempotency.max-entries:100000}") int maxEntries,
+                            @Value("${user.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${user.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.executed = requests(meterRegistry, "executed");
+        this.replayed = requests(meterRegistry, "replayed");
+        this.mismatched = requests(meterRegistry, "mismatch");
+        Gauge.builder("user.idempotency.entries", entries, ConcurrentHashMap::size)
+                .description("Число запомненных ключей идемпотентности")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет действие один раз для ключа.
+     *
+     * @param key         значение заголовка {@code Idempotency-Key}
+     * @param fingerprint содержимое запроса, с которым сравниваются повторы
+     * @param action      действие, выполняемое для первого запроса с ключом
+     * @return результат действия и признак того, что он взят из хранилища
+     * @throws ResponseStatusException 400 для слишком длинного ключа, 422 для ключа, использованного
+     *                                 с другим запросом, 409, если первый запрос не завершился за время ожидания
+     */
+    public <T> Result<T> execute(String key, Object fingerprint, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+        long now = System.nanoTime();
+        evictExpired(now);
+
+        Entry created = new Entry(key, fingerprint, now);
+        for (;;) {
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                return executeFirst(created, action);
+            }
+            if (!existing.isExpired(now, ttlNanos)) {
+                return replay(existing, fingerprint);
+            }
+            entries.remove(key, existing);
+        }
+    }
+
+    private <T> Result<T> executeFirst(Entry entry, Supplier<T> action) {
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        T value;
+        try {
+            value = action.get();
+        } catch (Throwable e) {
+            // иначе ключ с незавершённым результатом не истекал бы, а повторы ждали бы его вечно
+            entries.remove(entry.key, entry);
+            if (insertionOrder.remove(entry)) {
+                queued.decrementAndGet();
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.result.complete(value);
+        executed.increment();
+        // вытесняем только после успеха, чтобы неудачный запрос не вытеснил сохранённый результат
+        evictOverflow();
+        return new Result<>(value, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> replay(Entry entry, Object fingerprint) {
+        if (!Objects.equals(entry.fingerprint, fingerprint)) {
+            mismatched.increment();
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key уже использован с другим запросом");
+        }
+        try {
+            T value = (T) entry.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            replayed.increment();
+            return new Result<>(value, true);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Запрос с этим Idempotency-Key ещё выполняется");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Запрос с этим Idempotency-Key ещё выполняется");
+        }
+    }
+
+    /**
+     * Ключи вытесняются в порядке добавления: срок хранения у всех одинаковый,
+     * поэтому истёкшие ключи всегда в начале очереди.
+     */
+    private void evictExpired(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null && oldest.isExpired(now, ttlNanos)) {
+            if (insertionOrder.remove(oldest)) {
+                queued.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * Выполняющиеся запросы пропускаются: без ключа их повтор выполнился бы второй раз.
+     */
+    private void evictOverflow() {
+        Iterator<Entry> oldest = insertionOrder.iterator();
+        while (queued.get() > maxEntries && oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (entry.result.isDone() && insertionOrder.remove(entry)) {
+                queued.decrementAndGet();
+                entries.remove(entry.key, entry);
+            }
+        }
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("user.idempotency.requests")
+                .description("Запросы с заголовком Idempotency-Key")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Результат запроса с ключом идемпотентности.
+     *
+     * @param value    результат действия
+     * @param replayed {@code true}, если результат сохранён для более раннего запроса с тем же ключом
+     */
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    private static final class Entry {
+
+        private final String key;
+        private final Object fingerprint;
+        private final long createdAt;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String key, Object fingerprint, long createdAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return result.isDone() && now - createdAt > ttlNanos;
+        }
+    }
+}
@@ -1,30 +1,88 @@
 package org.example.userservice.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.example.common.dto.UserNotificationDto;
+import org.example.userservice.jfr.NotificationPublishEvent;
+import org.example.userservice.spool.NotificationSpool;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Реализация {@link NotificationProducer}, которая отправляет уведомления через Kafka.
- * Конвертирует {@link UserNotificationDto} в JSON и отправляет в топик "user-notifications".
+ * Конвертирует {@link UserNotificationDto} в JSON и отправляет с email в качестве ключа, поэтому все уведомления
+ * одного пользователя одного приоритета попадают в одну партицию и обрабатываются по порядку.
+ * Одиночные уведомления отправляются с приоритетом {@code high} в топик {@link UserNotificationDto#TOPIC},
+ * пачки импорта и очистки — с приоритетом {@code bulk} в {@link UserNotificationDto#BULK_TOPIC}:
+ * notification-service обрабатывает их отдельно и не задерживает срочные письма массовыми.
+ * Время отправки публикуется в метрику {@code user.notification.publish} с тегами типа события и результата
+ * и записывается JFR-событием {@link NotificationPublishEvent}.
+ *
+ * Если отправка не удалась или CircuitBreaker {@code kafkaCB} открыт, уведомление откладывается
+ * в {@link NotificationSpool} и позже отправляется оттуда. Пока в спуле есть уведомления, новые тоже
+ * пишутся в спул, чтобы уведомления одного пользователя не обогнали отложенные.
+ * Fallback-метод Resilience4j находит по имени из {@code fallbackMethod} и параметрам метода с добавленным
+ * исключением среди методов класса бина и вызывает через отражение, поэтому он может быть закрытым.
+ *
+ * Отправка выполняется в пуле потоков ThreadPoolBulkhead {@code kafkaPublish}, а поток запроса ждёт
+ * подтверждения не дольше TimeLimiter {@code kafkaPublish}: {@code send()} сам блокируется
+ * до {@code max.block.ms}, пока брокер недоступен, поэтому ограничивать одно ожидание {@code get()} мало.
+ * Зависшие отправки занимают только потоки пула, а при заполненной очереди пула отправка сразу отклоняется.
+ * Отклонение и тайм-аут считаются сбоем отправки для {@code kafkaCB} и публикуются в
+ * {@code user.notification.publish} с результатом {@code rejected} и {@code timeout}.
+ *
+ * После тайм-аута отправка продолжается в продюсере и обычно всё-таки подтверждается, поэтому fallback
+ * не откладывает такое уведомление в спул, иначе оно пришло бы дважды. Оно откладывается, только если
+ * отправка затем завершится ошибкой, и тогда может прийти позже более новых уведомлений того же пользователя.
  */
 @Service
 public class KafkaNotificationProducer implements NotificationProducer {
 
+    private static final String PUBLISH = "kafkaPublish";
+
     private KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper mapper;
+    private final NotificationSpool spool;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolBulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
 
     /**
      * Создаёт KafkaNotificationProducer с указанным KafkaTemplate.
      *
      * @param kafkaTemplate шаблон для отправки сообщений в Kafka
+     * @param spool         спул для уведомлений, которые не удалось отправить
+     * @param meterRegistry реестр метрик
+     * @param bulkheadRegistry    реестр ThreadPoolBulkhead, пул {@code kafkaPublish}
+     * @param timeLimiterRegistry реестр TimeLimiter, ограничение {@code kafkaPublish}
      */
     public KafkaNotificationProducer(KafkaTemplate<String, String> kafkaTemplate,
-                                     ObjectMapper mapper) {
+                                     ObjectMapper mapper,
+                                     NotificationSpool spool,
+                                     MeterRegistry meterRegistry,
+                                     ThreadPoolBulkheadRegistry bulkheadRegistry,
+                                     TimeLimiterRegistry timeLimiterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
         this.mapper = mapper;
+        this.spool = spool;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = bulkheadRegistry.bulkhead(PUBLISH);
+        this.timeLimiter = timeLimiterRegistry.timeLimiter(PUBLISH);
     }
 
     /**
@@ -33,48 +91,239 @@ public class KafkaNotificationProducer implements NotificationProducer {
      * Формирует уведомление типа "created" и отправляет его в Kafka.
      */
     @Override
-    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSend")
+    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSendCreated")
     public void sendUserCreatedNotification(String email) {
         sendNotification(email, "created");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Все сообщения пачки передаются продюсеру без ожидания, затем ожидаются подтверждения всех,
+     * поэтому продюсер объединяет их в батчи Kafka.
+     */
+    @Override
+    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSendCreatedBatch")
+    public void sendUserCreatedNotifications(List<String> emails) {
+        sendNotifications(emails, "created");
+    }
+
     /**
      * {@inheritDoc}
      *
      * Формирует уведомление типа "deleted" и отправляет его в Kafka.
      */
     @Override
-    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSend")
+    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSendDeleted")
     public void sendUserDeletedNotification(String email) {
         sendNotification(email, "deleted");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Отправляется так же, как пачка уведомлений о создании.
+     */
+    @Override
+    @CircuitBreaker(name = "kafkaCB", fallbackMethod = "fallbackSendDeletedBatch")
+    public void sendUserDeletedNotifications(List<String> emails) {
+        sendNotifications(emails, "deleted");
+    }
+
+    /**
+     * Отправляет пачку уведомлений одного типа с приоритетом {@code bulk}: все сообщения передаются
+     * продюсеру без ожидания, затем ожидаются подтверждения всех.
+     *
+     * @param emails адреса электронной почты
+     * @param type   тип события created/deleted
+     * @throws RuntimeException если отправка хотя бы одного сообщения не удалась
+     */
+    private void sendNotifications(List<String> emails, String type) {
+        if (!spool.isEmpty()) {
+            deferAll(emails, type);
+            return;
+        }
+        NotificationPublishEvent event = new NotificationPublishEvent(type + "-batch", emails.size());
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            List<String> jsons = new ArrayList<>(emails.size());
+            for (String email : emails) {
+                jsons.add(mapper.writeValueAsString(
+                        new UserNotificationDto(email, type, UserNotificationDto.PRIORITY_BULK)));
+            }
+            publish(() -> {
+                List<CompletableFuture<?>> sends = new ArrayList<>(emails.size());
+                for (int i = 0; i < emails.size(); i++) {
+                    sends.add(kafkaTemplate.send(UserNotificationDto.BULK_TOPIC, emails.get(i), jsons.get(i)));
+                }
+                return CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]));
+            }, () -> deferAll(emails, type));
+        } catch (Exception e) {
+            outcome = outcome(e);
+            event.failed();
+            throw new RuntimeException("Failed to send Kafka messages", e);
+        } finally {
+            event.commit();
+            sample.stop(Timer.builder("user.notification.publish")
+                    .description("Время отправки уведомления в Kafka")
+                    .tag("type", type + "-batch")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
     /**
      * Вспомогательный метод для сериализации {@link UserNotificationDto} в JSON
-     * и отправки сообщения в Kafka топик "user-notifications".
+     * и отправки сообщения с приоритетом {@code high} в Kafka топик "user-notifications".
      *
      * @param email адрес электронной почты
      * @param type  тип события created/deleted
      * @throws RuntimeException если произошла ошибка при сериализации или отправке сообщения
      */
     private void sendNotification(String email, String type) {
+        if (!spool.isEmpty()) {
+            defer(email, type);
+            return;
+        }
+        NotificationPublishEvent event = new NotificationPublishEvent(type, 1);
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
         try {
             UserNotificationDto dto = new UserNotificationDto(email, type);
             String json = mapper.writeValueAsString(dto);
-            kafkaTemplate.send("user-notifications", json).get();
+            publish(() -> kafkaTemplate.send(UserNotificationDto.TOPIC, email, json), () -> defer(email, type));
         } catch (Exception e) {
+            outcome = outcome(e);
+            event.failed();
             throw new RuntimeException("Failed to send Kafka message", e);
+        } finally {
+            event.commit();
+            sample.stop(Timer.builder("user.notification.publish")
+                    .description("Время отправки уведомления в Kafka")
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Передаёт сообщения продюсеру в пуле {@code kafkaPublish} и ждёт подтверждения брокера
+     * не дольше тайм-аута {@code kafkaPublish}. Контекст трассировки переносится в поток пула,
+     * чтобы заголовки трассировки и baggage попали в сообщения.
+     *
+     * @param send        передаёт сообщения продюсеру и возвращает future их подтверждения
+     * @param onLateFailure откладывает сообщения, если после тайм-аута отправка завершилась ошибкой
+     * @throws BulkheadFullException если пул и его очередь заняты
+     * @throws TimeoutException      если подтверждение не получено за тайм-аут
+     */
+    private void publish(Callable<CompletableFuture<?>> send, Runnable onLateFailure) throws Exception {
+        Callable<CompletableFuture<?>> inContext = snapshots.captureAll().wrap(send);
+        CompletableFuture<?> acknowledged = bulkhead.executeCallable(inContext)
+                .toCompletableFuture()
+                .thenCompose(future -> future);
+        try {
+            // TimeLimiter отменяет future по тайм-ауту, копия не даёт отмене скрыть исход отправки
+            timeLimiter.executeFutureSupplier(acknowledged::copy);
+        } catch (TimeoutException e) {
+            acknowledged.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    onLateFailure.run();
+                }
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code true}, если отправка не подтвердилась за тайм-аут и ещё продолжается:
+     * уведомление отложит {@link #publish}, если она не удастся
+     */
+    private static boolean stillPending(Throwable cause) {
+        return cause.getCause() instanceof TimeoutException;
+    }
+
+    private static String outcome(Exception e) {
+        if (e instanceof BulkheadFullException) {
+            return "rejected";
+        }
+        if (e instanceof TimeoutException) {
+            return "timeout";
+        }
+        return "failure";
+    }
+
+    /**
+     * Вызывается, если отправка уведомления о создании не удалась или CircuitBreaker открыт.
+     * Откладывает уведомление в спул, кроме тайм-аута: тогда его отложит незавершённая отправка, если не удастся.
+     *
+     * @param email адрес электронной почты
+     * @param cause причина сбоя, вызвавшая активацию CircuitBreaker
+     */
+    private void fallbackSendCreated(String email, Throwable cause) {
+        if (!stillPending(cause)) {
+            defer(email, "created");
         }
     }
 
     /**
-     * Вызывается, если отправка сообщения в Kafka не удалась и сработал CircuitBreaker.
+     * Вызывается, если отправка уведомления об удалении не удалась или CircuitBreaker открыт.
+     * Откладывает уведомление в спул, кроме тайм-аута, как {@link #fallbackSendCreated}.
      *
      * @param email адрес электронной почты
      * @param cause причина сбоя, вызвавшая активацию CircuitBreaker
      */
-    public void fallbackSend(String email, Throwable cause) {
-        System.out.println("Kafka fallback: сообщение не отправлено для " + email);
-        System.out.println("Причина: " + cause.getMessage());
+    private void fallbackSendDeleted(String email, Throwable cause) {
+        if (!stillPending(cause)) {
+            defer(email, "deleted");
+        }
+    }
+
+    /**
+     * Вызывается, если отправка пачки уведомлений о создании не удалась и сработал CircuitBreaker.
+     * Откладывает всю пачку в спул, кроме тайм-аута: часть пачки могла дойти до Kafka, такие уведомления
+     * будут отправлены повторно.
+     *
+     * @param emails адреса электронной почты пачки
+     * @param cause  причина сбоя
+     */
+    private void fallbackSendCreatedBatch(List<String> emails, Throwable cause) {
+        if (!stillPending(cause)) {
+            deferAll(emails, "created");
+        }
+    }
+
+    /**
+     * Вызывается, если отправка пачки уведомлений об удалении не удалась и сработал CircuitBreaker.
+     * Откладывает всю пачку в спул, кроме тайм-аута.
+     *
+     * @param emails адреса электронной почты пачки
+     * @param cause  причина сбоя
+     */
+    private void fallbackSendDeletedBatch(List<String> emails, Throwable cause) {
+        if (!stillPending(cause)) {
+            deferAll(emails, "deleted");
+        }
+    }
+
+    private void deferAll(List<String> emails, String type) {
+        for (String email : emails) {
+            defer(new UserNotificationDto(email, type, UserNotificationDto.PRIORITY_BULK));
+        }
+    }
+
+    private void defer(String email, String type) {
+        defer(new UserNotificationDto(email, type));
+    }
+
+    private void defer(UserNotificationDto notification) {
+        if (!spool.offer(notification)) {
+            System.out.println("Kafka fallback: спул переполнен, сообщение не отправлено для "
+                    + notification.getEmail());
+        }
     }
 }
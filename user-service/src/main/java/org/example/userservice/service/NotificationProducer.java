@@ -1,5 +1,7 @@
 package org.example.userservice.service;
 
+import java.util.List;
+
 /**
  * Интерфейс для отправки уведомлений о событиях пользователя.
  * Определяет методы для уведомления о создании и удалении пользователя.
@@ -13,10 +15,24 @@ public interface NotificationProducer {
      */
     void sendUserCreatedNotification(String email);
 
+    /**
+     * Отправляет уведомления о создании пользователей одной пачкой.
+     *
+     * @param emails адреса электронной почты
+     */
+    void sendUserCreatedNotifications(List<String> emails);
+
     /**
      * Отправляет уведомление об удалении пользователя на указанный email.
      *
      * @param email адрес электронной почты
      */
     void sendUserDeletedNotification(String email);
+
+    /**
+     * Отправляет уведомления об удалении пользователей одной пачкой.
+     *
+     * @param emails адреса электронной почты
+     */
+    void sendUserDeletedNotifications(List<String> emails);
 }
@@ -0,0 +1,51 @@
+package org.example.userservice.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Форматы массовой загрузки и выгрузки пользователей.
+ */
+public enum UserBulkFormat {
+
+    /**
+     * CSV с заголовком; столбцы — {@code id, name, email, age, created_at} в любом порядке.
+     */
+    CSV(new MediaType("text", "csv")),
+
+    /**
+     * Один JSON-объект на строку с полями {@code id, name, email, age, createdAt}.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private final MediaType mediaType;
+
+    UserBulkFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Определяет формат по заголовку {@code Content-Type}.
+     *
+     * @param contentType значение заголовка
+     * @return формат
+     * @throws ResponseStatusException 415, если формат не поддерживается
+     */
+    public static UserBulkFormat of(String contentType) {
+        MediaType type = MediaType.parseMediaType(contentType);
+        for (UserBulkFormat format : values()) {
+            if (format.mediaType.equalsTypeAndSubtype(type)) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                "Поддерживаются форматы " + CSV_VALUE + " и " + MediaType.APPLICATION_NDJSON_VALUE);
+    }
+}
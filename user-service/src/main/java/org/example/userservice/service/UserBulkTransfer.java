@@ -0,0 +1,40 @@
+package org.example.userservice.service;
+
+import org.example.userservice.dto.UserImportStatus;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * Массовая загрузка и выгрузка пользователей потоком, без накопления данных в памяти.
+ * Предназначена для переноса больших объёмов, для которых создание по одному через API слишком медленное.
+ */
+public interface UserBulkTransfer {
+
+    /**
+     * Загружает пользователей из потока.
+     * Все пользователи создаются в одной транзакции: при ошибке в данных не создаётся ни один.
+     * Строки с пустым именем, email или отрицательным возрастом пропускаются.
+     *
+     * @param body       данные в формате {@code format}
+     * @param format     формат данных
+     * @param duplicates что делать с пользователями, email которых уже занят
+     * @param notify     отправлять ли уведомления о создании пользователей
+     * @param progress   получатель сообщений о ходе импорта
+     * @return итоги импорта
+     */
+    UserImportStatus importUsers(InputStream body,
+                                 UserBulkFormat format,
+                                 DuplicateEmailPolicy duplicates,
+                                 boolean notify,
+                                 Consumer<UserImportStatus> progress);
+
+    /**
+     * Выгружает всех пользователей в поток в порядке возрастания ID.
+     *
+     * @param format формат данных
+     * @param out    поток для записи
+     */
+    void exportUsers(UserBulkFormat format, OutputStream out);
+}
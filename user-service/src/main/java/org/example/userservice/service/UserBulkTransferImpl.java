@@ -0,0 +1,508 @@
+package org.example.userservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.userservice.dto.UserImportStatus;
+import org.example.userservice.entity.UserChangeSequenceEntity;
+import org.example.userservice.shard.ShardDirectory;
+import org.example.userservice.shard.UserShards;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Реализация {@link UserBulkTransfer} на {@code COPY} PostgreSQL.
+ *
+ * Импорт копирует поток во временную таблицу {@code users_import}: CSV передаётся в {@code COPY} как есть,
+ * NDJSON построчно преобразуется в CSV. Затем в той же транзакции отбрасываются некорректные строки
+ * и повторы email, удаляются помеченные удалёнными пользователи с загружаемыми email, пользователи
+ * переносятся в {@code users} одним {@code INSERT ... ON CONFLICT}, а созданные и обновлённые пользователи
+ * дописываются в журнал изменений. Уведомления об удалении прежних владельцев email и о создании
+ * отправляются после фиксации пачками по {@code user.bulk.notification-batch-size}: транзакция держит
+ * блокировку последовательности журнала изменений, и отправка в Kafka не должна её удлинять.
+ * Статистика пользователей пересчитывается после фиксации в фоне ({@link UserStatistics#requestRebuild()}).
+ *
+ * Экспорт отдаёт результат {@code COPY ... TO STDOUT} прямо в поток ответа и читает с реплики,
+ * если реплики настроены. При шардировании шарды выгружаются по очереди, каждый по возрастанию ID;
+ * импорт при шардировании не поддерживается, так как пользователи не проходят через справочник шардов.
+ */
+@Service
+public class UserBulkTransferImpl implements UserBulkTransfer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Set<String> CSV_COLUMNS = Set.of("id", "name", "email", "age", "created_at");
+    private static final Set<String> REQUIRED_COLUMNS = Set.of("name", "email", "age");
+    private static final List<String> NDJSON_COLUMNS = List.of("name", "email", "age", "created_at");
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMP TABLE users_import (
+                line bigint GENERATED ALWAYS AS IDENTITY,
+                id bigint,
+                name text,
+                email text,
+                age integer,
+                created_at timestamp
+            ) ON COMMIT DROP""";
+    private static final String CREATE_IMPORTED = """
+            CREATE TEMP TABLE users_imported (
+                id integer,
+                name text,
+                email text,
+                age integer,
+                created_at timestamp,
+                inserted boolean
+            )""";
+    private static final String DROP_IMPORTED = "DROP TABLE IF EXISTS pg_temp.users_imported";
+    private static final String COPY_STAGING = "COPY users_import (%s) FROM STDIN (FORMAT csv)";
+    private static final String DELETE_REJECTED = """
+            DELETE FROM users_import
+            WHERE name IS NULL OR btrim(name) = ''
+               OR email IS NULL OR btrim(email) = ''
+               OR age IS NULL OR age < 0""";
+    private static final String DELETE_REPEATED = """
+            DELETE FROM users_import WHERE line IN (
+                SELECT line FROM (
+                    SELECT line, row_number() OVER (PARTITION BY email ORDER BY line DESC) AS position
+                    FROM users_import
+                ) ranked
+                WHERE position > 1
+            )""";
+    private static final String ANALYZE_STAGING = "ANALYZE users_import";
+    private static final String PURGE_DELETED = """
+            DELETE FROM users u USING users_import i
+            WHERE u.email = i.email AND u.deleted_at IS NOT NULL
+            RETURNING u.email""";
+    private static final String COUNT_EXISTING = "SELECT count(*) FROM users_import i JOIN users u ON u.email = i.email";
+    private static final String MERGE = """
+            WITH merged AS (
+                INSERT INTO users (name, email, age, created_at)
+                SELECT name, email, age, coalesce(created_at, ?) FROM users_import ORDER BY line
+                ON CONFLICT (email) %s
+                RETURNING id, name, email, age, created_at, xmax = 0
+            )
+            INSERT INTO users_imported SELECT * FROM merged""";
+    private static final String ON_CONFLICT_SKIP = "DO NOTHING";
+    private static final String ON_CONFLICT_UPDATE = "DO UPDATE SET name = excluded.name, age = excluded.age";
+    private static final String COUNT_IMPORTED =
+            "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM users_imported";
+    private static final String LOCK_CHANGE_SEQUENCE = "SELECT last_value FROM user_change_sequence WHERE id = ? FOR UPDATE";
+    private static final String APPEND_CHANGES = """
+            INSERT INTO user_changes (id, type, user_id, name, email, age, user_created_at, changed_at)
+            SELECT ? + row_number() OVER (ORDER BY id),
+                   CASE WHEN inserted THEN 'CREATED' ELSE 'UPDATED' END,
+                   id, name, email, age, created_at, ?
+            FROM users_imported""";
+    private static final String ADVANCE_CHANGE_SEQUENCE = "UPDATE user_change_sequence SET last_value = last_value + ? WHERE id = ?";
+    private static final String SELECT_CREATED_EMAILS = "SELECT email FROM users_imported WHERE inserted ORDER BY id";
+
+    private static final String EXPORT_CSV = """
+            COPY (
+                SELECT id, name, email, age, created_at FROM users WHERE deleted_at IS NULL %s ORDER BY id
+            ) TO STDOUT (FORMAT csv, HEADER %s)""";
+    // кавычки и разделитель CSV заменены символами, которых нет в JSON, поэтому строки выводятся без экранирования
+    private static final String EXPORT_NDJSON = """
+            COPY (
+                SELECT row_to_json(u) FROM (
+                    SELECT id, name, email, age, created_at AS "createdAt" FROM users
+                    WHERE deleted_at IS NULL %s ORDER BY id
+                ) u
+            ) TO STDOUT (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')""";
+
+    private final DataSource dataSource;
+    private final UserShards shards;
+    private final ObjectProvider<ShardDirectory> directory;
+    private final ObjectMapper mapper;
+    private final NotificationProducer notificationProducer;
+    private final UserStatistics statistics;
+    private final int progressInterval;
+    private final int notificationBatchSize;
+
+    public UserBulkTransferImpl(DataSource dataSource,
+                                UserShards shards,
+                                ObjectProvider<ShardDirectory> directory,
+                                ObjectMapper mapper,
+                                NotificationProducer notificationProducer,
+                                UserStatistics statistics,
+                                @Value("${user.bulk.progress-interval:10000}") int progressInterval,
+                                @Value("${user.bulk.notification-batch-size:500}") int notificationBatchSize) {
+        this.dataSource = dataSource;
+        this.shards = shards;
+        this.directory = directory;
+        this.mapper = mapper;
+        this.notificationProducer = notificationProducer;
+        this.statistics = statistics;
+        this.progressInterval = progressInterval;
+        this.notificationBatchSize = notificationBatchSize;
+    }
+
+    @Override
+    public UserImportStatus importUsers(InputStream body,
+                                        UserBulkFormat format,
+                                        DuplicateEmailPolicy duplicates,
+                                        boolean notify,
+                                        Consumer<UserImportStatus> progress) {
+        if (shards.isSharded()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                    "Импорт пользователей при шардировании не поддерживается");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                return importUsers(connection, body, format, duplicates, notify, progress);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                cleanUp(connection, autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void exportUsers(UserBulkFormat format, OutputStream out) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            // строки бакета, перенос которого не дочищен, остаются на старом шарде до перебалансировки
+            String where = shards.isSharded() ? "AND " + directory.getObject().ownedBy(shard) : "";
+            String sql = format == UserBulkFormat.CSV
+                    ? EXPORT_CSV.formatted(where, shard == 0)
+                    : EXPORT_NDJSON.formatted(where);
+            shards.inShard(shard, UserShards.READ_ONLY, status -> {
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+                } catch (SQLException | IOException e) {
+                    throw failure(e);
+                } finally {
+                    DataSourceUtils.releaseConnection(connection, dataSource);
+                }
+            });
+        }
+    }
+
+    private UserImportStatus importUsers(Connection connection,
+                                         InputStream body,
+                                         UserBulkFormat format,
+                                         DuplicateEmailPolicy duplicates,
+                                         boolean notify,
+                                         Consumer<UserImportStatus> progress) throws SQLException, IOException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(DROP_IMPORTED);
+            statement.execute(CREATE_STAGING);
+            statement.execute(CREATE_IMPORTED);
+        }
+
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long received = format == UserBulkFormat.CSV
+                ? copyCsv(pgConnection, body, progress)
+                : copyNdjson(pgConnection, body, progress);
+
+        long rejected;
+        long repeated;
+        try (Statement statement = connection.createStatement()) {
+            rejected = statement.executeUpdate(DELETE_REJECTED);
+            repeated = statement.executeUpdate(DELETE_REPEATED);
+            // временные таблицы не анализируются автоматически, без статистики планировщик ошибается с join
+            statement.execute(ANALYZE_STAGING);
+        }
+        List<String> purged = purgeDeleted(connection);
+        if (duplicates == DuplicateEmailPolicy.FAIL) {
+            long existing = count(connection, COUNT_EXISTING);
+            if (repeated + existing > 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Импорт отменён: " + existing
+                        + " email уже заняты, " + repeated + " строк повторяют email других строк");
+            }
+        }
+
+        progress.accept(UserImportStatus.progress(UserImportStatus.MERGE, received));
+        String onConflict = duplicates == DuplicateEmailPolicy.UPDATE ? ON_CONFLICT_UPDATE : ON_CONFLICT_SKIP;
+        try (PreparedStatement merge = connection.prepareStatement(MERGE.formatted(onConflict))) {
+            merge.setTimestamp(1, now);
+            merge.executeUpdate();
+        }
+        long inserted;
+        long updated;
+        try (Statement statement = connection.createStatement();
+             ResultSet counts = statement.executeQuery(COUNT_IMPORTED)) {
+            counts.next();
+            inserted = counts.getLong(1);
+            updated = counts.getLong(2);
+        }
+        appendChanges(connection, inserted + updated, now);
+        connection.commit();
+        statistics.requestRebuild();
+
+        // уведомления об удалении прежних владельцев email должны опередить уведомления о создании
+        for (int from = 0; from < purged.size(); from += notificationBatchSize) {
+            notificationProducer.sendUserDeletedNotifications(
+                    purged.subList(from, Math.min(purged.size(), from + notificationBatchSize)));
+        }
+
+        long notified = notify ? sendNotifications(connection, progress) : 0;
+        return UserImportStatus.done(received, inserted, updated, received - rejected - inserted - updated,
+                rejected, notified);
+    }
+
+    private long copyCsv(PGConnection connection, InputStream body, Consumer<UserImportStatus> progress)
+            throws SQLException, IOException {
+        InputStream in = new BufferedInputStream(body, BUFFER_SIZE);
+        List<String> columns = csvColumns(readHeader(in));
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection, COPY_STAGING.formatted(String.join(", ", columns)),
+                BUFFER_SIZE);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long lines = 0;
+            long reported = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                copy.write(buffer, 0, read);
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                if (lines - reported >= progressInterval) {
+                    reported = lines;
+                    progress.accept(UserImportStatus.progress(UserImportStatus.COPY, lines));
+                }
+            }
+            return copy.endCopy();
+        } catch (SQLException | IOException | RuntimeException e) {
+            cancel(copy);
+            throw e;
+        }
+    }
+
+    private long copyNdjson(PGConnection connection, InputStream body, Consumer<UserImportStatus> progress)
+            throws SQLException, IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), BUFFER_SIZE);
+        PGCopyOutputStream copy = new PGCopyOutputStream(connection,
+                COPY_STAGING.formatted(String.join(", ", NDJSON_COLUMNS)), BUFFER_SIZE);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), BUFFER_SIZE);
+            long lineNumber = 0;
+            long rows = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode user = readUser(line, lineNumber);
+                writer.write(csvText(user.get("name")));
+                writer.write(',');
+                writer.write(csvText(user.get("email")));
+                writer.write(',');
+                writer.write(csvNumber(user.get("age")));
+                writer.write(',');
+                writer.write(csvText(user.get("createdAt")));
+                writer.write('\n');
+                if (++rows % progressInterval == 0) {
+                    progress.accept(UserImportStatus.progress(UserImportStatus.COPY, rows));
+                }
+            }
+            writer.flush();
+            return copy.endCopy();
+        } catch (SQLException | IOException | RuntimeException e) {
+            cancel(copy);
+            throw e;
+        }
+    }
+
+    private JsonNode readUser(String line, long lineNumber) {
+        try {
+            JsonNode user = mapper.readTree(line);
+            if (user.isObject()) {
+                return user;
+            }
+        } catch (JsonProcessingException e) {
+            // ниже одна ошибка для любого некорректного содержимого строки
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Строка " + lineNumber + ": ожидается JSON-объект пользователя");
+    }
+
+    private void appendChanges(Connection connection, long changes, Timestamp now) throws SQLException {
+        if (changes == 0) {
+            return;
+        }
+        long last;
+        try (PreparedStatement lock = connection.prepareStatement(LOCK_CHANGE_SEQUENCE)) {
+            lock.setInt(1, UserChangeSequenceEntity.ID);
+            try (ResultSet sequence = lock.executeQuery()) {
+                if (!sequence.next()) {
+                    throw new IllegalStateException("Счётчик журнала изменений не инициализирован");
+                }
+                last = sequence.getLong(1);
+            }
+        }
+        try (PreparedStatement append = connection.prepareStatement(APPEND_CHANGES)) {
+            append.setLong(1, last);
+            append.setTimestamp(2, now);
+            append.executeUpdate();
+        }
+        try (PreparedStatement advance = connection.prepareStatement(ADVANCE_CHANGE_SEQUENCE)) {
+            advance.setLong(1, changes);
+            advance.setInt(2, UserChangeSequenceEntity.ID);
+            advance.executeUpdate();
+        }
+    }
+
+    /**
+     * Удаляет помеченных удалёнными пользователей, чьи email есть в загрузке, чтобы их можно было занять.
+     *
+     * @return email удалённых пользователей
+     */
+    private static List<String> purgeDeleted(Connection connection) throws SQLException {
+        List<String> emails = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet purged = statement.executeQuery(PURGE_DELETED)) {
+            while (purged.next()) {
+                emails.add(purged.getString(1));
+            }
+        }
+        return emails;
+    }
+
+    private long sendNotifications(Connection connection, Consumer<UserImportStatus> progress) throws SQLException {
+        long sent = 0;
+        try (PreparedStatement select = connection.prepareStatement(SELECT_CREATED_EMAILS)) {
+            select.setFetchSize(notificationBatchSize);
+            try (ResultSet emails = select.executeQuery()) {
+                List<String> batch = new ArrayList<>(notificationBatchSize);
+                while (emails.next()) {
+                    batch.add(emails.getString(1));
+                    if (batch.size() == notificationBatchSize) {
+                        notificationProducer.sendUserCreatedNotifications(batch);
+                        sent += batch.size();
+                        batch = new ArrayList<>(notificationBatchSize);
+                        progress.accept(UserImportStatus.progress(UserImportStatus.NOTIFY, sent));
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    notificationProducer.sendUserCreatedNotifications(batch);
+                    sent += batch.size();
+                }
+            }
+        }
+        return sent;
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            header.write(b);
+        }
+        return header.toString(StandardCharsets.UTF_8).replace("\uFEFF", "").strip();
+    }
+
+    private static List<String> csvColumns(String header) {
+        Set<String> columns = new LinkedHashSet<>();
+        for (String column : header.split(",", -1)) {
+            String name = column.strip().replace("\"", "").toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(name) || !columns.add(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный заголовок CSV: " + header
+                        + ", допустимые столбцы: " + String.join(", ", CSV_COLUMNS.stream().sorted().toList()));
+            }
+        }
+        if (!columns.containsAll(REQUIRED_COLUMNS)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "В заголовке CSV должны быть столбцы " + String.join(", ", REQUIRED_COLUMNS.stream().sorted().toList()));
+        }
+        return List.copyOf(columns);
+    }
+
+    /**
+     * Значение для CSV-формата {@code COPY}: пустое поле без кавычек означает NULL.
+     */
+    private static String csvText(JsonNode value) {
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        return '"' + value.asText().replace("\"", "\"\"") + '"';
+    }
+
+    private static String csvNumber(JsonNode value) {
+        return value != null && value.isIntegralNumber() ? value.asText() : csvText(value);
+    }
+
+    private static void cancel(PGCopyOutputStream copy) {
+        try {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        } catch (SQLException e) {
+            // соединение уже непригодно, транзакция всё равно откатывается
+        }
+    }
+
+    private static void cleanUp(Connection connection, boolean autoCommit) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(DROP_IMPORTED);
+            connection.commit();
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            System.out.println("Не удалось удалить временную таблицу импорта: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ошибки в данных (классы SQLSTATE 22 и 23) сообщаются клиенту как 400, остальные — как сбой сервиса.
+     */
+    private static RuntimeException failure(Exception e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof SQLException)) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof SQLException sql && sql.getSQLState() != null
+                && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректные данные: " + sql.getMessage());
+        }
+        return new IllegalStateException("Массовая операция с пользователями не удалась", e);
+    }
+}
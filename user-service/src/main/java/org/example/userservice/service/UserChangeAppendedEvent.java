@@ -0,0 +1,10 @@
+package org.example.userservice.service;
+
+/**
+ * Событие о записи в журнал изменений пользователей.
+ * Публикуется внутри транзакции изменения; слушатели получают его после фиксации транзакции.
+ *
+ * @param cursor курсор новой записи
+ */
+public record UserChangeAppendedEvent(long cursor) {
+}
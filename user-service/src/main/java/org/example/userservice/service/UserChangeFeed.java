@@ -0,0 +1,242 @@
+package org.example.userservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.dto.UserChangeDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Потоковая раздача журнала изменений пользователей по SSE.
+ *
+ * Журнал читает один поток: он читает из {@link UserChangeLog} записи после наименьшего курсора среди
+ * подписчиков и кладёт каждому подписчику записи после его собственного курсора в очередь подписчика
+ * длиной {@code user.changes.subscriber-buffer}. Журнал опрашивается с интервалом
+ * {@code user.changes.poll-interval}, поэтому подписчик получает изменения, сделанные любым экземпляром
+ * сервиса; изменения этого экземпляра рассылаются сразу после фиксации транзакции. В простое подписчику
+ * раз в {@code user.changes.heartbeat-interval} отправляется комментарий, чтобы соединение не закрыли
+ * промежуточные прокси.
+ *
+ * Очередь подписчика отправляет в соединение собственный виртуальный поток, поэтому медленный клиент
+ * не задерживает остальных. Подписчик, очередь которого переполнилась или отправка которому длится
+ * дольше {@code user.changes.write-timeout}, отключается и переподключается с последнего полученного события.
+ *
+ * Каждое событие имеет {@code id} равный курсору записи, поэтому при переподключении клиент
+ * продолжает с заголовком {@code Last-Event-ID}.
+ */
+@Service
+public class UserChangeFeed {
+
+    private static final int MAX_ROUNDS_PER_DISPATCH = 20;
+
+    private final UserChangeLog changeLog;
+    private final int batchSize;
+    private final int subscriberBuffer;
+    private final long heartbeatNanos;
+    private final long writeTimeoutNanos;
+    private final long streamTimeoutMillis;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-changes-feed").daemon().factory());
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("user-changes-send-", 0).factory());
+
+    public UserChangeFeed(UserChangeLog changeLog,
+                          @Value("${user.changes.batch-size:500}") int batchSize,
+                          @Value("${user.changes.subscriber-buffer:1000}") int subscriberBuffer,
+                          @Value("${user.changes.poll-interval:1s}") Duration pollInterval,
+                          @Value("${user.changes.heartbeat-interval:15s}") Duration heartbeatInterval,
+                          @Value("${user.changes.write-timeout:10s}") Duration writeTimeout,
+                          @Value("${user.changes.stream-timeout:30m}") Duration streamTimeout) {
+        this.changeLog = changeLog;
+        this.batchSize = batchSize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        dispatcher.scheduleWithFixedDelay(this::dispatch, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Открывает поток изменений после курсора.
+     * Поток закрывается через {@code user.changes.stream-timeout}, после чего клиент переподключается.
+     *
+     * @param cursor курсор, после которого нужны изменения
+     * @return SSE-поток
+     */
+    public SseEmitter subscribe(long cursor) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscription subscription = new Subscription(emitter, cursor);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriptions.remove(subscription));
+
+        subscriptions.add(subscription);
+        wakeUp();
+        return emitter;
+    }
+
+    /**
+     * Рассылает изменение этого экземпляра сразу после фиксации транзакции, не дожидаясь опроса.
+     */
+    @TransactionalEventListener
+    public void onChangeAppended(UserChangeAppendedEvent event) {
+        wakeUp();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(Subscription::drop);
+        senders.shutdown();
+    }
+
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    private void dispatch() {
+        try {
+            long now = System.nanoTime();
+            subscriptions.forEach(subscription -> subscription.dropIfStalled(now));
+            for (int round = 0; round < MAX_ROUNDS_PER_DISPATCH && !subscriptions.isEmpty(); round++) {
+                long from = subscriptions.stream().mapToLong(s -> s.cursor).min().orElse(0);
+                List<UserChangeDto> changes = changeLog.readAfter(from, batchSize);
+                subscriptions.forEach(subscription -> subscription.enqueue(changes));
+                if (changes.size() < batchSize) {
+                    break;
+                }
+            }
+            long heartbeatAt = System.nanoTime();
+            subscriptions.forEach(subscription -> subscription.heartbeat(heartbeatAt));
+        } catch (RuntimeException e) {
+            // ошибка чтения журнала не должна останавливать периодическую рассылку
+            System.out.println("Рассылка журнала изменений не удалась: " + e.getMessage());
+        }
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        /** Курсор последней записи, поставленной в очередь; меняется только потоком чтения журнала. */
+        private volatile long cursor;
+        private volatile long lastSentAt = System.nanoTime();
+        /** Начало текущей отправки или 0, если отправки нет. */
+        private volatile long sendStartedAt;
+
+        private Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        private void enqueue(List<UserChangeDto> changes) {
+            for (UserChangeDto change : changes) {
+                if (change.getCursor() <= cursor) {
+                    continue;
+                }
+                if (!queue.offer(SseEmitter.event()
+                        .id(Long.toString(change.getCursor()))
+                        .name(change.getType())
+                        .data(change, MediaType.APPLICATION_JSON))) {
+                    System.out.println("Подписчик журнала изменений отстал на " + queue.size()
+                            + " событий и отключён");
+                    drop();
+                    return;
+                }
+                cursor = change.getCursor();
+            }
+            startSending();
+        }
+
+        private void heartbeat(long now) {
+            if (now - lastSentAt >= heartbeatNanos && queue.isEmpty()
+                    && queue.offer(SseEmitter.event().comment("keepalive"))) {
+                startSending();
+            }
+        }
+
+        private void dropIfStalled(long now) {
+            long startedAt = sendStartedAt;
+            if (startedAt != 0 && now - startedAt > writeTimeoutNanos) {
+                System.out.println("Отправка подписчику журнала изменений не завершилась за "
+                        + Duration.ofNanos(writeTimeoutNanos) + ", подписчик отключён");
+                drop();
+            }
+        }
+
+        /**
+         * Запускает отправку очереди, если она ещё не идёт: в каждый момент очередь отправляет один поток.
+         */
+        private void startSending() {
+            if (queue.isEmpty() || dropped.get() || !sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+            }
+        }
+
+        private void send() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!dropped.get() && (event = queue.poll()) != null) {
+                    sendStartedAt = System.nanoTime();
+                    emitter.send(event);
+                    lastSentAt = System.nanoTime();
+                    sendStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop();
+            } finally {
+                sendStartedAt = 0;
+                sending.set(false);
+            }
+            // событие могло встать в очередь после опустошения очереди, но до снятия признака отправки
+            startSending();
+        }
+
+        /**
+         * Отключает подписчика. Поток закрывается в потоке отправки: если запись в соединение зависла,
+         * закрытие ждёт её вместе с ним, а не задерживает чтение журнала.
+         */
+        private void drop() {
+            if (!dropped.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.remove(this);
+            queue.clear();
+            try {
+                senders.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.userservice.service;
+
+import org.example.userservice.dto.UserChangeDto;
+import org.example.userservice.dto.UserChangePage;
+import org.example.userservice.entity.UserChangeType;
+import org.example.userservice.entity.UserEntity;
+
+import java.util.List;
+
+/**
+ * Журнал изменений пользователей с монотонно возрастающим курсором.
+ * Позволяет потребителям поддерживать локальную копию пользователей,
+ * получая только изменения после известного им курсора.
+ */
+public interface UserChangeLog {
+
+    /**
+     * Добавляет запись в журнал.
+     * Должен вызываться в транзакции изменения пользователя, чтобы запись журнала
+     * была зафиксирована вместе с изменением.
+     *
+     * @param type тип изменения
+     * @param user пользователь после изменения, для удаления — последнее состояние
+     */
+    void append(UserChangeType type, UserEntity user);
+
+    /**
+     * Получение изменений после курсора.
+     *
+     * @param cursor курсор, после которого нужны изменения; 0 — с начала журнала
+     * @param limit максимальное количество записей
+     * @return изменения в порядке возрастания курсора
+     */
+    List<UserChangeDto> readAfter(long cursor, int limit);
+
+    /**
+     * Получение страницы изменений после курсора.
+     *
+     * @param cursor курсор, после которого нужны изменения; 0 — с начала журнала
+     * @param limit размер страницы, ограничивается сверху {@code user.changes.max-page-size}
+     * @return страница изменений
+     */
+    UserChangePage page(long cursor, int limit);
+}
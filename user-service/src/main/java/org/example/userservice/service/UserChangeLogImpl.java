@@ -0,0 +1,115 @@
+package org.example.userservice.service;
+
+import org.example.userservice.dto.UserChangeDto;
+import org.example.userservice.dto.UserChangePage;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.entity.UserChangeEntity;
+import org.example.userservice.entity.UserChangeSequenceEntity;
+import org.example.userservice.entity.UserChangeType;
+import org.example.userservice.entity.UserEntity;
+import org.example.userservice.repository.UserChangeRepository;
+import org.example.userservice.repository.UserChangeSequenceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Реализация {@link UserChangeLog} в таблице {@code user_changes}.
+ *
+ * Курсор записи выдаётся счётчиком {@link UserChangeSequenceEntity}, строка которого блокируется
+ * до фиксации транзакции. Пока одна транзакция не зафиксирована, следующая ждёт счётчик,
+ * поэтому записи становятся видимыми строго по возрастанию курсора и читатель не пропускает
+ * записи, зафиксированные позже записей с большим курсором. Блокировка берётся последним
+ * действием транзакции и удерживается только на время вставки записи и фиксации.
+ */
+@Service
+public class UserChangeLogImpl implements UserChangeLog {
+
+    private final UserChangeRepository changeRepository;
+    private final UserChangeSequenceRepository sequenceRepository;
+    private final ApplicationEventPublisher events;
+    private final int maxPageSize;
+
+    public UserChangeLogImpl(UserChangeRepository changeRepository,
+                             UserChangeSequenceRepository sequenceRepository,
+                             ApplicationEventPublisher events,
+                             @Value("${user.changes.max-page-size:1000}") int maxPageSize) {
+        this.changeRepository = changeRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.events = events;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Создаёт строку счётчика, если её ещё нет, продолжая нумерацию после последней записи журнала.
+     * Если несколько экземпляров сервиса стартуют одновременно, строку создаёт один из них.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initSequence() {
+        if (sequenceRepository.existsById(UserChangeSequenceEntity.ID)) {
+            return;
+        }
+        long last = changeRepository.findTopByOrderByIdDesc().map(UserChangeEntity::getId).orElse(0L);
+        try {
+            sequenceRepository.saveAndFlush(new UserChangeSequenceEntity(UserChangeSequenceEntity.ID, last));
+        } catch (DataIntegrityViolationException e) {
+            // строку уже создал другой экземпляр
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(UserChangeType type, UserEntity user) {
+        UserChangeSequenceEntity sequence = sequenceRepository.lockById(UserChangeSequenceEntity.ID)
+                .orElseThrow(() -> new IllegalStateException("Счётчик журнала изменений не инициализирован"));
+        long cursor = sequence.next();
+
+        changeRepository.save(new UserChangeEntity(cursor, type, user));
+        events.publishEvent(new UserChangeAppendedEvent(cursor));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserChangeDto> readAfter(long cursor, int limit) {
+        return changeRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limit))
+                .stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserChangePage page(long cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        List<UserChangeDto> changes = readAfter(cursor, size + 1);
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = changes.subList(0, size);
+        }
+        long nextCursor = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getCursor();
+
+        return new UserChangePage(changes, nextCursor, hasMore);
+    }
+
+    private UserChangeDto toDto(UserChangeEntity change) {
+        UserDto user = new UserDto(
+                change.getUserId(),
+                change.getName(),
+                change.getEmail(),
+                change.getAge(),
+                change.getUserCreatedAt()
+        );
+
+        return new UserChangeDto(change.getId(), change.getType().name().toLowerCase(Locale.ROOT), user,
+                change.getChangedAt());
+    }
+}
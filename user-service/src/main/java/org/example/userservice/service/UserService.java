@@ -1,5 +1,6 @@
 package org.example.userservice.service;
 
+import org.example.userservice.dto.UserBatchDto;
 import org.example.userservice.dto.UserDto;
 
 import java.util.List;
@@ -26,6 +27,14 @@ public interface UserService {
      */
     UserDto getUserById(int id);
 
+    /**
+     * Получение пользователей по списку id одним запросом к базе.
+     *
+     * @param ids идентификаторы пользователей
+     * @return найденные пользователи в порядке запроса и идентификаторы ненайденных
+     */
+    UserBatchDto getUsersByIds(List<Integer> ids);
+
     /**
      * Получение всех пользователей.
      *
@@ -1,13 +1,30 @@
 package org.example.userservice.service;
 
+import io.micrometer.core.annotation.Timed;
+import org.example.userservice.dto.UserBatchDto;
 import org.example.userservice.dto.UserDto;
+import org.example.userservice.entity.UserChangeType;
 import org.example.userservice.entity.UserEntity;
 import org.example.userservice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -15,35 +32,95 @@ import java.util.stream.Collectors;
  * Отвечает за бизнес-логику приложения, связанную с CRUD операциями над пользователями.
  * Работает с {@link UserRepository}.
  * Выполняет валидацию данных и преобразует данные между {@link UserEntity} и {@link UserDto}.
+ * Время выполнения каждого метода публикуется в метрику {@code user.service} с тегом {@code method}
+ * и записывается JFR-событием {@link org.example.userservice.jfr.UserOperationEvent}.
+ * Каждое изменение записывается в {@link UserChangeLog} в той же транзакции, что и само изменение,
+ * и учитывается в {@link UserStatistics} после фиксации транзакции. Уведомления в Kafka тоже отправляются
+ * только после фиксации: откаченное изменение не должно порождать писем.
+ *
+ * Удаление задаётся свойством {@code user.delete.mode}: {@code hard} (по умолчанию) удаляет строку
+ * и отправляет уведомление после фиксации, {@code soft} только помечает пользователя удалённым, а строку
+ * и уведомление оставляет {@link DeletedUserPurge}. Email помеченного пользователя освобождается,
+ * как только его занимает новый пользователь: помеченная строка удаляется в той же транзакции.
+ *
+ * Перед созданием пользователя email проверяется по {@link EmailIndex}, и занятый email отклоняется
+ * с 409 ещё до открытия транзакции, поэтому транзакция создания открывается через {@link TransactionTemplate}.
+ * Повтор, который индекс пропустил, находит ограничение уникальности ({@link EmailConstraint}), и он тоже
+ * отклоняется с 409; нарушения других ограничений передаются дальше как есть.
  */
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final NotificationProducer notificationProducer;
+    private final UserChangeLog changeLog;
+    private final UserStatistics statistics;
+    private final DeletedUserPurge purge;
+    private final EmailIndex emailIndex;
+    private final TransactionTemplate transaction;
+    private final boolean softDelete;
+    private final int maxLookupIds;
 
     public UserServiceImpl(UserRepository userRepository,
-                           NotificationProducer notificationProducer) {
+                           NotificationProducer notificationProducer,
+                           UserChangeLog changeLog,
+                           UserStatistics statistics,
+                           DeletedUserPurge purge,
+                           EmailIndex emailIndex,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${user.delete.mode:hard}") String deleteMode,
+                           @Value("${user.lookup.max-ids:1000}") int maxLookupIds) {
         this.userRepository = userRepository;
         this.notificationProducer = notificationProducer;
+        this.changeLog = changeLog;
+        this.statistics = statistics;
+        this.purge = purge;
+        this.emailIndex = emailIndex;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.softDelete = switch (deleteMode.toLowerCase(Locale.ROOT)) {
+            case "hard" -> false;
+            case "soft" -> true;
+            default -> throw new IllegalArgumentException("Неизвестный режим удаления пользователей: " + deleteMode
+                    + ", допустимые: hard, soft");
+        };
+        this.maxLookupIds = maxLookupIds;
     }
 
     @Override
     public UserDto createUser(UserDto userDto) {
+        emailIndex.checkAvailable(userDto.getEmail());
+        try {
+            return transaction.execute(status -> insertUser(userDto));
+        } catch (DataIntegrityViolationException e) {
+            if (!EmailConstraint.isViolatedBy(e)) {
+                throw e;
+            }
+            emailIndex.missed(userDto.getEmail());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email " + userDto.getEmail() + " уже занят", e);
+        }
+    }
+
+    private UserDto insertUser(UserDto userDto) {
         UserEntity userEntity = new UserEntity(
                 userDto.getName(),
                 userDto.getEmail(),
                 userDto.getAge()
         );
 
+        releaseDeletedEmail(userEntity.getEmail());
         UserEntity savedUserEntity = userRepository.save(userEntity);
+        emailIndex.add(savedUserEntity.getEmail());
 
-        notificationProducer.sendUserCreatedNotification(savedUserEntity.getEmail());
+        afterCommit(() -> notificationProducer.sendUserCreatedNotification(savedUserEntity.getEmail()));
+        changeLog.append(UserChangeType.CREATED, savedUserEntity);
+        statistics.userCreated(savedUserEntity);
 
         return toDto(savedUserEntity);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUserById(int id) {
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(
@@ -55,6 +132,35 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public UserBatchDto getUsersByIds(List<Integer> ids) {
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > maxLookupIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "За один запрос можно получить не больше " + maxLookupIds + " пользователей");
+        }
+
+        Map<Integer, UserEntity> found = requested.isEmpty()
+                ? Map.of()
+                : userRepository.findAllByIdIn(requested).stream()
+                        .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requested) {
+            UserEntity user = found.get(id);
+            if (user != null) {
+                users.add(toDto(user));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new UserBatchDto(users, missing);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
         return userRepository.findAll()
                 .stream()
@@ -63,23 +169,32 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto updateUser(int id, UserDto userDto) {
         UserEntity existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND,
                         "Пользователь с ID " + id + " не найден"
                 ));
+        int previousAge = existingUser.getAge();
+        if (!existingUser.getEmail().equals(userDto.getEmail())) {
+            releaseDeletedEmail(userDto.getEmail());
+        }
 
         existingUser.setName(userDto.getName());
         existingUser.setEmail(userDto.getEmail());
         existingUser.setAge(userDto.getAge());
 
         UserEntity updatedUserEntity = userRepository.save(existingUser);
+        emailIndex.add(updatedUserEntity.getEmail());
+        changeLog.append(UserChangeType.UPDATED, updatedUserEntity);
+        statistics.userUpdated(previousAge, updatedUserEntity);
 
         return toDto(updatedUserEntity);
     }
 
     @Override
+    @Transactional
     public void deleteUser(int id) {
         UserEntity user = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(
@@ -87,9 +202,39 @@ public class UserServiceImpl implements UserService {
                         "Пользователь с ID " + id + " не найден"
                 ));
 
-        userRepository.deleteById(id);
+        if (softDelete) {
+            userRepository.markDeleted(id, LocalDateTime.now());
+            purge.userDeleted(id);
+        } else {
+            userRepository.deleteById(id);
+            afterCommit(() -> notificationProducer.sendUserDeletedNotification(user.getEmail()));
+        }
+        changeLog.append(UserChangeType.DELETED, user);
+        statistics.userDeleted(user);
+    }
+
+    /**
+     * Удаляет помеченного удалённым пользователя с этим email. Уведомление о его удалении ещё
+     * не отправлено и отправляется после фиксации; оно зарегистрировано раньше уведомлений
+     * нового владельца email и поэтому опережает их.
+     */
+    private void releaseDeletedEmail(String email) {
+        if (userRepository.purgeDeletedByEmail(email) > 0) {
+            afterCommit(() -> notificationProducer.sendUserDeletedNotification(email));
+        }
+    }
 
-        notificationProducer.sendUserDeletedNotification(user.getEmail());
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private UserDto toDto(UserEntity userEntity) {
@@ -0,0 +1,229 @@
+package org.example.userservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.dto.UserStatsDto;
+import org.example.userservice.entity.UserEntity;
+import org.example.userservice.repository.UserRepository;
+import org.example.userservice.shard.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Статистика пользователей, которая хранится в памяти и обновляется при каждом изменении,
+ * поэтому её чтение не зависит от размера таблицы.
+ *
+ * При старте статистика пересчитывается агрегирующими запросами к базе. {@link UserServiceImpl}
+ * сообщает о каждом создании, обновлении и удалении, изменение применяется после фиксации транзакции.
+ * Изменения, сделанные другими экземплярами сервиса, и изменения, зафиксированные во время пересчёта,
+ * попадают в статистику при следующем пересчёте через {@code user.stats.refresh-interval}.
+ *
+ * При шардировании агрегирующие запросы выполняются на всех шардах параллельно и суммируются.
+ */
+@Service
+public class UserStatistics {
+
+    private static final int[] AGE_GROUP_STARTS = {0, 18, 25, 35, 45, 55, 65};
+    private static final String[] AGE_GROUPS = {"0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"};
+
+    private final UserRepository userRepository;
+    private final UserShards shards;
+    private final DefaultTransactionDefinition snapshotTransaction = new DefaultTransactionDefinition();
+    private final Duration refreshInterval;
+    private final int maxDays;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-stats-refresh").daemon().factory());
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile Aggregates aggregates = new Aggregates(null);
+
+    public UserStatistics(UserRepository userRepository,
+                          UserShards shards,
+                          @Value("${user.stats.refresh-interval:10m}") Duration refreshInterval,
+                          @Value("${user.stats.max-days:366}") int maxDays) {
+        this.userRepository = userRepository;
+        this.shards = shards;
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.refreshInterval = refreshInterval;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Пересчитывает статистику при старте и планирует периодический пересчёт.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        if (!refreshInterval.isZero()) {
+            refresher.scheduleWithFixedDelay(this::rebuild, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Пересчитывает статистику по базе и заменяет ею текущую.
+     * Оба агрегирующих запроса читают один снимок шарда, поэтому итоги по возрасту и по дням согласованы.
+     */
+    public void rebuild() {
+        try {
+            Aggregates rebuilt = new Aggregates(Instant.now());
+            shards.onEachShard(snapshotTransaction, shard -> {
+                for (UserRepository.AgeCount count : userRepository.countByAge()) {
+                    rebuilt.add(count.getAge(), null, count.getUsers());
+                }
+                for (UserRepository.DayCount count : userRepository.countByCreationDay()) {
+                    rebuilt.signups.computeIfAbsent(count.getDay(), key -> new AtomicLong())
+                            .addAndGet(count.getUsers());
+                }
+                return null;
+            });
+            aggregates = rebuilt;
+        } catch (RuntimeException e) {
+            // до следующего пересчёта продолжаем работать с текущей статистикой
+            System.out.println("Пересчёт статистики пользователей не удался: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Планирует пересчёт статистики в потоке периодического пересчёта и сразу возвращает управление,
+     * например после массового импорта. Запросы, поступившие до начала пересчёта, объединяются в один.
+     */
+    public void requestRebuild() {
+        if (!rebuildRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                rebuildRequested.set(false);
+                rebuild();
+            });
+        } catch (RejectedExecutionException e) {
+            // сервис останавливается, пересчитывать уже незачем
+        }
+    }
+
+    public void userCreated(UserEntity user) {
+        int age = user.getAge();
+        LocalDate day = signupDay(user.getCreatedAt());
+        afterCommit(() -> aggregates.add(age, day, 1));
+    }
+
+    public void userUpdated(int previousAge, UserEntity user) {
+        int age = user.getAge();
+        if (age != previousAge) {
+            afterCommit(() -> aggregates.changeAge(previousAge, age));
+        }
+    }
+
+    public void userDeleted(UserEntity user) {
+        int age = user.getAge();
+        // пользователи без даты создания не учитываются в регистрациях и при пересчёте
+        LocalDate day = user.getCreatedAt() != null ? user.getCreatedAt().toLocalDate() : null;
+        afterCommit(() -> aggregates.add(age, day, -1));
+    }
+
+    /**
+     * Текущая статистика.
+     *
+     * @param days за сколько последних дней вернуть регистрации, ограничивается {@code user.stats.max-days}
+     * @return статистика пользователей
+     */
+    public UserStatsDto snapshot(int days) {
+        Aggregates current = aggregates;
+        long total = current.total.get();
+
+        Map<String, Long> ageDistribution = new LinkedHashMap<>();
+        for (int group = 0; group < AGE_GROUPS.length; group++) {
+            ageDistribution.put(AGE_GROUPS[group], current.ageGroups.get(group));
+        }
+
+        Map<LocalDate, Long> signupsPerDay = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int ago = Math.max(1, Math.min(days, maxDays)) - 1; ago >= 0; ago--) {
+            LocalDate day = today.minusDays(ago);
+            AtomicLong signups = current.signups.get(day);
+            signupsPerDay.put(day, signups != null ? signups.get() : 0);
+        }
+
+        double averageAge = total > 0 ? (double) current.ageSum.get() / total : 0;
+        return new UserStatsDto(total, averageAge, ageDistribution, signupsPerDay, current.rebuiltAt);
+    }
+
+    private static LocalDate signupDay(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.toLocalDate() : LocalDate.now();
+    }
+
+    private static int ageGroup(int age) {
+        int group = AGE_GROUP_STARTS.length - 1;
+        while (group > 0 && age < AGE_GROUP_STARTS[group]) {
+            group--;
+        }
+        return group;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static final class Aggregates {
+
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong ageSum = new AtomicLong();
+        private final AtomicLongArray ageGroups = new AtomicLongArray(AGE_GROUPS.length);
+        private final Map<LocalDate, AtomicLong> signups = new ConcurrentHashMap<>();
+        private final Instant rebuiltAt;
+
+        private Aggregates(Instant rebuiltAt) {
+            this.rebuiltAt = rebuiltAt;
+        }
+
+        private void add(int age, LocalDate day, long users) {
+            total.addAndGet(users);
+            ageSum.addAndGet((long) age * users);
+            ageGroups.addAndGet(ageGroup(age), users);
+            if (day != null) {
+                signups.computeIfAbsent(day, key -> new AtomicLong()).addAndGet(users);
+            }
+        }
+
+        private void changeAge(int from, int to) {
+            ageSum.addAndGet(to - from);
+            ageGroups.decrementAndGet(ageGroup(from));
+            ageGroups.incrementAndGet(ageGroup(to));
+        }
+    }
+}
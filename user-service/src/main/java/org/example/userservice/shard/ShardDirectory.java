@@ -0,0 +1,333 @@
+package org.example.userservice.shard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.userservice.config.ShardingProperties;
+import org.example.userservice.datasource.ShardContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Справочник шардирования на шарде 0.
+ *
+ * Пользователь попадает в бакет по хешу своего ID ({@link #bucketOf(int, int)}), бакет закреплён
+ * за шардом в таблице {@code user_shard_buckets}. ID выдаются общей для всех шардов последовательностью
+ * {@code user_ids}, а таблица {@code user_emails} связывает email с ID пользователя: по ней email
+ * находится без обхода шардов, а её первичный ключ обеспечивает уникальность email между шардами.
+ *
+ * Распределение бакетов кэшируется в памяти и перечитывается раз в {@code user.sharding.refresh-interval}.
+ * Изменяющие операции блокируют строку бакета ({@link #lockBucket(int)}), перенос бакета на другой шард
+ * ({@link #lockBucketForMove(int)}) ждёт их завершения и не пускает новые, поэтому запись всегда идёт
+ * на актуальный шард независимо от кэша.
+ *
+ * При первом запуске с шардами создаются таблицы справочника и таблица {@code users} на дополнительных
+ * шардах. Если на шарде 0 уже есть пользователи, все бакеты закрепляются за ним, а справочник email
+ * заполняется по существующим пользователям; распределить их по шардам можно перебалансировкой
+ * ({@link ShardRebalancer#rebalance()}).
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "user.sharding.shards[0].url")
+public class ShardDirectory {
+
+    /**
+     * Ключ advisory-блокировки, под которой экземпляры сервиса по очереди создают таблицы справочника.
+     */
+    private static final long SCHEMA_LOCK = 0x7573657273686172L;
+
+    /**
+     * Множитель хеша ID: тот же хеш вычисляется в SQL при переносе бакета.
+     */
+    private static final long HASH_MULTIPLIER = 2654435761L;
+    private static final long HASH_MODULUS = 1L << 32;
+
+    /**
+     * Бакет пользователя в SQL, число бакетов передаётся параметром.
+     */
+    static final String BUCKET_OF_ID = "(id::bigint * " + HASH_MULTIPLIER + ") % " + HASH_MODULUS + " % ?";
+
+    private static final String LOCK_SCHEMA = "SELECT pg_advisory_xact_lock(" + SCHEMA_LOCK + ")";
+    private static final String CREATE_SHARD_USERS = """
+            CREATE TABLE IF NOT EXISTS users (
+                id integer PRIMARY KEY,
+                name varchar(255),
+                email varchar(255) NOT NULL UNIQUE,
+                age integer NOT NULL,
+                created_at timestamp(6),
+                deleted_at timestamp(6)
+            )""";
+    // таблицы шардов, созданные до появления пометки удаления
+    private static final String ADD_SHARD_DELETED_AT =
+            "ALTER TABLE users ADD COLUMN IF NOT EXISTS deleted_at timestamp(6)";
+    private static final String CREATE_BUCKETS = """
+            CREATE TABLE IF NOT EXISTS user_shard_buckets (
+                bucket integer PRIMARY KEY,
+                shard integer NOT NULL
+            )""";
+    private static final String CREATE_EMAILS = """
+            CREATE TABLE IF NOT EXISTS user_emails (
+                email varchar(255) PRIMARY KEY,
+                user_id integer NOT NULL
+            )""";
+    private static final String CREATE_ID_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS user_ids AS integer";
+    private static final String MAX_USER_ID = "SELECT coalesce(max(id), 0) FROM users";
+    private static final String COUNT_USERS = "SELECT count(*) FROM users";
+    private static final String COUNT_BUCKETS = "SELECT count(*) FROM user_shard_buckets";
+    private static final String INSERT_BUCKET = "INSERT INTO user_shard_buckets (bucket, shard) VALUES (?, ?)";
+    private static final String FILL_EMAILS =
+            "INSERT INTO user_emails (email, user_id) SELECT email, id FROM users ON CONFLICT DO NOTHING";
+    // при одновременном старте экземпляров значение только растёт: все они ждут SCHEMA_LOCK
+    private static final String ADVANCE_ID_SEQUENCE =
+            "SELECT setval('user_ids', greatest(?, (SELECT last_value FROM user_ids), 1))";
+    private static final String SELECT_ASSIGNMENT = "SELECT bucket, shard FROM user_shard_buckets";
+    private static final String LOCK_ASSIGNMENT = SELECT_ASSIGNMENT + " FOR SHARE";
+    private static final String SELECT_SHARD = "SELECT shard FROM user_shard_buckets WHERE bucket = ?";
+    private static final String LOCK_BUCKET_SHARED = SELECT_SHARD + " FOR SHARE";
+    private static final String LOCK_BUCKET_EXCLUSIVE = SELECT_SHARD + " FOR UPDATE";
+    private static final String UPDATE_BUCKET = "UPDATE user_shard_buckets SET shard = ? WHERE bucket = ?";
+    private static final String NEXT_USER_ID = "SELECT nextval('user_ids')";
+    private static final String CLAIM_EMAIL =
+            "INSERT INTO user_emails (email, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+    private static final String RELEASE_EMAIL = "DELETE FROM user_emails WHERE email = ? AND user_id = ?";
+
+    private final UserShards shards;
+    private final JdbcTemplate jdbc;
+    private final int buckets;
+    private final Duration refreshInterval;
+    private final AtomicIntegerArray assignment;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-shard-refresh").daemon().factory());
+
+    public ShardDirectory(UserShards shards, JdbcTemplate jdbc, ShardingProperties properties) {
+        this.shards = shards;
+        this.jdbc = jdbc;
+        this.buckets = properties.getBuckets();
+        this.refreshInterval = properties.getRefreshInterval();
+        this.assignment = new AtomicIntegerArray(buckets);
+    }
+
+    /**
+     * Готовит таблицы на всех шардах, загружает распределение бакетов и планирует его перечитывание.
+     */
+    @PostConstruct
+    public void init() {
+        for (int shard = 1; shard < shards.count(); shard++) {
+            shards.inShard(shard, UserShards.READ_WRITE, status -> {
+                jdbc.execute(LOCK_SCHEMA);
+                jdbc.execute(CREATE_SHARD_USERS);
+                jdbc.execute(ADD_SHARD_DELETED_AT);
+                return null;
+            });
+        }
+        long maxUserId = shards.onEachShard(UserShards.READ_ONLY,
+                        shard -> jdbc.queryForObject(MAX_USER_ID, Long.class))
+                .stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0);
+
+        shards.inShard(0, UserShards.READ_WRITE, status -> {
+            jdbc.execute(LOCK_SCHEMA);
+            jdbc.execute(CREATE_BUCKETS);
+            jdbc.execute(CREATE_EMAILS);
+            jdbc.execute(CREATE_ID_SEQUENCE);
+            int stored = jdbc.queryForObject(COUNT_BUCKETS, Integer.class);
+            if (stored == 0) {
+                boolean existingUsers = jdbc.queryForObject(COUNT_USERS, Long.class) > 0;
+                List<Object[]> rows = new ArrayList<>(buckets);
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    rows.add(new Object[]{bucket, existingUsers ? 0 : bucket % shards.count()});
+                }
+                jdbc.batchUpdate(INSERT_BUCKET, rows);
+                jdbc.update(FILL_EMAILS);
+            } else if (stored != buckets) {
+                throw new IllegalStateException("В справочнике шардирования " + stored
+                        + " бакетов, а в user.sharding.buckets указано " + buckets
+                        + ": число бакетов нельзя менять после первого запуска");
+            }
+            jdbc.queryForObject(ADVANCE_ID_SEQUENCE, Long.class, maxUserId);
+            return null;
+        });
+
+        refresh();
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Бакет пользователя: хеш ID по модулю числа бакетов. В SQL вычисляется выражением
+     * {@code (id::bigint * 2654435761) % 4294967296 % buckets}.
+     */
+    public static int bucketOf(int userId, int buckets) {
+        return (int) Math.floorMod(userId * HASH_MULTIPLIER % HASH_MODULUS, (long) buckets);
+    }
+
+    public int bucketOf(int userId) {
+        return bucketOf(userId, buckets);
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Шард пользователя по кэшу распределения бакетов. Подходит для чтения: если бакет только что
+     * перенесён, пользователь может не найтись, тогда шард уточняется через {@link #currentShardOf(int)}.
+     */
+    public int shardOf(int userId) {
+        return assignment.get(bucketOf(userId));
+    }
+
+    /**
+     * Шард пользователя по справочнику в базе; кэш обновляется.
+     */
+    public int currentShardOf(int userId) {
+        int bucket = bucketOf(userId);
+        int shard = shards.inShard(0, UserShards.READ_ONLY,
+                status -> jdbc.queryForObject(SELECT_SHARD, Integer.class, bucket));
+        assignment.set(bucket, shard);
+        return shard;
+    }
+
+    /**
+     * Распределение бакетов по кэшу.
+     *
+     * @return номер шарда для каждого бакета
+     */
+    public int[] assignment() {
+        int[] copy = new int[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            copy[bucket] = assignment.get(bucket);
+        }
+        return copy;
+    }
+
+    /**
+     * Условие SQL «пользователь из бакета, закреплённого за шардом» по кэшу распределения
+     * для запросов без параметров, например {@code COPY}.
+     */
+    public String ownedBy(int shard) {
+        int[] current = assignment();
+        StringJoiner owned = new StringJoiner(",", "'{", "}'::int[]");
+        for (int bucket = 0; bucket < current.length; bucket++) {
+            if (current[bucket] == shard) {
+                owned.add(Integer.toString(bucket));
+            }
+        }
+        return BUCKET_OF_ID.replace("?", Integer.toString(buckets)) + " = ANY (" + owned + ")";
+    }
+
+    /**
+     * Блокирует бакет пользователя от переноса до конца транзакции справочника.
+     *
+     * @return шард, на котором сейчас хранится пользователь
+     */
+    public int lockBucket(int userId) {
+        requireDirectoryTransaction();
+        int bucket = bucketOf(userId);
+        int shard = jdbc.queryForObject(LOCK_BUCKET_SHARED, Integer.class, bucket);
+        assignment.set(bucket, shard);
+        return shard;
+    }
+
+    /**
+     * Блокирует бакет для переноса: ждёт завершения начатых изменений его пользователей
+     * и не пускает новые до конца транзакции справочника.
+     *
+     * @return шард, на котором сейчас хранится бакет
+     */
+    public int lockBucketForMove(int bucket) {
+        requireDirectoryTransaction();
+        return jdbc.queryForObject(LOCK_BUCKET_EXCLUSIVE, Integer.class, bucket);
+    }
+
+    /**
+     * Блокирует все бакеты от переноса до конца транзакции справочника; изменения пользователей не блокируются.
+     *
+     * @return номер шарда для каждого бакета
+     */
+    public int[] lockAssignment() {
+        requireDirectoryTransaction();
+        int[] locked = new int[buckets];
+        jdbc.query(LOCK_ASSIGNMENT, row -> {
+            locked[row.getInt(1)] = row.getInt(2);
+        });
+        return locked;
+    }
+
+    /**
+     * Закрепляет бакет за шардом. Кэш не меняется: после фиксации его обновляет {@link #refresh()}.
+     */
+    public void assign(int bucket, int shard) {
+        requireDirectoryTransaction();
+        jdbc.update(UPDATE_BUCKET, shard, bucket);
+    }
+
+    public int nextUserId() {
+        requireDirectoryTransaction();
+        return jdbc.queryForObject(NEXT_USER_ID, Integer.class);
+    }
+
+    /**
+     * Закрепляет email за пользователем.
+     *
+     * @return {@code false}, если email уже занят
+     */
+    public boolean claimEmail(String email, int userId) {
+        requireDirectoryTransaction();
+        return jdbc.update(CLAIM_EMAIL, email, userId) == 1;
+    }
+
+    public void releaseEmail(String email, int userId) {
+        requireDirectoryTransaction();
+        jdbc.update(RELEASE_EMAIL, email, userId);
+    }
+
+    /**
+     * Перечитывает распределение бакетов из базы.
+     */
+    public void refresh() {
+        shards.inShard(0, UserShards.READ_ONLY, status -> {
+            jdbc.query(SELECT_ASSIGNMENT, row -> {
+                assignment.set(row.getInt(1), row.getInt(2));
+            });
+            return null;
+        });
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // до следующей попытки работаем с текущим распределением
+            System.out.println("Не удалось перечитать распределение бакетов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Изменения справочника выполняются в транзакции на шарде 0: иначе запрос уйдёт на шард,
+     * выбранный для текущего потока, или выполнится вне транзакции.
+     */
+    private static void requireDirectoryTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || ShardContext.current() != 0) {
+            throw new IllegalStateException("Справочник шардирования изменяется только в транзакции на шарде 0");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.userservice.shard;
+
+import org.example.userservice.dto.UserShardDto;
+import org.example.userservice.dto.UserShardMoveDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перенос пользователей между шардами.
+ *
+ * Пользователи переносятся бакетами. Бакет блокируется в справочнике, что дожидается начатых изменений
+ * его пользователей и задерживает новые до конца переноса, затем пользователи бакета копируются на новый
+ * шард, и бакет закрепляется за ним. Чтение во время переноса идёт со старого шарда. Копии на старом шарде
+ * удаляются после фиксации справочника; если удаление не удалось, они не видны в списке пользователей
+ * и удаляются при следующей перебалансировке.
+ *
+ * Перебалансировка выравнивает число бакетов на шардах, перенося как можно меньше бакетов,
+ * поэтому после добавления шарда в {@code user.sharding.shards} на него переезжает только его доля.
+ */
+@Service
+@ConditionalOnProperty(name = "user.sharding.shards[0].url")
+public class ShardRebalancer {
+
+    private static final String COUNT_OWN_USERS =
+            "SELECT count(*) FROM users WHERE deleted_at IS NULL AND "
+                    + ShardDirectory.BUCKET_OF_ID + " = ANY (?)";
+    private static final String SELECT_BUCKET_USERS =
+            "SELECT id, name, email, age, created_at, deleted_at FROM users WHERE "
+                    + ShardDirectory.BUCKET_OF_ID + " = ?";
+    private static final String UPSERT_USER = """
+            INSERT INTO users (id, name, email, age, created_at, deleted_at) VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE
+            SET name = excluded.name, email = excluded.email, age = excluded.age, created_at = excluded.created_at,
+                deleted_at = excluded.deleted_at""";
+    private static final String DELETE_BUCKET_USERS =
+            "DELETE FROM users WHERE " + ShardDirectory.BUCKET_OF_ID + " = ?";
+    private static final String DELETE_FOREIGN_USERS =
+            "DELETE FROM users WHERE NOT (" + ShardDirectory.BUCKET_OF_ID + " = ANY (?))";
+
+    private final UserShards shards;
+    private final ShardDirectory directory;
+    private final JdbcTemplate jdbc;
+
+    public ShardRebalancer(UserShards shards, ShardDirectory directory, JdbcTemplate jdbc) {
+        this.shards = shards;
+        this.directory = directory;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * @return число бакетов и пользователей на каждом шарде
+     */
+    public List<UserShardDto> status() {
+        directory.refresh();
+        int[] assignment = directory.assignment();
+        List<Long> users = shards.onEachShard(UserShards.READ_ONLY, shard ->
+                jdbc.queryForObject(COUNT_OWN_USERS, Long.class, directory.buckets(), owned(assignment, shard)));
+
+        List<UserShardDto> status = new ArrayList<>(shards.count());
+        for (int shard = 0; shard < shards.count(); shard++) {
+            status.add(new UserShardDto(shard, owned(assignment, shard).length, users.get(shard)));
+        }
+        return status;
+    }
+
+    /**
+     * Переносит бакет на шард.
+     *
+     * @param bucket номер бакета
+     * @param target номер шарда
+     * @return выполненный перенос; если бакет уже на этом шарде, пользователи не переносятся
+     * @throws ResponseStatusException 400 для несуществующего бакета или шарда
+     */
+    public UserShardMoveDto moveBucket(int bucket, int target) {
+        if (bucket < 0 || bucket >= directory.buckets()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Бакет должен быть от 0 до " + (directory.buckets() - 1));
+        }
+        if (target < 0 || target >= shards.count()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Шард должен быть от 0 до " + (shards.count() - 1));
+        }
+
+        UserShardMoveDto move = shards.inShard(0, UserShards.READ_WRITE, status -> {
+            int source = directory.lockBucketForMove(bucket);
+            if (source == target) {
+                return new UserShardMoveDto(bucket, source, target, 0);
+            }
+            List<Object[]> users = shards.inShard(source, UserShards.READ_ONLY, sourceStatus ->
+                    jdbc.query(SELECT_BUCKET_USERS, (row, number) -> new Object[]{
+                            row.getInt(1), row.getString(2), row.getString(3), row.getInt(4), row.getTimestamp(5),
+                            row.getTimestamp(6)
+                    }, directory.buckets(), bucket));
+            shards.inShard(target, UserShards.READ_WRITE, targetStatus -> jdbc.batchUpdate(UPSERT_USER, users));
+            directory.assign(bucket, target);
+            return new UserShardMoveDto(bucket, source, target, users.size());
+        });
+        if (move.getFrom() == move.getTo()) {
+            return move;
+        }
+
+        directory.refresh();
+        try {
+            shards.inShard(move.getFrom(), UserShards.READ_WRITE,
+                    status -> jdbc.update(DELETE_BUCKET_USERS, directory.buckets(), bucket));
+        } catch (RuntimeException e) {
+            System.out.println("Не удалось удалить с шарда " + move.getFrom() + " пользователей бакета " + bucket
+                    + ", они будут удалены при следующей перебалансировке: " + e.getMessage());
+        }
+        return move;
+    }
+
+    /**
+     * Удаляет с шардов копии пользователей из перенесённых бакетов и выравнивает число бакетов на шардах.
+     *
+     * @return выполненные переносы
+     */
+    public List<UserShardMoveDto> rebalance() {
+        int[] assignment = removeForeignUsers();
+
+        int[] owned = new int[shards.count()];
+        for (int shard : assignment) {
+            owned[shard]++;
+        }
+        List<UserShardMoveDto> moves = new ArrayList<>();
+        for (int bucket = 0; bucket < assignment.length; bucket++) {
+            int source = assignment[bucket];
+            if (owned[source] <= quota(source)) {
+                continue;
+            }
+            int target = 0;
+            while (owned[target] >= quota(target)) {
+                target++;
+            }
+            moves.add(moveBucket(bucket, target));
+            owned[source]--;
+            owned[target]++;
+        }
+        return moves;
+    }
+
+    /**
+     * Пока идёт удаление, бакеты не переносятся: иначе можно удалить копии, которые перенос
+     * уже записал на новый шард, но ещё не закрепил за ним бакет.
+     *
+     * @return распределение бакетов, по которому выполнено удаление
+     */
+    private int[] removeForeignUsers() {
+        return shards.inShard(0, UserShards.READ_WRITE, status -> {
+            int[] assignment = directory.lockAssignment();
+            for (int shard = 0; shard < shards.count(); shard++) {
+                Integer[] buckets = owned(assignment, shard);
+                int removed = shards.inShard(shard, UserShards.READ_WRITE,
+                        shardStatus -> jdbc.update(DELETE_FOREIGN_USERS, directory.buckets(), buckets));
+                if (removed > 0) {
+                    System.out.println("С шарда " + shard + " удалены копии " + removed
+                            + " перенесённых пользователей");
+                }
+            }
+            return assignment;
+        });
+    }
+
+    private int quota(int shard) {
+        int buckets = directory.buckets();
+        return buckets / shards.count() + (shard < buckets % shards.count() ? 1 : 0);
+    }
+
+    private static Integer[] owned(int[] assignment, int shard) {
+        List<Integer> buckets = new ArrayList<>();
+        for (int bucket = 0; bucket < assignment.length; bucket++) {
+            if (assignment[bucket] == shard) {
+                buckets.add(bucket);
+            }
+        }
+        return buckets.toArray(new Integer[0]);
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.userservice.shard;
+
+import io.micrometer.core.annotation.Timed;
+import org.example.userservice.dto.UserBatchDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.entity.UserChangeType;
+import org.example.userservice.entity.UserEntity;
+import org.example.userservice.repository.UserRepository;
+import org.example.userservice.service.NotificationProducer;
+import org.example.userservice.service.UserChangeLog;
+import org.example.userservice.service.UserService;
+import org.example.userservice.service.UserStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Реализация {@link UserService} для пользователей, распределённых по шардам.
+ * Заменяет {@code UserServiceImpl}, если заданы дополнительные шарды в {@code user.sharding.shards}.
+ *
+ * Каждое изменение выполняется в транзакции справочника на шарде 0 ({@link ShardDirectory}):
+ * она выдаёт ID, закрепляет email и блокирует бакет пользователя от переноса. Внутри неё строка
+ * пользователя изменяется отдельной транзакцией на его шарде, после чего в транзакцию справочника
+ * записывается журнал изменений. Шард фиксируется первым: если транзакция справочника после этого
+ * не зафиксируется, созданный пользователь удаляется с шарда, а после удаления или смены email
+ * старый email может остаться занятым в справочнике. Уведомления в Kafka отправляются только после
+ * фиксации транзакции справочника.
+ *
+ * Чтение по ID идёт на шард из кэша распределения бакетов, список пользователей и поиск по списку ID
+ * собираются со всех шардов параллельно.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "user.sharding.shards[0].url")
+@Timed(value = "user.service", histogram = true)
+public class ShardedUserService implements UserService {
+
+    private final UserShards shards;
+    private final ShardDirectory directory;
+    private final UserRepository userRepository;
+    private final NotificationProducer notificationProducer;
+    private final UserChangeLog changeLog;
+    private final UserStatistics statistics;
+    private final int maxLookupIds;
+
+    public ShardedUserService(UserShards shards,
+                              ShardDirectory directory,
+                              UserRepository userRepository,
+                              NotificationProducer notificationProducer,
+                              UserChangeLog changeLog,
+                              UserStatistics statistics,
+                              @Value("${user.lookup.max-ids:1000}") int maxLookupIds) {
+        this.shards = shards;
+        this.directory = directory;
+        this.userRepository = userRepository;
+        this.notificationProducer = notificationProducer;
+        this.changeLog = changeLog;
+        this.statistics = statistics;
+        this.maxLookupIds = maxLookupIds;
+    }
+
+    @Override
+    public UserDto createUser(UserDto userDto) {
+        AtomicInteger placedOn = new AtomicInteger(-1);
+        UserEntity user = new UserEntity(userDto.getName(), userDto.getEmail(), userDto.getAge());
+        user.setCreatedAt(LocalDateTime.now());
+        try {
+            shards.inShard(0, UserShards.READ_WRITE, status -> {
+                user.setId(directory.nextUserId());
+                claimEmail(user.getEmail(), user.getId());
+                int shard = directory.lockBucket(user.getId());
+
+                shards.inShard(shard, UserShards.READ_WRITE, shardStatus -> {
+                    userRepository.insertWithId(user.getId(), user.getName(), user.getEmail(), user.getAge(),
+                            user.getCreatedAt());
+                    return null;
+                });
+                placedOn.set(shard);
+
+                afterCommit(() -> notificationProducer.sendUserCreatedNotification(user.getEmail()));
+                changeLog.append(UserChangeType.CREATED, user);
+                statistics.userCreated(user);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (placedOn.get() >= 0) {
+                removeUnregistered(placedOn.get(), user.getId());
+            }
+            throw e;
+        }
+
+        return toDto(user);
+    }
+
+    @Override
+    public UserDto getUserById(int id) {
+        return toDto(findUser(id).orElseThrow(() -> notFound(id)));
+    }
+
+    @Override
+    public UserBatchDto getUsersByIds(List<Integer> ids) {
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > maxLookupIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "За один запрос можно получить не больше " + maxLookupIds + " пользователей");
+        }
+
+        Map<Integer, UserEntity> found = new HashMap<>();
+        int[] queried = directory.assignment();
+        fetch(groupByShard(requested, queried), found);
+        if (found.size() < requested.size()) {
+            // часть пользователей могла переехать вместе с бакетом: ищем их ещё раз по свежему распределению
+            directory.refresh();
+            int[] current = directory.assignment();
+            List<Integer> moved = requested.stream()
+                    .filter(id -> !found.containsKey(id))
+                    .filter(id -> current[directory.bucketOf(id)] != queried[directory.bucketOf(id)])
+                    .toList();
+            fetch(groupByShard(moved, current), found);
+        }
+
+        List<UserDto> users = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requested) {
+            UserEntity user = found.get(id);
+            if (user != null) {
+                users.add(toDto(user));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new UserBatchDto(users, missing);
+    }
+
+    @Override
+    public List<UserDto> getAllUsers() {
+        int[] assignment = directory.assignment();
+        return shards.onEachShard(UserShards.READ_ONLY, shard -> userRepository.findAll().stream()
+                        // строки бакета, перенос которого не дочищен, остаются на старом шарде до перебалансировки
+                        .filter(user -> assignment[directory.bucketOf(user.getId())] == shard)
+                        .toList())
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(UserEntity::getId))
+                .map(this::toDto)
+                .toList();
+    }
+
+    @Override
+    public UserDto updateUser(int id, UserDto userDto) {
+        UserEntity updated = shards.inShard(0, UserShards.READ_WRITE, status -> {
+            int shard = directory.lockBucket(id);
+            UserEntity current = shards.inShard(shard, UserShards.READ_ONLY,
+                    shardStatus -> userRepository.findById(id)).orElseThrow(() -> notFound(id));
+            String previousEmail = current.getEmail();
+            if (!previousEmail.equals(userDto.getEmail())) {
+                claimEmail(userDto.getEmail(), id);
+                directory.releaseEmail(previousEmail, id);
+            }
+
+            int[] previousAge = new int[1];
+            UserEntity saved = shards.inShard(shard, UserShards.READ_WRITE, shardStatus -> {
+                UserEntity user = userRepository.findById(id).orElseThrow(() -> notFound(id));
+                if (!user.getEmail().equals(previousEmail)) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Пользователь с ID " + id + " изменён параллельным запросом, повторите обновление");
+                }
+                previousAge[0] = user.getAge();
+                user.setName(userDto.getName());
+                user.setEmail(userDto.getEmail());
+                user.setAge(userDto.getAge());
+                return userRepository.save(user);
+            });
+
+            changeLog.append(UserChangeType.UPDATED, saved);
+            statistics.userUpdated(previousAge[0], saved);
+            return saved;
+        });
+
+        return toDto(updated);
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        shards.inShard(0, UserShards.READ_WRITE, status -> {
+            int shard = directory.lockBucket(id);
+            UserEntity user = shards.inShard(shard, UserShards.READ_WRITE, shardStatus -> {
+                UserEntity existing = userRepository.findById(id).orElseThrow(() -> notFound(id));
+                userRepository.delete(existing);
+                return existing;
+            });
+            directory.releaseEmail(user.getEmail(), id);
+
+            afterCommit(() -> notificationProducer.sendUserDeletedNotification(user.getEmail()));
+            changeLog.append(UserChangeType.DELETED, user);
+            statistics.userDeleted(user);
+            return null;
+        });
+    }
+
+    private Optional<UserEntity> findUser(int id) {
+        int shard = directory.shardOf(id);
+        Optional<UserEntity> user = shards.inShard(shard, UserShards.READ_ONLY, status -> userRepository.findById(id));
+        if (user.isEmpty()) {
+            int current = directory.currentShardOf(id);
+            if (current != shard) {
+                user = shards.inShard(current, UserShards.READ_ONLY, status -> userRepository.findById(id));
+            }
+        }
+        return user;
+    }
+
+    private Map<Integer, List<Integer>> groupByShard(Iterable<Integer> ids, int[] assignment) {
+        Map<Integer, List<Integer>> byShard = new HashMap<>();
+        for (Integer id : ids) {
+            byShard.computeIfAbsent(assignment[directory.bucketOf(id)], shard -> new ArrayList<>()).add(id);
+        }
+        return byShard;
+    }
+
+    private void fetch(Map<Integer, List<Integer>> byShard, Map<Integer, UserEntity> found) {
+        if (byShard.isEmpty()) {
+            return;
+        }
+        for (List<UserEntity> part : shards.onEachShard(UserShards.READ_ONLY, shard -> {
+            List<Integer> ids = byShard.get(shard);
+            return ids != null ? userRepository.findAllByIdIn(ids) : List.<UserEntity>of();
+        })) {
+            part.forEach(user -> found.put(user.getId(), user));
+        }
+    }
+
+    private void claimEmail(String email, int userId) {
+        if (!directory.claimEmail(email, userId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email " + email + " уже занят");
+        }
+    }
+
+    /**
+     * Удаляет с шарда пользователя, чья запись в справочнике не зафиксировалась.
+     */
+    private void removeUnregistered(int shard, int id) {
+        try {
+            shards.inShard(shard, UserShards.READ_WRITE, status -> {
+                userRepository.deleteById(id);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            System.out.println("Не удалось удалить с шарда " + shard + " незарегистрированного пользователя "
+                    + id + ": " + e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static ResponseStatusException notFound(int id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь с ID " + id + " не найден");
+    }
+
+    private UserDto toDto(UserEntity userEntity) {
+        return new UserDto(
+                userEntity.getId(),
+                userEntity.getName(),
+                userEntity.getEmail(),
+                userEntity.getAge(),
+                userEntity.getCreatedAt()
+        );
+    }
+}
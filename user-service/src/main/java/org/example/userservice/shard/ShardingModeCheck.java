@@ -0,0 +1,39 @@
+package org.example.userservice.shard;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка при старте, что бины шардирования соответствуют настройкам.
+ *
+ * {@link ShardDirectory}, {@link ShardedUserService}, {@link ShardRebalancer} и контроллер перебалансировки
+ * создаются по условию {@code user.sharding.shards[0].url}, а AOT-профиль ({@code mvn -Paot package})
+ * вычисляет условия при сборке. Образ, собранный без шардов, запустился бы с шардами из config-server,
+ * но писал бы всех пользователей на шард 0 через {@code UserServiceImpl}, а собранный с шардами — наоборот.
+ * Поэтому при расхождении сервис не стартует; такой образ нужно пересобрать с нужными настройками.
+ */
+@Component
+public class ShardingModeCheck implements SmartInitializingSingleton {
+
+    private final UserShards shards;
+    private final ObjectProvider<ShardDirectory> directory;
+
+    public ShardingModeCheck(UserShards shards, ObjectProvider<ShardDirectory> directory) {
+        this.shards = shards;
+        this.directory = directory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean directoryPresent = directory.getIfAvailable() != null;
+        if (shards.isSharded() && !directoryPresent) {
+            throw new IllegalStateException("Заданы шарды в user.sharding.shards, но сервис собран без шардирования "
+                    + "(AOT-профиль вычисляет условия бинов при сборке): пересоберите образ с этими настройками");
+        }
+        if (!shards.isSharded() && directoryPresent) {
+            throw new IllegalStateException("Сервис собран с шардированием, но шарды в user.sharding.shards не заданы "
+                    + "(AOT-профиль вычисляет условия бинов при сборке): пересоберите образ без шардов");
+        }
+    }
+}
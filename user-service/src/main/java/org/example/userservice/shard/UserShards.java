@@ -0,0 +1,145 @@
+package org.example.userservice.shard;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.userservice.config.ShardingProperties;
+import org.example.userservice.datasource.ShardContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Выполнение транзакций на шардах пользователей.
+ *
+ * Транзакция на шарде всегда новая: внешняя транзакция, если она есть, приостанавливается
+ * и продолжается после возврата, поэтому справочник на шарде 0 и данные пользователя
+ * на другом шарде изменяются в разных транзакциях с разными соединениями.
+ *
+ * Сессия Hibernate, открытая на весь запрос (open-in-view), держит соединение первой транзакции,
+ * поэтому на время транзакции на шарде она отвязывается от потока, и транзакция получает
+ * собственную сессию с соединением своего шарда.
+ *
+ * Без настроенных шардов единственный шард — 0, и все операции выполняются так же, как без шардирования.
+ */
+@Component
+public class UserShards {
+
+    /**
+     * Читающая транзакция: при настроенных репликах без шардов уходит на реплику.
+     */
+    public static final TransactionDefinition READ_ONLY = new TransactionDefinition() {
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+    };
+
+    public static final TransactionDefinition READ_WRITE = TransactionDefinition.withDefaults();
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int count;
+    private final ExecutorService scatter = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("user-shard-scatter-", 0).factory());
+
+    public UserShards(PlatformTransactionManager transactionManager,
+                      EntityManagerFactory entityManagerFactory,
+                      ShardingProperties properties) {
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.count = properties.count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scatter.shutdownNow();
+    }
+
+    /**
+     * @return число шардов вместе с шардом 0
+     */
+    public int count() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /**
+     * Выполняет действие в новой транзакции на шарде.
+     *
+     * @param shard      номер шарда
+     * @param definition параметры транзакции; распространение всегда {@code REQUIRES_NEW}
+     * @param action     действие
+     * @return результат действия
+     */
+    public <T> T inShard(int shard, TransactionDefinition definition, TransactionCallback<T> action) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager, definition);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // внутри транзакции сессию запроса отвяжет сам REQUIRES_NEW
+        Object requestSession = isSharded() && !TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.hasResource(entityManagerFactory)
+                ? TransactionSynchronizationManager.unbindResource(entityManagerFactory)
+                : null;
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return transaction.execute(action);
+        } finally {
+            ShardContext.restore(previous);
+            if (requestSession != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestSession);
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие на каждом шарде в отдельной транзакции, шарды обрабатываются параллельно.
+     *
+     * @param definition параметры транзакций
+     * @param action     действие, получает номер шарда
+     * @return результаты в порядке номеров шардов
+     */
+    public <T> List<T> onEachShard(TransactionDefinition definition, IntFunction<T> action) {
+        if (count == 1) {
+            return Collections.singletonList(inShard(0, definition, status -> action.apply(0)));
+        }
+        List<Future<T>> parts = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            parts.add(scatter.submit(() -> inShard(target, definition, status -> action.apply(target))));
+        }
+
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> part : parts) {
+            results.add(join(part));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> part) {
+        try {
+            return part.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Операция на шарде не удалась", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Операция на шардах прервана", e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.example.userservice.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.common.dto.UserSnapshotDto;
+import org.example.userservice.dto.UserChangeDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.service.UserChangeAppendedEvent;
+import org.example.userservice.service.UserChangeLog;
+import org.example.userservice.shard.ShardDirectory;
+import org.example.userservice.shard.UserShards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Публикация текущего состояния пользователей в сжимаемый топик {@link UserSnapshotDto#TOPIC},
+ * чтобы потребители держали у себя копию пользователей и не обращались за ними в user-service.
+ *
+ * Снимки берутся из журнала изменений {@link UserChangeLog}: каждое создание и изменение публикуется
+ * снимком пользователя, удаление — записью с пустым значением, ключ записи — ID пользователя, поэтому
+ * после сжатия в топике остаётся последнее состояние каждого пользователя. Курсор опубликованной части
+ * журнала хранится в таблице {@code user_snapshot_relay}; её строка блокируется на время публикации
+ * пачки ({@code FOR UPDATE SKIP LOCKED}), поэтому журнал публикует один экземпляр, а остальные
+ * пропускают запуск. При первом запуске, пока курсора нет, публикуются все активные пользователи,
+ * включая созданных до появления журнала: со всех шардов параллельно, строки читаются порциями
+ * по {@code user.snapshot.fetch-size}.
+ *
+ * Журнал проверяется раз в {@code user.snapshot.poll-interval} и сразу после фиксации изменения
+ * этим экземпляром. Пачка публикуется до фиксации курсора: при сбое она публикуется снова, а повтор
+ * снимка безвреден. Число опубликованных записей публикуется в метрику {@code user.snapshot.published}
+ * с тегом {@code kind}: {@code snapshot} или {@code tombstone}.
+ */
+@Component
+public class UserSnapshotPublisher {
+
+    private static final String CREATE_RELAY = """
+            CREATE TABLE IF NOT EXISTS user_snapshot_relay (
+                id integer PRIMARY KEY,
+                published_cursor bigint
+            )""";
+    private static final String INIT_RELAY =
+            "INSERT INTO user_snapshot_relay (id, published_cursor) VALUES (1, NULL) ON CONFLICT DO NOTHING";
+    private static final String LOCK_RELAY =
+            "SELECT published_cursor FROM user_snapshot_relay WHERE id = 1 FOR UPDATE SKIP LOCKED";
+    private static final String UPDATE_RELAY = "UPDATE user_snapshot_relay SET published_cursor = ? WHERE id = 1";
+    private static final String LAST_CURSOR = "SELECT coalesce(max(id), 0) FROM user_changes";
+    private static final String SELECT_USERS = "SELECT id, email, name, age FROM users WHERE deleted_at IS NULL";
+    private static final int MAX_ROUNDS_PER_RUN = 20;
+
+    private final UserChangeLog changeLog;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper mapper;
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate users;
+    private final TransactionTemplate transaction;
+    private final UserShards shards;
+    private final ObjectProvider<ShardDirectory> directory;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final long sendTimeoutMillis;
+    private final Counter snapshots;
+    private final Counter tombstones;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-snapshot-relay").daemon().factory());
+
+    public UserSnapshotPublisher(UserChangeLog changeLog,
+                                 KafkaTemplate<String, String> kafkaTemplate,
+                                 ObjectMapper mapper,
+                                 JdbcTemplate jdbc,
+                                 PlatformTransactionManager transactionManager,
+                                 UserShards shards,
+                                 ObjectProvider<ShardDirectory> directory,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${user.snapshot.poll-interval:1s}") Duration pollInterval,
+                                 @Value("${user.snapshot.batch-size:500}") int batchSize,
+                                 @Value("${user.snapshot.send-timeout:30s}") Duration sendTimeout,
+                                 @Value("${user.snapshot.fetch-size:10000}") int fetchSize) {
+        this.changeLog = changeLog;
+        this.kafkaTemplate = kafkaTemplate;
+        this.mapper = mapper;
+        this.jdbc = jdbc;
+        this.users = new JdbcTemplate(jdbc.getDataSource());
+        this.users.setFetchSize(fetchSize);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.shards = shards;
+        this.directory = directory;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.snapshots = Counter.builder("user.snapshot.published")
+                .description("Записи, опубликованные в топик снимков пользователей")
+                .tag("kind", "snapshot")
+                .register(meterRegistry);
+        this.tombstones = Counter.builder("user.snapshot.published")
+                .description("Записи, опубликованные в топик снимков пользователей")
+                .tag("kind", "tombstone")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        jdbc.execute(CREATE_RELAY);
+        jdbc.update(INIT_RELAY);
+        executor.scheduleWithFixedDelay(this::publishQuietly, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Публикует изменение этого экземпляра сразу после фиксации транзакции, не дожидаясь опроса.
+     */
+    @TransactionalEventListener
+    public void onChangeAppended(UserChangeAppendedEvent event) {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                wakeUpPending.set(false);
+                publishQuietly();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void publishQuietly() {
+        try {
+            for (int round = 0; round < MAX_ROUNDS_PER_RUN; round++) {
+                if (!Boolean.TRUE.equals(transaction.execute(status -> publishBatch()))) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // курсор не сдвинулся, пачка будет опубликована при следующем запуске
+            System.out.println("Публикация снимков пользователей не удалась: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code true}, если пачка была полной и в журнале могут остаться неопубликованные записи
+     */
+    private boolean publishBatch() {
+        List<Long> locked = jdbc.queryForList(LOCK_RELAY, Long.class);
+        if (locked.isEmpty()) {
+            return false;
+        }
+        Long cursor = locked.get(0);
+        if (cursor == null) {
+            jdbc.update(UPDATE_RELAY, publishAllUsers());
+            return true;
+        }
+
+        List<UserChangeDto> changes = changeLog.readAfter(cursor, batchSize);
+        if (changes.isEmpty()) {
+            return false;
+        }
+        List<CompletableFuture<?>> sends = new ArrayList<>(changes.size());
+        int deleted = 0;
+        for (UserChangeDto change : changes) {
+            UserDto user = change.getUser();
+            if ("deleted".equals(change.getType())) {
+                sends.add(kafkaTemplate.send(UserSnapshotDto.TOPIC, Integer.toString(user.getId()), null));
+                deleted++;
+            } else {
+                sends.add(send(new UserSnapshotDto(user.getId(), user.getEmail(), user.getName(), user.getAge())));
+            }
+        }
+        await(sends);
+        snapshots.increment(sends.size() - deleted);
+        tombstones.increment(deleted);
+        jdbc.update(UPDATE_RELAY, changes.get(changes.size() - 1).getCursor());
+        return changes.size() == batchSize;
+    }
+
+    /**
+     * Публикует снимки всех активных пользователей со всех шардов, ожидая подтверждения каждые
+     * {@code batch-size} записей.
+     *
+     * @return курсор журнала, изменения до которого уже учтены в снимках
+     */
+    private long publishAllUsers() {
+        long cursor = jdbc.queryForObject(LAST_CURSOR, Long.class);
+        // читается основная база, а не реплика: пользователь, которого реплика ещё не получила,
+        // не попал бы ни в снимки, ни в журнал после курсора
+        long published = shards.onEachShard(UserShards.READ_WRITE, this::publishShardUsers).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        snapshots.increment(published);
+        System.out.println("Опубликованы снимки всех пользователей: " + published);
+        return cursor;
+    }
+
+    private long publishShardUsers(int shard) {
+        // строки бакета, перенос которого не дочищен, остаются на старом шарде до перебалансировки
+        String sql = shards.isSharded()
+                ? SELECT_USERS + " AND " + directory.getObject().ownedBy(shard)
+                : SELECT_USERS;
+        List<CompletableFuture<?>> sends = new ArrayList<>(batchSize);
+        long[] published = {0};
+        users.query(sql, rs -> {
+            sends.add(send(new UserSnapshotDto(rs.getInt("id"), rs.getString("email"), rs.getString("name"),
+                    rs.getInt("age"))));
+            if (sends.size() == batchSize) {
+                await(sends);
+                published[0] += sends.size();
+                sends.clear();
+            }
+        });
+        await(sends);
+        return published[0] + sends.size();
+    }
+
+    private CompletableFuture<?> send(UserSnapshotDto snapshot) {
+        try {
+            return kafkaTemplate.send(UserSnapshotDto.TOPIC, Integer.toString(snapshot.getId()),
+                    mapper.writeValueAsString(snapshot));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать снимок пользователя " + snapshot.getId(), e);
+        }
+    }
+
+    private void await(List<CompletableFuture<?>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]))
+                    .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Kafka не подтвердила снимки пользователей", e);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.example.userservice.spool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.common.dto.UserNotificationDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Локальная очередь уведомлений на диске для периода, когда Kafka недоступна.
+ *
+ * Уведомления дописываются в сегменты по {@code user.notification.spool.segment-size}, отображённые
+ * в память, в каталоге {@code user.notification.spool.directory}; запись не требует системных вызовов.
+ * Записанное переживает перезапуск процесса. Занимаемое место ограничено
+ * {@code user.notification.spool.max-size}: когда оно исчерпано, новые уведомления не принимаются.
+ *
+ * Очередь читается одним потоком ({@link NotificationSpoolDrainer}): пачка читается через {@link #peek(int)}
+ * и удаляется из очереди через {@link #acknowledge(SpoolBatch)} после отправки. Позиция чтения хранится
+ * в файле {@code spool.checkpoint}, полностью прочитанные сегменты удаляются.
+ *
+ * Глубина очереди публикуется в метрику {@code user.notification.spool.depth}, место на диске —
+ * в {@code user.notification.spool.size}, отклонённые уведомления — в {@code user.notification.spool.rejected}.
+ */
+@Component
+public class NotificationSpool {
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "spool.checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private final AtomicLong depth = new AtomicLong();
+    private final Counter rejected;
+    private volatile int segmentCount;
+    private int readPosition;
+
+    @Autowired
+    public NotificationSpool(@Value("${user.notification.spool.directory:.notification-spool}") String directory,
+                             @Value("${user.notification.spool.segment-size:16MB}") DataSize segmentSize,
+                             @Value("${user.notification.spool.max-size:512MB}") DataSize maxSize,
+                             MeterRegistry meterRegistry) {
+        this(Path.of(directory), segmentSize, maxSize, meterRegistry);
+    }
+
+    NotificationSpool(Path directory, DataSize segmentSize, DataSize maxSize, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.maxSegments = (int) Math.max(1, maxSize.toBytes() / segmentSize.toBytes());
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть спул уведомлений в " + directory, e);
+        }
+
+        Gauge.builder("user.notification.spool.depth", depth, AtomicLong::get)
+                .description("Число уведомлений в спуле, ожидающих отправки в Kafka")
+                .register(meterRegistry);
+        Gauge.builder("user.notification.spool.size", this, spool -> (double) spool.segmentCount * spool.segmentSize)
+                .description("Место на диске, занятое сегментами спула")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("user.notification.spool.rejected")
+                .description("Уведомления, не принятые в переполненный спул")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Добавляет уведомление в конец очереди.
+     *
+     * @return {@code false}, если спул заполнен или не удалось создать сегмент
+     */
+    public boolean offer(UserNotificationDto notification) {
+        byte[] type = notification.getType().getBytes(StandardCharsets.UTF_8);
+        byte[] email = notification.getEmail().getBytes(StandardCharsets.UTF_8);
+        boolean bulk = UserNotificationDto.PRIORITY_BULK.equals(notification.getPriority());
+        if (type.length > SpoolSegment.MAX_TYPE_BYTES || SpoolSegment.HEADER_SIZE + type.length + email.length > segmentSize) {
+            rejected.increment();
+            return false;
+        }
+
+        lock.lock();
+        try {
+            if (!segments.peekLast().append(type, email, bulk)) {
+                if (segments.size() >= maxSegments) {
+                    rejected.increment();
+                    return false;
+                }
+                roll();
+                segments.peekLast().append(type, email, bulk);
+            }
+            depth.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            System.out.println("Не удалось создать сегмент спула уведомлений: " + e.getMessage());
+            rejected.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code true}, если в очереди нет неотправленных уведомлений
+     */
+    public boolean isEmpty() {
+        return depth.get() == 0;
+    }
+
+    /**
+     * @return число уведомлений в очереди
+     */
+    public long depth() {
+        return depth.get();
+    }
+
+    /**
+     * Читает пачку уведомлений из начала очереди, не удаляя их.
+     *
+     * @param max наибольший размер пачки
+     * @return пачка, возможно пустая
+     */
+    public SpoolBatch peek(int max) {
+        List<UserNotificationDto> notifications = new ArrayList<>(Math.min(max, 1024));
+        lock.lock();
+        try {
+            long segmentNumber = segments.peekFirst().number();
+            int position = readPosition;
+            for (SpoolSegment segment : segments) {
+                if (segment.number() != segmentNumber) {
+                    if (notifications.size() == max) {
+                        break;
+                    }
+                    segmentNumber = segment.number();
+                    position = 0;
+                }
+                while (notifications.size() < max && position < segment.writePosition()) {
+                    notifications.add(segment.read(position));
+                    position += segment.lengthAt(position);
+                }
+            }
+            return new SpoolBatch(notifications, segmentNumber, position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет из очереди прочитанную пачку.
+     *
+     * @param batch пачка, полученная из {@link #peek(int)}
+     */
+    public void acknowledge(SpoolBatch batch) {
+        if (batch.notifications().isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            List<SpoolSegment> drained = new ArrayList<>();
+            while (segments.peekFirst().number() < batch.segment()) {
+                drained.add(segments.pollFirst());
+            }
+            readPosition = batch.position();
+            depth.addAndGet(-batch.notifications().size());
+            writeCheckpoint();
+            for (SpoolSegment segment : drained) {
+                Files.deleteIfExists(segment.file());
+            }
+            discardDrained();
+            segmentCount = segments.size();
+        } catch (IOException e) {
+            // позиция чтения в памяти уже сдвинута; при перезапуске часть пачки будет отправлена повторно
+            System.out.println("Не удалось сохранить позицию спула уведомлений: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            segments.forEach(SpoolSegment::force);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long[] checkpoint = readCheckpoint();
+        for (Path file : files) {
+            long number = segmentNumber(file);
+            if (number < checkpoint[0]) {
+                Files.delete(file);
+            } else {
+                segments.addLast(SpoolSegment.open(file, number));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(SpoolSegment.create(segmentPath(checkpoint[0]), checkpoint[0], segmentSize));
+        }
+        readPosition = segments.peekFirst().number() == checkpoint[0] ? (int) checkpoint[1] : 0;
+
+        long count = 0;
+        for (SpoolSegment segment : segments) {
+            count += segment.countFrom(segment == segments.peekFirst() ? readPosition : 0);
+        }
+        depth.set(count);
+        segmentCount = segments.size();
+
+        if (count > 0) {
+            System.out.println("Спул уведомлений: " + count + " уведомлений ожидают отправки в Kafka");
+        }
+    }
+
+    private void roll() throws IOException {
+        SpoolSegment last = segments.peekLast();
+        last.force();
+        long number = last.number() + 1;
+        segments.addLast(SpoolSegment.create(segmentPath(number), number, segmentSize));
+        discardDrained();
+        segmentCount = segments.size();
+    }
+
+    /**
+     * Удаляет полностью прочитанные сегменты, кроме сегмента, в который идёт запись.
+     */
+    private void discardDrained() throws IOException {
+        while (segments.size() > 1 && readPosition >= segments.peekFirst().writePosition()) {
+            Files.deleteIfExists(segments.pollFirst().file());
+            readPosition = 0;
+        }
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return new long[]{1, 0};
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return new long[]{in.readLong(), in.readInt()};
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                .putLong(segments.peekFirst().number())
+                .putInt(readPosition);
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.write(temporary, checkpoint.array());
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.userservice.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.common.dto.UserNotificationDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Фоновая отправка уведомлений из {@link NotificationSpool} в топик их приоритета
+ * ({@link UserNotificationDto#topic()}).
+ *
+ * Раз в {@code user.notification.spool.drain-interval}, а также сразу после закрытия
+ * CircuitBreaker {@code kafkaCB} спул отправляется пачками по {@code user.notification.spool.batch-size}.
+ * Отправка пачки выполняется через тот же CircuitBreaker: пока он открыт, спул не трогается,
+ * а неудачная пачка учитывается в его статистике и остаётся в спуле до следующей попытки.
+ *
+ * Отправленные из спула уведомления публикуются в метрику {@code user.notification.spool.drained}.
+ */
+@Component
+public class NotificationSpoolDrainer {
+
+    private static final String CIRCUIT_BREAKER = "kafkaCB";
+
+    private final NotificationSpool spool;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper mapper;
+    private final CircuitBreaker circuitBreaker;
+    private final int batchSize;
+    private final long sendTimeoutMillis;
+    private final Counter drained;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("notification-spool-drain").daemon().factory());
+
+    public NotificationSpoolDrainer(NotificationSpool spool,
+                                    KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper mapper,
+                                    CircuitBreakerRegistry circuitBreakerRegistry,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${user.notification.spool.batch-size:500}") int batchSize,
+                                    @Value("${user.notification.spool.drain-interval:1s}") Duration drainInterval,
+                                    @Value("${user.notification.spool.send-timeout:30s}") Duration sendTimeout) {
+        this.spool = spool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.mapper = mapper;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        this.batchSize = batchSize;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        this.drained = Counter.builder("user.notification.spool.drained")
+                .description("Уведомления, отправленные в Kafka из спула")
+                .register(meterRegistry);
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() == CircuitBreaker.State.CLOSED) {
+                wakeUp();
+            }
+        });
+        executor.scheduleWithFixedDelay(this::drain, drainInterval.toMillis(), drainInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                wakeUpPending.set(false);
+                drain();
+            });
+        }
+    }
+
+    private void drain() {
+        while (!spool.isEmpty()) {
+            SpoolBatch batch = spool.peek(batchSize);
+            if (batch.notifications().isEmpty()) {
+                return;
+            }
+            try {
+                circuitBreaker.executeCheckedSupplier(() -> send(batch.notifications()));
+            } catch (CallNotPermittedException e) {
+                return;
+            } catch (Throwable e) {
+                System.out.println("Не удалось отправить пачку из спула уведомлений: " + e.getMessage());
+                return;
+            }
+            spool.acknowledge(batch);
+            drained.increment(batch.notifications().size());
+        }
+    }
+
+    private Void send(List<UserNotificationDto> notifications) throws Exception {
+        List<CompletableFuture<?>> sends = new ArrayList<>(notifications.size());
+        for (UserNotificationDto notification : notifications) {
+            String json = mapper.writeValueAsString(notification);
+            sends.add(kafkaTemplate.send(notification.topic(), notification.getEmail(), json));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        return null;
+    }
+}
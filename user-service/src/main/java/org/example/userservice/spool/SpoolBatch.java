@@ -0,0 +1,15 @@
+package org.example.userservice.spool;
+
+import org.example.common.dto.UserNotificationDto;
+
+import java.util.List;
+
+/**
+ * Пачка уведомлений, прочитанная из {@link NotificationSpool}.
+ *
+ * @param notifications уведомления в порядке записи
+ * @param segment       номер сегмента, в котором закончилось чтение
+ * @param position      позиция в сегменте сразу после последнего уведомления пачки
+ */
+public record SpoolBatch(List<UserNotificationDto> notifications, long segment, int position) {
+}
@@ -0,0 +1,113 @@
+package org.example.userservice.spool;
+
+import org.example.common.dto.UserNotificationDto;
+import org.example.common.segment.MappedSegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Сегмент спула — {@link MappedSegment} с записями уведомлений.
+ *
+ * Содержимое записи после заголовка кадра:
+ * <pre>
+ * 8  byte  длина типа уведомления в байтах; старший бит — приоритет {@code bulk}
+ * 9  ...   тип и email в UTF-8
+ * </pre>
+ * Класс не потокобезопасен, все вызовы выполняются под блокировкой {@link NotificationSpool}.
+ */
+final class SpoolSegment {
+
+    static final int HEADER_SIZE = 9;
+    static final int MAX_TYPE_BYTES = 0x7F;
+
+    private static final int BULK_FLAG = 0x80;
+
+    private final long number;
+    private final Path file;
+    private final MappedSegment frames;
+
+    private SpoolSegment(long number, Path file, MappedSegment frames) {
+        this.number = number;
+        this.file = file;
+        this.frames = frames;
+    }
+
+    /**
+     * Создаёт новый пустой сегмент.
+     */
+    static SpoolSegment create(Path file, long number, int size) throws IOException {
+        return new SpoolSegment(number, file, MappedSegment.create(file, size));
+    }
+
+    /**
+     * Открывает существующий сегмент и находит конец записанных данных.
+     * Повреждённый хвост после последней целой записи затирается нулями.
+     */
+    static SpoolSegment open(Path file, long number) throws IOException {
+        return new SpoolSegment(number, file, MappedSegment.open(file, HEADER_SIZE, SpoolSegment::isIntact));
+    }
+
+    long number() {
+        return number;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int writePosition() {
+        return frames.writePosition();
+    }
+
+    /**
+     * Дописывает запись.
+     *
+     * @return {@code false}, если запись не помещается в сегмент
+     */
+    boolean append(byte[] type, byte[] email, boolean bulk) {
+        ByteBuffer buffer = frames.buffer();
+        return frames.append(HEADER_SIZE + type.length + email.length, start -> {
+            buffer.put(start + 8, (byte) (type.length | (bulk ? BULK_FLAG : 0)));
+            buffer.put(start + HEADER_SIZE, type);
+            buffer.put(start + HEADER_SIZE + type.length, email);
+        }) >= 0;
+    }
+
+    /**
+     * @return длина записи, начинающейся с позиции
+     */
+    int lengthAt(int position) {
+        return frames.lengthAt(position);
+    }
+
+    UserNotificationDto read(int position) {
+        ByteBuffer buffer = frames.buffer();
+        int length = buffer.getInt(position);
+        int flags = Byte.toUnsignedInt(buffer.get(position + 8));
+        int typeLength = flags & MAX_TYPE_BYTES;
+        byte[] type = new byte[typeLength];
+        byte[] email = new byte[length - HEADER_SIZE - typeLength];
+        buffer.get(position + HEADER_SIZE, type);
+        buffer.get(position + HEADER_SIZE + typeLength, email);
+        return new UserNotificationDto(new String(email, StandardCharsets.UTF_8), new String(type, StandardCharsets.UTF_8),
+                (flags & BULK_FLAG) != 0 ? UserNotificationDto.PRIORITY_BULK : UserNotificationDto.PRIORITY_HIGH);
+    }
+
+    /**
+     * @return число записей от позиции до конца записанных данных
+     */
+    long countFrom(int position) {
+        return frames.countFrom(position);
+    }
+
+    void force() {
+        frames.force();
+    }
+
+    private static boolean isIntact(ByteBuffer buffer, int position, int length) {
+        return HEADER_SIZE + (buffer.get(position + 8) & MAX_TYPE_BYTES) <= length;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.userservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.userservice.datasource.ReplicaRoutingDataSource;
+import org.example.userservice.datasource.ShardRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit-тесты для {@link DataSourceConfig}: режим источника данных выбирается при старте по настройкам.
+ * Пулы Hikari не открывают соединений до первого запроса, поэтому база не нужна.
+ */
+class DataSourceConfigTest {
+
+    private final DataSourceConfig config = new DataSourceConfig();
+    private final ShardingProperties sharding = new ShardingProperties();
+    private final ReadReplicaProperties replicas = new ReadReplicaProperties();
+
+    @AfterEach
+    void tearDown() {
+        config.closePools();
+    }
+
+    /**
+     * Проверяет, что без шардов и реплик используется один пул на {@code spring.datasource}.
+     */
+    @Test
+    void dataSource_shouldUseSinglePoolByDefault() {
+        DataSource dataSource = dataSource();
+
+        HikariDataSource pool = assertInstanceOf(HikariDataSource.class, dataSource);
+        assertEquals("user-primary", pool.getPoolName());
+        assertEquals("jdbc:postgresql://primary:5432/users", pool.getJdbcUrl());
+    }
+
+    /**
+     * Проверяет, что при заданных репликах чтение маршрутизируется через {@link ReplicaRoutingDataSource}.
+     */
+    @Test
+    void dataSource_shouldRouteToReplicasWhenConfigured() {
+        ReadReplicaProperties.Replica replica = new ReadReplicaProperties.Replica();
+        replica.setUrl("jdbc:postgresql://replica:5432/users");
+        replicas.setReplicas(List.of(replica));
+
+        LazyConnectionDataSourceProxy proxy = assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource());
+
+        assertInstanceOf(ReplicaRoutingDataSource.class, proxy.getTargetDataSource());
+    }
+
+    /**
+     * Проверяет, что при заданных шардах источник маршрутизируется по шардам.
+     */
+    @Test
+    void dataSource_shouldRouteToShardsWhenConfigured() {
+        sharding.setShards(List.of(shard("jdbc:postgresql://primary:5432/user_shard_1")));
+
+        LazyConnectionDataSourceProxy proxy = assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource());
+
+        assertInstanceOf(ShardRoutingDataSource.class, proxy.getTargetDataSource());
+    }
+
+    /**
+     * Проверяет, что шарды и реплики одновременно не принимаются.
+     */
+    @Test
+    void dataSource_shouldRejectShardsWithReplicas() {
+        sharding.setShards(List.of(shard("jdbc:postgresql://primary:5432/user_shard_1")));
+        ReadReplicaProperties.Replica replica = new ReadReplicaProperties.Replica();
+        replica.setUrl("jdbc:postgresql://replica:5432/users");
+        replicas.setReplicas(List.of(replica));
+
+        assertThrows(IllegalStateException.class, this::dataSource);
+    }
+
+    private DataSource dataSource() {
+        DataSourceProperties primary = new DataSourceProperties();
+        primary.setUrl("jdbc:postgresql://primary:5432/users");
+        primary.setUsername("user");
+        primary.setPassword("secret");
+        return config.dataSource(primary, sharding, replicas, new MockEnvironment(), new SimpleMeterRegistry());
+    }
+
+    private static ShardingProperties.Shard shard(String url) {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard();
+        shard.setUrl(url);
+        return shard;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.dto.UserImportStatus;
+import org.example.userservice.service.DuplicateEmailPolicy;
+import org.example.userservice.service.UserBulkFormat;
+import org.example.userservice.service.UserBulkTransfer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit-тесты для {@link UserBulkController} выполнены с использованием MockMvc и Mockito.
+ */
+@WebMvcTest(UserBulkController.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.cloud.config.fail-fast=false"
+})
+class UserBulkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserBulkTransfer bulkTransfer;
+
+    /**
+     * Проверяет, что ход импорта и итоги отдаются строками NDJSON.
+     *
+     * @throws Exception
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void importUsers_shouldStreamProgressAndResult() throws Exception {
+        when(bulkTransfer.importUsers(any(), eq(UserBulkFormat.CSV), eq(DuplicateEmailPolicy.UPDATE), eq(true), any()))
+                .thenAnswer(invocation -> {
+                    Consumer<UserImportStatus> progress = invocation.getArgument(4);
+                    progress.accept(UserImportStatus.progress(UserImportStatus.MERGE, 2));
+                    return UserImportStatus.done(2, 1, 1, 0, 0, 1);
+                });
+
+        mockMvc.perform(post("/api/users/import")
+                        .param("duplicates", "update")
+                        .param("notify", "true")
+                        .contentType("text/csv")
+                        .content("name,email,age\nTest,user@mail.ru,25\nOther,other@mail.ru,30\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"phase\":\"merge\",\"rows\":2}\n"
+                        + "{\"phase\":\"done\",\"received\":2,\"inserted\":1,\"updated\":1,\"duplicates\":0,"
+                        + "\"rejected\":0,\"notified\":1}\n"));
+    }
+
+    /**
+     * Проверяет, что неизвестная политика дубликатов отклоняется до начала импорта.
+     *
+     * @throws Exception
+     */
+    @Test
+    void importUsers_shouldRejectUnknownDuplicatePolicy() throws Exception {
+        mockMvc.perform(post("/api/users/import")
+                        .param("duplicates", "merge")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"Test\",\"email\":\"user@mail.ru\",\"age\":25}\n"))
+                .andExpect(status().isBadRequest());
+    }
+}
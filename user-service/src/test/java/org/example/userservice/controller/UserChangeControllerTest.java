@@ -0,0 +1,87 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.dto.UserChangeDto;
+import org.example.userservice.dto.UserChangePage;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.service.UserChangeFeed;
+import org.example.userservice.service.UserChangeLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit-тесты для {@link UserChangeController} выполнены с использованием MockMvc и Mockito.
+ * Проверяется выбор страничного и потокового режима по заголовку Accept.
+ */
+@WebMvcTest(UserChangeController.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.cloud.config.fail-fast=false"
+})
+class UserChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserChangeLog changeLog;
+
+    @MockBean
+    private UserChangeFeed changeFeed;
+
+    /**
+     * Проверяет получение страницы изменений через GET /api/users/changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    void getChanges_shouldReturnPageAfterCursor() throws Exception {
+        UserDto user = new UserDto(7, "Test", "user@mail.ru", 25, null);
+        UserChangeDto change = new UserChangeDto(42, "updated", user, null);
+        when(changeLog.page(41, 100)).thenReturn(new UserChangePage(List.of(change), 42, false));
+
+        mockMvc.perform(get("/api/users/changes")
+                        .param("since", "41")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].cursor").value(42))
+                .andExpect(jsonPath("$.changes[0].type").value("updated"))
+                .andExpect(jsonPath("$.changes[0].user.id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value(42))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    /**
+     * Проверяет, что поток изменений продолжается с курсора из заголовка Last-Event-ID.
+     *
+     * @throws Exception
+     */
+    @Test
+    void streamChanges_shouldResumeFromLastEventId() throws Exception {
+        when(changeFeed.subscribe(15)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/users/changes")
+                        .param("since", "3")
+                        .header("Last-Event-ID", "15")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(changeFeed).subscribe(15);
+    }
+}
@@ -1,7 +1,10 @@
 package org.example.userservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.userservice.dto.UserBatchDto;
 import org.example.userservice.dto.UserDto;
+import org.example.userservice.service.IdempotencyStore;
 import org.example.userservice.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +13,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -21,11 +25,14 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,6 +41,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Проверяется работа CRUD операций контроллера.
  */
 @WebMvcTest(UserController.class)
+@Import({IdempotencyStore.class, SimpleMeterRegistry.class})
 @ActiveProfiles("test")
 @TestPropertySource(properties = {
         "spring.cloud.config.enabled=false",
@@ -82,6 +90,41 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value(testUser.getEmail()));
     }
 
+    /**
+     * Проверяет, что повтор создания с тем же Idempotency-Key возвращает первый ответ без повторного создания,
+     * а тот же ключ с другими данными отклоняется.
+     *
+     * @throws Exception
+     */
+    @Test
+    void create_withIdempotencyKey_shouldReplayFirstResponse() throws Exception {
+        when(userService.createUser(any(UserDto.class))).thenReturn(testUser);
+        String body = objectMapper.writeValueAsString(testUser);
+
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(testUser.getId()));
+
+        testUser.setEmail("other@mail.ru");
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testUser)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(userService, times(1)).createUser(any(UserDto.class));
+    }
+
     /**
      * Проверяет получение существующего пользователя через GET /api/users/{id}.
      *
@@ -110,6 +153,32 @@ class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    /**
+     * Проверяет получение пользователей по списку ID через GET /api/users?ids=...:
+     * порядок запроса сохраняется, ненайденные ID перечисляются отдельно.
+     *
+     * @throws Exception
+     */
+    @Test
+    void getByIds_shouldKeepOrderAndReportMissing() throws Exception {
+        UserDto user2 = new UserDto();
+        user2.setId(2);
+        user2.setName("Another User");
+        user2.setEmail("user2@mail.ru");
+        user2.setAge(30);
+
+        UserBatchDto batch = new UserBatchDto();
+        batch.setUsers(Arrays.asList(user2, testUser));
+        batch.setMissing(List.of(999));
+        when(userService.getUsersByIds(Arrays.asList(2, 999, 1))).thenReturn(batch);
+
+        mockMvc.perform(get("/api/users").param("ids", "2,999,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(2))
+                .andExpect(jsonPath("$.users[1].id").value(testUser.getId()))
+                .andExpect(jsonPath("$.missing[0]").value(999));
+    }
+
     /**
      * Проверяет получение всех пользователей через GET /api/users.
      *
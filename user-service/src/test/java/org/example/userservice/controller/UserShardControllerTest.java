@@ -0,0 +1,80 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.dto.UserShardDto;
+import org.example.userservice.dto.UserShardMoveDto;
+import org.example.userservice.shard.ShardRebalancer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit-тесты для {@link UserShardController} выполнены с использованием MockMvc и Mockito.
+ */
+@WebMvcTest(UserShardController.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.cloud.config.fail-fast=false",
+        "user.sharding.shards[0].url=jdbc:postgresql://localhost:5432/user_shard_1"
+})
+class UserShardControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ShardRebalancer rebalancer;
+
+    /**
+     * Проверяет получение состояния шардов через GET /api/users/shards.
+     *
+     * @throws Exception
+     */
+    @Test
+    void getShards_shouldReturnBucketsAndUsers() throws Exception {
+        when(rebalancer.status()).thenReturn(List.of(
+                new UserShardDto(0, 128, 1000),
+                new UserShardDto(1, 128, 990)));
+
+        mockMvc.perform(get("/api/users/shards"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].shard").value(1))
+                .andExpect(jsonPath("$[1].buckets").value(128))
+                .andExpect(jsonPath("$[1].users").value(990));
+    }
+
+    /**
+     * Проверяет перенос бакета и ответ 400 для несуществующего шарда.
+     *
+     * @throws Exception
+     */
+    @Test
+    void moveBucket_shouldReturnMoveOrBadRequest() throws Exception {
+        when(rebalancer.moveBucket(17, 1)).thenReturn(new UserShardMoveDto(17, 0, 1, 204));
+        when(rebalancer.moveBucket(17, 5)).thenThrow(
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "Шард должен быть от 0 до 1"));
+
+        mockMvc.perform(post("/api/users/shards/buckets/17/move").param("shard", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value(0))
+                .andExpect(jsonPath("$.to").value(1))
+                .andExpect(jsonPath("$.users").value(204));
+
+        mockMvc.perform(post("/api/users/shards/buckets/17/move").param("shard", "5"))
+                .andExpect(status().isBadRequest());
+    }
+}
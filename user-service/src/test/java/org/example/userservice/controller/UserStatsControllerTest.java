@@ -0,0 +1,61 @@
+package org.example.userservice.controller;
+
+import org.example.userservice.dto.UserStatsDto;
+import org.example.userservice.service.UserStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit-тесты для {@link UserStatsController} выполнены с использованием MockMvc и Mockito.
+ */
+@WebMvcTest(UserStatsController.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.cloud.config.fail-fast=false"
+})
+class UserStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserStatistics statistics;
+
+    /**
+     * Проверяет получение статистики через GET /api/users/stats.
+     *
+     * @throws Exception
+     */
+    @Test
+    void getStats_shouldReturnAggregates() throws Exception {
+        Map<String, Long> ages = new LinkedHashMap<>();
+        ages.put("18-24", 2L);
+        ages.put("25-34", 1L);
+        Map<LocalDate, Long> signups = new LinkedHashMap<>();
+        signups.put(LocalDate.of(2026, 10, 18), 0L);
+        signups.put(LocalDate.of(2026, 10, 19), 3L);
+        when(statistics.snapshot(2)).thenReturn(new UserStatsDto(3, 24.5, ages, signups, null));
+
+        mockMvc.perform(get("/api/users/stats").param("days", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUsers").value(3))
+                .andExpect(jsonPath("$.averageAge").value(24.5))
+                .andExpect(jsonPath("$.ageDistribution['18-24']").value(2))
+                .andExpect(jsonPath("$.signupsPerDay['2026-10-19']").value(3));
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.userservice.datasource;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link ReadYourWritesInterceptor}: выдача окна чтения своих записей
+ * на изменяющие запросы и его учёт в читающих по cookie и по заголовку.
+ */
+class ReadYourWritesInterceptorTest {
+
+    private final ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofSeconds(5));
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWritesContext.clear();
+    }
+
+    /**
+     * Проверяет, что изменяющий запрос получает время окончания окна и в cookie, и в заголовке.
+     */
+    @Test
+    void preHandle_shouldIssueWindowOnWrite() {
+        long before = System.currentTimeMillis();
+
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/api/users"), response, null);
+
+        Cookie cookie = response.getCookie(ReadYourWritesInterceptor.COOKIE_NAME);
+        assertNotNull(cookie);
+        long until = Long.parseLong(cookie.getValue());
+        assertTrue(until >= before + 5000);
+        assertEquals(cookie.getValue(), response.getHeader(ReadYourWritesInterceptor.HEADER_NAME));
+        assertFalse(ReadYourWritesContext.isPinnedToPrimary());
+    }
+
+    /**
+     * Проверяет, что чтение с неистёкшим окном в cookie закрепляется за основной базой до конца запроса.
+     */
+    @Test
+    void preHandle_shouldPinReadWithActiveCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, future()));
+
+        interceptor.preHandle(request, response, null);
+        assertTrue(ReadYourWritesContext.isPinnedToPrimary());
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertFalse(ReadYourWritesContext.isPinnedToPrimary());
+    }
+
+    /**
+     * Проверяет, что клиент без cookie может передать окно в заголовке запроса.
+     */
+    @Test
+    void preHandle_shouldPinReadWithActiveHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.addHeader(ReadYourWritesInterceptor.HEADER_NAME, future());
+
+        interceptor.preHandle(request, response, null);
+
+        assertTrue(ReadYourWritesContext.isPinnedToPrimary());
+    }
+
+    /**
+     * Проверяет, что истёкшее или некорректное окно не закрепляет чтение за основной базой.
+     */
+    @Test
+    void preHandle_shouldNotPinReadWithExpiredOrInvalidWindow() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setCookies(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME,
+                Long.toString(System.currentTimeMillis() - 1000)));
+        request.addHeader(ReadYourWritesInterceptor.HEADER_NAME, "soon");
+
+        interceptor.preHandle(request, response, null);
+
+        assertFalse(ReadYourWritesContext.isPinnedToPrimary());
+    }
+
+    private static String future() {
+        return Long.toString(System.currentTimeMillis() + 60_000);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.userservice.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+/**
+ * Unit-тесты для {@link ReplicaRoutingDataSource}: выбор основной базы или реплики по признаку
+ * читающей транзакции и окну чтения своих записей.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> used = new ArrayList<>();
+    private final ReplicaRoutingDataSource routing = routing();
+
+    @AfterEach
+    void tearDown() {
+        setCurrentTransactionReadOnly(false);
+        ReadYourWritesContext.clear();
+    }
+
+    /**
+     * Проверяет, что изменяющие транзакции и соединения вне транзакции идут на основную базу.
+     *
+     * @throws SQLException не ожидается
+     */
+    @Test
+    void getConnection_shouldUsePrimaryOutsideReadOnlyTransactions() throws SQLException {
+        routing.getConnection();
+
+        assertEquals(List.of("primary"), used);
+    }
+
+    /**
+     * Проверяет, что читающие транзакции распределяются по репликам по кругу.
+     *
+     * @throws SQLException не ожидается
+     */
+    @Test
+    void getConnection_shouldRoundRobinReadOnlyTransactionsOverReplicas() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+
+        for (int i = 0; i < 3; i++) {
+            routing.getConnection();
+        }
+
+        assertEquals(List.of("replica-1", "replica-2", "replica-1"), used);
+        assertEquals(2, meterRegistry.get("user.datasource.route").tag("target", "replica-1").counter().count());
+        assertEquals(1, meterRegistry.get("user.datasource.route").tag("target", "replica-2").counter().count());
+    }
+
+    /**
+     * Проверяет, что в окне чтения своих записей читающая транзакция остаётся на основной базе.
+     *
+     * @throws SQLException не ожидается
+     */
+    @Test
+    void getConnection_shouldUsePrimaryWhenPinned() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+        ReadYourWritesContext.pinToPrimary();
+
+        routing.getConnection();
+
+        assertEquals(List.of("primary"), used);
+        assertEquals(1, meterRegistry.get("user.datasource.route").tag("target", "primary").counter().count());
+    }
+
+    private ReplicaRoutingDataSource routing() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", dataSource("replica-1"));
+        replicas.put("replica-2", dataSource("replica-2"));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(dataSource("primary"), replicas, meterRegistry);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private DataSource dataSource(String name) {
+        DataSource dataSource = mock(DataSource.class);
+        try {
+            when(dataSource.getConnection()).thenAnswer(invocation -> {
+                used.add(name);
+                return mock(Connection.class);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+}
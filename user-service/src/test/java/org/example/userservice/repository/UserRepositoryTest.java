@@ -0,0 +1,72 @@
+package org.example.userservice.repository;
+
+import org.example.userservice.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты {@link UserRepository} на встроенной базе H2: помеченные удалёнными пользователи
+ * скрыты от запросов через сущность ({@code @SQLRestriction}), а их email можно освободить.
+ */
+@DataJpaTest
+@TestPropertySource(properties = "spring.cloud.config.enabled=false")
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    /**
+     * Проверяет, что помеченный удалённым пользователь не находится ни по ID, ни списком,
+     * но строка остаётся в таблице до очистки, а повторная пометка ничего не меняет.
+     */
+    @Test
+    void markDeleted_shouldHideUserFromEntityQueries() {
+        UserEntity ann = userRepository.save(new UserEntity("Ann", "ann@example.com", 30));
+        UserEntity bob = userRepository.save(new UserEntity("Bob", "bob@example.com", 40));
+
+        assertEquals(1, userRepository.markDeleted(ann.getId(), LocalDateTime.now()));
+        // пометка идёт запросом мимо контекста персистентности, иначе findById вернул бы сущность из кэша
+        entityManager.clear();
+
+        assertTrue(userRepository.findById(ann.getId()).isEmpty());
+        assertEquals(List.of(bob.getId()), userRepository.findAll().stream().map(UserEntity::getId).toList());
+        assertEquals(List.of(bob.getId()), userRepository.findAllByIdIn(List.of(ann.getId(), bob.getId())).stream()
+                .map(UserEntity::getId).toList());
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM users", Integer.class));
+        assertEquals(0, userRepository.markDeleted(ann.getId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Проверяет, что email помеченного удалённым пользователя освобождается для нового пользователя,
+     * а email действующего пользователя не затрагивается.
+     */
+    @Test
+    void purgeDeletedByEmail_shouldFreeOnlyTombstonedEmail() {
+        UserEntity ann = userRepository.save(new UserEntity("Ann", "ann@example.com", 30));
+        userRepository.save(new UserEntity("Bob", "bob@example.com", 40));
+        userRepository.markDeleted(ann.getId(), LocalDateTime.now());
+
+        assertEquals(0, userRepository.purgeDeletedByEmail("bob@example.com"));
+        assertEquals(1, userRepository.purgeDeletedByEmail("ann@example.com"));
+        UserEntity newAnn = userRepository.saveAndFlush(new UserEntity("Anna", "ann@example.com", 25));
+
+        assertEquals("Anna", userRepository.findById(newAnn.getId()).orElseThrow().getName());
+        assertEquals(2, jdbc.queryForObject("SELECT count(*) FROM users", Integer.class));
+    }
+}
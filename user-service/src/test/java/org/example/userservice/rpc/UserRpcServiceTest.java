@@ -0,0 +1,221 @@
+package org.example.userservice.rpc;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.example.userservice.dto.UserBatchDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.rpc.proto.CreateUserRequest;
+import org.example.userservice.rpc.proto.CreateUserResult;
+import org.example.userservice.rpc.proto.GetUserRequest;
+import org.example.userservice.rpc.proto.GetUsersRequest;
+import org.example.userservice.rpc.proto.GetUsersResponse;
+import org.example.userservice.rpc.proto.User;
+import org.example.userservice.service.EmailConstraint;
+import org.example.userservice.service.IdempotencyStore;
+import org.example.userservice.service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link UserRpcService}: сервис пользователей заменён моком, вызовы gRPC выполняются
+ * напрямую с записью ответов в {@link RecordingObserver}.
+ */
+class UserRpcServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final UserRpcService rpc = new UserRpcService(userService,
+            new IdempotencyStore(100, Duration.ofHours(1), Duration.ofSeconds(1), new SimpleMeterRegistry()),
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    /**
+     * Проверяет перевод HTTP-статусов ошибок сервиса в статусы gRPC.
+     *
+     * @param httpStatus код ошибки сервиса
+     * @param grpcCode   ожидаемый статус gRPC
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "400, INVALID_ARGUMENT",
+            "404, NOT_FOUND",
+            "409, ALREADY_EXISTS",
+            "422, FAILED_PRECONDITION",
+            "429, RESOURCE_EXHAUSTED",
+            "501, UNIMPLEMENTED",
+            "503, UNAVAILABLE",
+            "500, INTERNAL"
+    })
+    void toStatus_shouldMapHttpStatus(int httpStatus, Status.Code grpcCode) {
+        Status status = UserRpcService.toStatus(new ResponseStatusException(HttpStatus.valueOf(httpStatus), "причина"));
+
+        assertEquals(grpcCode, status.getCode());
+        assertEquals("причина", status.getDescription());
+    }
+
+    /**
+     * Проверяет, что непредвиденная ошибка становится {@code INTERNAL} с исходным исключением в причине.
+     */
+    @Test
+    void toStatus_shouldMapUnexpectedErrorToInternal() {
+        IllegalStateException error = new IllegalStateException("сбой");
+
+        Status status = UserRpcService.toStatus(error);
+
+        assertEquals(Status.Code.INTERNAL, status.getCode());
+        assertEquals(error, status.getCause());
+    }
+
+    /**
+     * Проверяет, что только нарушение уникальности email становится {@code ALREADY_EXISTS},
+     * а другие нарушения целостности — {@code INTERNAL}.
+     */
+    @Test
+    void toStatus_shouldMapOnlyEmailConstraintToAlreadyExists() {
+        assertEquals(Status.Code.ALREADY_EXISTS, UserRpcService.toStatus(violation("23505", EmailConstraint.NAME))
+                .getCode());
+        assertEquals(Status.Code.INTERNAL, UserRpcService.toStatus(violation("23505", "users_pkey")).getCode());
+        assertEquals(Status.Code.INTERNAL, UserRpcService.toStatus(violation("23502", null)).getCode());
+    }
+
+    /**
+     * Проверяет, что пользователь, которого нет, возвращается ошибкой {@code NOT_FOUND}.
+     */
+    @Test
+    void getUser_shouldReturnNotFound() {
+        when(userService.getUserById(7)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "нет"));
+        RecordingObserver<User> response = new RecordingObserver<>();
+
+        rpc.getUser(GetUserRequest.newBuilder().setId(7).build(), response);
+
+        assertEquals(Status.Code.NOT_FOUND, Status.fromThrowable(response.error).getCode());
+        assertTrue(response.values.isEmpty());
+    }
+
+    /**
+     * Проверяет, что ответ на поиск по списку ID содержит найденных пользователей в порядке запроса
+     * и ненайденные ID.
+     */
+    @Test
+    void getUsers_shouldReturnUsersAndMissingIds() {
+        when(userService.getUsersByIds(List.of(3, 9, 2))).thenReturn(new UserBatchDto(
+                List.of(user(3, "ann@example.com"), user(2, "bob@example.com")), List.of(9)));
+        RecordingObserver<GetUsersResponse> response = new RecordingObserver<>();
+
+        rpc.getUsers(GetUsersRequest.newBuilder().addAllIds(List.of(3, 9, 2)).build(), response);
+
+        assertTrue(response.completed);
+        GetUsersResponse users = response.values.get(0);
+        assertEquals(List.of(3, 2), users.getUsersList().stream().map(User::getId).toList());
+        assertEquals(List.of(9), users.getMissingList());
+    }
+
+    /**
+     * Проверяет, что запрос с некорректными данными получает {@code INVALID_ARGUMENT} со всеми нарушениями,
+     * не прерывая поток, а следующий запрос выполняется.
+     */
+    @Test
+    void createUsers_shouldReportValidationErrorsAndContinue() {
+        when(userService.createUser(any())).thenReturn(user(1, "ann@example.com"));
+        RecordingObserver<CreateUserResult> response = new RecordingObserver<>();
+        StreamObserver<CreateUserRequest> requests = rpc.createUsers(response);
+
+        requests.onNext(CreateUserRequest.newBuilder().setRequestId(1).setName(" ").setAge(-1).build());
+        requests.onNext(request(2, "").build());
+        requests.onCompleted();
+
+        CreateUserResult invalid = response.values.get(0);
+        assertEquals(1, invalid.getRequestId());
+        assertEquals("INVALID_ARGUMENT", invalid.getError().getCode());
+        assertEquals("Email не может быть пустым; Возраст не может быть отрицательным; "
+                + "Имя пользователя не может быть пустым", invalid.getError().getMessage());
+        assertEquals(2, response.values.get(1).getRequestId());
+        assertEquals(1, response.values.get(1).getUser().getId());
+        assertTrue(response.completed);
+        verify(userService, times(1)).createUser(any());
+    }
+
+    /**
+     * Проверяет, что повтор с тем же {@code idempotency_key} получает сохранённый результат,
+     * а пользователь создаётся один раз.
+     */
+    @Test
+    void createUsers_shouldReplayIdempotentRequest() {
+        when(userService.createUser(any())).thenReturn(user(1, "ann@example.com"));
+        RecordingObserver<CreateUserResult> response = new RecordingObserver<>();
+        StreamObserver<CreateUserRequest> requests = rpc.createUsers(response);
+
+        requests.onNext(request(1, "key-1").build());
+        requests.onNext(request(2, "key-1").build());
+        requests.onCompleted();
+
+        assertFalse(response.values.get(0).getReplayed());
+        assertTrue(response.values.get(1).getReplayed());
+        assertEquals(1, response.values.get(1).getUser().getId());
+        verify(userService, times(1)).createUser(any());
+    }
+
+    private static DataIntegrityViolationException violation(String sqlState, String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("violation", sqlState), constraint));
+    }
+
+    private static CreateUserRequest.Builder request(long requestId, String idempotencyKey) {
+        return CreateUserRequest.newBuilder()
+                .setRequestId(requestId)
+                .setName("Ann")
+                .setEmail("ann@example.com")
+                .setAge(30)
+                .setIdempotencyKey(idempotencyKey);
+    }
+
+    private static UserDto user(int id, String email) {
+        return new UserDto(id, "User " + id, email, 30, LocalDateTime.of(2024, 1, 1, 12, 0));
+    }
+
+    /**
+     * Записывает сообщения и завершение вызова gRPC.
+     */
+    private static final class RecordingObserver<T> implements StreamObserver<T> {
+
+        private final List<T> values = new ArrayList<>();
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.userservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.userservice.shard.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link DeletedUserPurge}: база заменена моком {@link JdbcTemplate}, занятость пулов
+ * задаётся метрикой {@code hikaricp.connections.active} в {@link SimpleMeterRegistry}.
+ */
+class DeletedUserPurgeTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final NotificationProducer notificationProducer = mock(NotificationProducer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicBoolean commitFails = new AtomicBoolean();
+    private final List<List<String>> purgedBatches = new ArrayList<>();
+    private final DeletedUserPurge purge = new DeletedUserPurge(jdbc,
+            new RecordingTransactionManager(() -> {
+                if (commitFails.get()) {
+                    throw new IllegalStateException("фиксация не удалась");
+                }
+            }), notificationProducer, mock(UserShards.class), meterRegistry,
+            Duration.ofMinutes(1), Duration.ofHours(1), 2, 2);
+
+    @BeforeEach
+    void setUp() {
+        Gauge.builder("hikaricp.connections.active", activeConnections, AtomicInteger::get)
+                .tag("pool", "user-primary")
+                .register(meterRegistry);
+        when(jdbc.queryForList(anyString(), eq(String.class), any())).thenAnswer(invocation -> {
+            Integer[] ids = invocation.getArgument(2);
+            List<String> emails = Arrays.stream(ids).map(id -> "user" + id + "@example.com").toList();
+            purgedBatches.add(emails);
+            return emails;
+        });
+    }
+
+    /**
+     * Проверяет, что найденные при просмотре таблицы пользователи удаляются пачками по {@code batch-size},
+     * и на каждую пачку отправляется одна пачка уведомлений.
+     */
+    @Test
+    void purge_shouldDeleteInBatches() {
+        when(jdbc.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(1, 2, 3, 4, 5));
+
+        long deleted = purge.purge();
+
+        assertEquals(5, deleted);
+        assertEquals(List.of(2, 2, 1), purgedBatches.stream().map(List::size).toList());
+        purgedBatches.forEach(batch -> verify(notificationProducer).sendUserDeletedNotifications(batch));
+        assertEquals(5, meterRegistry.get("user.purge.deleted").counter().count());
+        assertEquals(0, meterRegistry.get("user.purge.pending").gauge().value());
+    }
+
+    /**
+     * Проверяет, что пользователи, удалённые этим экземпляром, очищаются без повторного просмотра таблицы.
+     */
+    @Test
+    void purge_shouldDeleteKnownIdsWithoutRescan() {
+        when(jdbc.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of());
+        purge.purge();
+
+        purge.userDeleted(7);
+        long deleted = purge.purge();
+
+        assertEquals(1, deleted);
+        assertEquals(List.of(List.of("user7@example.com")), purgedBatches);
+        verify(jdbc, times(1)).queryForList(anyString(), eq(Integer.class));
+    }
+
+    /**
+     * Проверяет, что при занятых пулах соединений очистка откладывается, не обращаясь к базе.
+     */
+    @Test
+    void purge_shouldWaitWhileServiceIsBusy() {
+        activeConnections.set(3);
+        purge.userDeleted(7);
+
+        assertEquals(0, purge.purge());
+
+        verify(jdbc, never()).queryForList(anyString(), eq(Integer.class));
+        verify(jdbc, never()).queryForList(anyString(), eq(String.class), any());
+        verify(notificationProducer, never()).sendUserDeletedNotifications(anyList());
+
+        activeConnections.set(2);
+        when(jdbc.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of());
+        assertEquals(1, purge.purge());
+    }
+
+    /**
+     * Проверяет, что пачка, удаление которой не удалось, остаётся в очереди до следующего запуска.
+     */
+    @Test
+    void purge_shouldKeepFailedBatchPending() {
+        when(jdbc.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(7));
+        when(jdbc.queryForList(anyString(), eq(String.class), any()))
+                .thenThrow(new IllegalStateException("база недоступна"))
+                .thenReturn(List.of("user7@example.com"));
+
+        assertThrows(IllegalStateException.class, purge::purge);
+        assertEquals(1, meterRegistry.get("user.purge.pending").gauge().value());
+
+        assertEquals(1, purge.purge());
+        verify(notificationProducer).sendUserDeletedNotifications(List.of("user7@example.com"));
+    }
+
+    /**
+     * Проверяет, что уведомления об удалении не отправляются, если транзакция пачки не зафиксировалась,
+     * а пачка остаётся в очереди и её уведомления отправляются один раз после успешной фиксации.
+     */
+    @Test
+    void purge_shouldNotNotifyWhenBatchRolledBack() {
+        when(jdbc.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(7));
+        commitFails.set(true);
+
+        assertThrows(IllegalStateException.class, purge::purge);
+
+        verify(notificationProducer, never()).sendUserDeletedNotifications(anyList());
+        assertEquals(0, meterRegistry.get("user.purge.deleted").counter().count());
+        assertEquals(1, meterRegistry.get("user.purge.pending").gauge().value());
+
+        commitFails.set(false);
+        assertEquals(1, purge.purge());
+        verify(notificationProducer, times(1)).sendUserDeletedNotifications(List.of("user7@example.com"));
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link EmailBloomFilter}: отсутствие ложноотрицательных ответов
+ * и доля ложноположительных в пределах заданной.
+ */
+class EmailBloomFilterTest {
+
+    /**
+     * Проверяет, что все добавленные email находятся, а доля ложноположительных ответов
+     * для недобавленных не превышает заданную больше чем вдвое.
+     */
+    @Test
+    void mightContain_shouldFindAllAddedAndRarelyOthers() {
+        int emails = 100_000;
+        EmailBloomFilter filter = new EmailBloomFilter(emails, 0.01);
+        for (int i = 0; i < emails; i++) {
+            filter.add("user" + i + "@mail.ru");
+        }
+
+        for (int i = 0; i < emails; i++) {
+            assertTrue(filter.mightContain("user" + i + "@mail.ru"));
+        }
+        int falsePositives = 0;
+        for (int i = emails; i < 2 * emails; i++) {
+            if (filter.mightContain("user" + i + "@mail.ru")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < emails * 0.02, "ложноположительных: " + falsePositives);
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.userservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link IdempotencyStore}: повтор результата, срок хранения, вытеснение при переполнении
+ * и ошибки для повторов с другим содержимым или не дождавшихся первого запроса.
+ */
+class IdempotencyStoreTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    /**
+     * Проверяет, что повтор в пределах срока хранения получает сохранённый результат без выполнения.
+     */
+    @Test
+    void execute_shouldReplayWithinTtl() {
+        IdempotencyStore store = store(10, Duration.ofHours(1), Duration.ofSeconds(1));
+
+        IdempotencyStore.Result<Integer> first = store.execute("k", "body", this::count);
+        IdempotencyStore.Result<Integer> second = store.execute("k", "body", this::count);
+
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertEquals(1, second.value());
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * Проверяет, что после истечения срока хранения запрос с тем же ключом выполняется заново.
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    @Test
+    void execute_shouldExecuteAgainAfterTtl() throws InterruptedException {
+        IdempotencyStore store = store(10, Duration.ofMillis(20), Duration.ofSeconds(1));
+
+        store.execute("k", "body", this::count);
+        Thread.sleep(50);
+        IdempotencyStore.Result<Integer> again = store.execute("k", "body", this::count);
+
+        assertFalse(again.replayed());
+        assertEquals(2, again.value());
+    }
+
+    /**
+     * Проверяет, что при переполнении вытесняется самый старый завершённый ключ.
+     */
+    @Test
+    void execute_shouldEvictOldestCompletedOnOverflow() {
+        IdempotencyStore store = store(2, Duration.ofHours(1), Duration.ofSeconds(1));
+
+        store.execute("a", "body", this::count);
+        store.execute("b", "body", this::count);
+        store.execute("c", "body", this::count);
+
+        assertTrue(store.execute("c", "body", this::count).replayed());
+        assertTrue(store.execute("b", "body", this::count).replayed());
+        assertFalse(store.execute("a", "body", this::count).replayed());
+    }
+
+    /**
+     * Проверяет, что переполнение не вытесняет ключ выполняющегося запроса: повтор ждёт его результата,
+     * а не выполняется второй раз.
+     *
+     * @throws Exception если ожидание прервано или фоновый запрос завершился ошибкой
+     */
+    @Test
+    void execute_shouldNotEvictInFlightOnOverflow() throws Exception {
+        IdempotencyStore store = store(1, Duration.ofHours(1), Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Result<Integer>> slow = CompletableFuture.supplyAsync(
+                () -> store.execute("slow", "body", () -> {
+                    started.countDown();
+                    await(release);
+                    return count();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        store.execute("other", "body", this::count);
+        store.execute("third", "body", this::count);
+        CompletableFuture<IdempotencyStore.Result<Integer>> retry = CompletableFuture.supplyAsync(
+                () -> store.execute("slow", "body", this::count));
+        release.countDown();
+
+        assertFalse(slow.get(5, TimeUnit.SECONDS).replayed());
+        assertTrue(retry.get(5, TimeUnit.SECONDS).replayed());
+        assertEquals(slow.get().value(), retry.get().value());
+        assertEquals(3, executions.get());
+    }
+
+    /**
+     * Проверяет, что повтор ключа с другим содержимым запроса отклоняется с кодом 422.
+     */
+    @Test
+    void execute_shouldRejectDifferentFingerprintWith422() {
+        IdempotencyStore store = store(10, Duration.ofHours(1), Duration.ofSeconds(1));
+        store.execute("k", "body", this::count);
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> store.execute("k", "other body", this::count));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, error.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * Проверяет, что повтор, не дождавшийся первого запроса, получает 409.
+     *
+     * @throws Exception если ожидание прервано или фоновый запрос завершился ошибкой
+     */
+    @Test
+    void execute_shouldRejectWith409WhenWaitTimesOut() throws Exception {
+        IdempotencyStore store = store(10, Duration.ofHours(1), Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Result<Integer>> slow = CompletableFuture.supplyAsync(
+                () -> store.execute("k", "body", () -> {
+                    started.countDown();
+                    await(release);
+                    return count();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> store.execute("k", "body", this::count));
+        release.countDown();
+
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        assertEquals(1, slow.get(5, TimeUnit.SECONDS).value());
+    }
+
+    /**
+     * Проверяет, что после {@link Error} в первом запросе ключ освобождается: повтор выполняется заново,
+     * а не ждёт результата, который никогда не появится.
+     */
+    @Test
+    void execute_shouldReleaseKeyWhenActionThrowsError() {
+        IdempotencyStore store = store(10, Duration.ofHours(1), Duration.ofSeconds(5));
+
+        assertThrows(StackOverflowError.class, () -> store.execute("k", "body", () -> {
+            throw new StackOverflowError();
+        }));
+        IdempotencyStore.Result<Integer> retry = store.execute("k", "body", this::count);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, retry.value());
+    }
+
+    /**
+     * Проверяет, что неудачные запросы не занимают место в хранилище и не вытесняют сохранённые результаты.
+     */
+    @Test
+    void execute_shouldNotCountFailedRequestsTowardsMaxEntries() {
+        IdempotencyStore store = store(2, Duration.ofHours(1), Duration.ofSeconds(1));
+        store.execute("a", "body", this::count);
+        store.execute("b", "body", this::count);
+
+        for (int i = 0; i < 5; i++) {
+            String key = "failed-" + i;
+            assertThrows(IllegalStateException.class, () -> store.execute(key, "body", () -> {
+                throw new IllegalStateException("база недоступна");
+            }));
+        }
+
+        assertTrue(store.execute("a", "body", this::count).replayed());
+        assertTrue(store.execute("b", "body", this::count).replayed());
+    }
+
+    private IdempotencyStore store(int maxEntries, Duration ttl, Duration waitTimeout) {
+        return new IdempotencyStore(maxEntries, ttl, waitTimeout, new SimpleMeterRegistry());
+    }
+
+    private int count() {
+        return executions.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.userservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.dto.UserNotificationDto;
+import org.example.userservice.spool.NotificationSpool;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link KafkaNotificationProducer}: подтверждение брокера заменено future, которое тест
+ * завершает сам, тайм-аут ожидания {@code kafkaPublish} сокращён до 50 мс.
+ */
+class KafkaNotificationProducerTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+    private final NotificationSpool spool = mock(NotificationSpool.class);
+    private final CompletableFuture<SendResult<String, String>> acknowledged = new CompletableFuture<>();
+    private final KafkaNotificationProducer producer = new KafkaNotificationProducer(kafkaTemplate,
+            new ObjectMapper(), spool, new SimpleMeterRegistry(), ThreadPoolBulkheadRegistry.ofDefaults(),
+            TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(50)).build()));
+
+    /**
+     * Проверяет, что уведомление, не подтверждённое за тайм-аут, не откладывается в спул,
+     * если отправка затем подтвердилась.
+     */
+    @Test
+    void send_shouldNotSpoolTimedOutSendThatSucceedsLater() {
+        when(spool.isEmpty()).thenReturn(true);
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(acknowledged);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> producer.sendUserCreatedNotification("ann@example.com"));
+        acknowledged.complete(null);
+
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        verify(spool, never()).offer(any());
+    }
+
+    /**
+     * Проверяет, что уведомление, не подтверждённое за тайм-аут, откладывается в спул,
+     * когда отправка завершается ошибкой.
+     */
+    @Test
+    void send_shouldSpoolTimedOutSendThatFailsLater() {
+        when(spool.isEmpty()).thenReturn(true);
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(acknowledged);
+
+        assertThrows(RuntimeException.class, () -> producer.sendUserDeletedNotification("ann@example.com"));
+        verify(spool, never()).offer(any());
+        acknowledged.completeExceptionally(new IllegalStateException("брокер недоступен"));
+
+        verify(spool, timeout(1000)).offer(argThat(notification -> "ann@example.com".equals(notification.getEmail())
+                && "deleted".equals(notification.getType())
+                && !UserNotificationDto.PRIORITY_BULK.equals(notification.getPriority())));
+    }
+}
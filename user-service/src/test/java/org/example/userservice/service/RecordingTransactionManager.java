@@ -0,0 +1,36 @@
+package org.example.userservice.service;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Менеджер транзакций для unit-тестов без базы: не держит ресурсов, поддерживает синхронизацию
+ * транзакций и сообщает о каждой фиксации, чтобы тест мог проверить, что действие выполнено после неё.
+ */
+public final class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+    private final Runnable onCommit;
+
+    public RecordingTransactionManager(Runnable onCommit) {
+        this.onCommit = onCommit;
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        onCommit.run();
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+}
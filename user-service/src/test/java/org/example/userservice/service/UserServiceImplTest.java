@@ -0,0 +1,283 @@
+package org.example.userservice.service;
+
+import org.example.userservice.dto.UserBatchDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.entity.UserEntity;
+import org.example.userservice.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link UserServiceImpl}: репозиторий и зависимости заменены моками,
+ * транзакции выполняет {@link RecordingTransactionManager}, который отмечает фиксацию в журнале вызовов.
+ */
+class UserServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final NotificationProducer notificationProducer = mock(NotificationProducer.class);
+    private final UserChangeLog changeLog = mock(UserChangeLog.class);
+    private final UserStatistics statistics = mock(UserStatistics.class);
+    private final DeletedUserPurge purge = mock(DeletedUserPurge.class);
+    private final EmailIndex emailIndex = mock(EmailIndex.class);
+    private final Runnable commits = mock(Runnable.class);
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager(commits);
+
+    /**
+     * Проверяет, что уведомление о создании отправляется после записи в журнал изменений и фиксации.
+     */
+    @Test
+    void createUser_shouldNotifyAfterCommit() {
+        when(userRepository.save(any())).thenAnswer(invocation -> withId(invocation.getArgument(0), 1));
+
+        service("hard").createUser(dto("Ann", "ann@example.com", 30));
+
+        InOrder order = inOrder(changeLog, commits, notificationProducer);
+        order.verify(changeLog).append(any(), any());
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserCreatedNotification("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что при откате транзакции создания уведомление не отправляется.
+     */
+    @Test
+    void createUser_shouldNotNotifyWhenRolledBack() {
+        when(userRepository.save(any())).thenAnswer(invocation -> withId(invocation.getArgument(0), 1));
+        doThrow(new IllegalStateException("журнал недоступен")).when(changeLog).append(any(), any());
+
+        assertThrows(IllegalStateException.class,
+                () -> service("hard").createUser(dto("Ann", "ann@example.com", 30)));
+
+        verify(commits, never()).run();
+        verify(notificationProducer, never()).sendUserCreatedNotification(anyString());
+    }
+
+    /**
+     * Проверяет, что при окончательном удалении уведомление отправляется после фиксации транзакции.
+     */
+    @Test
+    void deleteUser_shouldNotifyAfterCommit() {
+        UserEntity user = withId(new UserEntity("Ann", "ann@example.com", 30), 1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        UserServiceImpl service = service("hard");
+        inTransaction(() -> service.deleteUser(1));
+
+        InOrder order = inOrder(userRepository, commits, notificationProducer);
+        order.verify(userRepository).deleteById(1);
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserDeletedNotification("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что нарушение уникальности email отклоняется с 409 и учитывается как промах индекса.
+     */
+    @Test
+    void createUser_shouldRejectEmailConstraintViolationWith409() {
+        when(userRepository.save(any())).thenThrow(violation("23505", EmailConstraint.NAME));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> service("hard").createUser(dto("Ann", "ann@example.com", 30)));
+
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        verify(emailIndex).missed("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что нарушения других ограничений не выдаются за занятый email.
+     */
+    @Test
+    void createUser_shouldRethrowOtherConstraintViolations() {
+        DataIntegrityViolationException notNull = violation("23502", null);
+        DataIntegrityViolationException otherUnique = violation("23505", "users_pkey");
+        when(userRepository.save(any())).thenThrow(notNull, otherUnique);
+        UserServiceImpl service = service("hard");
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class,
+                () -> service.createUser(dto("Ann", "ann@example.com", 30))));
+        assertSame(otherUnique, assertThrows(DataIntegrityViolationException.class,
+                () -> service.createUser(dto("Ann", "ann@example.com", 30))));
+        verify(emailIndex, never()).missed(anyString());
+    }
+
+    /**
+     * Проверяет, что в режиме {@code soft} пользователь только помечается удалённым и передаётся очистке,
+     * а уведомление об удалении не отправляется.
+     */
+    @Test
+    void deleteUser_shouldMarkDeletedInSoftMode() {
+        UserEntity user = withId(new UserEntity("Ann", "ann@example.com", 30), 1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        UserServiceImpl service = service("soft");
+        inTransaction(() -> service.deleteUser(1));
+
+        verify(userRepository).markDeleted(eq(1), any());
+        verify(purge).userDeleted(1);
+        verify(userRepository, never()).deleteById(anyInt());
+        verify(notificationProducer, never()).sendUserDeletedNotification(anyString());
+    }
+
+    /**
+     * Проверяет, что email помеченного удалённым пользователя освобождается при создании нового
+     * пользователя, а уведомление об удалении прежнего владельца отправляется после фиксации
+     * и раньше уведомления о создании.
+     */
+    @Test
+    void createUser_shouldFreeTombstonedEmailAndNotifyAfterCommit() {
+        when(userRepository.purgeDeletedByEmail("ann@example.com")).thenReturn(1);
+        when(userRepository.save(any())).thenAnswer(invocation -> withId(invocation.getArgument(0), 2));
+
+        service("soft").createUser(dto("Ann", "ann@example.com", 30));
+
+        InOrder order = inOrder(userRepository, commits, notificationProducer);
+        order.verify(userRepository).purgeDeletedByEmail("ann@example.com");
+        order.verify(userRepository).save(any());
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserDeletedNotification("ann@example.com");
+        order.verify(notificationProducer).sendUserCreatedNotification("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что при откате создания уведомление об удалении прежнего владельца email не отправляется.
+     */
+    @Test
+    void createUser_shouldNotNotifyTombstonedOwnerWhenRolledBack() {
+        when(userRepository.purgeDeletedByEmail("ann@example.com")).thenReturn(1);
+        when(userRepository.save(any())).thenAnswer(invocation -> withId(invocation.getArgument(0), 2));
+        doThrow(new IllegalStateException("журнал недоступен")).when(changeLog).append(any(), any());
+
+        assertThrows(IllegalStateException.class,
+                () -> service("soft").createUser(dto("Ann", "ann@example.com", 30)));
+
+        verify(notificationProducer, never()).sendUserDeletedNotification(anyString());
+    }
+
+    /**
+     * Проверяет, что при смене email занятый помеченным пользователем email освобождается,
+     * а при сохранении прежнего email помеченные строки не затрагиваются.
+     */
+    @Test
+    void updateUser_shouldFreeTombstonedEmailOnlyWhenEmailChanges() {
+        UserEntity user = withId(new UserEntity("Ann", "ann@example.com", 30), 1);
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.purgeDeletedByEmail("anna@example.com")).thenReturn(1);
+
+        UserServiceImpl service = service("soft");
+        inTransaction(() -> service.updateUser(1, dto("Ann", "ann@example.com", 31)));
+        verify(userRepository, never()).purgeDeletedByEmail(anyString());
+
+        inTransaction(() -> service.updateUser(1, dto("Ann", "anna@example.com", 31)));
+        InOrder order = inOrder(userRepository, commits, notificationProducer);
+        order.verify(userRepository).purgeDeletedByEmail("anna@example.com");
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserDeletedNotification("anna@example.com");
+    }
+
+    /**
+     * Проверяет, что найденные пользователи возвращаются в порядке запроса, повторы и {@code null}
+     * отбрасываются до запроса в базу, а ненайденные идентификаторы перечисляются в {@code missing}.
+     */
+    @Test
+    void getUsersByIds_shouldKeepRequestOrderAndListMissing() {
+        when(userRepository.findAllByIdIn(any())).thenReturn(List.of(
+                withId(new UserEntity("Bob", "bob@example.com", 40), 2),
+                withId(new UserEntity("Ann", "ann@example.com", 30), 3)));
+
+        UserBatchDto batch = service("hard").getUsersByIds(Arrays.asList(3, null, 9, 2, 3));
+
+        assertEquals(List.of(3, 2), batch.getUsers().stream().map(UserDto::getId).toList());
+        assertEquals(List.of(9), batch.getMissing());
+        verify(userRepository).findAllByIdIn(Set.of(3, 9, 2));
+    }
+
+    /**
+     * Проверяет, что запрос без идентификаторов не обращается к базе.
+     */
+    @Test
+    void getUsersByIds_shouldNotQueryForEmptyRequest() {
+        UserBatchDto batch = service("hard").getUsersByIds(Arrays.asList(null, null));
+
+        assertTrue(batch.getUsers().isEmpty());
+        assertTrue(batch.getMissing().isEmpty());
+        verify(userRepository, never()).findAllByIdIn(any());
+    }
+
+    /**
+     * Проверяет, что запрос с числом различных идентификаторов больше {@code user.lookup.max-ids}
+     * отклоняется с кодом 400, а повторы в ограничение не засчитываются.
+     */
+    @Test
+    void getUsersByIds_shouldRejectTooManyIdsWith400() {
+        UserServiceImpl service = service("hard", 2);
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> service.getUsersByIds(List.of(1, 2, 3)));
+        service.getUsersByIds(List.of(1, 2, 1, 2));
+
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        verify(userRepository).findAllByIdIn(Set.of(1, 2));
+    }
+
+    private UserServiceImpl service(String deleteMode) {
+        return service(deleteMode, 1000);
+    }
+
+    private UserServiceImpl service(String deleteMode, int maxLookupIds) {
+        return new UserServiceImpl(userRepository, notificationProducer, changeLog, statistics, purge, emailIndex,
+                transactionManager, deleteMode, maxLookupIds);
+    }
+
+    /**
+     * Выполняет вызов в транзакции, как это сделал бы прокси {@code @Transactional}.
+     */
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+
+    private static DataIntegrityViolationException violation(String sqlState, String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("violation", sqlState), constraint));
+    }
+
+    private static UserDto dto(String name, String email, int age) {
+        UserDto dto = new UserDto();
+        dto.setName(name);
+        dto.setEmail(email);
+        dto.setAge(age);
+        return dto;
+    }
+
+    private static UserEntity withId(UserEntity user, int id) {
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.userservice.service;
+
+import org.example.userservice.repository.UserRepository;
+import org.example.userservice.shard.UserShards;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link UserStatistics}: фоновый пересчёт по запросу.
+ */
+class UserStatisticsTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserShards shards = mock(UserShards.class);
+    private final UserStatistics statistics = new UserStatistics(userRepository, shards, Duration.ZERO, 30);
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        statistics.shutdown();
+    }
+
+    /**
+     * Проверяет, что запрос пересчёта не ждёт его выполнения, а запросы, поступившие во время
+     * пересчёта, объединяются в один следующий.
+     *
+     * @throws InterruptedException если ожидание прервано
+     */
+    @Test
+    void requestRebuild_shouldRunInBackgroundAndCoalesceRequests() throws InterruptedException {
+        when(shards.onEachShard(any(), any())).thenAnswer(invocation -> {
+            IntFunction<?> action = invocation.getArgument(1);
+            return Collections.singletonList(action.apply(0));
+        });
+        when(userRepository.countByAge()).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return List.of(ageCount(30, 2));
+        });
+
+        statistics.requestRebuild();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertEquals(0, statistics.snapshot(1).getTotalUsers());
+
+        statistics.requestRebuild();
+        statistics.requestRebuild();
+        release.countDown();
+
+        verify(userRepository, timeout(5000).times(2)).countByCreationDay();
+        Thread.sleep(100);
+        verify(userRepository, times(2)).countByAge();
+        assertEquals(2, statistics.snapshot(1).getTotalUsers());
+    }
+
+    private static UserRepository.AgeCount ageCount(int age, long users) {
+        return new UserRepository.AgeCount() {
+            @Override
+            public int getAge() {
+                return age;
+            }
+
+            @Override
+            public long getUsers() {
+                return users;
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.userservice.shard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link ShardDirectory}: бакет пользователя в Java совпадает с бакетом,
+ * который вычисляет SQL при переносе бакета. Выражение выполняется в H2 в режиме совместимости с PostgreSQL.
+ */
+class ShardDirectoryTest {
+
+    /**
+     * Проверяет, что {@link ShardDirectory#bucketOf(int, int)} и {@code BUCKET_OF_ID} дают одинаковый бакет,
+     * в том числе для ID, произведение которых на множитель хеша выходит за 32 бита.
+     *
+     * @param buckets число бакетов
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1024})
+    void bucketOf_shouldMatchSqlExpression(int buckets) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:buckets" + buckets + ";MODE=PostgreSQL", true);
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE users (id integer PRIMARY KEY)");
+            List<Object[]> ids = new ArrayList<>();
+            for (int id = 1; id <= 5000; id++) {
+                ids.add(new Object[] {id});
+            }
+            ids.add(new Object[] {Integer.MAX_VALUE});
+            jdbc.batchUpdate("INSERT INTO users (id) VALUES (?)", ids);
+
+            Map<Integer, Integer> sqlBuckets = jdbc.queryForList(
+                            "SELECT id, " + ShardDirectory.BUCKET_OF_ID + " AS bucket FROM users", buckets)
+                    .stream()
+                    .collect(Collectors.toMap(row -> ((Number) row.get("ID")).intValue(),
+                            row -> ((Number) row.get("BUCKET")).intValue()));
+
+            assertEquals(ids.size(), sqlBuckets.size());
+            sqlBuckets.forEach((id, bucket) ->
+                    assertEquals(bucket, ShardDirectory.bucketOf(id, buckets), "бакет пользователя " + id));
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    /**
+     * Проверяет, что последовательные ID распределяются по всем бакетам.
+     */
+    @Test
+    void bucketOf_shouldSpreadSequentialIds() {
+        int buckets = 64;
+        int[] counts = new int[buckets];
+        for (int id = 1; id <= buckets * 100; id++) {
+            counts[ShardDirectory.bucketOf(id, buckets)]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(count > 50 && count < 150, "неравномерное распределение: " + count);
+        }
+    }
+}
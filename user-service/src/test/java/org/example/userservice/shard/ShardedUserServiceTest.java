@@ -0,0 +1,260 @@
+package org.example.userservice.shard;
+
+import org.example.userservice.dto.UserBatchDto;
+import org.example.userservice.dto.UserDto;
+import org.example.userservice.entity.UserEntity;
+import org.example.userservice.repository.UserRepository;
+import org.example.userservice.service.NotificationProducer;
+import org.example.userservice.service.RecordingTransactionManager;
+import org.example.userservice.service.UserChangeLog;
+import org.example.userservice.service.UserStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link ShardedUserService}: шарды и справочник заменены моками, транзакции на шардах
+ * выполняет {@link RecordingTransactionManager} с распространением {@code REQUIRES_NEW}, как в {@link UserShards}.
+ */
+class ShardedUserServiceTest {
+
+    private final UserShards shards = mock(UserShards.class);
+    private final ShardDirectory directory = mock(ShardDirectory.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final NotificationProducer notificationProducer = mock(NotificationProducer.class);
+    private final UserChangeLog changeLog = mock(UserChangeLog.class);
+    private final UserStatistics statistics = mock(UserStatistics.class);
+    private final Runnable commits = mock(Runnable.class);
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager(commits);
+    private final ShardedUserService service = new ShardedUserService(shards, directory, userRepository,
+            notificationProducer, changeLog, statistics, 1000);
+    private final Map<Integer, List<UserEntity>> stored = new HashMap<>();
+    private int currentShard;
+
+    @BeforeEach
+    void setUp() {
+        when(shards.inShard(anyInt(), any(), any())).thenAnswer(invocation -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager,
+                    invocation.getArgument(1));
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            TransactionCallback<?> action = invocation.getArgument(2);
+            return transaction.execute(action);
+        });
+    }
+
+    /**
+     * Проверяет, что уведомление о создании отправляется после фиксации транзакции справочника,
+     * а не сразу после вставки строки на шарде.
+     */
+    @Test
+    void createUser_shouldNotifyAfterDirectoryCommit() {
+        when(directory.nextUserId()).thenReturn(7);
+        when(directory.claimEmail("ann@example.com", 7)).thenReturn(true);
+        when(directory.lockBucket(7)).thenReturn(1);
+
+        service.createUser(dto("Ann", "ann@example.com", 30));
+
+        InOrder order = inOrder(userRepository, changeLog, commits, notificationProducer);
+        order.verify(userRepository).insertWithId(anyInt(), anyString(), anyString(), anyInt(), any());
+        // первой фиксируется транзакция на шарде, второй — транзакция справочника
+        order.verify(commits).run();
+        order.verify(changeLog).append(any(), any());
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserCreatedNotification("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что уведомление не отправляется, если транзакция справочника откатилась,
+     * а пользователь удаляется с шарда.
+     */
+    @Test
+    void createUser_shouldNotNotifyWhenDirectoryRolledBack() {
+        when(directory.nextUserId()).thenReturn(7);
+        when(directory.claimEmail("ann@example.com", 7)).thenReturn(true);
+        when(directory.lockBucket(7)).thenReturn(1);
+        doThrow(new IllegalStateException("журнал недоступен")).when(changeLog).append(any(), any());
+
+        assertThrows(IllegalStateException.class, () -> service.createUser(dto("Ann", "ann@example.com", 30)));
+
+        verify(notificationProducer, never()).sendUserCreatedNotification(anyString());
+        verify(userRepository).deleteById(7);
+    }
+
+    /**
+     * Проверяет, что пользователь, вставленный на шард до отката справочника, удаляется с того же шарда,
+     * а клиент получает исходную ошибку, даже если удаление не удалось.
+     */
+    @Test
+    void createUser_shouldRemoveFromPlacedShardAndKeepOriginalError() {
+        when(directory.nextUserId()).thenReturn(7);
+        when(directory.claimEmail("ann@example.com", 7)).thenReturn(true);
+        when(directory.lockBucket(7)).thenReturn(1);
+        IllegalStateException failure = new IllegalStateException("журнал недоступен");
+        doThrow(failure).when(changeLog).append(any(), any());
+        doThrow(new IllegalStateException("шард недоступен")).when(userRepository).deleteById(7);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> service.createUser(dto("Ann", "ann@example.com", 30)));
+
+        assertSame(failure, thrown);
+        InOrder order = inOrder(shards, userRepository);
+        order.verify(shards).inShard(eq(1), eq(UserShards.READ_WRITE), any());
+        order.verify(userRepository).insertWithId(anyInt(), anyString(), anyString(), anyInt(), any());
+        order.verify(shards).inShard(eq(1), eq(UserShards.READ_WRITE), any());
+        order.verify(userRepository).deleteById(7);
+    }
+
+    /**
+     * Проверяет, что при ошибке до вставки на шард удалять с шарда нечего.
+     */
+    @Test
+    void createUser_shouldNotRemoveWhenNotPlaced() {
+        when(directory.nextUserId()).thenReturn(7);
+        when(directory.claimEmail("ann@example.com", 7)).thenReturn(false);
+
+        assertThrows(ResponseStatusException.class, () -> service.createUser(dto("Ann", "ann@example.com", 30)));
+
+        verify(userRepository, never()).insertWithId(anyInt(), anyString(), anyString(), anyInt(), any());
+        verify(userRepository, never()).deleteById(anyInt());
+    }
+
+    /**
+     * Проверяет, что уведомление об удалении отправляется после фиксации транзакции справочника.
+     */
+    @Test
+    void deleteUser_shouldNotifyAfterDirectoryCommit() {
+        UserEntity user = new UserEntity("Ann", "ann@example.com", 30);
+        user.setId(7);
+        when(directory.lockBucket(7)).thenReturn(1);
+        when(userRepository.findById(7)).thenReturn(Optional.of(user));
+
+        service.deleteUser(7);
+
+        InOrder order = inOrder(directory, changeLog, commits, notificationProducer);
+        order.verify(directory).releaseEmail("ann@example.com", 7);
+        order.verify(changeLog).append(any(), any());
+        order.verify(commits).run();
+        order.verify(notificationProducer).sendUserDeletedNotification("ann@example.com");
+    }
+
+    /**
+     * Проверяет, что пользователи с разных шардов возвращаются в порядке запроса, повторы и {@code null}
+     * отбрасываются, а ненайденный идентификатор без переноса бакета попадает в {@code missing}.
+     */
+    @Test
+    void getUsersByIds_shouldKeepRequestOrderAcrossShards() {
+        stubTwoShards(new int[] {0, 1}, new int[] {0, 1});
+        stored.put(0, List.of(user(2)));
+        stored.put(1, List.of(user(3)));
+
+        UserBatchDto batch = service.getUsersByIds(Arrays.asList(3, null, 9, 2, 3));
+
+        assertEquals(List.of(3, 2), batch.getUsers().stream().map(UserDto::getId).toList());
+        assertEquals(List.of(9), batch.getMissing());
+        verify(userRepository).findAllByIdIn(List.of(2));
+        verify(userRepository).findAllByIdIn(List.of(3, 9));
+        verify(userRepository, times(2)).findAllByIdIn(any());
+    }
+
+    /**
+     * Проверяет, что пользователь, бакет которого переехал между чтением распределения и запросом к шарду,
+     * ищется ещё раз на новом шарде.
+     */
+    @Test
+    void getUsersByIds_shouldRefetchUsersOfMovedBucket() {
+        stubTwoShards(new int[] {0, 1}, new int[] {0, 0});
+        stored.put(0, List.of(user(2), user(5)));
+
+        UserBatchDto batch = service.getUsersByIds(List.of(5, 2));
+
+        assertEquals(List.of(5, 2), batch.getUsers().stream().map(UserDto::getId).toList());
+        assertTrue(batch.getMissing().isEmpty());
+        InOrder order = inOrder(directory, userRepository);
+        order.verify(directory).refresh();
+        order.verify(userRepository).findAllByIdIn(List.of(5));
+    }
+
+    /**
+     * Проверяет, что запрос с числом различных идентификаторов больше {@code user.lookup.max-ids}
+     * отклоняется с кодом 400 до обращения к шардам.
+     */
+    @Test
+    void getUsersByIds_shouldRejectTooManyIdsWith400() {
+        ShardedUserService limited = new ShardedUserService(shards, directory, userRepository,
+                notificationProducer, changeLog, statistics, 2);
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> limited.getUsersByIds(List.of(1, 2, 3, 1)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+        verify(shards, never()).onEachShard(any(), any());
+    }
+
+    /**
+     * Два шарда, бакет пользователя — остаток от деления идентификатора на два. Распределение бакетов
+     * до и после {@link ShardDirectory#refresh()} задаётся параметрами, строки шардов — в {@link #stored}.
+     */
+    private void stubTwoShards(int[] queried, int[] current) {
+        when(directory.bucketOf(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) % 2);
+        when(directory.assignment()).thenReturn(queried, current);
+        when(shards.onEachShard(any(), any())).thenAnswer(invocation -> {
+            IntFunction<?> action = invocation.getArgument(1);
+            List<Object> results = new ArrayList<>();
+            for (int shard = 0; shard < 2; shard++) {
+                currentShard = shard;
+                results.add(action.apply(shard));
+            }
+            return results;
+        });
+        when(userRepository.findAllByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return stored.getOrDefault(currentShard, List.of()).stream()
+                    .filter(user -> ids.contains(user.getId()))
+                    .toList();
+        });
+    }
+
+    private static UserEntity user(int id) {
+        UserEntity user = new UserEntity("User " + id, "user" + id + "@example.com", 30);
+        user.setId(id);
+        return user;
+    }
+
+    private static UserDto dto(String name, String email, int age) {
+        UserDto dto = new UserDto();
+        dto.setName(name);
+        dto.setEmail(email);
+        dto.setAge(age);
+        return dto;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.userservice.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit-тесты для {@link ShardingModeCheck}: сервис не стартует, если бины шардирования,
+ * выбранные при сборке, не соответствуют шардам в настройках.
+ */
+class ShardingModeCheckTest {
+
+    private final UserShards shards = mock(UserShards.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<ShardDirectory> directory = mock(ObjectProvider.class);
+    private final ShardingModeCheck check = new ShardingModeCheck(shards, directory);
+
+    /**
+     * Проверяет, что шарды в настройках без справочника шардов останавливают старт.
+     */
+    @Test
+    void afterSingletonsInstantiated_shouldFailWhenShardedWithoutDirectory() {
+        when(shards.isSharded()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, check::afterSingletonsInstantiated);
+    }
+
+    /**
+     * Проверяет, что справочник шардов без шардов в настройках останавливает старт.
+     */
+    @Test
+    void afterSingletonsInstantiated_shouldFailWhenDirectoryWithoutShards() {
+        when(directory.getIfAvailable()).thenReturn(mock(ShardDirectory.class));
+
+        assertThrows(IllegalStateException.class, check::afterSingletonsInstantiated);
+    }
+
+    /**
+     * Проверяет, что согласованные настройки и бины не мешают старту.
+     */
+    @Test
+    void afterSingletonsInstantiated_shouldPassWhenModesMatch() {
+        assertDoesNotThrow(check::afterSingletonsInstantiated);
+
+        when(shards.isSharded()).thenReturn(true);
+        when(directory.getIfAvailable()).thenReturn(mock(ShardDirectory.class));
+        assertDoesNotThrow(check::afterSingletonsInstantiated);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.userservice.spool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.common.dto.UserNotificationDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit-тесты для {@link NotificationSpool}: порядок выдачи через несколько сегментов,
+ * сохранение очереди и позиции чтения после перезапуска, ограничение размера.
+ */
+class NotificationSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Проверяет, что уведомления выдаются по порядку и со своим приоритетом через границы сегментов,
+     * а после перезапуска выдаются только неподтверждённые.
+     *
+     * @throws IOException если не удалось прочитать каталог спула
+     */
+    @Test
+    void peek_shouldResumeAfterReopen() throws IOException {
+        NotificationSpool spool = open(DataSize.ofMegabytes(1));
+        for (int i = 0; i < 100; i++) {
+            String priority = i % 2 == 0 ? UserNotificationDto.PRIORITY_HIGH : UserNotificationDto.PRIORITY_BULK;
+            assertTrue(spool.offer(new UserNotificationDto("user" + i + "@mail.ru", "created", priority)));
+        }
+        assertTrue(segmentFiles() > 1);
+
+        SpoolBatch first = spool.peek(60);
+        assertEquals(60, first.notifications().size());
+        assertEquals("user0@mail.ru", first.notifications().get(0).getEmail());
+        spool.acknowledge(first);
+        assertEquals(40, spool.depth());
+        spool.close();
+
+        NotificationSpool reopened = open(DataSize.ofMegabytes(1));
+        assertEquals(40, reopened.depth());
+        SpoolBatch rest = reopened.peek(500);
+        List<UserNotificationDto> notifications = rest.notifications();
+        assertEquals(40, notifications.size());
+        assertEquals("user60@mail.ru", notifications.get(0).getEmail());
+        assertEquals(UserNotificationDto.PRIORITY_HIGH, notifications.get(0).getPriority());
+        assertEquals("user99@mail.ru", notifications.get(39).getEmail());
+        assertEquals("created", notifications.get(39).getType());
+        assertEquals(UserNotificationDto.PRIORITY_BULK, notifications.get(39).getPriority());
+
+        reopened.acknowledge(rest);
+        assertTrue(reopened.isEmpty());
+        assertEquals(1, segmentFiles());
+    }
+
+    /**
+     * Проверяет, что переполненный спул отклоняет новые уведомления и снова принимает их после выдачи.
+     */
+    @Test
+    void offer_shouldRejectWhenFull() {
+        NotificationSpool spool = open(DataSize.ofBytes(1024));
+        int accepted = 0;
+        while (spool.offer(new UserNotificationDto("user" + accepted + "@mail.ru", "deleted"))) {
+            accepted++;
+        }
+        assertTrue(accepted > 0);
+        assertFalse(spool.offer(new UserNotificationDto("late@mail.ru", "deleted")));
+
+        spool.acknowledge(spool.peek(accepted));
+        assertTrue(spool.isEmpty());
+        assertTrue(spool.offer(new UserNotificationDto("late@mail.ru", "deleted")));
+    }
+
+    private NotificationSpool open(DataSize maxSize) {
+        return new NotificationSpool(directory, DataSize.ofBytes(512), maxSize, new SimpleMeterRegistry());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+}